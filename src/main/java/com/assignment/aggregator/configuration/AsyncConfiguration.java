@@ -1,5 +1,6 @@
 package com.assignment.aggregator.configuration;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
@@ -8,12 +9,16 @@ import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import java.util.concurrent.Executor;
 
 /**
- * Configure the {@link Executor} to be used when parallel fetching feed information
+ * Configure the {@link Executor}s to be used when fetching the feeds in parallel, when completing the feed operations
+ * and when writing the events of the feed stream
  */
 @Configuration
 @EnableAsync
 public class AsyncConfiguration
 {
+    /**
+     * Runs the background tasks, such as rebuilding the search index
+     */
     @Bean(name = "asyncExecutor")
     public Executor asyncExecutor()
     {
@@ -21,8 +26,54 @@ public class AsyncConfiguration
         executor.setCorePoolSize(3);
         executor.setMaxPoolSize(3);
         executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("AsyncThread-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Fetches the feeds. Fetches rejected once the queue is full fail like unreachable feeds, and are retried on the
+     * next refresh
+     */
+    @Bean(name = "fetchExecutor")
+    public Executor fetchExecutor(@Value("${aggregator.fetch.threads:8}") int threads,
+                                  @Value("${aggregator.fetch.queue-capacity:10000}") int queueCapacity)
+    {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
         executor.setThreadNamePrefix("FeedFetchThread-");
         executor.initialize();
         return executor;
     }
-}
\ No newline at end of file
+
+    /**
+     * Reads the stored entries of the asynchronous feed operations and completes them once the feeds are fetched:
+     * new entries are persisted, indexed and pushed to the stream subscribers
+     */
+    @Bean(name = "completionExecutor")
+    public Executor completionExecutor(@Value("${aggregator.completion.threads:4}") int threads)
+    {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("FeedCompletionThread-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Writes the events of every stream subscription. Each subscription is handled by at most one task at a time
+     */
+    @Bean(name = "streamExecutor")
+    public Executor streamExecutor()
+    {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(4);
+        executor.setThreadNamePrefix("FeedStreamThread-");
+        executor.initialize();
+        return executor;
+    }
+}
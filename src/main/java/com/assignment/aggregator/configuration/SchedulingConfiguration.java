@@ -0,0 +1,14 @@
+package com.assignment.aggregator.configuration;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enable the execution of background tasks, such as the purge of deleted channels' entries
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfiguration
+{
+
+}
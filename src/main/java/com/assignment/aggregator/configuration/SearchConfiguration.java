@@ -0,0 +1,24 @@
+package com.assignment.aggregator.configuration;
+
+import com.assignment.aggregator.repositories.search.FeedEntrySearchIndex;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Configures the full-text index over the {@link com.assignment.aggregator.models.FeedEntry}s, stored on local disk
+ * under <code>aggregator.search.directory</code> and reopened every <code>aggregator.search.refresh-interval</code>
+ */
+@Configuration
+public class SearchConfiguration
+{
+    @Bean(destroyMethod = "close")
+    public FeedEntrySearchIndex feedEntrySearchIndex(@Value("${aggregator.search.directory:./search_index}") Path directory,
+                                                     @Value("${aggregator.search.refresh-interval:PT1S}") Duration refreshInterval)
+    {
+        return new FeedEntrySearchIndex(directory, refreshInterval);
+    }
+}
@@ -0,0 +1,78 @@
+package com.assignment.aggregator.configuration;
+
+import com.assignment.aggregator.helpers.FeedEntryJsonCache;
+import com.assignment.aggregator.helpers.FieldSelection;
+import com.assignment.aggregator.models.FeedEntry;
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Configures the binary response formats, negotiated through the <code>Accept</code> header: CBOR
+ * (<code>application/cbor</code>) and Smile (<code>application/x-jackson-smile</code>). JSON stays the default.
+ * <p>
+ * Both formats are written by Jackson, straight to the response stream, with the same settings as JSON so that the
+ * documents only differ by their encoding. In every format, {@link FeedEntry}s go through the
+ * {@link FieldSelection} filter so that clients can select the fields they need, and their JSON documents are
+ * cached by the {@link FeedEntryJsonCache}, bounded to <code>aggregator.serialization.entry-cache-size</code>.
+ */
+@Configuration
+public class SerializationConfiguration
+{
+    /**
+     * Applies the field selection filter to every mapper built by Spring Boot, writing every field by default
+     */
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer fieldSelectionCustomizer()
+    {
+        return builder -> builder.mixIn(FeedEntry.class, FeedEntryFieldSelection.class)
+                                 .filters(FieldSelection.all());
+    }
+
+    @Bean
+    public FeedEntryJsonCache feedEntryJsonCache(@Value("${aggregator.serialization.entry-cache-size:64MB}") DataSize size)
+    {
+        return new FeedEntryJsonCache(size.toBytes());
+    }
+
+    /**
+     * Picked up by Spring Boot, which installs it in every mapper it builds
+     */
+    @Bean
+    public Module feedEntryJsonCacheModule(FeedEntryJsonCache feedEntryJsonCache)
+    {
+        return feedEntryJsonCache.module();
+    }
+
+    /**
+     * @param builder Spring Boot's prototype builder, carrying the <code>spring.jackson</code> settings
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder)
+    {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    /**
+     * @param builder Spring Boot's prototype builder, carrying the <code>spring.jackson</code> settings
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder)
+    {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    @JsonFilter(FieldSelection.FILTER_ID)
+    private interface FeedEntryFieldSelection
+    {
+    }
+}
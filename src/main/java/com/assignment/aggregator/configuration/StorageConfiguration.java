@@ -0,0 +1,38 @@
+package com.assignment.aggregator.configuration;
+
+import com.assignment.aggregator.repositories.IFeedEntryRepository;
+import com.assignment.aggregator.repositories.embedded.EmbeddedFeedEntryRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Configures the storage backend for {@link com.assignment.aggregator.models.FeedEntry}s
+ * <p>
+ * The backend is selected with the <code>aggregator.storage.type</code> property:
+ *
+ * <li><code>mongo</code> (default): entries are stored in MongoDB through
+ * {@link com.assignment.aggregator.repositories.IMongoFeedEntryRepository}</li>
+ *
+ * <li><code>embedded</code>: entries are stored on local disk by the {@link EmbeddedFeedEntryRepository}. The
+ * <code>embedded</code> profile selects this backend and disables the MongoDB auto-configuration.</li>
+ */
+@Configuration
+public class StorageConfiguration
+{
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "aggregator.storage.type", havingValue = "embedded")
+    public IFeedEntryRepository embeddedFeedEntryRepository(@Value("${aggregator.storage.embedded.directory:./feed_entries}") Path directory,
+                                                            @Value("${aggregator.storage.embedded.segment-window:P1D}") Duration segmentWindow,
+                                                            @Value("${aggregator.storage.embedded.max-segment-size:64MB}") DataSize maxSegmentSize,
+                                                            @Value("${aggregator.storage.embedded.compaction-threshold:0.5}") double compactionThreshold,
+                                                            @Value("${aggregator.storage.embedded.compaction-interval:PT5M}") Duration compactionInterval)
+    {
+        return new EmbeddedFeedEntryRepository(directory, segmentWindow, (int) maxSegmentSize.toBytes(), compactionThreshold, compactionInterval);
+    }
+}
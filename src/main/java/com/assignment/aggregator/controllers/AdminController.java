@@ -0,0 +1,75 @@
+package com.assignment.aggregator.controllers;
+
+import com.assignment.aggregator.models.ChannelPurge;
+import com.assignment.aggregator.services.IChannelPurgeService;
+import com.assignment.aggregator.services.IFeedSearchService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.http.HttpStatus;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * AdminController
+ * <p>
+ * The {@link AdminController} controller provides operational insight over the background tasks of the
+ * aggregator.
+ */
+@RestController
+@RequestMapping("/admin")
+@Validated
+@Api(tags = {"Admin"})
+public class AdminController
+{
+    private final IChannelPurgeService channelPurgeService;
+
+    private final IFeedSearchService feedSearchService;
+
+    /**
+     * Implicit constructor injection is used
+     *
+     * @param channelPurgeService service providing channel purge operations
+     * @param feedSearchService   service maintaining the search index
+     */
+    AdminController(final IChannelPurgeService channelPurgeService, final IFeedSearchService feedSearchService)
+    {
+        this.channelPurgeService = channelPurgeService;
+        this.feedSearchService = feedSearchService;
+    }
+
+    /**
+     * List the purges of deleted channels' entries
+     * <p>
+     * When a channel is deleted, its entries are purged in the background. Every purge reports the number of entries
+     * deleted so far and whether it has been completed.
+     *
+     * @return the list of purges, latest requested first
+     */
+    @GetMapping("/purges")
+    @ResponseBody
+    @ResponseStatus(value = HttpStatus.OK)
+    @ApiOperation(value = "List channel purges",
+                  notes = "List the background purges of deleted channels' entries, along with their progress",
+                  response = ChannelPurge.class,
+                  responseContainer = "List")
+    public List<ChannelPurge> listPurges()
+    {
+        return channelPurgeService.list();
+    }
+
+    /**
+     * Rebuild the search index out of the stored entries
+     * <p>
+     * The index is rebuilt in the background, one channel at a time. Searches may miss entries until it completes.
+     */
+    @PostMapping("/search/rebuild")
+    @ResponseStatus(value = HttpStatus.ACCEPTED)
+    @ApiOperation(value = "Rebuild the search index",
+                  notes = "Rebuild the full-text search index out of the stored entries, in the background")
+    public void rebuildSearchIndex()
+    {
+        feedSearchService.rebuild();
+    }
+}
@@ -3,17 +3,19 @@ package com.assignment.aggregator.controllers;
 import com.assignment.aggregator.dto.ChannelDTO;
 import com.assignment.aggregator.exceptions.exceptionhandler.CustomErrorResponse;
 import com.assignment.aggregator.helpers.ResourceLocationHelper;
-import com.assignment.aggregator.mappers.IMapper;
+import com.assignment.aggregator.mappers.IEntityMapper;
 import com.assignment.aggregator.models.Channel;
 import com.assignment.aggregator.services.IChannelService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.validation.constraints.Positive;
 import java.util.List;
@@ -33,7 +35,7 @@ public class ChannelController
 {
     private final IChannelService channelService;
 
-    private final IMapper<Channel, ChannelDTO> mapper;
+    private final IEntityMapper<Channel, ChannelDTO> mapper;
 
     /**
      * Implicit constructor injection is used
@@ -41,7 +43,7 @@ public class ChannelController
      * @param channelService service providing channel operations
      * @param mapper         service providing mapping for {@link Channel} entities
      */
-    ChannelController(final IChannelService channelService, final IMapper<Channel, ChannelDTO> mapper)
+    ChannelController(final IChannelService channelService, final IEntityMapper<Channel, ChannelDTO> mapper)
     {
         this.channelService = channelService;
         this.mapper = mapper;
@@ -51,19 +53,31 @@ public class ChannelController
      * Fetch the list of subscribed channels
      * <p>
      * This method is used to fetch the list of channel a user has been subscribed to.
+     * <p>
+     * The response carries an entity tag derived from the version of the channel table, so that clients can
+     * revalidate their copy and be answered with a <code>304 Not Modified</code> without any channel being read.
      *
+     * @param request the current request, checked for conditional headers
      * @return the list of subscribed channels or an empty list of no channel has not been yet subscribed
      */
     @GetMapping("/")
-    @ResponseBody
-    @ResponseStatus(value = HttpStatus.OK)
     @ApiOperation(value = "Get the list of channel subscriptions",
                   notes = "Returns a list of all the feed channels the user is subscribed to. If no subscriptions exist the result will be an empty list.",
                   response = Channel.class,
                   responseContainer = "List")
-    public List<Channel> getChannelList()
+    public ResponseEntity<List<Channel>> getChannelList(WebRequest request)
     {
-        return channelService.list();
+        var tag = "channels-" + channelService.version();
+
+        if (request.checkNotModified(tag))
+        {
+            return null;
+        }
+
+        return ResponseEntity.ok()
+                             .eTag(tag)
+                             .cacheControl(CacheControl.noCache())
+                             .body(channelService.list());
     }
 
     /**
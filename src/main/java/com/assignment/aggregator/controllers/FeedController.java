@@ -2,18 +2,65 @@ package com.assignment.aggregator.controllers;
 
 import com.assignment.aggregator.client.IFeedClient;
 import com.assignment.aggregator.exceptions.exceptionhandler.CustomErrorResponse;
+import com.assignment.aggregator.helpers.FieldSelection;
 import com.assignment.aggregator.models.Channel;
+import com.assignment.aggregator.models.ContentVersion;
+import com.assignment.aggregator.models.FeedChanges;
 import com.assignment.aggregator.models.FeedEntry;
+import com.assignment.aggregator.models.Subscription;
+import com.assignment.aggregator.models.SyndicationFormat;
+import com.assignment.aggregator.services.IFeedSearchService;
 import com.assignment.aggregator.services.IFeedService;
+import com.assignment.aggregator.services.IFeedStreamService;
+import com.assignment.aggregator.services.IFeedSyndicationService;
+import com.assignment.aggregator.services.INearDuplicateService;
+import com.assignment.aggregator.services.IRefreshAdmissionService;
+import com.assignment.aggregator.services.ISubscriptionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Pattern;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
 
 @RestController
 @RequestMapping("/feed")
@@ -21,16 +68,66 @@ import java.util.Collection;
 @Api(tags = {"Feed"})
 public class FeedController
 {
+    private static final byte[] NDJSON_SEPARATOR = {'\n'};
+
+    private static final String SORT_BY_PUBLICATION_DATE = "publicationDate";
+
+    private static final int DEFAULT_LIMIT = 100;
+
+    private static final int MAX_LIMIT = 1000;
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    /**
+     * Bounds the results window to {@link FeedController#MAX_PAGE_SIZE} times this many pages
+     */
+    private static final int MAX_PAGE = 99;
+
+    /**
+     * Fields the near-duplicate entries are collapsed by
+     */
+    private static final Set<String> CLUSTER_FIELDS = Set.of("sequence", "cluster");
+
     private final IFeedService feedService;
 
+    private final IFeedStreamService feedStreamService;
+
+    private final IFeedSearchService feedSearchService;
+
+    private final IFeedSyndicationService feedSyndicationService;
+
+    private final IRefreshAdmissionService refreshAdmissionService;
+
+    private final ISubscriptionService subscriptionService;
+
+    private final INearDuplicateService nearDuplicateService;
+
+    private final ObjectMapper objectMapper;
+
     /**
      * Implicit constructor injection is used
      *
-     * @param feedService service providing aggregation operations
+     * @param feedService             service providing aggregation operations
+     * @param feedStreamService       service pushing newly ingested entries
+     * @param feedSearchService       service searching the stored entries
+     * @param feedSyndicationService  service rendering the entries as syndication documents
+     * @param refreshAdmissionService service rate limiting the forced refreshes
+     * @param subscriptionService     service resolving the subscribed channels
+     * @param nearDuplicateService    service collapsing the near-duplicate entries
+     * @param objectMapper            the mapper serializing streamed entries
      */
-    FeedController(final IFeedService feedService)
+    FeedController(final IFeedService feedService, final IFeedStreamService feedStreamService, final IFeedSearchService feedSearchService,
+                   final IFeedSyndicationService feedSyndicationService, final IRefreshAdmissionService refreshAdmissionService,
+                   final ISubscriptionService subscriptionService, final INearDuplicateService nearDuplicateService, final ObjectMapper objectMapper)
     {
         this.feedService = feedService;
+        this.feedStreamService = feedStreamService;
+        this.feedSearchService = feedSearchService;
+        this.feedSyndicationService = feedSyndicationService;
+        this.refreshAdmissionService = refreshAdmissionService;
+        this.subscriptionService = subscriptionService;
+        this.nearDuplicateService = nearDuplicateService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -44,25 +141,76 @@ public class FeedController
      * time for a channel doesn't exceed the channel's TTL, the channel's feed is considered fresh and won't be refreshed.
      * <p>
      * This feature can be overridden with the <code>forceRefresh</code> parameter, forcin all the channels to be
-     * fetch even while in unexpired TTLs.
+     * fetch even while in unexpired TTLs. Forced refreshes are rate limited per client and overall, and answered with
+     * a <code>429 Too Many Requests</code> beyond. Channels fetched within the minimum refetch interval are served from
+     * storage, even when forced.
+     * <p>
+     * While the channel's TTL has not yet expired, the response carries an entity tag and may be cached until the TTL
+     * expires. Requests whose <code>If-None-Match</code> header matches the tag are answered with a
+     * <code>304 Not Modified</code>, without reading any entry.
+     * <p>
+     * Clients needing only some fields of the entries can select them with <code>fields</code>: only those are read
+     * from storage and written to the response.
+     * <p>
+     * The request is handled asynchronously: the request thread is released while the feed is fetched, and the
+     * response is written once the new entries are persisted, or after <code>spring.mvc.async.request-timeout</code>
+     * with a <code>503 Service Unavailable</code>.
      *
      * @param id           the id of the channel to fetch
      * @param forceRefresh determines if the feed must be refreshed even if the {@link Channel}'s TTL has not yet expired
+     * @param fields       the fields of the entries to return. Every field if not provided
+     * @param request      the current request, checked for conditional headers
      * @return the {@link Channel}'s list of entries
      */
     @GetMapping("/channel/{id}")
-    @ResponseBody
-    @ResponseStatus(value = HttpStatus.OK)
     @ApiOperation(value = "Fetch a channel",
                   notes = "Fetch the up to date web syndication feed from a subscribed channel",
                   response = FeedEntry.class,
                   responseContainer = "List")
     @ApiResponses(value = {
-            @ApiResponse(code = 404, message = "Channel not found", response = CustomErrorResponse.class)
+            @ApiResponse(code = 404, message = "Channel not found", response = CustomErrorResponse.class),
+            @ApiResponse(code = 429, message = "Too many forced refreshes", response = CustomErrorResponse.class)
+    })
+    public CompletableFuture<ResponseEntity<MappingJacksonValue>> fetch(@PathVariable("id") long id, @RequestParam(name = "forceRefresh", required = false) boolean forceRefresh,
+                                                                        @RequestParam(name = "fields", required = false) Set<@Pattern(regexp = FieldSelection.FEED_ENTRY_FIELDS) String> fields,
+                                                                        ServletWebRequest request)
+    {
+        admit(forceRefresh, request.getRequest());
+
+        var version = forceRefresh ? Optional.<ContentVersion>empty() : feedService.version(id);
+        var selected = fields == null ? Set.<String>of() : fields;
+
+        return conditional(version, selected, false, request, () -> feedService.fetchAsync(id, forceRefresh, selected));
+    }
+
+    /**
+     * Return the list of entries published for a given {@link Subscription}
+     * <p>
+     * The entries are those of the subscribed {@link Channel}, which is fetched and stored once for every subscription
+     * to its URL, at the tightest subscribed TTL. Conditional requests, field selection, rate limiting and
+     * asynchronous handling are those of {@link FeedController#fetch}.
+     *
+     * @param id           the id of the subscription to fetch
+     * @param forceRefresh determines if the feed must be refreshed even if the subscribed {@link Channel}'s TTL has
+     *                     not yet expired
+     * @param fields       the fields of the entries to return. Every field if not provided
+     * @param request      the current request, checked for conditional headers
+     * @return the subscribed {@link Channel}'s list of entries
+     */
+    @GetMapping("/subscription/{id}")
+    @ApiOperation(value = "Fetch a subscription",
+                  notes = "Fetch the up to date web syndication feed of a tenant's subscription",
+                  response = FeedEntry.class,
+                  responseContainer = "List")
+    @ApiResponses(value = {
+            @ApiResponse(code = 404, message = "Subscription not found", response = CustomErrorResponse.class),
+            @ApiResponse(code = 429, message = "Too many forced refreshes", response = CustomErrorResponse.class)
     })
-    public Collection<FeedEntry> fetch(@PathVariable("id") long id, @RequestParam(name = "forceRefresh", required = false) boolean forceRefresh)
+    public CompletableFuture<ResponseEntity<MappingJacksonValue>> fetchSubscription(@PathVariable("id") long id, @RequestParam(name = "forceRefresh", required = false) boolean forceRefresh,
+                                                                                    @RequestParam(name = "fields", required = false) Set<@Pattern(regexp = FieldSelection.FEED_ENTRY_FIELDS) String> fields,
+                                                                                    ServletWebRequest request)
     {
-        return feedService.fetch(id, forceRefresh);
+        return fetch(subscriptionService.get(id).getChannelId(), forceRefresh, fields, request);
     }
 
     /**
@@ -73,20 +221,363 @@ public class FeedController
      * Every eligible channel will then be fetched in parallel and its entries aggregated in a single list of entries which will be then
      * provided to the client.
      * <p>
-     * This operation doesn't feature any treatment of the feed such as filtering or sorting.
+     * Unless sorted or limited, this operation doesn't feature any treatment of the feed. When either <code>sort</code>
+     * or <code>limit</code> is provided, only the newest <code>limit</code> entries are returned, sorted by descending
+     * publication date.
+     * <p>
+     * While no channel is due for a refresh, the response carries an entity tag and may be cached until the earliest
+     * channel refresh deadline, see {@link FeedController#fetch}. The entries' fields can be selected, forced refreshes
+     * are rate limited and the request is handled asynchronously as well.
+     * <p>
+     * With <code>collapse</code>, near-duplicate entries (the same story carried by several channels) are returned as
+     * one entry, the first one ingested, listing the others as its <code>alternates</code>. When sorted or limited, the
+     * newest entries are collapsed, so fewer than <code>limit</code> entries may be returned.
      *
      * @param forceRefresh determines if {@link Channel} must be refreshed even if their TTLs have not yet expired
+     * @param sort         the order of the entries. Only <code>publicationDate</code> is supported
+     * @param limit        the maximum number of entries to return when sorted
+     * @param fields       the fields of the entries to return. Every field if not provided
+     * @param collapse     if near-duplicate entries must be collapsed into one
+     * @param request      the current request, checked for conditional headers
      * @return the list of combined entries
      */
     @GetMapping(value = "/aggregate")
-    @ResponseBody
-    @ResponseStatus(value = HttpStatus.OK)
     @ApiOperation(value = "Aggregate channels",
-                  notes = "Aggregate the contents of all the subscribed channels.",
+                  notes = "Aggregate the contents of all the subscribed channels, optionally limited to the newest entries.",
                   response = FeedEntry.class,
                   responseContainer = "List")
-    public Collection<FeedEntry> aggregate(@RequestParam(name = "forceRefresh", required = false) boolean forceRefresh)
+    @ApiResponses(value = {
+            @ApiResponse(code = 429, message = "Too many forced refreshes", response = CustomErrorResponse.class)
+    })
+    public CompletableFuture<ResponseEntity<MappingJacksonValue>> aggregate(@RequestParam(name = "forceRefresh", required = false) boolean forceRefresh,
+                                                                            @Pattern(regexp = SORT_BY_PUBLICATION_DATE) @RequestParam(name = "sort", required = false) String sort,
+                                                                            @Positive @Max(MAX_LIMIT) @RequestParam(name = "limit", required = false) Integer limit,
+                                                                            @RequestParam(name = "fields", required = false) Set<@Pattern(regexp = FieldSelection.FEED_ENTRY_FIELDS) String> fields,
+                                                                            @RequestParam(name = "collapse", required = false) boolean collapse,
+                                                                            ServletWebRequest request)
+    {
+        admit(forceRefresh, request.getRequest());
+
+        var version = forceRefresh ? Optional.<ContentVersion>empty() : feedService.aggregateVersion();
+        var selected = fields == null ? Set.<String>of() : fields;
+
+        Supplier<CompletableFuture<? extends Collection<FeedEntry>>> entries;
+        if (sort == null && limit == null)
+        {
+            // clusters are told apart by the cluster and the sequence of the entries, which are read whatever the selection
+            var read = selected.isEmpty() || !collapse ? selected : union(selected, CLUSTER_FIELDS);
+            entries = () -> feedService.aggregateAsync(forceRefresh, read);
+        }
+        else
+        {
+            // the newest entries are few, and are read whole to be sorted
+            var timelineLimit = limit == null ? DEFAULT_LIMIT : limit;
+            entries = () -> feedService.timelineAsync(forceRefresh, timelineLimit);
+        }
+
+        if (!collapse)
+        {
+            return conditional(version, selected, false, request, entries);
+        }
+
+        var written = selected.isEmpty() ? selected : union(selected, Set.of("alternates"));
+
+        return conditional(version, written, true, request, () -> entries.get().thenApply(nearDuplicateService::collapse));
+    }
+
+    /**
+     * Streaming version of {@link FeedController#aggregate}, selected with <code>Accept: application/x-ndjson</code>
+     * <p>
+     * Entries are written as newline delimited JSON: persisted entries right away, and then the new entries of each
+     * refreshed {@link Channel} as soon as its fetch completes. The response is flushed after every chunk, so the
+     * first entries reach the client before the slowest channel has been fetched and the response is never
+     * buffered as a whole.
+     *
+     * @param forceRefresh determines if {@link Channel} must be refreshed even if their TTLs have not yet expired
+     * @param fields       the fields of the entries to write. Every field if not provided
+     * @param request      the current request, identifying the client forcing a refresh
+     * @return the stream of combined entries
+     */
+    @GetMapping(value = "/aggregate", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @ApiOperation(value = "Stream the aggregation of channels",
+                  notes = "Aggregate the contents of all the subscribed channels as newline delimited JSON, streamed as channels are refreshed.",
+                  response = FeedEntry.class,
+                  responseContainer = "List")
+    public ResponseEntity<StreamingResponseBody> aggregateStream(@RequestParam(name = "forceRefresh", required = false) boolean forceRefresh,
+                                                                 @RequestParam(name = "fields", required = false) Set<@Pattern(regexp = FieldSelection.FEED_ENTRY_FIELDS) String> fields,
+                                                                 HttpServletRequest request)
+    {
+        admit(forceRefresh, request);
+
+        var writer = objectMapper.writer(FieldSelection.only(fields));
+        StreamingResponseBody body = out -> feedService.aggregate(forceRefresh, entries -> write(out, writer, entries));
+
+        return ResponseEntity.ok()
+                             .contentType(MediaType.APPLICATION_NDJSON)
+                             .body(body);
+    }
+
+    /**
+     * Aggregate the newest entries of the subscribed {@link Channel}s as an Atom feed, for feed readers
+     * <p>
+     * Only the newest <code>limit</code> entries are returned, sorted by descending publication date, optionally for a
+     * set of channels. The refresh of the channels due for one is started, but not waited for. The document is
+     * rendered once and then only brought up to date when new entries are ingested, and carries an entity tag: polling
+     * readers sending it back are answered with a <code>304 Not Modified</code> until then, without any rendering.
+     *
+     * @param channelIds the ids of the channels whose entries will be returned. All the channels if not provided
+     * @param limit      the maximum number of entries to return
+     * @param request    the current request, checked for conditional headers
+     * @return the Atom document
+     */
+    @GetMapping("/aggregate/atom")
+    @ApiOperation(value = "Aggregate channels as Atom",
+                  notes = "Aggregate the newest entries of the subscribed channels as an Atom 1.0 feed.")
+    public ResponseEntity<byte[]> aggregateAtom(@RequestParam(name = "channelIds", required = false) Set<Long> channelIds,
+                                                @Positive @Max(MAX_LIMIT) @RequestParam(name = "limit", defaultValue = "" + DEFAULT_LIMIT) int limit,
+                                                ServletWebRequest request)
+    {
+        return syndicate(SyndicationFormat.ATOM, MediaType.APPLICATION_ATOM_XML, channelIds, limit, request);
+    }
+
+    /**
+     * RSS version of {@link FeedController#aggregateAtom}
+     *
+     * @param channelIds the ids of the channels whose entries will be returned. All the channels if not provided
+     * @param limit      the maximum number of entries to return
+     * @param request    the current request, checked for conditional headers
+     * @return the RSS document
+     */
+    @GetMapping("/aggregate/rss")
+    @ApiOperation(value = "Aggregate channels as RSS",
+                  notes = "Aggregate the newest entries of the subscribed channels as an RSS 2.0 feed.")
+    public ResponseEntity<byte[]> aggregateRss(@RequestParam(name = "channelIds", required = false) Set<Long> channelIds,
+                                               @Positive @Max(MAX_LIMIT) @RequestParam(name = "limit", defaultValue = "" + DEFAULT_LIMIT) int limit,
+                                               ServletWebRequest request)
+    {
+        return syndicate(SyndicationFormat.RSS, MediaType.APPLICATION_RSS_XML, channelIds, limit, request);
+    }
+
+    /**
+     * Subscribe to the newly ingested entries, pushed as Server-Sent Events
+     * <p>
+     * Every entry is sent as an <code>entry</code> event whose id is the entry's ingest sequence. Clients reconnecting
+     * with a <code>Last-Event-ID</code> header are first sent the entries they missed, as long as they are still held in
+     * the replay buffer. Otherwise, or if the client doesn't keep up, a <code>resync</code> event holding the number
+     * of missed entries is sent, and the client should catch up with an aggregation.
+     *
+     * @param channelIds  the ids of the channels whose entries will be pushed. All the channels if not provided
+     * @param lastEventId the id of the last event received by the client, when reconnecting
+     * @return the stream of events
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ApiOperation(value = "Stream new entries",
+                  notes = "Push the entries of the subscribed channels as Server-Sent Events as soon as they are ingested.")
+    public SseEmitter stream(@RequestParam(name = "channelIds", required = false) Set<Long> channelIds,
+                             @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId)
+    {
+        return feedStreamService.subscribe(channelIds, lastEventId);
+    }
+
+    /**
+     * Search the stored entries by their title, authors and contents
+     * <p>
+     * Results are sorted by relevance, and can be restricted to a set of channels and to a publication date range.
+     * Entries without publication date are left out when a date range is given. Every term of the text must match
+     * unless separated by <code>|</code> (or), and <code>-</code> (not), quoted phrases and <code>*</code> prefixes
+     * are supported.
+     *
+     * @param text       the text to search
+     * @param channelIds the ids of the channels whose entries are searched. All the channels if not provided
+     * @param from       the lowest publication date of the entries, inclusive
+     * @param to         the highest publication date of the entries, inclusive
+     * @param page       the page of results, starting at 0
+     * @param size       the number of results per page
+     * @return the page of matching entries
+     */
+    @GetMapping("/search")
+    @ResponseBody
+    @ResponseStatus(value = HttpStatus.OK)
+    @ApiOperation(value = "Search entries",
+                  notes = "Full-text search over the stored entries, optionally filtered by channel and publication date")
+    public Page<FeedEntry> search(@NotBlank @RequestParam(name = "q") String text,
+                                  @RequestParam(name = "channelIds", required = false) Set<Long> channelIds,
+                                  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) @RequestParam(name = "from", required = false) Instant from,
+                                  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) @RequestParam(name = "to", required = false) Instant to,
+                                  @PositiveOrZero @Max(MAX_PAGE) @RequestParam(name = "page", defaultValue = "0") int page,
+                                  @Positive @Max(MAX_PAGE_SIZE) @RequestParam(name = "size", defaultValue = "20") int size)
+    {
+        return feedSearchService.search(text, channelIds == null ? Set.of() : channelIds, from, to, PageRequest.of(page, size));
+    }
+
+    /**
+     * Get the changes made to the stored feeds since the client's latest sync
+     * <p>
+     * Entries are returned in ingest order, along with the ids of the channels deleted in the meantime, whose entries
+     * the client must drop. No channel is refreshed. The response carries the <code>next</code> sequence to send back
+     * as <code>since</code> on the following sync, and tells whether more changes are available right away.
+     *
+     * @param since the <code>next</code> sequence of the client's latest sync, <code>0</code> for a full sync
+     * @param limit the maximum number of entries to return
+     * @return the page of changes
+     */
+    @GetMapping("/changes")
+    @ResponseBody
+    @ResponseStatus(value = HttpStatus.OK)
+    @ApiOperation(value = "Sync changes",
+                  notes = "List the entries ingested and the channels deleted since a given ingest sequence")
+    public FeedChanges changes(@PositiveOrZero @RequestParam(name = "since", defaultValue = "0") long since,
+                               @Positive @Max(MAX_LIMIT) @RequestParam(name = "limit", defaultValue = "" + DEFAULT_LIMIT) int limit)
+    {
+        return feedService.changes(since, limit);
+    }
+
+    /**
+     * Admit a forced refresh of the current client, identified by its address
+     *
+     * @throws com.assignment.aggregator.exceptions.RefreshRateLimitedException if the refresh is rate limited
+     */
+    private void admit(boolean forceRefresh, HttpServletRequest request)
+    {
+        if (forceRefresh)
+        {
+            refreshAdmissionService.admit(request.getRemoteAddr());
+        }
+    }
+
+    /**
+     * Answer a conditional request: the entries are only read if the client's copy doesn't match the given version
+     * <p>
+     * Each selection of fields, collapsed or not, is a distinct representation of the entries, with its own entity tag.
+     *
+     * @param version   the current version of the entries, empty if it can't be known before reading them
+     * @param fields    the fields of the entries to write. Every field if empty
+     * @param collapsed if the near-duplicate entries are collapsed
+     * @param request   the current request
+     * @param entries the supplier of the future entries
+     * @return the future entries, or <code>null</code> if the request has already been answered with a <code>304</code>
+     */
+    private CompletableFuture<ResponseEntity<MappingJacksonValue>> conditional(Optional<ContentVersion> version, Set<String> fields, boolean collapsed,
+                                                                               ServletWebRequest request, Supplier<CompletableFuture<? extends Collection<FeedEntry>>> entries)
+    {
+        if (version.isEmpty())
+        {
+            return entries.get().thenApply(e -> ResponseEntity.ok()
+                                                               .cacheControl(CacheControl.noCache())
+                                                               .body(select(e, fields)));
+        }
+
+        var tag = (fields.isEmpty() ? version.get().getTag() : version.get().getTag() + "-" + String.join(".", new TreeSet<>(fields)))
+                  + (collapsed ? "-collapsed" : "");
+        var cacheControl = CacheControl.maxAge(version.get().getMaxAge().getSeconds(), TimeUnit.SECONDS).cachePublic();
+
+        if (request.checkNotModified(tag))
+        {
+            request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+            return null;
+        }
+
+        return entries.get().thenApply(e -> ResponseEntity.ok()
+                                                           .eTag(tag)
+                                                           .cacheControl(cacheControl)
+                                                           .body(select(e, fields)));
+    }
+
+    /**
+     * Answer a syndication request with the cached document of the feed, or with a <code>304</code> if the client's
+     * copy is up to date. The client's copy is checked against the version of the feed first, so that polling clients
+     * are answered without anything being rendered
+     *
+     * @return the document, or <code>null</code> if the request has already been answered with a <code>304</code>
+     */
+    private ResponseEntity<byte[]> syndicate(SyndicationFormat format, MediaType mediaType, Set<Long> channelIds, int limit, ServletWebRequest request)
+    {
+        var selectedChannelIds = channelIds == null ? List.<Long>of() : channelIds.stream().sorted().collect(toList());
+
+        var version = feedSyndicationService.version(format, selectedChannelIds, limit);
+        if (version.isPresent() && notModified(version.get(), request))
+        {
+            return null;
+        }
+
+        // the self link only carries the parameters the document depends on
+        var link = ServletUriComponentsBuilder.fromCurrentRequestUri();
+        if (!selectedChannelIds.isEmpty())
+        {
+            link.queryParam("channelIds", selectedChannelIds.stream().map(String::valueOf).collect(joining(",")));
+        }
+        link.queryParam("limit", limit);
+
+        var document = feedSyndicationService.render(format, selectedChannelIds, limit, link.toUriString());
+        if (version.isEmpty() && notModified(document.getVersion(), request))
+        {
+            return null;
+        }
+
+        return ResponseEntity.ok()
+                             .contentType(mediaType)
+                             .eTag(document.getVersion().getTag())
+                             .cacheControl(cacheControl(document.getVersion()))
+                             .body(document.getContent());
+    }
+
+    /**
+     * Answer the request with a <code>304</code> if the client's copy matches the given version
+     *
+     * @return whether the request has been answered
+     */
+    private static boolean notModified(ContentVersion version, ServletWebRequest request)
+    {
+        if (!request.checkNotModified(version.getTag()))
+        {
+            return false;
+        }
+
+        request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, cacheControl(version).getHeaderValue());
+        return true;
+    }
+
+    private static CacheControl cacheControl(ContentVersion version)
+    {
+        return CacheControl.maxAge(version.getMaxAge().getSeconds(), TimeUnit.SECONDS).cachePublic();
+    }
+
+    private static Set<String> union(Set<String> fields, Set<String> others)
+    {
+        var union = new HashSet<>(fields);
+        union.addAll(others);
+
+        return union;
+    }
+
+    /**
+     * Wrap entries so that only the given fields are written
+     */
+    private static MappingJacksonValue select(Collection<FeedEntry> entries, Set<String> fields)
+    {
+        var value = new MappingJacksonValue(entries);
+        value.setFilters(FieldSelection.only(fields));
+
+        return value;
+    }
+
+    /**
+     * Write a chunk of entries, one JSON document per line, and flush it
+     */
+    private static void write(OutputStream out, ObjectWriter writer, Collection<FeedEntry> entries)
     {
-        return feedService.aggregate(forceRefresh);
+        try
+        {
+            for (var entry : entries)
+            {
+                out.write(writer.writeValueAsBytes(entry));
+                out.write(NDJSON_SEPARATOR);
+            }
+            out.flush();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
     }
 }
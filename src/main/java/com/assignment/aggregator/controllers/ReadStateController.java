@@ -0,0 +1,139 @@
+package com.assignment.aggregator.controllers;
+
+import com.assignment.aggregator.exceptions.InvalidReadRangeException;
+import com.assignment.aggregator.exceptions.exceptionhandler.CustomErrorResponse;
+import com.assignment.aggregator.models.FeedEntry;
+import com.assignment.aggregator.services.IReadStateService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import org.springframework.http.HttpStatus;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Positive;
+import java.util.List;
+
+/**
+ * ReadStateController
+ * <p>
+ * The {@link ReadStateController} controller keeps track of the {@link FeedEntry}s every client has already read,
+ * so that clients can ask for the entries they haven't seen yet instead of downloading the whole feed. Entries are
+ * identified by their <code>sequence</code>, a number assigned to every entry when it is ingested.
+ */
+@RestController
+@RequestMapping("/read-state/{clientId}")
+@Validated
+@Api(tags = {"Read state"})
+public class ReadStateController
+{
+    /**
+     * Maximum number of unread entries returned at once
+     */
+    private static final int MAX_LIMIT = 1000;
+
+    private final IReadStateService readStateService;
+
+    /**
+     * Implicit constructor injection is used
+     *
+     * @param readStateService service providing read state operations
+     */
+    ReadStateController(final IReadStateService readStateService)
+    {
+        this.readStateService = readStateService;
+    }
+
+    /**
+     * List the entries a client hasn't read yet
+     * <p>
+     * Entries are listed in ingest order, oldest first. Once processed, they can be marked as read with the
+     * <code>/read</code> or <code>/read/range</code> endpoints so they are not listed anymore.
+     *
+     * @param clientId   the id of the client
+     * @param channelIds the ids of the channels whose entries will be listed. All the channels if not set
+     * @param limit      the maximum number of entries to list
+     * @return the unread entries
+     */
+    @GetMapping("/unread")
+    @ResponseBody
+    @ResponseStatus(value = HttpStatus.OK)
+    @ApiOperation(value = "List the unread entries",
+                  notes = "List the entries a client hasn't read yet, in ingest order",
+                  response = FeedEntry.class,
+                  responseContainer = "List")
+    @ApiResponses(value = {
+            @ApiResponse(code = 400, message = "Bad Request", response = CustomErrorResponse.class)
+    })
+    public List<FeedEntry> listUnread(@NotBlank @PathVariable String clientId,
+                                      @RequestParam(name = "channelIds", required = false) List<Long> channelIds,
+                                      @Positive @Max(MAX_LIMIT) @RequestParam(name = "limit", defaultValue = "100") int limit)
+    {
+        return readStateService.listUnread(clientId, channelIds != null ? channelIds : List.of(), limit);
+    }
+
+    /**
+     * Count the entries a client hasn't read yet
+     *
+     * @param clientId   the id of the client
+     * @param channelIds the ids of the channels whose entries will be counted. All the channels if not set
+     * @return the number of unread entries
+     */
+    @GetMapping("/unread/count")
+    @ResponseBody
+    @ResponseStatus(value = HttpStatus.OK)
+    @ApiOperation(value = "Count the unread entries",
+                  notes = "Count the entries a client hasn't read yet")
+    public long countUnread(@NotBlank @PathVariable String clientId,
+                            @RequestParam(name = "channelIds", required = false) List<Long> channelIds)
+    {
+        return readStateService.countUnread(clientId, channelIds != null ? channelIds : List.of());
+    }
+
+    /**
+     * Mark a set of entries as read
+     *
+     * @param clientId  the id of the client
+     * @param sequences the sequences of the read entries
+     */
+    @PutMapping("/read")
+    @ResponseBody
+    @ResponseStatus(value = HttpStatus.OK)
+    @ApiOperation(value = "Mark entries as read",
+                  notes = "Mark a set of entries, identified by their sequence, as read")
+    public void markRead(@NotBlank @PathVariable String clientId, @RequestBody List<Long> sequences)
+    {
+        readStateService.markRead(clientId, sequences);
+    }
+
+    /**
+     * Mark a range of entries as read
+     *
+     * @param clientId the id of the client
+     * @param from     the sequence of the first read entry, inclusive
+     * @param to       the sequence of the last read entry, inclusive. Sequences beyond the latest ingested entry are
+     *                 ignored
+     */
+    @PutMapping("/read/range")
+    @ResponseBody
+    @ResponseStatus(value = HttpStatus.OK)
+    @ApiOperation(value = "Mark a range of entries as read",
+                  notes = "Mark every entry whose sequence is within the range, both ends included, as read")
+    @ApiResponses(value = {
+            @ApiResponse(code = 400, message = "Bad Request", response = CustomErrorResponse.class)
+    })
+    public void markRangeRead(@NotBlank @PathVariable String clientId,
+                              @Positive @RequestParam(name = "from") long from,
+                              @Positive @RequestParam(name = "to") long to)
+    {
+        if (from > to)
+        {
+            throw new InvalidReadRangeException(from, to);
+        }
+
+        readStateService.markRead(clientId, from, to);
+    }
+}
@@ -0,0 +1,165 @@
+package com.assignment.aggregator.controllers;
+
+import com.assignment.aggregator.dto.SubscriptionDTO;
+import com.assignment.aggregator.exceptions.exceptionhandler.CustomErrorResponse;
+import com.assignment.aggregator.helpers.ResourceLocationHelper;
+import com.assignment.aggregator.mappers.IEntityMapper;
+import com.assignment.aggregator.models.Subscription;
+import com.assignment.aggregator.services.ISubscriptionService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Positive;
+import java.util.List;
+
+/**
+ * SubscriptionController
+ * <p>
+ * The {@link SubscriptionController} controller provides the subscription related entry points to the API.
+ * It provides a mean of performing CRUD operations over {@link Subscription}s, which are the tenants' views of
+ * the subscribed {@link com.assignment.aggregator.models.Channel}s. The feed of a subscription is served by
+ * {@link FeedController#fetchSubscription}.
+ */
+@RestController
+@RequestMapping("/subscription")
+@Validated
+@Api(tags = {"Subscription"})
+public class SubscriptionController
+{
+    private final ISubscriptionService subscriptionService;
+
+    private final IEntityMapper<Subscription, SubscriptionDTO> mapper;
+
+    /**
+     * Implicit constructor injection is used
+     *
+     * @param subscriptionService service providing subscription operations
+     * @param mapper              service providing mapping for {@link Subscription} entities
+     */
+    SubscriptionController(final ISubscriptionService subscriptionService, final IEntityMapper<Subscription, SubscriptionDTO> mapper)
+    {
+        this.subscriptionService = subscriptionService;
+        this.mapper = mapper;
+    }
+
+    /**
+     * Fetch the list of subscriptions of a tenant
+     *
+     * @param tenant the tenant whose subscriptions are listed
+     * @return the tenant's subscriptions or an empty list if the tenant has not subscribed to any feed yet
+     */
+    @GetMapping("/")
+    @ApiOperation(value = "Get the list of subscriptions of a tenant",
+                  notes = "Returns a list of all the feeds a tenant is subscribed to. If no subscriptions exist the result will be an empty list.",
+                  response = Subscription.class,
+                  responseContainer = "List")
+    public List<Subscription> getSubscriptionList(@NotBlank @RequestParam(name = "tenant") String tenant)
+    {
+        return subscriptionService.list(tenant);
+    }
+
+    /**
+     * Fetch a subscription based on its id
+     *
+     * @param id the id of the subscription to retrieve
+     * @return the subscription that matches the given id or a {@link CustomErrorResponse} object if no subscription
+     * matches the given id.
+     */
+    @GetMapping("/{id}")
+    @ResponseBody
+    @ResponseStatus(value = HttpStatus.OK)
+    @ApiOperation(value = "Get a subscription",
+                  notes = "Get a subscription based on its primary id",
+                  response = Subscription.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 404, message = "Subscription not found", response = CustomErrorResponse.class)
+    })
+    public Subscription getSubscription(@Positive @PathVariable Long id)
+    {
+        return subscriptionService.get(id);
+    }
+
+    /**
+     * Subscribe a tenant to a feed
+     * <p>
+     * Tenants subscribing to the same URL share the same channel, whose feed is fetched and stored once for all of
+     * them. The channel is created on the first subscription.
+     *
+     * @param subscriptionDTO a representation of the object needed to create a subscription
+     * @return the new subscription or a {@link CustomErrorResponse} if there is an error while creating the
+     * subscription
+     */
+    @PostMapping("/")
+    @ResponseBody
+    @ResponseStatus(value = HttpStatus.CREATED)
+    @ApiOperation(value = "Add a new subscription",
+                  notes = "Subscribe a tenant to a valid RSS/ATOM web syndication feed",
+                  response = Subscription.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 400, message = "Bad Request", response = CustomErrorResponse.class),
+            @ApiResponse(code = 409, message = "Already subscribed", response = CustomErrorResponse.class)
+    })
+    public ResponseEntity<Subscription> createSubscription(@RequestBody SubscriptionDTO subscriptionDTO)
+    {
+        var newSubscription = subscriptionService.create(mapper.map(subscriptionDTO, Subscription.class));
+
+        return ResponseEntity.created(ResourceLocationHelper.getResourceLocation("{id}", newSubscription.getId()))
+                             .body(newSubscription);
+    }
+
+    /**
+     * Update a subscription
+     * <p>
+     * Provides a mean to update a subscription's name or TTL. Note that neither the subscription's tenant nor its URL
+     * can be modified.
+     *
+     * @param id              the id of the subscription being updated
+     * @param subscriptionDTO a representation of the updated subscription
+     * @return the updated subscription or a {@link CustomErrorResponse} if there is an error in the update operation
+     */
+    @PutMapping("/{id}")
+    @ResponseBody
+    @ResponseStatus(value = HttpStatus.OK)
+    @ApiOperation(value = "Update an existing subscription",
+                  notes = "Update a subscription's details such as subscription name or TTL",
+                  response = Subscription.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 400, message = "Bad Request", response = CustomErrorResponse.class),
+            @ApiResponse(code = 404, message = "Not Found", response = CustomErrorResponse.class)
+    })
+    public Subscription updateSubscription(@Positive @PathVariable Long id, @RequestBody SubscriptionDTO subscriptionDTO)
+    {
+        var subscription = mapper.map(subscriptionDTO, Subscription.class);
+
+        return subscriptionService.update(id, subscription.getName(), subscription.getTtl());
+    }
+
+    /**
+     * Delete a subscription
+     * <p>
+     * The subscribed channel is deleted along with its last subscription, unless it was created through the channel
+     * API.
+     *
+     * @param id the id of the subscription
+     */
+    @DeleteMapping("/{id}")
+    @ResponseBody
+    @ResponseStatus(value = HttpStatus.OK)
+    @ApiOperation(value = "Delete a subscription",
+                  notes = "Removes a tenant's subscription based on the subscription's id")
+    @ApiResponses(value = {
+            @ApiResponse(code = 400, message = "Bad Request", response = CustomErrorResponse.class),
+            @ApiResponse(code = 404, message = "Not Found", response = CustomErrorResponse.class)
+    })
+    public void deleteSubscription(@Positive @PathVariable Long id)
+    {
+        subscriptionService.delete(id);
+    }
+}
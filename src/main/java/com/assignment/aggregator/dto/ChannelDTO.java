@@ -1,9 +1,12 @@
 package com.assignment.aggregator.dto;
 
+import com.assignment.aggregator.models.FilterRule;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 
+import java.util.List;
+
 /**
  * DTO for communication between {@link com.assignment.aggregator.models.Channel}
  * {@link org.springframework.stereotype.Controller} and {@link org.springframework.stereotype.Service} layers
@@ -25,6 +28,11 @@ public class ChannelDTO
      */
     private Integer ttl;
 
+    /**
+     * The rules deciding which entries of the channel are ingested. If not provided on update, the rules are kept
+     */
+    private List<FilterRule> filters;
+
     public ChannelDTO()
     {
         // empty constructor
@@ -63,6 +71,17 @@ public class ChannelDTO
         return this;
     }
 
+    public List<FilterRule> getFilters()
+    {
+        return filters;
+    }
+
+    public ChannelDTO setFilters(List<FilterRule> filters)
+    {
+        this.filters = filters;
+        return this;
+    }
+
     @Override
     public boolean equals(Object o)
     {
@@ -82,6 +101,7 @@ public class ChannelDTO
                        .append(getName(), that.getName())
                        .append(getUrl(), that.getUrl())
                        .append(getTtl(), that.getTtl())
+                       .append(getFilters(), that.getFilters())
                        .isEquals();
     }
 
@@ -92,6 +112,7 @@ public class ChannelDTO
                        .append(getName())
                        .append(getUrl())
                        .append(getTtl())
+                       .append(getFilters())
                        .toHashCode();
     }
 
@@ -102,6 +123,7 @@ public class ChannelDTO
                        .append("name", name)
                        .append("url", url)
                        .append("ttl", ttl)
+                       .append("filters", filters)
                        .toString();
     }
 }
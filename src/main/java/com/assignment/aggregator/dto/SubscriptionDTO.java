@@ -0,0 +1,126 @@
+package com.assignment.aggregator.dto;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+/**
+ * DTO for communication between {@link com.assignment.aggregator.models.Subscription}
+ * {@link org.springframework.stereotype.Controller} and {@link org.springframework.stereotype.Service} layers
+ */
+public class SubscriptionDTO
+{
+    /**
+     * The tenant subscribing. Ignored on update
+     */
+    private String tenant;
+
+    /**
+     * The name of the subscription. If no name is provided on create, the name of the channel will be used instead
+     */
+    private String name;
+
+    /**
+     * The feed source URL. Subscriptions to the same URL share the same {@link com.assignment.aggregator.models.Channel}
+     */
+    private String url;
+
+    /**
+     * The time in seconds for which the subscribed feed won't need to be refreshed
+     */
+    private Integer ttl;
+
+    public SubscriptionDTO()
+    {
+        // empty constructor
+    }
+
+    public String getTenant()
+    {
+        return tenant;
+    }
+
+    public SubscriptionDTO setTenant(String tenant)
+    {
+        this.tenant = tenant;
+        return this;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public SubscriptionDTO setName(String name)
+    {
+        this.name = name;
+        return this;
+    }
+
+    public String getUrl()
+    {
+        return url;
+    }
+
+    public SubscriptionDTO setUrl(String url)
+    {
+        this.url = url;
+        return this;
+    }
+
+    public Integer getTtl()
+    {
+        return ttl;
+    }
+
+    public SubscriptionDTO setTtl(Integer ttl)
+    {
+        this.ttl = ttl;
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+        {
+            return true;
+        }
+
+        if (o == null || getClass() != o.getClass())
+        {
+            return false;
+        }
+
+        SubscriptionDTO that = (SubscriptionDTO) o;
+
+        return new EqualsBuilder()
+                       .append(getTenant(), that.getTenant())
+                       .append(getName(), that.getName())
+                       .append(getUrl(), that.getUrl())
+                       .append(getTtl(), that.getTtl())
+                       .isEquals();
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return new HashCodeBuilder(17, 37)
+                       .append(getTenant())
+                       .append(getName())
+                       .append(getUrl())
+                       .append(getTtl())
+                       .toHashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+        return new ToStringBuilder(this)
+                       .append("tenant", tenant)
+                       .append("name", name)
+                       .append("url", url)
+                       .append("ttl", ttl)
+                       .toString();
+    }
+}
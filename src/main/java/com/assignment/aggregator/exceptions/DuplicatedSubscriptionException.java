@@ -0,0 +1,9 @@
+package com.assignment.aggregator.exceptions;
+
+public class DuplicatedSubscriptionException extends RuntimeException
+{
+    public DuplicatedSubscriptionException(String tenant, String url)
+    {
+        super("Tenant " + tenant + " is already subscribed to this channel [url: " + url + "]");
+    }
+}
@@ -0,0 +1,11 @@
+package com.assignment.aggregator.exceptions;
+
+import com.assignment.aggregator.models.FilterRule;
+
+public class InvalidFilterRuleException extends RuntimeException
+{
+    public InvalidFilterRuleException(FilterRule rule, String reason)
+    {
+        super("Invalid channel filter rule [rule: " + rule + ", reason: " + reason + "]");
+    }
+}
@@ -0,0 +1,9 @@
+package com.assignment.aggregator.exceptions;
+
+public class InvalidReadRangeException extends RuntimeException
+{
+    public InvalidReadRangeException(long from, long to)
+    {
+        super("The first sequence of the range can't be greater than the last one [from: " + from + ", to: " + to + "]");
+    }
+}
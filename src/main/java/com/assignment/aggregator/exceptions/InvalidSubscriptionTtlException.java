@@ -0,0 +1,9 @@
+package com.assignment.aggregator.exceptions;
+
+public class InvalidSubscriptionTtlException extends RuntimeException
+{
+    public InvalidSubscriptionTtlException(int ttl, int minTtl)
+    {
+        super("The subscription TTL can't be lower than " + minTtl + " seconds [ttl: " + ttl + "]");
+    }
+}
@@ -0,0 +1,22 @@
+package com.assignment.aggregator.exceptions;
+
+import java.time.Duration;
+
+public class RefreshRateLimitedException extends RuntimeException
+{
+    private final Duration retryAfter;
+
+    public RefreshRateLimitedException(String limit, Duration retryAfter)
+    {
+        super("Too many forced refreshes [limit: " + limit + ", retry after: " + retryAfter + "]");
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * @return the time until a forced refresh may be admitted again
+     */
+    public Duration getRetryAfter()
+    {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,9 @@
+package com.assignment.aggregator.exceptions;
+
+public class SubscriptionNotFoundException extends RuntimeException
+{
+    public SubscriptionNotFoundException(Long id)
+    {
+        super("Unknown subscription [id: " + id + "]");
+    }
+}
@@ -2,15 +2,23 @@ package com.assignment.aggregator.exceptions.exceptionhandler;
 
 import com.assignment.aggregator.exceptions.ChannelNotFoundException;
 import com.assignment.aggregator.exceptions.DuplicatedChannelException;
+import com.assignment.aggregator.exceptions.DuplicatedSubscriptionException;
 import com.assignment.aggregator.exceptions.InvalidChannelException;
+import com.assignment.aggregator.exceptions.InvalidFilterRuleException;
+import com.assignment.aggregator.exceptions.InvalidReadRangeException;
+import com.assignment.aggregator.exceptions.InvalidSubscriptionTtlException;
+import com.assignment.aggregator.exceptions.RefreshRateLimitedException;
+import com.assignment.aggregator.exceptions.SubscriptionNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
 
 import javax.validation.ConstraintViolationException;
 import java.text.MessageFormat;
@@ -47,19 +55,19 @@ class ControllerExceptionHandler
         return createErrorResponse(request, HttpStatus.BAD_REQUEST, ex.getMessage());
     }
 
-    @ExceptionHandler(ChannelNotFoundException.class)
+    @ExceptionHandler({ChannelNotFoundException.class, SubscriptionNotFoundException.class})
     public ResponseEntity<CustomErrorResponse> notFoundExceptionHandler(Exception ex, WebRequest request)
     {
         if (logger.isInfoEnabled())
         {
-            logger.info("Exception catch in ControllerExceptionHandler: ChannelNotFoundException");
+            logger.info(MessageFormat.format("Exception catch in ControllerExceptionHandler: {0}", ex.getClass().getSimpleName()));
             logger.info(MessageFormat.format("Exception is: {0}", ex.getMessage()));
         }
 
         return createErrorResponse(request, HttpStatus.NOT_FOUND, ex.getMessage());
     }
 
-    @ExceptionHandler(DuplicatedChannelException.class)
+    @ExceptionHandler({DuplicatedChannelException.class, DuplicatedSubscriptionException.class})
     public ResponseEntity<CustomErrorResponse> duplicatedEntityExceptionHandler(Exception ex, WebRequest request)
     {
         if (logger.isInfoEnabled())
@@ -83,6 +91,48 @@ class ControllerExceptionHandler
         return createErrorResponse(request, HttpStatus.BAD_REQUEST, ex.getMessage());
     }
 
+    @ExceptionHandler({InvalidFilterRuleException.class, InvalidReadRangeException.class, InvalidSubscriptionTtlException.class})
+    public ResponseEntity<CustomErrorResponse> invalidRequestExceptionHandler(Exception ex, WebRequest request)
+    {
+        if (logger.isInfoEnabled())
+        {
+            logger.info(MessageFormat.format("Exception catch in ControllerExceptionHandler: {0}", ex.getClass().getSimpleName()));
+            logger.info(MessageFormat.format("Exception is: {0}", ex.getMessage()));
+        }
+
+        return createErrorResponse(request, HttpStatus.BAD_REQUEST, ex.getMessage());
+    }
+
+    @ExceptionHandler(RefreshRateLimitedException.class)
+    public ResponseEntity<CustomErrorResponse> refreshRateLimitedExceptionHandler(RefreshRateLimitedException ex, WebRequest request)
+    {
+        if (logger.isInfoEnabled())
+        {
+            logger.info("Exception catch in ControllerExceptionHandler: RefreshRateLimitedException");
+            logger.info(MessageFormat.format("Exception is: {0}", ex.getMessage()));
+        }
+
+        var response = createErrorResponse(request, HttpStatus.TOO_MANY_REQUESTS, ex.getMessage());
+
+        // Retry-After is given in whole seconds, rounded up so that the retry is admitted
+        var retryAfter = (ex.getRetryAfter().toMillis() + 999) / 1000;
+
+        return ResponseEntity.status(response.getStatusCode())
+                             .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, retryAfter)))
+                             .body(response.getBody());
+    }
+
+    @ExceptionHandler(AsyncRequestTimeoutException.class)
+    public ResponseEntity<CustomErrorResponse> asyncRequestTimeoutExceptionHandler(Exception ex, WebRequest request)
+    {
+        if (logger.isInfoEnabled())
+        {
+            logger.info("Exception catch in ControllerExceptionHandler: AsyncRequestTimeoutException");
+        }
+
+        return createErrorResponse(request, HttpStatus.SERVICE_UNAVAILABLE, "The feeds could not be fetched in time, please retry later");
+    }
+
     private ResponseEntity<CustomErrorResponse> createErrorResponse(WebRequest request, HttpStatus status, String message)
     {
         var servletRequest = ((ServletWebRequest) request).getRequest();
@@ -0,0 +1,170 @@
+package com.assignment.aggregator.helpers;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Aho-Corasick automaton telling whether a text contains any of a set of keywords, case insensitive
+ * <p>
+ * The keywords are compiled once into a trie whose states also know where to fall back when the next character
+ * doesn't continue any keyword, so a text is scanned in a single pass however many keywords there are. The transitions
+ * of every state are kept as sorted arrays of characters, looked up by binary search. Automatons are immutable and safe
+ * for concurrent use.
+ */
+public final class AhoCorasick
+{
+    private static final char[] NO_LABELS = new char[0];
+
+    private static final int[] NO_TARGETS = new int[0];
+
+    private final char[][] labels;
+
+    private final int[][] targets;
+
+    private final int[] failures;
+
+    private final boolean[] accepting;
+
+    /**
+     * @param keywords the keywords to look for. Empty keywords are ignored
+     */
+    public AhoCorasick(Collection<String> keywords)
+    {
+        // the trie is built with maps, and then flattened into arrays
+        var transitions = new ArrayList<TreeMap<Character, Integer>>();
+        var terminal = new ArrayList<Boolean>();
+        transitions.add(new TreeMap<>());
+        terminal.add(false);
+
+        for (var keyword : keywords)
+        {
+            if (keyword.isEmpty())
+            {
+                continue;
+            }
+
+            var state = 0;
+            for (var i = 0; i < keyword.length(); i++)
+            {
+                var c = Character.toLowerCase(keyword.charAt(i));
+                var next = transitions.get(state).get(c);
+                if (next == null)
+                {
+                    next = transitions.size();
+                    transitions.get(state).put(c, next);
+                    transitions.add(new TreeMap<>());
+                    terminal.add(false);
+                }
+                state = next;
+            }
+            terminal.set(state, true);
+        }
+
+        var size = transitions.size();
+        this.labels = new char[size][];
+        this.targets = new int[size][];
+        this.failures = new int[size];
+        this.accepting = new boolean[size];
+
+        for (var state = 0; state < size; state++)
+        {
+            labels[state] = transitions.get(state).isEmpty() ? NO_LABELS : new char[transitions.get(state).size()];
+            targets[state] = transitions.get(state).isEmpty() ? NO_TARGETS : new int[transitions.get(state).size()];
+            accepting[state] = terminal.get(state);
+
+            var i = 0;
+            for (Map.Entry<Character, Integer> transition : transitions.get(state).entrySet())
+            {
+                labels[state][i] = transition.getKey();
+                targets[state][i++] = transition.getValue();
+            }
+        }
+
+        // failures are computed breadth first, so the failure of every shorter prefix is known
+        var queue = new ArrayDeque<>(List.of(0));
+        while (!queue.isEmpty())
+        {
+            var state = queue.poll();
+            for (var i = 0; i < labels[state].length; i++)
+            {
+                var child = targets[state][i];
+                queue.add(child);
+
+                if (state == 0)
+                {
+                    continue;
+                }
+
+                var failure = failures[state];
+                var next = next(failure, labels[state][i]);
+                while (next < 0 && failure != 0)
+                {
+                    failure = failures[failure];
+                    next = next(failure, labels[state][i]);
+                }
+
+                failures[child] = next < 0 ? 0 : next;
+                accepting[child] |= accepting[failures[child]];
+            }
+        }
+    }
+
+    /**
+     * @param text the text to scan
+     * @return <code>true</code> if the text contains any of the keywords, <code>false</code> otherwise
+     */
+    public boolean matches(CharSequence text)
+    {
+        var state = 0;
+        for (var i = 0; i < text.length(); i++)
+        {
+            var c = Character.toLowerCase(text.charAt(i));
+            var next = next(state, c);
+            while (next < 0 && state != 0)
+            {
+                state = failures[state];
+                next = next(state, c);
+            }
+
+            state = next < 0 ? 0 : next;
+            if (accepting[state])
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return the state following a state on a character, <code>-1</code> if none
+     */
+    private int next(int state, char c)
+    {
+        var stateLabels = labels[state];
+        var low = 0;
+        var high = stateLabels.length - 1;
+        while (low <= high)
+        {
+            var middle = (low + high) >>> 1;
+            if (stateLabels[middle] < c)
+            {
+                low = middle + 1;
+            }
+            else if (stateLabels[middle] > c)
+            {
+                high = middle - 1;
+            }
+            else
+            {
+                return targets[state][middle];
+            }
+        }
+
+        return -1;
+    }
+}
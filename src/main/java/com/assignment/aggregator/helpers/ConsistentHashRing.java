@@ -0,0 +1,91 @@
+package com.assignment.aggregator.helpers;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Consistent hash ring assigning keys to nodes
+ * <p>
+ * Every node is placed on the ring at several points (virtual nodes) and a key belongs to the node owning the
+ * first point found clockwise from the key's hash. When a node joins or leaves, only the keys falling next to its
+ * points change hands, every other key keeps its owner.
+ * <p>
+ * Rings are immutable, and nodes building a ring out of the same set of node ids agree on every key's owner.
+ */
+public final class ConsistentHashRing
+{
+    private final NavigableMap<Long, String> points = new TreeMap<>();
+
+    private final Set<String> nodes;
+
+    /**
+     * @param nodes        the ids of the nodes
+     * @param virtualNodes the number of points every node is placed at
+     */
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes)
+    {
+        this.nodes = Set.copyOf(new TreeSet<>(nodes));
+
+        for (var node : this.nodes)
+        {
+            for (var i = 0; i < virtualNodes; i++)
+            {
+                // on the very unlikely collision, the lowest node id keeps the point so every node agrees
+                points.merge(hash(node + "#" + i), node, (a, b) -> a.compareTo(b) <= 0 ? a : b);
+            }
+        }
+    }
+
+    /**
+     * @param key the key to look up
+     * @return the id of the node owning the key, <code>null</code> if the ring is empty
+     */
+    public String owner(long key)
+    {
+        if (points.isEmpty())
+        {
+            return null;
+        }
+
+        var point = points.ceilingEntry(hash(key));
+
+        return point != null ? point.getValue() : points.firstEntry().getValue();
+    }
+
+    public Set<String> nodes()
+    {
+        return nodes;
+    }
+
+    private static long hash(long key)
+    {
+        return hash(ByteBuffer.allocate(Long.BYTES).putLong(key).array());
+    }
+
+    private static long hash(String value)
+    {
+        return hash(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * First 8 bytes of the MD5 digest, which spreads both the node points and the keys evenly around the ring
+     */
+    private static long hash(byte[] value)
+    {
+        try
+        {
+            return ByteBuffer.wrap(MessageDigest.getInstance("MD5").digest(value)).getLong();
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException("MD5 is not available", e);
+        }
+    }
+}
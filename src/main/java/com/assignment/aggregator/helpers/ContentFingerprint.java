@@ -0,0 +1,69 @@
+package com.assignment.aggregator.helpers;
+
+import com.assignment.aggregator.models.FeedEntry;
+import com.rometools.rome.feed.synd.SyndContent;
+
+/**
+ * 64-bit fingerprints of the content of {@link FeedEntry}s, telling whether an entry was edited since it was stored
+ * <p>
+ * Every field mapped from the feed but the key is hashed with FNV-1a, each field followed by a separator so that
+ * moving text from one field to the next changes the fingerprint. Unlike {@link SimHash} fingerprints, any change
+ * gives a different fingerprint.
+ */
+public final class ContentFingerprint
+{
+    /**
+     * Fingerprint of the entries stored before entries were fingerprinted
+     */
+    public static final long NONE = 0;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final char SEPARATOR = '\u001f';
+
+    private ContentFingerprint()
+    {
+    }
+
+    /**
+     * @param entry the entry
+     * @return the fingerprint of the content of the entry, never {@link #NONE}
+     */
+    public static long of(FeedEntry entry)
+    {
+        var hash = FNV_OFFSET_BASIS;
+
+        hash = add(hash, entry.getLink());
+        hash = add(hash, entry.getTitle());
+        hash = add(hash, entry.getPublicationDate() != null ? String.valueOf(entry.getPublicationDate().toEpochMilli()) : null);
+
+        for (SyndContent content : entry.getContents())
+        {
+            hash = add(hash, content.getType());
+            hash = add(hash, content.getValue());
+        }
+        hash = add(hash, null);
+
+        for (var author : entry.getAuthors())
+        {
+            hash = add(hash, author);
+        }
+
+        return hash == NONE ? 1 : hash;
+    }
+
+    private static long add(long hash, String value)
+    {
+        if (value != null)
+        {
+            for (var i = 0; i < value.length(); i++)
+            {
+                hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+            }
+        }
+
+        return (hash ^ SEPARATOR) * FNV_PRIME;
+    }
+}
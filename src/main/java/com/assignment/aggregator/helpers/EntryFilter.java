@@ -0,0 +1,239 @@
+package com.assignment.aggregator.helpers;
+
+import com.assignment.aggregator.exceptions.InvalidFilterRuleException;
+import com.assignment.aggregator.models.FilterRule;
+import com.rometools.rome.feed.synd.SyndCategory;
+import com.rometools.rome.feed.synd.SyndEntry;
+import com.rometools.rome.feed.synd.SyndPerson;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * The filter rules of a channel compiled for matching, deciding which of its entries are ingested
+ * <p>
+ * The keywords of every action and field are compiled into one {@link AhoCorasick} automaton and the patterns into
+ * {@link Pattern}s, so that every value of an entry is scanned once per action whatever the number of keywords. Filters
+ * are immutable and safe for concurrent use.
+ */
+public final class EntryFilter
+{
+    /**
+     * Filter of the channels without rules
+     */
+    public static final EntryFilter ACCEPT_ALL = new EntryFilter(List.of(), new EnumMap<>(FilterRule.Field.class), new EnumMap<>(FilterRule.Field.class));
+
+    private final List<FilterRule> rules;
+
+    private final Map<FilterRule.Field, Matcher> inclusions;
+
+    private final Map<FilterRule.Field, Matcher> exclusions;
+
+    private EntryFilter(List<FilterRule> rules, Map<FilterRule.Field, Matcher> inclusions, Map<FilterRule.Field, Matcher> exclusions)
+    {
+        this.rules = rules;
+        this.inclusions = inclusions;
+        this.exclusions = exclusions;
+    }
+
+    /**
+     * @param rules the rules to compile
+     * @return the filter applying the rules
+     * @throws InvalidFilterRuleException if any of the rules is invalid
+     */
+    public static EntryFilter compile(List<FilterRule> rules)
+    {
+        if (rules == null || rules.isEmpty())
+        {
+            return ACCEPT_ALL;
+        }
+
+        var keywords = new EnumMap<FilterRule.Action, Map<FilterRule.Field, List<String>>>(FilterRule.Action.class);
+        var patterns = new EnumMap<FilterRule.Action, Map<FilterRule.Field, List<Pattern>>>(FilterRule.Action.class);
+
+        for (var rule : rules)
+        {
+            validate(rule);
+
+            if (rule.getKeywords() != null)
+            {
+                keywords.computeIfAbsent(rule.getAction(), a -> new EnumMap<>(FilterRule.Field.class))
+                        .computeIfAbsent(rule.getField(), f -> new ArrayList<>())
+                        .addAll(rule.getKeywords());
+            }
+
+            if (rule.getPattern() != null)
+            {
+                try
+                {
+                    patterns.computeIfAbsent(rule.getAction(), a -> new EnumMap<>(FilterRule.Field.class))
+                            .computeIfAbsent(rule.getField(), f -> new ArrayList<>())
+                            .add(Pattern.compile(rule.getPattern(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE));
+                }
+                catch (PatternSyntaxException e)
+                {
+                    throw new InvalidFilterRuleException(rule, e.getDescription());
+                }
+            }
+        }
+
+        return new EntryFilter(List.copyOf(rules),
+                               matchers(keywords.get(FilterRule.Action.INCLUDE), patterns.get(FilterRule.Action.INCLUDE)),
+                               matchers(keywords.get(FilterRule.Action.EXCLUDE), patterns.get(FilterRule.Action.EXCLUDE)));
+    }
+
+    private static void validate(FilterRule rule)
+    {
+        if (rule.getField() == null || rule.getAction() == null)
+        {
+            throw new InvalidFilterRuleException(rule, "field and action are required");
+        }
+
+        var keywords = rule.getKeywords() != null ? rule.getKeywords() : List.<String>of();
+        if (keywords.isEmpty() && rule.getPattern() == null)
+        {
+            throw new InvalidFilterRuleException(rule, "keywords or pattern are required");
+        }
+
+        for (var keyword : keywords)
+        {
+            if (keyword == null || keyword.isBlank())
+            {
+                throw new InvalidFilterRuleException(rule, "keywords can't be blank");
+            }
+        }
+    }
+
+    private static Map<FilterRule.Field, Matcher> matchers(Map<FilterRule.Field, List<String>> keywords, Map<FilterRule.Field, List<Pattern>> patterns)
+    {
+        var matchers = new EnumMap<FilterRule.Field, Matcher>(FilterRule.Field.class);
+        for (var field : FilterRule.Field.values())
+        {
+            var fieldKeywords = keywords != null ? keywords.get(field) : null;
+            var fieldPatterns = patterns != null ? patterns.get(field) : null;
+            if (fieldKeywords != null || fieldPatterns != null)
+            {
+                matchers.put(field, new Matcher(fieldKeywords != null ? new AhoCorasick(fieldKeywords) : null,
+                                                fieldPatterns != null ? fieldPatterns.toArray(new Pattern[0]) : new Pattern[0]));
+            }
+        }
+
+        return matchers;
+    }
+
+    /**
+     * @return the rules the filter was compiled from
+     */
+    public List<FilterRule> getRules()
+    {
+        return rules;
+    }
+
+    /**
+     * @param entry the entry
+     * @return <code>true</code> if the entry must be ingested, <code>false</code> if it must be dropped
+     */
+    public boolean accepts(SyndEntry entry)
+    {
+        for (var exclusion : exclusions.entrySet())
+        {
+            if (exclusion.getValue().matches(values(entry, exclusion.getKey())))
+            {
+                return false;
+            }
+        }
+
+        if (inclusions.isEmpty())
+        {
+            return true;
+        }
+
+        for (var inclusion : inclusions.entrySet())
+        {
+            if (inclusion.getValue().matches(values(entry, inclusion.getKey())))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static List<String> values(SyndEntry entry, FilterRule.Field field)
+    {
+        switch (field)
+        {
+            case TITLE:
+                return entry.getTitle() != null ? List.of(entry.getTitle()) : List.of();
+            case LINK:
+                return entry.getLink() != null ? List.of(entry.getLink()) : List.of();
+            case AUTHOR:
+                var authors = new ArrayList<String>(entry.getAuthors().size() + 1);
+                if (entry.getAuthor() != null)
+                {
+                    authors.add(entry.getAuthor());
+                }
+                for (SyndPerson author : entry.getAuthors())
+                {
+                    if (author.getName() != null)
+                    {
+                        authors.add(author.getName());
+                    }
+                }
+                return authors;
+            case CATEGORY:
+                var categories = new ArrayList<String>(entry.getCategories().size());
+                for (SyndCategory category : entry.getCategories())
+                {
+                    if (category.getName() != null)
+                    {
+                        categories.add(category.getName());
+                    }
+                }
+                return categories;
+            default:
+                throw new IllegalArgumentException(field.name());
+        }
+    }
+
+    /**
+     * The compiled keywords and patterns of an action on a field
+     */
+    private static final class Matcher
+    {
+        private final AhoCorasick keywords;
+
+        private final Pattern[] patterns;
+
+        private Matcher(AhoCorasick keywords, Pattern[] patterns)
+        {
+            this.keywords = keywords;
+            this.patterns = patterns;
+        }
+
+        private boolean matches(List<String> values)
+        {
+            for (var value : values)
+            {
+                if (keywords != null && keywords.matches(value))
+                {
+                    return true;
+                }
+
+                for (var pattern : patterns)
+                {
+                    if (pattern.matcher(value).find())
+                    {
+                        return true;
+                    }
+                }
+            }
+
+            return false;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.assignment.aggregator.helpers;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.contrib.json.classic.JsonLayout;
+
+import java.util.Map;
+
+/**
+ * JSON layout writing the events of the {@link EventLogger}s as structured documents
+ * <p>
+ * The name of the event and each of its fields are written as attributes of their own, next to the attributes of the
+ * {@link JsonLayout}. The fields are read here, on the thread writing the event, and never formatted as text. Fields named after one of these attributes are skipped. Other log events are written as the
+ * {@link JsonLayout} does.
+ */
+public class EventJsonLayout extends JsonLayout
+{
+    /**
+     * Name of the attribute holding the name of the event
+     */
+    public static final String EVENT_ATTR_NAME = "event";
+
+    @Override
+    protected void addCustomDataToJsonMap(Map<String, Object> map, ILoggingEvent event)
+    {
+        var arguments = event.getArgumentArray();
+        if (arguments == null || arguments.length != 1 || !(arguments[0] instanceof EventLogger.Fields))
+        {
+            return;
+        }
+
+        map.put(EVENT_ATTR_NAME, event.getMessage());
+
+        var fields = (EventLogger.Fields) arguments[0];
+        for (var i = 0; i < fields.size(); i++)
+        {
+            map.putIfAbsent(fields.name(i), fields.value(i));
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.assignment.aggregator.helpers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Logger of structured events, named after what happened (i.e: <code>channel.fetched</code>) and carrying named
+ * fields
+ * <p>
+ * Events are logged through SLF4J by loggers named after {@link #PREFIX}. The message is the name of the event, free
+ * of placeholders, and the fields are its only argument: formatting the message, as the asynchronous appender does on
+ * the calling thread before queuing the event, never turns the fields into text. They are only read by the layout, on
+ * the thread writing the event. Appenders using the {@link EventJsonLayout} write every field as an attribute of the
+ * JSON document of the event, other appenders only write the name of the event.
+ * <p>
+ * Events are meant for hot paths, so there are no varargs: callers check the level first, as with any other logger,
+ * and pass their fields as pairs of names and values. Values are read by the thread writing the event, they must not
+ * be mutated once logged.
+ */
+public final class EventLogger
+{
+    /**
+     * Prefix of the names of the event loggers
+     */
+    public static final String PREFIX = "events.";
+
+    private final Logger logger;
+
+    private EventLogger(Logger logger)
+    {
+        this.logger = logger;
+    }
+
+    /**
+     * @param name the name of the logger, appended to {@link #PREFIX}. i.e: <code>ingest.channel</code>
+     * @return the event logger
+     */
+    public static EventLogger of(String name)
+    {
+        return new EventLogger(LoggerFactory.getLogger(PREFIX + name));
+    }
+
+    public boolean isInfoEnabled()
+    {
+        return logger.isInfoEnabled();
+    }
+
+    public boolean isWarnEnabled()
+    {
+        return logger.isWarnEnabled();
+    }
+
+    /**
+     * Log an event at <code>INFO</code> level
+     *
+     * @param event the name of the event
+     * @param name  the name of the field of the event
+     * @param value the value of the field
+     */
+    public void info(String event, String name, Object value)
+    {
+        logger.info(event, new Fields(new String[]{name}, new Object[]{value}));
+    }
+
+    public void info(String event, String name1, Object value1, String name2, Object value2)
+    {
+        logger.info(event, new Fields(new String[]{name1, name2}, new Object[]{value1, value2}));
+    }
+
+    public void info(String event, String name1, Object value1, String name2, Object value2, String name3, Object value3)
+    {
+        logger.info(event, new Fields(new String[]{name1, name2, name3}, new Object[]{value1, value2, value3}));
+    }
+
+    /**
+     * Log an event at <code>WARN</code> level
+     *
+     * @see #info(String, String, Object)
+     */
+    public void warn(String event, String name1, Object value1, String name2, Object value2)
+    {
+        logger.warn(event, new Fields(new String[]{name1, name2}, new Object[]{value1, value2}));
+    }
+
+    /**
+     * The named fields of an event, the only argument of its message
+     */
+    public static final class Fields
+    {
+        private final String[] names;
+
+        private final Object[] values;
+
+        private Fields(String[] names, Object[] values)
+        {
+            this.names = names;
+            this.values = values;
+        }
+
+        public int size()
+        {
+            return names.length;
+        }
+
+        public String name(int index)
+        {
+            return names[index];
+        }
+
+        public Object value(int index)
+        {
+            return values[index];
+        }
+
+        @Override
+        public String toString()
+        {
+            var text = new StringBuilder();
+            for (var i = 0; i < names.length; i++)
+            {
+                if (i > 0)
+                {
+                    text.append(' ');
+                }
+                text.append(names[i]).append('=').append(values[i]);
+            }
+
+            return text.toString();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.assignment.aggregator.helpers;
+
+import com.assignment.aggregator.models.FeedEntry;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Cache of the JSON documents of {@link FeedEntry}s, by entry id
+ * <p>
+ * Stored entries only change when their publisher edits them, which sets their update date, so once an entry has been
+ * written it is written again by copying its document into the output, without going through its properties (nor the
+ * introspection of its ROME contents). Documents are cached by entry id and update date as UTF-8 bytes on first
+ * serialization, and the least recently used ones are evicted once their total weight exceeds the configured size.
+ * <p>
+ * The cache is only used when the whole entry is written as compact JSON: fresh entries, entries without id, entries
+ * carrying their near duplicates, field selections, pretty printed output and binary formats are serialized as usual.
+ */
+public class FeedEntryJsonCache
+{
+    private final Cache<String, SerializedString> documents;
+
+    /**
+     * @param maximumBytes the maximum total size of the cached documents, roughly in bytes
+     */
+    public FeedEntryJsonCache(long maximumBytes)
+    {
+        this.documents = Caffeine.newBuilder()
+                                 .maximumWeight(maximumBytes)
+                                 .weigher((String id, SerializedString document) -> document.asUnquotedUTF8().length + 2 * document.charLength())
+                                 .build();
+    }
+
+    /**
+     * @return the Jackson module wrapping the serializer of {@link FeedEntry}s with the cache
+     */
+    public Module module()
+    {
+        var module = new SimpleModule(FeedEntryJsonCache.class.getSimpleName());
+        module.setSerializerModifier(new BeanSerializerModifier()
+        {
+            @Override
+            public JsonSerializer<?> modifySerializer(SerializationConfig config, BeanDescription description, JsonSerializer<?> serializer)
+            {
+                return FeedEntry.class.equals(description.getBeanClass()) ? new CachingSerializer(serializer) : serializer;
+            }
+        });
+
+        return module;
+    }
+
+    /**
+     * @return the approximate number of cached documents
+     */
+    public long size()
+    {
+        return documents.estimatedSize();
+    }
+
+    /**
+     * Serializer writing the cached document of an entry, falling back to the bean serializer it wraps
+     */
+    private final class CachingSerializer extends StdSerializer<FeedEntry> implements ResolvableSerializer, ContextualSerializer
+    {
+        private final JsonSerializer<Object> delegate;
+
+        @SuppressWarnings("unchecked")
+        private CachingSerializer(JsonSerializer<?> delegate)
+        {
+            super(FeedEntry.class);
+            this.delegate = (JsonSerializer<Object>) delegate;
+        }
+
+        @Override
+        public void resolve(SerializerProvider provider) throws JsonMappingException
+        {
+            if (delegate instanceof ResolvableSerializer)
+            {
+                ((ResolvableSerializer) delegate).resolve(provider);
+            }
+        }
+
+        @Override
+        public JsonSerializer<?> createContextual(SerializerProvider provider, BeanProperty property) throws JsonMappingException
+        {
+            if (delegate instanceof ContextualSerializer)
+            {
+                var contextual = ((ContextualSerializer) delegate).createContextual(provider, property);
+                return contextual == delegate ? this : new CachingSerializer(contextual);
+            }
+
+            return this;
+        }
+
+        @Override
+        public void serialize(FeedEntry entry, JsonGenerator generator, SerializerProvider provider) throws IOException
+        {
+            if (!isCacheable(entry, generator, provider))
+            {
+                delegate.serialize(entry, generator, provider);
+                return;
+            }
+
+            SerializedString document;
+            try
+            {
+                document = documents.get(cacheKey(entry), id -> write(entry, generator, provider));
+            }
+            catch (UncheckedIOException e)
+            {
+                throw e.getCause();
+            }
+
+            generator.writeRawValue(document);
+        }
+
+        private boolean isCacheable(FeedEntry entry, JsonGenerator generator, SerializerProvider provider)
+        {
+            return entry.getId() != null
+                   && !entry.isFresh()
+                   && entry.getAlternates().isEmpty()
+                   && generator instanceof JsonGeneratorImpl
+                   && generator.getPrettyPrinter() == null
+                   && generator.getCodec() != null
+                   && provider.getFilterProvider() == FieldSelection.all();
+        }
+
+        /**
+         * @return the key of the document of an entry, which changes whenever the entry is edited
+         */
+        private String cacheKey(FeedEntry entry)
+        {
+            return entry.getUpdated() == null ? entry.getId() : entry.getId() + '@' + entry.getUpdated().toEpochMilli();
+        }
+
+        /**
+         * Write the document of an entry apart, with the same settings as the output it is meant for
+         */
+        private SerializedString write(FeedEntry entry, JsonGenerator output, SerializerProvider provider)
+        {
+            var buffer = new ByteArrayBuilder();
+            try (var generator = output.getCodec().getFactory().createGenerator(buffer))
+            {
+                delegate.serialize(entry, generator, provider);
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+
+            var document = new SerializedString(new String(buffer.toByteArray(), StandardCharsets.UTF_8));
+
+            // the UTF-8 bytes are computed once, and then copied as is
+            document.asUnquotedUTF8();
+
+            return document;
+        }
+    }
+}
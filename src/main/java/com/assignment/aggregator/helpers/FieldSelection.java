@@ -0,0 +1,55 @@
+package com.assignment.aggregator.helpers;
+
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+
+import java.util.Set;
+
+/**
+ * Sparse fieldsets of {@link com.assignment.aggregator.models.FeedEntry}s
+ * <p>
+ * Entries are serialized through the {@link #FILTER_ID} property filter, which writes every property unless the
+ * serialization is given a filter provider selecting some of them. Unselected properties are skipped while the
+ * entries are written, no intermediate representation is built.
+ */
+public final class FieldSelection
+{
+    /**
+     * Id of the property filter applied to {@link com.assignment.aggregator.models.FeedEntry}s
+     */
+    public static final String FILTER_ID = "feedEntryFields";
+
+    /**
+     * The fields of a {@link com.assignment.aggregator.models.FeedEntry} that can be selected, as a pattern
+     */
+    public static final String FEED_ENTRY_FIELDS = "id|channelId|sequence|cluster|fresh|link|key|publicationDate|title|contents|authors|fingerprint|updated|alternates";
+
+    private static final FilterProvider ALL = new SimpleFilterProvider().addFilter(FILTER_ID, SimpleBeanPropertyFilter.serializeAll());
+
+    private FieldSelection()
+    {
+    }
+
+    /**
+     * @return the filter provider writing every field, always the same instance
+     */
+    public static FilterProvider all()
+    {
+        return ALL;
+    }
+
+    /**
+     * @param fields the fields to write. Every field if <code>null</code> or empty
+     * @return the filter provider writing the given fields only
+     */
+    public static FilterProvider only(Set<String> fields)
+    {
+        if (fields == null || fields.isEmpty())
+        {
+            return all();
+        }
+
+        return new SimpleFilterProvider().addFilter(FILTER_ID, SimpleBeanPropertyFilter.filterOutAllExcept(fields));
+    }
+}
@@ -0,0 +1,191 @@
+package com.assignment.aggregator.helpers;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Index of the {@link SimHash} fingerprints of the entries recently ingested, clustering near-duplicate entries
+ * <p>
+ * Fingerprints are split in eight bands of 8 bits, and every fingerprint is kept in a bucket per band. Two
+ * fingerprints differing in at most seven bits are identical in at least one band, so the candidate near duplicates
+ * of an entry are found in its eight buckets, without comparing it to every indexed entry.
+ * <p>
+ * Fingerprints are kept for a window of time, and at most a maximum number of them: the oldest ones are dropped first.
+ * Buckets list their fingerprints in the order they were added, so a dropped fingerprint is always the first of its
+ * buckets. The index is not safe for concurrent access.
+ */
+public final class NearDuplicateIndex
+{
+    private static final int BANDS = 8;
+
+    private static final int BAND_BITS = Long.SIZE / BANDS;
+
+    /**
+     * The maximum distance the bands guarantee to find
+     */
+    public static final int MAX_DISTANCE = BANDS - 1;
+
+    private final long window;
+
+    private final int maxEntries;
+
+    private final int maxDistance;
+
+    private final ArrayDeque<Fingerprint> fingerprints = new ArrayDeque<>();
+
+    private final Map<Integer, ArrayDeque<Fingerprint>> buckets = new HashMap<>();
+
+    /**
+     * @param window      how long fingerprints are kept
+     * @param maxEntries  the maximum number of fingerprints kept
+     * @param maxDistance the maximum number of bits near-duplicate fingerprints differ in, up to {@link #MAX_DISTANCE}
+     */
+    public NearDuplicateIndex(Duration window, int maxEntries, int maxDistance)
+    {
+        if (window.isNegative() || window.isZero() || maxEntries < 1 || maxDistance < 0 || maxDistance > MAX_DISTANCE)
+        {
+            throw new IllegalArgumentException("Near-duplicate indexes need a positive window and size, and a distance between 0 and " + MAX_DISTANCE);
+        }
+
+        this.window = window.toMillis();
+        this.maxEntries = maxEntries;
+        this.maxDistance = maxDistance;
+    }
+
+    /**
+     * Add the fingerprint of an entry, and find the cluster it belongs to
+     * <p>
+     * The entry joins the cluster of its nearest indexed near duplicate, the oldest one on ties. It starts a cluster
+     * of its own otherwise.
+     *
+     * @param fingerprint the fingerprint of the entry. Never clustered nor indexed if {@link SimHash#NONE}
+     * @param sequence    the ingest sequence of the entry
+     * @param now         the current time, in milliseconds
+     * @return the id of the cluster of the entry: the ingest sequence of the first entry of the cluster
+     */
+    public long add(long fingerprint, long sequence, long now)
+    {
+        evict(now - window);
+
+        if (fingerprint == SimHash.NONE)
+        {
+            return sequence;
+        }
+
+        Fingerprint nearest = null;
+        var nearestDistance = Integer.MAX_VALUE;
+        for (var band = 0; band < BANDS; band++)
+        {
+            var bucket = buckets.get(key(fingerprint, band));
+            if (bucket == null)
+            {
+                continue;
+            }
+
+            for (var candidate : bucket)
+            {
+                var distance = SimHash.distance(fingerprint, candidate.value);
+                if (distance <= maxDistance && (distance < nearestDistance || distance == nearestDistance && candidate.cluster < nearest.cluster))
+                {
+                    nearest = candidate;
+                    nearestDistance = distance;
+                }
+            }
+        }
+
+        var cluster = nearest == null ? sequence : nearest.cluster;
+        insert(fingerprint, cluster, now);
+
+        return cluster;
+    }
+
+    /**
+     * Add the fingerprint of an entry already clustered, i.e: by another node, so that the entries added later on can
+     * join its cluster
+     *
+     * @param fingerprint the fingerprint of the entry. Never indexed if {@link SimHash#NONE}
+     * @param cluster     the id of the cluster of the entry
+     * @param now         the current time, in milliseconds
+     */
+    public void put(long fingerprint, long cluster, long now)
+    {
+        evict(now - window);
+
+        if (fingerprint != SimHash.NONE)
+        {
+            insert(fingerprint, cluster, now);
+        }
+    }
+
+    /**
+     * @return the number of indexed fingerprints
+     */
+    public int size()
+    {
+        return fingerprints.size();
+    }
+
+    private void insert(long fingerprint, long cluster, long now)
+    {
+        var added = new Fingerprint(fingerprint, cluster, now);
+        fingerprints.addLast(added);
+        for (var band = 0; band < BANDS; band++)
+        {
+            buckets.computeIfAbsent(key(fingerprint, band), k -> new ArrayDeque<>()).addLast(added);
+        }
+
+        if (fingerprints.size() > maxEntries)
+        {
+            remove(fingerprints.pollFirst());
+        }
+    }
+
+    private void evict(long before)
+    {
+        while (!fingerprints.isEmpty() && fingerprints.peekFirst().addedAt < before)
+        {
+            remove(fingerprints.pollFirst());
+        }
+    }
+
+    private void remove(Fingerprint fingerprint)
+    {
+        for (var band = 0; band < BANDS; band++)
+        {
+            var key = key(fingerprint.value, band);
+            var bucket = buckets.get(key);
+
+            bucket.pollFirst();
+            if (bucket.isEmpty())
+            {
+                buckets.remove(key);
+            }
+        }
+    }
+
+    /**
+     * @return the key of the bucket of a band of a fingerprint
+     */
+    private static int key(long fingerprint, int band)
+    {
+        return band << BAND_BITS | (int) (fingerprint >>> band * BAND_BITS) & 0xFF;
+    }
+
+    private static final class Fingerprint
+    {
+        private final long value;
+
+        private final long cluster;
+
+        private final long addedAt;
+
+        private Fingerprint(long value, long cluster, long addedAt)
+        {
+            this.value = value;
+            this.cluster = cluster;
+            this.addedAt = addedAt;
+        }
+    }
+}
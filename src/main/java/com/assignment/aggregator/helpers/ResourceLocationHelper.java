@@ -1,11 +1,8 @@
 package com.assignment.aggregator.helpers;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
-import java.text.MessageFormat;
 
 /**
  * This helper provides a way to build the API path being called by the current
@@ -14,7 +11,7 @@ import java.text.MessageFormat;
 public class ResourceLocationHelper
 {
 
-    private static final Logger logger = LoggerFactory.getLogger(ResourceLocationHelper.class);
+    private static final EventLogger events = EventLogger.of("request");
 
     private ResourceLocationHelper()
     {
@@ -40,9 +37,9 @@ public class ResourceLocationHelper
                                .buildAndExpand(value)
                                .toUri();
 
-        if (logger.isInfoEnabled())
+        if (events.isInfoEnabled())
         {
-            logger.info(MessageFormat.format("Current location : {0}", location));
+            events.info("resource.located", "location", location);
         }
 
         return location;
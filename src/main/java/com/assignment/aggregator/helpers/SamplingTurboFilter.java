@@ -0,0 +1,74 @@
+package com.assignment.aggregator.helpers;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Logback filter keeping one in every <code>rate</code> events of a logger and of its descendants, for events logged
+ * once per channel or per entry which would otherwise flood the logs
+ * <p>
+ * Turbo filters run before the event is built, so dropped events cost a counter increment. Only events up to
+ * <code>INFO</code> are sampled, warnings and errors are always kept. Level checks (i.e: <code>isInfoEnabled()</code>)
+ * are not counted.
+ */
+public class SamplingTurboFilter extends TurboFilter
+{
+    private final AtomicLong counter = new AtomicLong();
+
+    private String loggerName;
+
+    private int rate = 1;
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t)
+    {
+        if (!isStarted() || format == null || level.isGreaterOrEqual(Level.WARN) || !isSampled(logger.getName()))
+        {
+            return FilterReply.NEUTRAL;
+        }
+
+        return counter.getAndIncrement() % rate == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    private boolean isSampled(String name)
+    {
+        return name.startsWith(loggerName) && (name.length() == loggerName.length() || name.charAt(loggerName.length()) == '.');
+    }
+
+    @Override
+    public void start()
+    {
+        if (loggerName == null || rate < 1)
+        {
+            addError("Sampling filters need a logger name and a rate of at least 1");
+            return;
+        }
+
+        super.start();
+    }
+
+    public String getLoggerName()
+    {
+        return loggerName;
+    }
+
+    public void setLoggerName(String loggerName)
+    {
+        this.loggerName = loggerName;
+    }
+
+    public int getRate()
+    {
+        return rate;
+    }
+
+    public void setRate(int rate)
+    {
+        this.rate = rate;
+    }
+}
@@ -0,0 +1,134 @@
+package com.assignment.aggregator.helpers;
+
+import java.util.regex.Pattern;
+
+/**
+ * 64-bit SimHash fingerprints of texts, close for near-duplicate texts
+ * <p>
+ * Texts are normalized (markup and entities dropped, lower cased, split on anything but letters and digits) and
+ * broken into overlapping pairs of words. Every pair is hashed, and each bit of the fingerprint is set if it is set in
+ * most of the hashes. Texts sharing most of their pairs of words get fingerprints differing in a few bits only, which
+ * is measured by {@link #distance(long, long)}.
+ */
+public final class SimHash
+{
+    /**
+     * Fingerprint of the texts too short to be compared
+     */
+    public static final long NONE = 0;
+
+    /**
+     * Minimum number of pairs of words of a fingerprinted text. Shorter texts share too few pairs to tell duplicates
+     */
+    private static final int MIN_FEATURES = 4;
+
+    /**
+     * Maximum number of characters fingerprinted, the beginning of a text is enough to tell duplicates
+     */
+    private static final int MAX_LENGTH = 8192;
+
+    private static final Pattern MARKUP = Pattern.compile("<[^>]*>|&#?\\w+;");
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private SimHash()
+    {
+    }
+
+    /**
+     * Fingerprint some texts as if they were one
+     *
+     * @param texts the texts, <code>null</code> texts are skipped
+     * @return the fingerprint, {@link #NONE} if the texts are too short
+     */
+    public static long fingerprint(String... texts)
+    {
+        var counts = new int[Long.SIZE];
+        var features = 0;
+        var previous = 0L;
+        var words = 0;
+
+        for (var text : texts)
+        {
+            if (text == null)
+            {
+                continue;
+            }
+
+            var normalized = MARKUP.matcher(text.length() > MAX_LENGTH ? text.substring(0, MAX_LENGTH) : text).replaceAll(" ");
+            var hash = FNV_OFFSET_BASIS;
+            var inWord = false;
+
+            for (var i = 0; i <= normalized.length(); i++)
+            {
+                var c = i < normalized.length() ? normalized.charAt(i) : ' ';
+                if (Character.isLetterOrDigit(c))
+                {
+                    hash = (hash ^ Character.toLowerCase(c)) * FNV_PRIME;
+                    inWord = true;
+                }
+                else if (inWord)
+                {
+                    if (words++ > 0)
+                    {
+                        add(counts, mix(previous * 31 + hash));
+                        features++;
+                    }
+
+                    previous = hash;
+                    hash = FNV_OFFSET_BASIS;
+                    inWord = false;
+                }
+            }
+        }
+
+        if (features < MIN_FEATURES)
+        {
+            return NONE;
+        }
+
+        var fingerprint = 0L;
+        for (var bit = 0; bit < Long.SIZE; bit++)
+        {
+            if (counts[bit] > 0)
+            {
+                fingerprint |= 1L << bit;
+            }
+        }
+
+        // the fingerprint of too short texts is never produced
+        return fingerprint == NONE ? 1 : fingerprint;
+    }
+
+    /**
+     * @return the number of bits two fingerprints differ in
+     */
+    public static int distance(long fingerprint, long other)
+    {
+        return Long.bitCount(fingerprint ^ other);
+    }
+
+    private static void add(int[] counts, long hash)
+    {
+        for (var bit = 0; bit < Long.SIZE; bit++)
+        {
+            counts[bit] += (hash >>> bit & 1) == 0 ? -1 : 1;
+        }
+    }
+
+    /**
+     * Spread the bits of a hash, FNV-1a hashes of short words differ in their low bits mostly
+     */
+    private static long mix(long hash)
+    {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+
+        return hash;
+    }
+}
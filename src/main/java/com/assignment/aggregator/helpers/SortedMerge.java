@@ -0,0 +1,74 @@
+package com.assignment.aggregator.helpers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * K-way merge of sorted sources
+ * <p>
+ * The head of every source is kept in a heap, so taking the next element costs <code>O(log k)</code> for
+ * <code>k</code> sources, and the merge stops as soon as the limit is reached: the first <code>n</code> elements are
+ * merged in <code>O(n log k)</code>, however long the sources are.
+ */
+public final class SortedMerge
+{
+    private SortedMerge()
+    {
+    }
+
+    /**
+     * Merge sorted sources, keeping only the first elements
+     *
+     * @param sources    the sources, each one sorted according to the comparator
+     * @param comparator the order of the sources and of the merged list
+     * @param limit      the maximum number of elements to merge
+     * @param <T>        the type of the elements
+     * @return the first <code>limit</code> elements of the sources, sorted according to the comparator
+     */
+    public static <T> List<T> merge(Collection<? extends List<T>> sources, Comparator<? super T> comparator, int limit)
+    {
+        var heads = new PriorityQueue<Head<T>>(Math.max(1, sources.size()), (a, b) -> comparator.compare(a.element, b.element));
+        for (var source : sources)
+        {
+            var iterator = source.iterator();
+            if (iterator.hasNext())
+            {
+                heads.add(new Head<>(iterator.next(), iterator));
+            }
+        }
+
+        var merged = new ArrayList<T>(Math.min(limit, sources.stream().mapToInt(List::size).sum()));
+        while (merged.size() < limit && !heads.isEmpty())
+        {
+            var head = heads.poll();
+            merged.add(head.element);
+
+            if (head.rest.hasNext())
+            {
+                heads.add(new Head<>(head.rest.next(), head.rest));
+            }
+        }
+
+        return merged;
+    }
+
+    /**
+     * The next element of a source, and the rest of the source
+     */
+    private static final class Head<T>
+    {
+        private final T element;
+
+        private final Iterator<T> rest;
+
+        private Head(T element, Iterator<T> rest)
+        {
+            this.element = element;
+            this.rest = rest;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.assignment.aggregator.helpers;
+
+import com.assignment.aggregator.models.FeedEntry;
+import com.assignment.aggregator.models.SyndicationFormat;
+import com.rometools.rome.feed.synd.SyndContent;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * Writer of {@link FeedEntry}s as Atom or RSS documents
+ * <p>
+ * Documents are written element by element with a StAX stream writer, straight from the entries, without building
+ * any intermediate tree of the feed.
+ */
+public final class SyndicationWriter
+{
+    private static final String ATOM_NAMESPACE = "http://www.w3.org/2005/Atom";
+
+    private static final String DUBLIN_CORE_PREFIX = "dc";
+
+    private static final String DUBLIN_CORE_NAMESPACE = "http://purl.org/dc/elements/1.1/";
+
+    private static final DateTimeFormatter RSS_DATE = DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC);
+
+    /**
+     * Characters not allowed in XML 1.0 documents, which some feeds carry nevertheless
+     */
+    private static final Pattern INVALID_XML_CHARACTERS = Pattern.compile("[^\\x09\\x0A\\x0D\\x20-\\uD7FF\\uE000-\\uFFFD\\x{10000}-\\x{10FFFF}]");
+
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newFactory();
+
+    private SyndicationWriter()
+    {
+    }
+
+    /**
+     * Write a feed document
+     *
+     * @param format  the format of the document
+     * @param title   the title of the feed
+     * @param link    the URL the feed is served at, also used as the feed's id
+     * @param entries the entries of the feed, in the order they must be written
+     * @return the UTF-8 encoded document
+     */
+    public static byte[] write(SyndicationFormat format, String title, String link, List<FeedEntry> entries)
+    {
+        var out = new ByteArrayOutputStream();
+        try
+        {
+            var writer = OUTPUT_FACTORY.createXMLStreamWriter(out, StandardCharsets.UTF_8.name());
+            writer.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+
+            if (format == SyndicationFormat.ATOM)
+            {
+                writeAtom(writer, title, link, entries);
+            }
+            else
+            {
+                writeRss(writer, title, link, entries);
+            }
+
+            writer.writeEndDocument();
+            writer.close();
+        }
+        catch (XMLStreamException e)
+        {
+            throw new IllegalStateException("Unable to write the " + format + " document", e);
+        }
+
+        return out.toByteArray();
+    }
+
+    private static void writeAtom(XMLStreamWriter writer, String title, String link, List<FeedEntry> entries) throws XMLStreamException
+    {
+        writer.setDefaultNamespace(ATOM_NAMESPACE);
+        writer.writeStartElement(ATOM_NAMESPACE, "feed");
+        writer.writeDefaultNamespace(ATOM_NAMESPACE);
+
+        writeElement(writer, "title", title);
+        writeElement(writer, "id", link);
+        writer.writeEmptyElement("link");
+        writer.writeAttribute("rel", "self");
+        writer.writeAttribute("href", link);
+
+        // the feed is as recent as its newest entry
+        var updated = entries.stream()
+                             .map(FeedEntry::getPublicationDate)
+                             .filter(Objects::nonNull)
+                             .max(Instant::compareTo)
+                             .orElse(Instant.EPOCH);
+        writeElement(writer, "updated", updated.toString());
+
+        for (var entry : entries)
+        {
+            writer.writeStartElement("entry");
+
+            writeElement(writer, "id", entry.getLink());
+            writeElement(writer, "title", entry.getTitle() == null ? "" : entry.getTitle());
+            writer.writeEmptyElement("link");
+            writer.writeAttribute("href", entry.getLink());
+
+            // Atom requires an update date, entries without publication date fall back to the feed's
+            writeElement(writer, "updated", (entry.getPublicationDate() == null ? updated : entry.getPublicationDate()).toString());
+            if (entry.getPublicationDate() != null)
+            {
+                writeElement(writer, "published", entry.getPublicationDate().toString());
+            }
+
+            for (var author : entry.getAuthors())
+            {
+                writer.writeStartElement("author");
+                writeElement(writer, "name", author);
+                writer.writeEndElement();
+            }
+
+            var content = content(entry);
+            if (content != null)
+            {
+                writer.writeStartElement("content");
+                writer.writeAttribute("type", "text/plain".equals(content.getType()) ? "text" : "html");
+                writer.writeCharacters(clean(content.getValue()));
+                writer.writeEndElement();
+            }
+
+            writer.writeEndElement();
+        }
+
+        writer.writeEndElement();
+    }
+
+    private static void writeRss(XMLStreamWriter writer, String title, String link, List<FeedEntry> entries) throws XMLStreamException
+    {
+        writer.setPrefix(DUBLIN_CORE_PREFIX, DUBLIN_CORE_NAMESPACE);
+        writer.writeStartElement("rss");
+        writer.writeAttribute("version", "2.0");
+        writer.writeNamespace(DUBLIN_CORE_PREFIX, DUBLIN_CORE_NAMESPACE);
+
+        writer.writeStartElement("channel");
+        writeElement(writer, "title", title);
+        writeElement(writer, "link", link);
+        writeElement(writer, "description", title);
+
+        for (var entry : entries)
+        {
+            writer.writeStartElement("item");
+
+            if (entry.getTitle() != null)
+            {
+                writeElement(writer, "title", entry.getTitle());
+            }
+            writeElement(writer, "link", entry.getLink());
+            writer.writeStartElement("guid");
+            writer.writeAttribute("isPermaLink", "true");
+            writer.writeCharacters(clean(entry.getLink()));
+            writer.writeEndElement();
+
+            if (entry.getPublicationDate() != null)
+            {
+                writeElement(writer, "pubDate", RSS_DATE.format(entry.getPublicationDate()));
+            }
+
+            // RSS authors are e-mail addresses, names are written as Dublin Core creators
+            for (var author : entry.getAuthors())
+            {
+                writer.writeStartElement(DUBLIN_CORE_NAMESPACE, "creator");
+                writer.writeCharacters(clean(author));
+                writer.writeEndElement();
+            }
+
+            var content = content(entry);
+            if (content != null)
+            {
+                writeElement(writer, "description", content.getValue());
+            }
+
+            writer.writeEndElement();
+        }
+
+        writer.writeEndElement();
+        writer.writeEndElement();
+    }
+
+    private static void writeElement(XMLStreamWriter writer, String name, String text) throws XMLStreamException
+    {
+        writer.writeStartElement(name);
+        writer.writeCharacters(clean(text));
+        writer.writeEndElement();
+    }
+
+    /**
+     * @return the first content of an entry holding a value, <code>null</code> if there is none
+     */
+    private static SyndContent content(FeedEntry entry)
+    {
+        return entry.getContents().stream()
+                    .filter(c -> c.getValue() != null)
+                    .findFirst()
+                    .orElse(null);
+    }
+
+    private static String clean(String text)
+    {
+        return text == null ? "" : INVALID_XML_CHARACTERS.matcher(text).replaceAll("");
+    }
+}
@@ -0,0 +1,98 @@
+package com.assignment.aggregator.helpers;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket, refilled at a steady rate up to its capacity
+ * <p>
+ * The bucket is implemented as a generic cell rate algorithm: rather than a count of tokens and a refill date, it only
+ * keeps the theoretical arrival time of the next permit, which every permit taken pushes by one refill interval. A
+ * permit is refused while that time is more than the capacity's worth of intervals ahead of now, and the bucket is
+ * full again once that time has passed. Taking a permit is a single compare-and-set of that time, so concurrent
+ * callers never block each other.
+ */
+public final class TokenBucket
+{
+    private final long interval;
+
+    /**
+     * How far ahead of now the arrival time may be for a permit to be taken
+     */
+    private final long tolerance;
+
+    /**
+     * Theoretical arrival time of the next permit, in {@link System#nanoTime()} nanoseconds
+     */
+    private final AtomicLong arrival;
+
+    /**
+     * @param refillPeriod the time to refill one permit
+     * @param capacity     the maximum number of permits, taken at once when the bucket is full
+     */
+    public TokenBucket(Duration refillPeriod, int capacity)
+    {
+        if (refillPeriod.isNegative() || refillPeriod.isZero() || capacity < 1)
+        {
+            throw new IllegalArgumentException("Token buckets need a positive refill period and capacity");
+        }
+
+        this.interval = refillPeriod.toNanos();
+        this.tolerance = interval * (capacity - 1);
+        this.arrival = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Take a permit, if one is available
+     *
+     * @return {@link Duration#ZERO} if a permit was taken, the time until one is available otherwise
+     */
+    public Duration tryAcquire()
+    {
+        return Duration.ofNanos(tryAcquire(System.nanoTime()));
+    }
+
+    /**
+     * Take a permit at a given time, if one is available
+     *
+     * @param now the current time, in {@link System#nanoTime()} nanoseconds
+     * @return <code>0</code> if a permit was taken, the nanoseconds until one is available otherwise
+     */
+    long tryAcquire(long now)
+    {
+        while (true)
+        {
+            var current = arrival.get();
+
+            // the arrival time of an idle bucket is in the past, its next permit arrives now
+            var next = current - now > 0 ? current : now;
+            var wait = next - now - tolerance;
+            if (wait > 0)
+            {
+                return wait;
+            }
+
+            if (arrival.compareAndSet(current, next + interval))
+            {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Give back a permit taken for something that didn't happen after all. Taking it back is a single atomic update of
+     * the arrival time, and an idle bucket never ends up holding more than its capacity
+     */
+    public void refund()
+    {
+        arrival.addAndGet(-interval);
+    }
+
+    /**
+     * @return the time an idle bucket takes to be full again
+     */
+    public Duration getRefillTime()
+    {
+        return Duration.ofNanos(tolerance + interval);
+    }
+}
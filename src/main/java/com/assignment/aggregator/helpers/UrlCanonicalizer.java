@@ -0,0 +1,173 @@
+package com.assignment.aggregator.helpers;
+
+import java.util.List;
+
+/**
+ * Canonical form of the links of entries, so that the same article is identified by the same string however its
+ * link is spelled
+ * <p>
+ * Only <code>http</code> and <code>https</code> links are canonicalized: the scheme and the host are lower cased, the
+ * default port, the fragment (except <code>#!</code> routes) and the trailing slash of the path are dropped, and so
+ * are the query parameters matching the stripping rules. The remaining parameters keep their order. Other links are
+ * only trimmed.
+ * <p>
+ * Links are scanned once, without parsing them into an intermediate representation, and links already canonical are
+ * returned as is.
+ */
+public final class UrlCanonicalizer
+{
+    private static final String SCHEME_SEPARATOR = "://";
+
+    private final String[] exactRules;
+
+    private final String[] prefixRules;
+
+    /**
+     * @param strippedParameters the names of the query parameters to strip, case insensitive. Names ending with
+     *                           <code>*</code> strip every parameter starting with them, i.e: <code>utm_*</code>
+     */
+    public UrlCanonicalizer(List<String> strippedParameters)
+    {
+        this.exactRules = strippedParameters.stream()
+                                            .map(String::trim)
+                                            .filter(r -> !r.isEmpty() && !r.endsWith("*"))
+                                            .toArray(String[]::new);
+        this.prefixRules = strippedParameters.stream()
+                                             .map(String::trim)
+                                             .filter(r -> r.length() > 1 && r.endsWith("*"))
+                                             .map(r -> r.substring(0, r.length() - 1))
+                                             .toArray(String[]::new);
+    }
+
+    /**
+     * @param link the link to canonicalize
+     * @return the canonical link, <code>null</code> for <code>null</code> links
+     */
+    public String canonicalize(String link)
+    {
+        if (link == null)
+        {
+            return null;
+        }
+
+        var url = link.trim();
+        var schemeEnd = url.indexOf(SCHEME_SEPARATOR);
+        var https = schemeEnd == 5 && url.regionMatches(true, 0, "https", 0, 5);
+        if (!https && !(schemeEnd == 4 && url.regionMatches(true, 0, "http", 0, 4)))
+        {
+            return url;
+        }
+
+        var length = url.length();
+        var authorityStart = schemeEnd + SCHEME_SEPARATOR.length();
+        var authorityEnd = indexOfAny(url, authorityStart, "/?#");
+        var pathEnd = indexOfAny(url, authorityEnd, "?#");
+        var queryEnd = url.indexOf('#', pathEnd);
+        queryEnd = queryEnd < 0 ? length : queryEnd;
+
+        var canonical = new StringBuilder(length);
+
+        // scheme and authority, without default port
+        canonical.append(https ? "https" : "http").append(SCHEME_SEPARATOR);
+        var hostStart = url.lastIndexOf('@', authorityEnd - 1) + 1;
+        hostStart = Math.max(hostStart, authorityStart);
+        canonical.append(url, authorityStart, hostStart);
+        var portStart = url.lastIndexOf(':', authorityEnd - 1);
+        var hostEnd = portStart > hostStart && url.lastIndexOf(']', authorityEnd - 1) < portStart ? portStart : authorityEnd;
+        for (var i = hostStart; i < hostEnd; i++)
+        {
+            canonical.append(Character.toLowerCase(url.charAt(i)));
+        }
+        if (hostEnd < authorityEnd && !isDefaultPort(url, hostEnd + 1, authorityEnd, https))
+        {
+            canonical.append(url, hostEnd, authorityEnd);
+        }
+
+        // path, without trailing slash
+        var trimmedPathEnd = pathEnd;
+        while (trimmedPathEnd > authorityEnd + 1 && url.charAt(trimmedPathEnd - 1) == '/')
+        {
+            trimmedPathEnd--;
+        }
+        if (trimmedPathEnd > authorityEnd + 1)
+        {
+            canonical.append(url, authorityEnd, trimmedPathEnd);
+        }
+        else
+        {
+            canonical.append('/');
+        }
+
+        // query, without stripped parameters
+        var separator = '?';
+        var parameterStart = pathEnd + 1;
+        while (parameterStart < queryEnd)
+        {
+            var parameterEnd = url.indexOf('&', parameterStart);
+            parameterEnd = parameterEnd < 0 || parameterEnd > queryEnd ? queryEnd : parameterEnd;
+            var nameEnd = url.indexOf('=', parameterStart);
+            nameEnd = nameEnd < 0 || nameEnd > parameterEnd ? parameterEnd : nameEnd;
+
+            if (parameterEnd > parameterStart && !isStripped(url, parameterStart, nameEnd))
+            {
+                canonical.append(separator).append(url, parameterStart, parameterEnd);
+                separator = '&';
+            }
+
+            parameterStart = parameterEnd + 1;
+        }
+
+        // fragments only identify content on single page applications
+        if (url.startsWith("#!", queryEnd))
+        {
+            canonical.append(url, queryEnd, length);
+        }
+
+        return canonical.length() == length && url.contentEquals(canonical) ? url : canonical.toString();
+    }
+
+    private boolean isStripped(String url, int nameStart, int nameEnd)
+    {
+        var nameLength = nameEnd - nameStart;
+        for (var rule : exactRules)
+        {
+            if (rule.length() == nameLength && url.regionMatches(true, nameStart, rule, 0, nameLength))
+            {
+                return true;
+            }
+        }
+
+        for (var rule : prefixRules)
+        {
+            if (rule.length() <= nameLength && url.regionMatches(true, nameStart, rule, 0, rule.length()))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean isDefaultPort(String url, int start, int end, boolean https)
+    {
+        var port = https ? "443" : "80";
+
+        return start == end || end - start == port.length() && url.startsWith(port, start);
+    }
+
+    /**
+     * @return the index of the first of the given characters from an index on, the length of the string if none
+     */
+    private static int indexOfAny(String string, int from, String characters)
+    {
+        for (var i = from; i < string.length(); i++)
+        {
+            if (characters.indexOf(string.charAt(i)) >= 0)
+            {
+                return i;
+            }
+        }
+
+        return string.length();
+    }
+}
@@ -9,7 +9,7 @@ import org.springframework.stereotype.Component;
 import java.text.MessageFormat;
 
 @Component
-public class ChannelMapper extends Mapper<Channel, ChannelDTO>
+public class ChannelMapper implements IEntityMapper<Channel, ChannelDTO>
 {
 
     private static final Logger logger = LoggerFactory.getLogger(ChannelMapper.class);
@@ -23,19 +23,19 @@ public class ChannelMapper extends Mapper<Channel, ChannelDTO>
     @Override
     public Channel map(ChannelDTO dto, Class<Channel> destinationType)
     {
-        if (logger.isInfoEnabled())
+        if (logger.isTraceEnabled())
         {
-            logger.info("Mapping ChannelDTO to Channel entity");
+            logger.trace("Mapping ChannelDTO to Channel entity");
         }
 
         var channel = new Channel();
 
         channel.setName(dto.getName());
         channel.setUrl(dto.getUrl());
-        if (logger.isInfoEnabled())
+        if (logger.isTraceEnabled())
         {
-            logger.info(MessageFormat.format("Channel name set to: {0}", channel.getName()));
-            logger.info(MessageFormat.format("Channel URL set to: {0}", channel.getUrl()));
+            logger.trace(MessageFormat.format("Channel name set to: {0}", channel.getName()));
+            logger.trace(MessageFormat.format("Channel URL set to: {0}", channel.getUrl()));
         }
 
         // defaults to 0 (refresh always)
@@ -46,12 +46,15 @@ public class ChannelMapper extends Mapper<Channel, ChannelDTO>
         else
         {
             channel.setTtl(0);
-            if (logger.isInfoEnabled())
+            if (logger.isTraceEnabled())
             {
-                logger.info("Channel TTL is missing. Default to 0 (always refresh)");
+                logger.trace("Channel TTL is missing. Default to 0 (always refresh)");
             }
         }
 
+        // left unset on update to keep the rules of the channel
+        channel.setFilters(dto.getFilters());
+
         return channel;
     }
 }
@@ -1,28 +1,50 @@
 package com.assignment.aggregator.mappers;
 
+import com.assignment.aggregator.helpers.ContentFingerprint;
+import com.assignment.aggregator.helpers.UrlCanonicalizer;
 import com.assignment.aggregator.models.FeedEntry;
+import com.rometools.rome.feed.synd.SyndContent;
 import com.rometools.rome.feed.synd.SyndEntry;
 import com.rometools.rome.feed.synd.SyndPerson;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Component
-public class FeedEntryMapper extends Mapper<SyndEntry, FeedEntry>
+public class FeedEntryMapper implements IDTOMapper<SyndEntry, FeedEntry>
 {
 
     private static final Logger logger = LoggerFactory.getLogger(FeedEntryMapper.class);
 
+    /**
+     * Prefix of the keys of the entries identified by their guid, which never clash with links
+     */
+    private static final String GUID_KEY_PREFIX = "guid:";
+
+    private final UrlCanonicalizer canonicalizer;
+
+    /**
+     * @param strippedParameters the query parameters stripped from the links of the entries to get their key
+     */
+    public FeedEntryMapper(@Value("${aggregator.canonical.stripped-parameters:utm_*,fbclid,gclid,dclid,msclkid,mc_cid,mc_eid,igshid,yclid,_ga}") List<String> strippedParameters)
+    {
+        this.canonicalizer = new UrlCanonicalizer(strippedParameters);
+    }
+
     /**
      * {@inheritDoc}
      * <p>
      * Converts a {@link SyndEntry}, which is the <code>rometools.rome</code> representation of a RSS/ATOM entry
      * to a {@link FeedEntry}
+     * <p>
+     * The entry is keyed by its guid (the RSS <code>guid</code> or the Atom <code>id</code>) when the feed provides
+     * one apart from the link, and by its canonical link otherwise. Its content is fingerprinted once mapped.
      */
     @Override
     public FeedEntry mapToDTO(SyndEntry source, Class<FeedEntry> destinationType)
@@ -35,9 +57,11 @@ public class FeedEntryMapper extends Mapper<SyndEntry, FeedEntry>
         var dto = new FeedEntry();
         dto.setLink(source.getLink());
         dto.setTitle(source.getTitle());
+        dto.setKey(key(source));
         if (logger.isTraceEnabled())
         {
             logger.trace(MessageFormat.format("Entry link set to: {0}", dto.getLink()));
+            logger.trace(MessageFormat.format("Entry key set to: {0}", dto.getKey()));
             logger.trace(MessageFormat.format("Entry title set to: {0}", dto.getTitle()));
         }
 
@@ -51,53 +75,36 @@ public class FeedEntryMapper extends Mapper<SyndEntry, FeedEntry>
             }
         }
 
-        if (source.getAuthors() != null)
+        // lists are sized up front, most entries have a single author and a single content
+        var authors = source.getAuthors();
+        var contributors = source.getContributors();
+        var people = new ArrayList<String>(size(authors) + size(contributors));
+        addNames(people, authors);
+        addNames(people, contributors);
+        dto.setAuthors(people);
+        if (logger.isTraceEnabled())
         {
-            var authors = source.getAuthors().stream()
-                                .map(SyndPerson::getName)
-                                .collect(Collectors.toList());
-
-            dto.getAuthors().addAll(authors);
-
-            if (logger.isTraceEnabled())
-            {
-                logger.trace(MessageFormat.format("Adding feed authors to authors list: {0}", authors));
-            }
+            logger.trace(MessageFormat.format("Entry authors and contributors set to: {0}", people));
         }
 
-        if (source.getContributors() != null)
+        var description = source.getDescription();
+        var contents = new ArrayList<SyndContent>(size(source.getContents()) + (description != null ? 1 : 0));
+        if (description != null)
         {
-            var contributors = source.getContributors().stream()
-                                     .map(SyndPerson::getName)
-                                     .collect(Collectors.toList());
-
-            dto.getAuthors().addAll(contributors);
-
-            if (logger.isTraceEnabled())
-            {
-                logger.trace(MessageFormat.format("Adding feed contributors to authors list: {0}", contributors));
-            }
+            contents.add(description);
         }
-
-        if (source.getDescription() != null)
+        if (source.getContents() != null)
         {
-            dto.getContents().add(source.getDescription());
-
-            if (logger.isTraceEnabled())
-            {
-                logger.trace("Description found. Added to DTO contents");
-            }
+            contents.addAll(source.getContents());
         }
-
-        if (source.getContents() != null)
+        dto.setContents(contents);
+        if (logger.isTraceEnabled())
         {
-            dto.getContents().addAll(source.getContents());
-            if (logger.isTraceEnabled())
-            {
-                logger.trace("Contents found. Added to DTO contents");
-            }
+            logger.trace(MessageFormat.format("Entry description and {0} contents added to DTO contents", size(source.getContents())));
         }
 
+        dto.setFingerprint(ContentFingerprint.of(dto));
+
         return dto;
     }
 
@@ -105,7 +112,7 @@ public class FeedEntryMapper extends Mapper<SyndEntry, FeedEntry>
      * {@inheritDoc}
      * <p>
      * Converts a {@link List} of {@link SyndEntry}, which is the <code>rometools.rome</code> representation of a RSS/ATOM entry
-     * to a {@link FeedEntry}
+     * to a {@link FeedEntry}. The list is sized once for all the entries.
      */
     @Override
     public List<FeedEntry> mapToDTO(Collection<SyndEntry> source, Class<FeedEntry> destinationType)
@@ -115,8 +122,42 @@ public class FeedEntryMapper extends Mapper<SyndEntry, FeedEntry>
             logger.trace(MessageFormat.format("Mapping {0} SyndEntry to FeedEntry list", source.size()));
         }
 
-        return source.stream()
-                     .map(s -> this.mapToDTO(s, destinationType))
-                     .collect(Collectors.toList());
+        var dtos = new ArrayList<FeedEntry>(source.size());
+        for (var entry : source)
+        {
+            dtos.add(mapToDTO(entry, destinationType));
+        }
+
+        return dtos;
+    }
+
+    private static void addNames(List<String> names, List<SyndPerson> people)
+    {
+        if (people != null)
+        {
+            for (var person : people)
+            {
+                names.add(person.getName());
+            }
+        }
+    }
+
+    private static int size(List<?> list)
+    {
+        return list != null ? list.size() : 0;
+    }
+
+    /**
+     * ROME sets the URI of the entries without guid to their link, such entries are keyed by their canonical link
+     */
+    private String key(SyndEntry source)
+    {
+        var guid = source.getUri() == null ? null : source.getUri().trim();
+        if (guid != null && !guid.isEmpty() && !guid.equals(source.getLink()))
+        {
+            return GUID_KEY_PREFIX + guid;
+        }
+
+        return canonicalizer.canonicalize(source.getLink());
     }
 }
@@ -4,28 +4,16 @@ import java.util.Collection;
 import java.util.List;
 
 /**
- * Interface for ENTITY <--> DTO mappers
+ * Interface for ENTITY --> DTO mappers
  * <p>
- * Delegate the mapping between objects, typically entities and one of its
- * representations (DTOs), to specialised mappers.
- * <p>
- * Specialised mappers may extend the main {@link Mapper} class and, optionally, override one
- * or more of its methods depending on the mapping strategy adopted for each entity.
+ * Delegate the mapping of entities to one of their representations (DTOs) to specialised mappers setting every field
+ * by hand. Mappers of the other direction implement {@link IEntityMapper}.
  *
  * @param <E> the entity
  * @param <D> the dto
  */
-public interface IMapper<E, D>
+public interface IDTOMapper<E, D>
 {
-    /**
-     * Map DTO to an entity
-     *
-     * @param source          the DTO to convert
-     * @param destinationType the destination class type of the entity
-     * @return the entity
-     */
-    E map(D source, Class<E> destinationType);
-
     /**
      * Map an entity to a DTO.
      *
@@ -40,7 +28,7 @@ public interface IMapper<E, D>
      *
      * @param source          the list of entities to convert
      * @param destinationType the destination's class of the DTO
-     * @return the list of DTOs
+     * @return the list of DTOs, in the order of the entities
      */
     List<D> mapToDTO(Collection<E> source, Class<D> destinationType);
 }
@@ -0,0 +1,22 @@
+package com.assignment.aggregator.mappers;
+
+/**
+ * Interface for DTO --> ENTITY mappers
+ * <p>
+ * Delegate the mapping of the representations (DTOs) received by the API to the entities they stand for, to
+ * specialised mappers setting every field by hand. Mappers of the other direction implement {@link IDTOMapper}.
+ *
+ * @param <E> the entity
+ * @param <D> the dto
+ */
+public interface IEntityMapper<E, D>
+{
+    /**
+     * Map DTO to an entity
+     *
+     * @param source          the DTO to convert
+     * @param destinationType the destination class type of the entity
+     * @return the entity
+     */
+    E map(D source, Class<E> destinationType);
+}
@@ -0,0 +1,36 @@
+package com.assignment.aggregator.mappers;
+
+import com.assignment.aggregator.dto.SubscriptionDTO;
+import com.assignment.aggregator.models.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.text.MessageFormat;
+
+@Component
+public class SubscriptionMapper implements IEntityMapper<Subscription, SubscriptionDTO>
+{
+
+    private static final Logger logger = LoggerFactory.getLogger(SubscriptionMapper.class);
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Converts a SubscriptionDTO, which is used as payload for Subscriptions' CRUD operations to an actual
+     * Subscription used by {@link com.assignment.aggregator.services.SubscriptionService}
+     */
+    @Override
+    public Subscription map(SubscriptionDTO dto, Class<Subscription> destinationType)
+    {
+        var subscription = new Subscription(dto.getTenant(), dto.getName(), dto.getUrl(), dto.getTtl());
+        if (logger.isTraceEnabled())
+        {
+            logger.trace(MessageFormat.format("Mapping SubscriptionDTO to Subscription entity. Tenant: {0}, URL: {1}", subscription.getTenant(), subscription.getUrl()));
+        }
+
+        // a missing TTL is left for the subscription service, which defaults it to the minimum subscription TTL
+
+        return subscription;
+    }
+}
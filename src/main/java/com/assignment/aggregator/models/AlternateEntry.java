@@ -0,0 +1,47 @@
+package com.assignment.aggregator.models;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+/**
+ * A near duplicate of a {@link FeedEntry}, collapsed into the entry representing its cluster
+ */
+public class AlternateEntry
+{
+    private final String id;
+
+    private final long channelId;
+
+    private final String link;
+
+    public AlternateEntry(FeedEntry entry)
+    {
+        this.id = entry.getId();
+        this.channelId = entry.getChannelId();
+        this.link = entry.getLink();
+    }
+
+    public String getId()
+    {
+        return id;
+    }
+
+    public long getChannelId()
+    {
+        return channelId;
+    }
+
+    public String getLink()
+    {
+        return link;
+    }
+
+    @Override
+    public String toString()
+    {
+        return new ToStringBuilder(this)
+                       .append("id", id)
+                       .append("channelId", channelId)
+                       .append("link", link)
+                       .toString();
+    }
+}
@@ -1,5 +1,6 @@
 package com.assignment.aggregator.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.commons.lang3.builder.ToStringBuilder;
@@ -9,12 +10,18 @@ import javax.validation.constraints.NotNull;
 import javax.validation.constraints.PositiveOrZero;
 import javax.validation.constraints.Size;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Represents a subscribed channel (Feed source)
+ * <p>
+ * A channel is the physical source of a feed: its URL is unique, and its feed is fetched and stored once. Tenants
+ * subscribe to it through {@link Subscription}s, each with its own name and TTL, the channel being refreshed at the
+ * tightest of its configured TTL and of its subscribed TTLs.
  */
 @Entity
-@Table(name = "channel")
+@Table(name = "channel", indexes = @Index(name = "idx_channel_next_refresh_at", columnList = "next_refresh_at"))
 public class Channel
 {
     @Id
@@ -30,14 +37,55 @@ public class Channel
     @NotNull
     private String url;
 
+    /**
+     * The effective TTL the channel is refreshed at: the tightest of its configured TTL and of its subscriptions'
+     */
     @Column(name = "ttl", nullable = false)
     @PositiveOrZero
     @NotNull
     private Integer ttl;
 
+    /**
+     * The TTL configured through the channel API, kept apart from the effective TTL so that it is restored once the
+     * subscriptions tightening it are gone. Null for channels created for subscriptions
+     */
+    @Column(name = "configured_ttl")
+    @JsonIgnore
+    private Integer configuredTtl;
+
     @Column(name = "last_refresh")
     private ZonedDateTime lastRefresh;
 
+    /**
+     * The moment from which the channel's feed is due for a refresh (<code>last_refresh + ttl</code>). Persisted
+     * and indexed so that due channels can be selected with a range scan instead of loading every channel
+     */
+    @Column(name = "next_refresh_at")
+    private ZonedDateTime nextRefreshAt;
+
+    /**
+     * The ingest sequence of the channel's latest stored entry. Cheap version of the channel's feed, used to
+     * validate cached copies of the feed without reading its entries
+     */
+    @Column(name = "latest_sequence", nullable = false)
+    @JsonIgnore
+    private long latestSequence = 0;
+
+    /**
+     * Whether the channel was created for a {@link Subscription}, in which case it only lives as long as it is
+     * subscribed. Channels created through the channel API are kept regardless of their subscriptions
+     */
+    @Column(name = "owned_by_subscriptions", nullable = false)
+    @JsonIgnore
+    private boolean ownedBySubscriptions = false;
+
+    /**
+     * The rules deciding which entries of the channel's feed are ingested. Every entry is ingested when empty
+     */
+    @Column(name = "filters")
+    @Convert(converter = FilterRulesConverter.class)
+    private List<FilterRule> filters = new ArrayList<>();
+
     @Column(name = "created", nullable = false)
     private ZonedDateTime created;
 
@@ -100,6 +148,17 @@ public class Channel
         return this;
     }
 
+    public Integer getConfiguredTtl()
+    {
+        return configuredTtl;
+    }
+
+    public Channel setConfiguredTtl(Integer configuredTtl)
+    {
+        this.configuredTtl = configuredTtl;
+        return this;
+    }
+
     public ZonedDateTime getLastRefresh()
     {
         return lastRefresh;
@@ -111,6 +170,28 @@ public class Channel
         return this;
     }
 
+    public ZonedDateTime getNextRefreshAt()
+    {
+        return nextRefreshAt;
+    }
+
+    public Channel setNextRefreshAt(ZonedDateTime nextRefreshAt)
+    {
+        this.nextRefreshAt = nextRefreshAt;
+        return this;
+    }
+
+    public List<FilterRule> getFilters()
+    {
+        return filters;
+    }
+
+    public Channel setFilters(List<FilterRule> filters)
+    {
+        this.filters = filters;
+        return this;
+    }
+
     public ZonedDateTime getCreated()
     {
         return created;
@@ -122,6 +203,28 @@ public class Channel
         return this;
     }
 
+    public long getLatestSequence()
+    {
+        return latestSequence;
+    }
+
+    public Channel setLatestSequence(long latestSequence)
+    {
+        this.latestSequence = latestSequence;
+        return this;
+    }
+
+    public boolean isOwnedBySubscriptions()
+    {
+        return ownedBySubscriptions;
+    }
+
+    public Channel setOwnedBySubscriptions(boolean ownedBySubscriptions)
+    {
+        this.ownedBySubscriptions = ownedBySubscriptions;
+        return this;
+    }
+
     public ZonedDateTime getUpdated()
     {
         return updated;
@@ -137,12 +240,30 @@ public class Channel
     protected void onCreate()
     {
         this.updated = this.created = ZonedDateTime.now();
+        this.nextRefreshAt = computeNextRefreshAt();
     }
 
     @PreUpdate
     protected void onUpdate()
     {
         this.updated = ZonedDateTime.now();
+        this.nextRefreshAt = computeNextRefreshAt();
+    }
+
+    /**
+     * Compute the refresh deadline from the last refresh and the TTL. Channels that have never been refreshed are
+     * due since the moment they were created.
+     *
+     * @return the moment from which the channel must be refreshed
+     */
+    private ZonedDateTime computeNextRefreshAt()
+    {
+        if (lastRefresh == null)
+        {
+            return created;
+        }
+
+        return lastRefresh.plusSeconds(ttl != null ? ttl : 0);
     }
 
     @Override
@@ -185,7 +306,12 @@ public class Channel
                        .append("name", name)
                        .append("url", url)
                        .append("ttl", ttl)
+                       .append("configuredTtl", configuredTtl)
                        .append("lastRefresh", lastRefresh)
+                       .append("nextRefreshAt", nextRefreshAt)
+                       .append("latestSequence", latestSequence)
+                       .append("ownedBySubscriptions", ownedBySubscriptions)
+                       .append("filters", filters)
                        .append("created", created)
                        .append("updated", updated)
                        .toString();
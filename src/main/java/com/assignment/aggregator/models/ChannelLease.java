@@ -0,0 +1,87 @@
+package com.assignment.aggregator.models;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.ZonedDateTime;
+
+/**
+ * Time bounded ownership of a {@link Channel} by one of the application nodes
+ * <p>
+ * Only the node holding an unexpired lease on a channel fetches its feed. Every channel has one lease row, which
+ * is free while it has no owner or its expiry date has passed.
+ */
+@Entity
+@Table(name = "channel_lease")
+public class ChannelLease
+{
+    @Id
+    @Column(name = "channel_id", nullable = false)
+    private Long channelId;
+
+    /**
+     * The id of the node holding the lease, <code>null</code> if the lease is free
+     */
+    @Column(name = "owner")
+    private String owner;
+
+    @Column(name = "expires_at", nullable = false)
+    private ZonedDateTime expiresAt;
+
+    public ChannelLease()
+    {
+        // empty constructor
+    }
+
+    public ChannelLease(Long channelId)
+    {
+        this.channelId = channelId;
+        this.expiresAt = ZonedDateTime.now();
+    }
+
+    public Long getChannelId()
+    {
+        return channelId;
+    }
+
+    public ChannelLease setChannelId(Long channelId)
+    {
+        this.channelId = channelId;
+        return this;
+    }
+
+    public String getOwner()
+    {
+        return owner;
+    }
+
+    public ChannelLease setOwner(String owner)
+    {
+        this.owner = owner;
+        return this;
+    }
+
+    public ZonedDateTime getExpiresAt()
+    {
+        return expiresAt;
+    }
+
+    public ChannelLease setExpiresAt(ZonedDateTime expiresAt)
+    {
+        this.expiresAt = expiresAt;
+        return this;
+    }
+
+    @Override
+    public String toString()
+    {
+        return new ToStringBuilder(this)
+                       .append("channelId", channelId)
+                       .append("owner", owner)
+                       .append("expiresAt", expiresAt)
+                       .toString();
+    }
+}
@@ -0,0 +1,157 @@
+package com.assignment.aggregator.models;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.ZonedDateTime;
+
+/**
+ * Tombstone of a deleted {@link Channel} whose {@link FeedEntry}s are being purged in the background
+ * <p>
+ * While a purge is pending, the entries of the channel are filtered out of reads. The purge is completed once
+ * every entry has been deleted.
+ */
+@Entity
+@Table(name = "channel_purge")
+public class ChannelPurge
+{
+    @Id
+    @Column(name = "channel_id", nullable = false)
+    private Long channelId;
+
+    @Column(name = "channel_name")
+    private String channelName;
+
+    @Column(name = "requested_at", nullable = false)
+    private ZonedDateTime requestedAt;
+
+    /**
+     * Ingest sequence at which the channel was deleted, so that the deletion can be reported along the entries
+     * ingested around it. <code>0</code> for channels deleted before deletions were sequenced
+     */
+    @Column(name = "sequence", nullable = false)
+    private long sequence;
+
+    /**
+     * Number of entries deleted so far
+     */
+    @Column(name = "purged_entries", nullable = false)
+    private long purgedEntries;
+
+    @Column(name = "last_batch_at")
+    private ZonedDateTime lastBatchAt;
+
+    @Column(name = "completed_at")
+    private ZonedDateTime completedAt;
+
+    public ChannelPurge()
+    {
+        // empty constructor
+    }
+
+    public ChannelPurge(Long channelId, String channelName)
+    {
+        this.channelId = channelId;
+        this.channelName = channelName;
+        this.requestedAt = ZonedDateTime.now();
+    }
+
+    public Long getChannelId()
+    {
+        return channelId;
+    }
+
+    public ChannelPurge setChannelId(Long channelId)
+    {
+        this.channelId = channelId;
+        return this;
+    }
+
+    public String getChannelName()
+    {
+        return channelName;
+    }
+
+    public ChannelPurge setChannelName(String channelName)
+    {
+        this.channelName = channelName;
+        return this;
+    }
+
+    public ZonedDateTime getRequestedAt()
+    {
+        return requestedAt;
+    }
+
+    public ChannelPurge setRequestedAt(ZonedDateTime requestedAt)
+    {
+        this.requestedAt = requestedAt;
+        return this;
+    }
+
+    public long getSequence()
+    {
+        return sequence;
+    }
+
+    public ChannelPurge setSequence(long sequence)
+    {
+        this.sequence = sequence;
+        return this;
+    }
+
+    public long getPurgedEntries()
+    {
+        return purgedEntries;
+    }
+
+    public ChannelPurge setPurgedEntries(long purgedEntries)
+    {
+        this.purgedEntries = purgedEntries;
+        return this;
+    }
+
+    public ZonedDateTime getLastBatchAt()
+    {
+        return lastBatchAt;
+    }
+
+    public ChannelPurge setLastBatchAt(ZonedDateTime lastBatchAt)
+    {
+        this.lastBatchAt = lastBatchAt;
+        return this;
+    }
+
+    public ZonedDateTime getCompletedAt()
+    {
+        return completedAt;
+    }
+
+    public ChannelPurge setCompletedAt(ZonedDateTime completedAt)
+    {
+        this.completedAt = completedAt;
+        return this;
+    }
+
+    public boolean isCompleted()
+    {
+        return completedAt != null;
+    }
+
+    @Override
+    public String toString()
+    {
+        return new ToStringBuilder(this)
+                       .append("channelId", channelId)
+                       .append("channelName", channelName)
+                       .append("requestedAt", requestedAt)
+                       .append("sequence", sequence)
+                       .append("purgedEntries", purgedEntries)
+                       .append("lastBatchAt", lastBatchAt)
+                       .append("completedAt", completedAt)
+                       .toString();
+    }
+}
@@ -0,0 +1,67 @@
+package com.assignment.aggregator.models;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.ZonedDateTime;
+
+/**
+ * An application node sharing the database with other nodes. Nodes periodically record a heartbeat, those whose
+ * heartbeat is older than the lease duration are considered gone.
+ */
+@Entity
+@Table(name = "cluster_node")
+public class ClusterNode
+{
+    @Id
+    @Column(name = "node_id", nullable = false)
+    private String nodeId;
+
+    @Column(name = "heartbeat_at", nullable = false)
+    private ZonedDateTime heartbeatAt;
+
+    public ClusterNode()
+    {
+        // empty constructor
+    }
+
+    public ClusterNode(String nodeId, ZonedDateTime heartbeatAt)
+    {
+        this.nodeId = nodeId;
+        this.heartbeatAt = heartbeatAt;
+    }
+
+    public String getNodeId()
+    {
+        return nodeId;
+    }
+
+    public ClusterNode setNodeId(String nodeId)
+    {
+        this.nodeId = nodeId;
+        return this;
+    }
+
+    public ZonedDateTime getHeartbeatAt()
+    {
+        return heartbeatAt;
+    }
+
+    public ClusterNode setHeartbeatAt(ZonedDateTime heartbeatAt)
+    {
+        this.heartbeatAt = heartbeatAt;
+        return this;
+    }
+
+    @Override
+    public String toString()
+    {
+        return new ToStringBuilder(this)
+                       .append("nodeId", nodeId)
+                       .append("heartbeatAt", heartbeatAt)
+                       .toString();
+    }
+}
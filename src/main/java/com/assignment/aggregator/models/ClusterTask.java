@@ -0,0 +1,81 @@
+package com.assignment.aggregator.models;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.ZonedDateTime;
+
+/**
+ * Time bounded ownership of a background task that must only run on one of the application nodes at a time
+ * <p>
+ * Works as {@link ChannelLease}s do: every task has one lease row, which is free while it has no owner or its expiry
+ * date has passed.
+ */
+@Entity
+@Table(name = "cluster_task")
+public class ClusterTask
+{
+    @Id
+    @Column(name = "name", nullable = false)
+    private String name;
+
+    /**
+     * The id of the node holding the lease, <code>null</code> if the lease is free
+     */
+    @Column(name = "owner")
+    private String owner;
+
+    @Column(name = "expires_at", nullable = false)
+    private ZonedDateTime expiresAt;
+
+    public ClusterTask()
+    {
+        // empty constructor
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public ClusterTask setName(String name)
+    {
+        this.name = name;
+        return this;
+    }
+
+    public String getOwner()
+    {
+        return owner;
+    }
+
+    public ClusterTask setOwner(String owner)
+    {
+        this.owner = owner;
+        return this;
+    }
+
+    public ZonedDateTime getExpiresAt()
+    {
+        return expiresAt;
+    }
+
+    public ClusterTask setExpiresAt(ZonedDateTime expiresAt)
+    {
+        this.expiresAt = expiresAt;
+        return this;
+    }
+
+    @Override
+    public String toString()
+    {
+        return new ToStringBuilder(this)
+                       .append("name", name)
+                       .append("owner", owner)
+                       .append("expiresAt", expiresAt)
+                       .toString();
+    }
+}
@@ -0,0 +1,49 @@
+package com.assignment.aggregator.models;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.time.Duration;
+
+/**
+ * Version of a feed, derived from cheap version tokens rather than from the feed's contents
+ * <p>
+ * Used to answer conditional requests before any entry is read: the tag changes whenever the feed may have changed,
+ * and the feed can be cached for <code>maxAge</code>, until the next refresh of its channels is due.
+ */
+public class ContentVersion
+{
+    private final String tag;
+
+    private final Duration maxAge;
+
+    public ContentVersion(String tag, Duration maxAge)
+    {
+        this.tag = tag;
+        this.maxAge = maxAge.isNegative() ? Duration.ZERO : maxAge;
+    }
+
+    /**
+     * @return the version tag, to be used as a strong entity tag
+     */
+    public String getTag()
+    {
+        return tag;
+    }
+
+    /**
+     * @return how long the feed may be cached for
+     */
+    public Duration getMaxAge()
+    {
+        return maxAge;
+    }
+
+    @Override
+    public String toString()
+    {
+        return new ToStringBuilder(this)
+                       .append("tag", tag)
+                       .append("maxAge", maxAge)
+                       .toString();
+    }
+}
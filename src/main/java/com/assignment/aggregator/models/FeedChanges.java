@@ -0,0 +1,75 @@
+package com.assignment.aggregator.models;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Page of the changes made to the stored feeds since a given ingest sequence: the entries ingested and the channels
+ * deleted since then, in ingest order
+ * <p>
+ * Clients keep <code>next</code> and send it back to get the following changes. When <code>hasMore</code> is set,
+ * the page was cut short and the following changes can be requested right away.
+ */
+public class FeedChanges
+{
+    private final List<FeedEntry> entries;
+
+    private final Set<Long> deletedChannelIds;
+
+    private final long next;
+
+    private final boolean hasMore;
+
+    public FeedChanges(List<FeedEntry> entries, Set<Long> deletedChannelIds, long next, boolean hasMore)
+    {
+        this.entries = entries;
+        this.deletedChannelIds = deletedChannelIds;
+        this.next = next;
+        this.hasMore = hasMore;
+    }
+
+    /**
+     * @return the ingested entries, sorted by ingest sequence
+     */
+    public List<FeedEntry> getEntries()
+    {
+        return entries;
+    }
+
+    /**
+     * @return the ids of the deleted channels, whose entries must be dropped by the client
+     */
+    public Set<Long> getDeletedChannelIds()
+    {
+        return deletedChannelIds;
+    }
+
+    /**
+     * @return the ingest sequence to request the following changes from
+     */
+    public long getNext()
+    {
+        return next;
+    }
+
+    /**
+     * @return whether more changes are available right away
+     */
+    public boolean isHasMore()
+    {
+        return hasMore;
+    }
+
+    @Override
+    public String toString()
+    {
+        return new ToStringBuilder(this)
+                       .append("entries", entries)
+                       .append("deletedChannelIds", deletedChannelIds)
+                       .append("next", next)
+                       .append("hasMore", hasMore)
+                       .toString();
+    }
+}
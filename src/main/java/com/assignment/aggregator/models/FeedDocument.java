@@ -0,0 +1,58 @@
+package com.assignment.aggregator.models;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+/**
+ * Rendered web syndication document, along with its version
+ * <p>
+ * Documents are shared among the requests for the same feed, and must not be modified.
+ */
+public class FeedDocument
+{
+    private final SyndicationFormat format;
+
+    private final byte[] content;
+
+    private final ContentVersion version;
+
+    public FeedDocument(SyndicationFormat format, byte[] content, ContentVersion version)
+    {
+        this.format = format;
+        this.content = content;
+        this.version = version;
+    }
+
+    /**
+     * @return the format of the document
+     */
+    public SyndicationFormat getFormat()
+    {
+        return format;
+    }
+
+    /**
+     * @return the UTF-8 encoded document
+     */
+    public byte[] getContent()
+    {
+        return content;
+    }
+
+    /**
+     * @return the version of the document, whose tag changes whenever the document does
+     */
+    public ContentVersion getVersion()
+    {
+        return version;
+    }
+
+    @Override
+    public String toString()
+    {
+        return new ToStringBuilder(this)
+                       .append("format", format)
+                       .append("length", content.length)
+                       .append("version", version)
+                       .toString();
+    }
+}
@@ -1,10 +1,12 @@
 package com.assignment.aggregator.models;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.rometools.rome.feed.synd.SyndContent;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
 
 import java.time.Instant;
 import java.util.ArrayList;
@@ -21,6 +23,18 @@ public class FeedEntry
      */
     private long channelId;
 
+    /**
+     * Dense, monotonically increasing number assigned to the entry when it is ingested. Used to track the
+     * entries every client has already read
+     */
+    private long sequence;
+
+    /**
+     * The cluster of near-duplicate entries the entry belongs to: the ingest sequence of the first entry of the
+     * cluster. <code>0</code> for the entries ingested before entries were clustered, which are clusters of their own
+     */
+    private long cluster;
+
     /**
      * Flags if the entry has already been read (served to the client)
      */
@@ -31,6 +45,13 @@ public class FeedEntry
      */
     private String link;
 
+    /**
+     * The identity of the entry: its guid when the feed provides one apart from the link, its canonical link
+     * otherwise. <code>null</code> for the entries stored before entries were given a key, which are identified by
+     * their link
+     */
+    private String key;
+
     /**
      * The entry's publication date
      */
@@ -51,6 +72,24 @@ public class FeedEntry
      */
     private List<String> authors = new ArrayList<>();
 
+    /**
+     * The fingerprint of the content of the entry, telling whether its publisher edited it since it was stored.
+     * <code>0</code> for the entries stored before entries were fingerprinted
+     */
+    private long fingerprint;
+
+    /**
+     * When the entry was last updated after its publisher edited it. <code>null</code> for the entries never edited
+     */
+    private Instant updated;
+
+    /**
+     * The near duplicates of the entry, when the entry is returned as the representative of its cluster. Never stored
+     */
+    @Transient
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private List<AlternateEntry> alternates = new ArrayList<>();
+
     public String getId()
     {
         return id;
@@ -73,6 +112,28 @@ public class FeedEntry
         return this;
     }
 
+    public long getSequence()
+    {
+        return sequence;
+    }
+
+    public FeedEntry setSequence(long sequence)
+    {
+        this.sequence = sequence;
+        return this;
+    }
+
+    public long getCluster()
+    {
+        return cluster;
+    }
+
+    public FeedEntry setCluster(long cluster)
+    {
+        this.cluster = cluster;
+        return this;
+    }
+
     public boolean isFresh()
     {
         return fresh;
@@ -95,6 +156,17 @@ public class FeedEntry
         return this;
     }
 
+    public String getKey()
+    {
+        return key;
+    }
+
+    public FeedEntry setKey(String key)
+    {
+        this.key = key;
+        return this;
+    }
+
     public Instant getPublicationDate()
     {
         return publicationDate;
@@ -139,6 +211,57 @@ public class FeedEntry
         return this;
     }
 
+    public long getFingerprint()
+    {
+        return fingerprint;
+    }
+
+    public FeedEntry setFingerprint(long fingerprint)
+    {
+        this.fingerprint = fingerprint;
+        return this;
+    }
+
+    public Instant getUpdated()
+    {
+        return updated;
+    }
+
+    public FeedEntry setUpdated(Instant updated)
+    {
+        this.updated = updated;
+        return this;
+    }
+
+    /**
+     * Copy the content of an edited version of the entry: every field mapped from the feed but the key, and the
+     * fingerprint
+     *
+     * @param edited the edited version of the entry
+     * @return the entry
+     */
+    public FeedEntry copyContent(FeedEntry edited)
+    {
+        this.link = edited.link;
+        this.publicationDate = edited.publicationDate;
+        this.title = edited.title;
+        this.contents = edited.contents;
+        this.authors = edited.authors;
+        this.fingerprint = edited.fingerprint;
+        return this;
+    }
+
+    public List<AlternateEntry> getAlternates()
+    {
+        return alternates;
+    }
+
+    public FeedEntry setAlternates(List<AlternateEntry> alternates)
+    {
+        this.alternates = alternates;
+        return this;
+    }
+
     @Override
     public boolean equals(Object o)
     {
@@ -155,7 +278,7 @@ public class FeedEntry
         FeedEntry feedEntry = (FeedEntry) o;
 
         return new EqualsBuilder()
-                       .append(getLink(), feedEntry.getLink())
+                       .append(identity(), feedEntry.identity())
                        .isEquals();
     }
 
@@ -163,22 +286,36 @@ public class FeedEntry
     public int hashCode()
     {
         return new HashCodeBuilder(17, 37)
-                       .append(getLink())
+                       .append(identity())
                        .toHashCode();
     }
 
+    /**
+     * @return what entries are told apart by: their key, or their link if they have none
+     */
+    private String identity()
+    {
+        return key != null ? key : link;
+    }
+
     @Override
     public String toString()
     {
         return new ToStringBuilder(this)
                        .append("id", id)
                        .append("channelId", channelId)
+                       .append("sequence", sequence)
+                       .append("cluster", cluster)
                        .append("fresh", fresh)
                        .append("link", link)
+                       .append("key", key)
                        .append("publicationDate", publicationDate)
                        .append("title", title)
                        .append("contents", contents)
                        .append("authors", authors)
+                       .append("fingerprint", fingerprint)
+                       .append("updated", updated)
+                       .append("alternates", alternates)
                        .toString();
     }
 }
\ No newline at end of file
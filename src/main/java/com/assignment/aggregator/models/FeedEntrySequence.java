@@ -0,0 +1,11 @@
+package com.assignment.aggregator.models;
+
+/**
+ * Projection of a {@link FeedEntry} restricted to its channel and ingest sequence
+ */
+public interface FeedEntrySequence
+{
+    long getChannelId();
+
+    long getSequence();
+}
@@ -0,0 +1,150 @@
+package com.assignment.aggregator.models;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A rule of the filter of a {@link Channel}, deciding which of its entries are ingested
+ * <p>
+ * A rule matches an entry when one of the values of its field contains one of its keywords, or when its pattern is
+ * found in one of them. Both are case insensitive. Entries matching an exclusion rule are dropped, and so are the
+ * entries matching none of the inclusion rules of a channel having some.
+ */
+public class FilterRule
+{
+    /**
+     * The fields of the entries rules apply to
+     */
+    public enum Field
+    {
+        TITLE, AUTHOR, CATEGORY, LINK
+    }
+
+    /**
+     * What happens to the entries matching a rule
+     */
+    public enum Action
+    {
+        INCLUDE, EXCLUDE
+    }
+
+    private Field field;
+
+    private Action action;
+
+    /**
+     * Keywords looked for in the field, as is
+     */
+    private List<String> keywords = new ArrayList<>();
+
+    /**
+     * Regular expression looked for in the field
+     */
+    private String pattern;
+
+    public FilterRule()
+    {
+        // empty constructor
+    }
+
+    public FilterRule(Field field, Action action, List<String> keywords, String pattern)
+    {
+        this.field = field;
+        this.action = action;
+        this.keywords = keywords;
+        this.pattern = pattern;
+    }
+
+    public Field getField()
+    {
+        return field;
+    }
+
+    public FilterRule setField(Field field)
+    {
+        this.field = field;
+        return this;
+    }
+
+    public Action getAction()
+    {
+        return action;
+    }
+
+    public FilterRule setAction(Action action)
+    {
+        this.action = action;
+        return this;
+    }
+
+    public List<String> getKeywords()
+    {
+        return keywords;
+    }
+
+    public FilterRule setKeywords(List<String> keywords)
+    {
+        this.keywords = keywords;
+        return this;
+    }
+
+    public String getPattern()
+    {
+        return pattern;
+    }
+
+    public FilterRule setPattern(String pattern)
+    {
+        this.pattern = pattern;
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+        {
+            return true;
+        }
+
+        if (o == null || getClass() != o.getClass())
+        {
+            return false;
+        }
+
+        FilterRule that = (FilterRule) o;
+
+        return new EqualsBuilder()
+                       .append(getField(), that.getField())
+                       .append(getAction(), that.getAction())
+                       .append(getKeywords(), that.getKeywords())
+                       .append(getPattern(), that.getPattern())
+                       .isEquals();
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return new HashCodeBuilder(17, 37)
+                       .append(getField())
+                       .append(getAction())
+                       .append(getKeywords())
+                       .append(getPattern())
+                       .toHashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+        return new ToStringBuilder(this)
+                       .append("field", field)
+                       .append("action", action)
+                       .append("keywords", keywords)
+                       .append("pattern", pattern)
+                       .toString();
+    }
+}
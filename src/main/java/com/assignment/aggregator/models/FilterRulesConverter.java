@@ -0,0 +1,60 @@
+package com.assignment.aggregator.models;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stores the {@link FilterRule}s of a {@link Channel} as a JSON document in a column of the channel, so they are read
+ * along with the channel, without a query of their own
+ */
+@Converter
+public class FilterRulesConverter implements AttributeConverter<List<FilterRule>, String>
+{
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final TypeReference<List<FilterRule>> RULES_TYPE = new TypeReference<>()
+    {
+    };
+
+    @Override
+    public String convertToDatabaseColumn(List<FilterRule> rules)
+    {
+        if (rules == null || rules.isEmpty())
+        {
+            return null;
+        }
+
+        try
+        {
+            return objectMapper.writeValueAsString(rules);
+        }
+        catch (JsonProcessingException e)
+        {
+            throw new IllegalArgumentException("Unable to write the filter rules of a channel", e);
+        }
+    }
+
+    @Override
+    public List<FilterRule> convertToEntityAttribute(String column)
+    {
+        if (column == null || column.isEmpty())
+        {
+            return new ArrayList<>();
+        }
+
+        try
+        {
+            return objectMapper.readValue(column, RULES_TYPE);
+        }
+        catch (JsonProcessingException e)
+        {
+            throw new IllegalArgumentException("Unable to read the filter rules of a channel", e);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.assignment.aggregator.models;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import javax.persistence.*;
+import java.time.ZonedDateTime;
+
+/**
+ * The set of {@link FeedEntry}s a client has already read, stored as a serialized compressed bitmap of the
+ * entries' ingest sequences
+ */
+@Entity
+@Table(name = "read_state")
+public class ReadState
+{
+    @Id
+    @Column(name = "client_id", nullable = false)
+    private String clientId;
+
+    @Lob
+    @Column(name = "bitmap", nullable = false)
+    private byte[] bitmap;
+
+    @Column(name = "updated", nullable = false)
+    private ZonedDateTime updated;
+
+    public ReadState()
+    {
+        // empty constructor
+    }
+
+    public ReadState(String clientId, byte[] bitmap)
+    {
+        this.clientId = clientId;
+        this.bitmap = bitmap;
+    }
+
+    public String getClientId()
+    {
+        return clientId;
+    }
+
+    public ReadState setClientId(String clientId)
+    {
+        this.clientId = clientId;
+        return this;
+    }
+
+    public byte[] getBitmap()
+    {
+        return bitmap;
+    }
+
+    public ReadState setBitmap(byte[] bitmap)
+    {
+        this.bitmap = bitmap;
+        return this;
+    }
+
+    public ZonedDateTime getUpdated()
+    {
+        return updated;
+    }
+
+    public ReadState setUpdated(ZonedDateTime updated)
+    {
+        this.updated = updated;
+        return this;
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate()
+    {
+        this.updated = ZonedDateTime.now();
+    }
+
+    @Override
+    public String toString()
+    {
+        return new ToStringBuilder(this)
+                       .append("clientId", clientId)
+                       .append("bitmapSize", bitmap != null ? bitmap.length : 0)
+                       .append("updated", updated)
+                       .toString();
+    }
+}
@@ -0,0 +1,68 @@
+package com.assignment.aggregator.models;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Named counter from which blocks of consecutive sequence numbers are allocated
+ */
+@Entity
+@Table(name = "sequence_counter")
+public class SequenceCounter
+{
+    @Id
+    @Column(name = "name", nullable = false)
+    private String name;
+
+    /**
+     * The next value to be allocated
+     */
+    @Column(name = "next_value", nullable = false)
+    private long nextValue;
+
+    public SequenceCounter()
+    {
+        // empty constructor
+    }
+
+    public SequenceCounter(String name, long nextValue)
+    {
+        this.name = name;
+        this.nextValue = nextValue;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public SequenceCounter setName(String name)
+    {
+        this.name = name;
+        return this;
+    }
+
+    public long getNextValue()
+    {
+        return nextValue;
+    }
+
+    public SequenceCounter setNextValue(long nextValue)
+    {
+        this.nextValue = nextValue;
+        return this;
+    }
+
+    @Override
+    public String toString()
+    {
+        return new ToStringBuilder(this)
+                       .append("name", name)
+                       .append("nextValue", nextValue)
+                       .toString();
+    }
+}
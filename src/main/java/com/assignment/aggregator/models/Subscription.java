@@ -0,0 +1,220 @@
+package com.assignment.aggregator.models;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.PositiveOrZero;
+import javax.validation.constraints.Size;
+import java.time.ZonedDateTime;
+
+/**
+ * Represents a tenant's subscription to a {@link Channel}
+ * <p>
+ * Any number of tenants may subscribe to the same feed, each under its own name and TTL. The feed itself is fetched
+ * and stored once, by the channel of its URL, and the subscriptions read the channel's entries.
+ */
+@Entity
+@Table(name = "subscription", indexes = @Index(name = "idx_subscription_channel_id", columnList = "channel_id"))
+public class Subscription
+{
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tenant", nullable = false)
+    @NotBlank
+    @Size(max = 255)
+    private String tenant;
+
+    @Column(name = "channel_id", nullable = false)
+    private Long channelId;
+
+    @Column(name = "name", nullable = false)
+    @Size(min = 2, max = 255)
+    private String name;
+
+    @Column(name = "url", nullable = false)
+    @Size(max = 2048)
+    @NotNull
+    private String url;
+
+    /**
+     * The time in seconds for which the feed won't need to be refreshed. Set to the minimum subscription TTL by the
+     * subscription service when missing
+     */
+    @Column(name = "ttl", nullable = false)
+    @PositiveOrZero
+    private Integer ttl;
+
+    @Column(name = "created", nullable = false)
+    private ZonedDateTime created;
+
+    @Column(name = "updated", nullable = false)
+    private ZonedDateTime updated;
+
+    public Subscription()
+    {
+        // empty constructor
+    }
+
+    public Subscription(String tenant, String name, String url, Integer ttl)
+    {
+        this.tenant = tenant;
+        this.name = name;
+        this.url = url;
+        this.ttl = ttl;
+    }
+
+    public Long getId()
+    {
+        return id;
+    }
+
+    public Subscription setId(Long id)
+    {
+        this.id = id;
+        return this;
+    }
+
+    public String getTenant()
+    {
+        return tenant;
+    }
+
+    public Subscription setTenant(String tenant)
+    {
+        this.tenant = tenant;
+        return this;
+    }
+
+    public Long getChannelId()
+    {
+        return channelId;
+    }
+
+    public Subscription setChannelId(Long channelId)
+    {
+        this.channelId = channelId;
+        return this;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public Subscription setName(String name)
+    {
+        this.name = name;
+        return this;
+    }
+
+    public String getUrl()
+    {
+        return url;
+    }
+
+    public Subscription setUrl(String url)
+    {
+        this.url = url;
+        return this;
+    }
+
+    public Integer getTtl()
+    {
+        return ttl;
+    }
+
+    public Subscription setTtl(Integer ttl)
+    {
+        this.ttl = ttl;
+        return this;
+    }
+
+    public ZonedDateTime getCreated()
+    {
+        return created;
+    }
+
+    public Subscription setCreated(ZonedDateTime created)
+    {
+        this.created = created;
+        return this;
+    }
+
+    public ZonedDateTime getUpdated()
+    {
+        return updated;
+    }
+
+    public Subscription setUpdated(ZonedDateTime updated)
+    {
+        this.updated = updated;
+        return this;
+    }
+
+    @PrePersist
+    protected void onCreate()
+    {
+        this.updated = this.created = ZonedDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate()
+    {
+        this.updated = ZonedDateTime.now();
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+        {
+            return true;
+        }
+
+        if (o == null || getClass() != o.getClass())
+        {
+            return false;
+        }
+
+        Subscription subscription = (Subscription) o;
+
+        return new EqualsBuilder()
+                       .append(getTenant(), subscription.getTenant())
+                       .append(getName(), subscription.getName())
+                       .append(getUrl(), subscription.getUrl())
+                       .append(getTtl(), subscription.getTtl())
+                       .isEquals();
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return new HashCodeBuilder(17, 37)
+                       .append(getTenant())
+                       .append(getName())
+                       .append(getUrl())
+                       .append(getTtl())
+                       .toHashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+        return new ToStringBuilder(this)
+                       .append("id", id)
+                       .append("tenant", tenant)
+                       .append("channelId", channelId)
+                       .append("name", name)
+                       .append("url", url)
+                       .append("ttl", ttl)
+                       .append("created", created)
+                       .append("updated", updated)
+                       .toString();
+    }
+}
@@ -0,0 +1,17 @@
+package com.assignment.aggregator.models;
+
+/**
+ * Web syndication formats the aggregation can be rendered in
+ */
+public enum SyndicationFormat
+{
+    /**
+     * Atom 1.0, served as <code>application/atom+xml</code>
+     */
+    ATOM,
+
+    /**
+     * RSS 2.0, served as <code>application/rss+xml</code>
+     */
+    RSS
+}
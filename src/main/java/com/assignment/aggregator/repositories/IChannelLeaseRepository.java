@@ -0,0 +1,71 @@
+package com.assignment.aggregator.repositories;
+
+import com.assignment.aggregator.models.ChannelLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.Set;
+
+@Repository
+public interface IChannelLeaseRepository extends JpaRepository<ChannelLease, Long>
+{
+    /**
+     * Take or extend the leases of a group of channels in one single conditional statement. A lease is only taken if
+     * it is free, already held by the same owner or expired, so two nodes never hold the same lease.
+     *
+     * @param channelIds the ids of the channels to lease. Must not be empty
+     * @param owner      the id of the node taking the leases
+     * @param expiresAt  the new expiry date of the leases
+     * @param now        the reference time to compare the current expiry dates with
+     * @return the number of leases taken
+     */
+    @Modifying
+    @Query(value = "update channel_lease set owner = ?2, expires_at = ?3 where channel_id in ?1 and (owner = ?2 or owner is null or expires_at < ?4)",
+           nativeQuery = true)
+    int acquire(Collection<Long> channelIds, String owner, ZonedDateTime expiresAt, ZonedDateTime now);
+
+    /**
+     * Extend every lease held by a node
+     *
+     * @param owner     the id of the node
+     * @param expiresAt the new expiry date of the leases
+     * @return the number of extended leases
+     */
+    @Modifying
+    @Query(value = "update channel_lease set expires_at = ?2 where owner = ?1", nativeQuery = true)
+    int renew(String owner, ZonedDateTime expiresAt);
+
+    /**
+     * Free a group of leases held by a node, so that their new owners don't have to wait for them to expire
+     *
+     * @param owner      the id of the node
+     * @param channelIds the ids of the channels whose lease is freed. Must not be empty
+     * @return the number of freed leases
+     */
+    @Modifying
+    @Query(value = "update channel_lease set owner = null where owner = ?1 and channel_id in ?2", nativeQuery = true)
+    int release(String owner, Collection<Long> channelIds);
+
+    /**
+     * Fetch the ids of the channels whose lease is held by a node
+     *
+     * @param owner the id of the node
+     * @return the ids of the leased channels
+     */
+    @Query("select l.channelId from ChannelLease l where l.owner = ?1")
+    Set<Long> findChannelIdsByOwner(String owner);
+
+    /**
+     * Fetch the ids of the channels of a group whose lease is held by a node
+     *
+     * @param owner      the id of the node
+     * @param channelIds the ids of the channels to look up. Must not be empty
+     * @return the ids of the leased channels among the given ones
+     */
+    @Query("select l.channelId from ChannelLease l where l.owner = ?1 and l.channelId in ?2")
+    Set<Long> findChannelIdsByOwnerAndChannelIdIn(String owner, Collection<Long> channelIds);
+}
@@ -0,0 +1,46 @@
+package com.assignment.aggregator.repositories;
+
+import com.assignment.aggregator.models.ChannelPurge;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+@Repository
+public interface IChannelPurgeRepository extends JpaRepository<ChannelPurge, Long>
+{
+    /**
+     * Fetch every purge, latest requested first
+     *
+     * @return the list of purges
+     */
+    List<ChannelPurge> findAllByOrderByRequestedAtDesc();
+
+    /**
+     * Fetch the oldest purge that hasn't been completed yet
+     *
+     * @return an {@link Optional} of the oldest pending purge
+     */
+    Optional<ChannelPurge> findFirstByCompletedAtIsNullOrderByRequestedAt();
+
+    /**
+     * Fetch the ids of the channels whose purge hasn't been completed yet
+     *
+     * @return the ids of the channels being purged
+     */
+    @Query("select cp.channelId from ChannelPurge cp where cp.completedAt is null")
+    Set<Long> findPendingChannelIds();
+
+    /**
+     * Fetch the ids of the channels deleted within a range of ingest sequences
+     *
+     * @param after the lowest ingest sequence, exclusive
+     * @param upTo  the highest ingest sequence, inclusive
+     * @return the ids of the channels deleted within the range
+     */
+    @Query("select cp.channelId from ChannelPurge cp where cp.sequence > ?1 and cp.sequence <= ?2")
+    Set<Long> findChannelIdsBySequenceRange(long after, long upTo);
+}
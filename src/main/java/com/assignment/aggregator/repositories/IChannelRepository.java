@@ -1,12 +1,15 @@
 package com.assignment.aggregator.repositories;
 
 import com.assignment.aggregator.models.Channel;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -22,12 +25,59 @@ public interface IChannelRepository extends JpaRepository<Channel, Long>
     Optional<Channel> findOneByUrl(String url);
 
     /**
-     * Updates the last refresh date for a channel
+     * Fetch a page of the channels whose refresh deadline has been reached, most overdue first.
+     * <p>
+     * Backed by the index on <code>next_refresh_at</code>, so only the due channels are read.
+     *
+     * @param now      the reference time to compare the refresh deadlines with
+     * @param pageable the page of due channels to retrieve
+     * @return the due channels ordered by refresh deadline
+     */
+    @Query("select ch from Channel ch where ch.nextRefreshAt <= ?1 order by ch.nextRefreshAt, ch.id")
+    List<Channel> findAllDue(ZonedDateTime now, Pageable pageable);
+
+    /**
+     * Updates the last refresh date for a channel, along with its refresh deadline
      *
      * @param channelId the id of the channel to update
      * @param when      the {@link ZonedDateTime} value to set
      */
     @Modifying
-    @Query("update Channel ch set ch.lastRefresh = ?2 where ch.id = ?1")
+    @Query(value = "update channel set last_refresh = ?2, next_refresh_at = DATEADD('SECOND', ttl, ?2) where id = ?1",
+           nativeQuery = true)
     void updateRefreshTime(long channelId, ZonedDateTime when);
+
+    /**
+     * Updates the last refresh date for a group of channels in one single statement, along with their refresh
+     * deadlines
+     *
+     * @param channelIds the ids of the channels to update. Must not be empty
+     * @param when       the {@link ZonedDateTime} value to set
+     * @return the number of updated channels
+     */
+    @Modifying
+    @Query(value = "update channel set last_refresh = ?2, next_refresh_at = DATEADD('SECOND', ttl, ?2) where id in ?1",
+           nativeQuery = true)
+    int updateRefreshTime(Collection<Long> channelIds, ZonedDateTime when);
+
+    /**
+     * Raise the latest ingest sequence of a channel. Lower sequences, written by late concurrent ingests, are ignored
+     *
+     * @param channelId the id of the channel to update
+     * @param sequence  the ingest sequence of the channel's latest stored entry
+     * @return the number of updated channels
+     */
+    @Modifying
+    @Query(value = "update channel set latest_sequence = ?2 where id = ?1 and latest_sequence < ?2", nativeQuery = true)
+    int updateLatestSequence(long channelId, long sequence);
+
+    /**
+     * Fetch the earliest refresh deadline among all the channels
+     * <p>
+     * Backed by the index on <code>next_refresh_at</code>.
+     *
+     * @return an {@link Optional} of the earliest refresh deadline, empty if there are no channels
+     */
+    @Query("select min(ch.nextRefreshAt) from Channel ch")
+    Optional<ZonedDateTime> findEarliestRefreshAt();
 }
@@ -0,0 +1,43 @@
+package com.assignment.aggregator.repositories;
+
+import com.assignment.aggregator.models.ClusterNode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.ZonedDateTime;
+import java.util.Set;
+
+@Repository
+public interface IClusterNodeRepository extends JpaRepository<ClusterNode, String>
+{
+    /**
+     * Record the heartbeat of a node, registering the node if needed, in one single atomic statement
+     *
+     * @param nodeId the id of the node
+     * @param when   the date of the heartbeat
+     */
+    @Modifying
+    @Query(value = "merge into cluster_node (node_id, heartbeat_at) key (node_id) values (?1, ?2)", nativeQuery = true)
+    void heartbeat(String nodeId, ZonedDateTime when);
+
+    /**
+     * Fetch the ids of the nodes whose latest heartbeat is more recent than a given date
+     *
+     * @param since the date from which nodes are considered alive
+     * @return the ids of the live nodes
+     */
+    @Query("select n.nodeId from ClusterNode n where n.heartbeatAt > ?1")
+    Set<String> findLiveNodeIds(ZonedDateTime since);
+
+    /**
+     * Remove the nodes whose latest heartbeat is older than a given date
+     *
+     * @param before the date before which nodes are considered gone for good
+     * @return the number of removed nodes
+     */
+    @Modifying
+    @Query("delete from ClusterNode n where n.heartbeatAt < ?1")
+    int deleteStale(ZonedDateTime before);
+}
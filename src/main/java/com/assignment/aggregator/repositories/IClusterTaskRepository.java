@@ -0,0 +1,38 @@
+package com.assignment.aggregator.repositories;
+
+import com.assignment.aggregator.models.ClusterTask;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.ZonedDateTime;
+
+@Repository
+public interface IClusterTaskRepository extends JpaRepository<ClusterTask, String>
+{
+    /**
+     * Take or extend the lease of a task in one single conditional statement. The lease is only taken if it is free,
+     * already held by the same owner or expired, so two nodes never hold it at once.
+     *
+     * @param name      the name of the task
+     * @param owner     the id of the node taking the lease
+     * @param expiresAt the new expiry date of the lease
+     * @param now       the reference time to compare the current expiry date with
+     * @return <code>1</code> if the lease was taken, <code>0</code> otherwise
+     */
+    @Modifying
+    @Query(value = "update cluster_task set owner = ?2, expires_at = ?3 where name = ?1 and (owner = ?2 or owner is null or expires_at < ?4)",
+           nativeQuery = true)
+    int acquire(String name, String owner, ZonedDateTime expiresAt, ZonedDateTime now);
+
+    /**
+     * Free every task lease held by a node
+     *
+     * @param owner the id of the node
+     * @return the number of freed leases
+     */
+    @Modifying
+    @Query(value = "update cluster_task set owner = null where owner = ?1", nativeQuery = true)
+    int releaseAll(String owner);
+}
@@ -1,13 +1,30 @@
 package com.assignment.aggregator.repositories;
 
 import com.assignment.aggregator.models.FeedEntry;
-import org.springframework.data.jpa.repository.Modifying;
-import org.springframework.data.mongodb.repository.MongoRepository;
+import com.assignment.aggregator.models.FeedEntrySequence;
+import org.springframework.data.domain.Range;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
-public interface IFeedEntryRepository extends MongoRepository<FeedEntry, String>
+/**
+ * Storage contract for {@link FeedEntry}s
+ * <p>
+ * The contract is independent of the storage backend. It is implemented by {@link IMongoFeedEntryRepository}, the
+ * default MongoDB backend, and by {@link com.assignment.aggregator.repositories.embedded.EmbeddedFeedEntryRepository},
+ * an embedded single-node engine meant for deployments running without MongoDB. The backend is selected with the
+ * <code>aggregator.storage.type</code> property.
+ */
+public interface IFeedEntryRepository
 {
+    /**
+     * Get every persisted entry
+     *
+     * @return the list of all the persisted entries
+     */
+    List<FeedEntry> findAll();
 
     /**
      * Get a list of persisted entries based on the channel they are related to.
@@ -17,12 +34,138 @@ public interface IFeedEntryRepository extends MongoRepository<FeedEntry, String>
      */
     List<FeedEntry> findAllByChannelIdIn(List<Long> channelIds);
 
+    /**
+     * Get every persisted entry, reading only some of its fields. The id, channel, link and key of the entries, which
+     * identify them, and their fingerprint are always read. Backends unable to read parts of an entry read it whole.
+     *
+     * @param fields the names of the fields to read
+     * @return the list of persisted entries, holding at least the given fields
+     */
+    List<FeedEntry> findAllWithFields(Set<String> fields);
+
+    /**
+     * Get a list of persisted entries based on the channel they are related to, reading only some of their fields.
+     *
+     * @param channelIds the list of channel id whose entries will be retrieved.
+     * @param fields     the names of the fields to read
+     * @return the list of persisted entries for the given list of channels, holding at least the given fields
+     * @see #findAllWithFields(Set)
+     */
+    List<FeedEntry> findAllByChannelIdInWithFields(List<Long> channelIds, Set<String> fields);
+
+    /**
+     * Get a list of persisted entries based on the channel they are related to and their publication date.
+     * Entries without a publication date never match.
+     *
+     * @param channelIds the list of channel id whose entries will be retrieved.
+     * @param range      the publication date range. Bounds may be inclusive, exclusive or unbounded
+     * @return the list of persisted entries for the given list of channels published within the range
+     */
+    List<FeedEntry> findAllByChannelIdInAndPublicationDateBetween(List<Long> channelIds, Range<Instant> range);
+
+    /**
+     * Get the newest persisted entries of a channel. Entries without a publication date come last.
+     *
+     * @param channelId the id of the channel whose entries will be retrieved
+     * @param limit     the maximum number of entries to retrieve
+     * @return the list of the channel's newest entries, sorted by descending publication date
+     */
+    List<FeedEntry> findNewestByChannelId(long channelId, int limit);
+
+    /**
+     * Get a list of persisted entries based on their id
+     *
+     * @param ids the ids of the entries to retrieve
+     * @return the list of persisted entries having one of the given ids, in no particular order
+     */
+    List<FeedEntry> findAllByIdIn(Collection<String> ids);
+
+    /**
+     * Get a list of persisted entries based on their ingest sequence
+     *
+     * @param sequences the ingest sequences of the entries to retrieve
+     * @return the list of persisted entries having one of the given sequences
+     */
+    List<FeedEntry> findAllBySequenceIn(Collection<Long> sequences);
+
+    /**
+     * Get the persisted entries whose ingest sequence is within a range, in ingest order
+     *
+     * @param after the lowest ingest sequence, exclusive
+     * @param upTo  the highest ingest sequence, inclusive
+     * @param limit the maximum number of entries to retrieve
+     * @return the list of the first entries within the range, sorted by ascending ingest sequence
+     */
+    List<FeedEntry> findBySequenceRange(long after, long upTo, int limit);
+
+    /**
+     * Get the channel and ingest sequence of every persisted entry that has been assigned a sequence, without
+     * loading the entries themselves
+     *
+     * @return the list of channel and sequence pairs
+     */
+    List<FeedEntrySequence> findSequencesBy();
+
+    /**
+     * Get the persisted entries having one of the given keys. Used to look a batch of fetched entries up in a single
+     * query
+     *
+     * @param keys the keys of the entries
+     * @return the list of persisted entries having one of the given keys, in no particular order
+     */
+    List<FeedEntry> findAllByKeyIn(Collection<String> keys);
+
+    /**
+     * Get the persisted entries stored without key and pointing to one of the given links, which identify them
+     *
+     * @param links the links to the entries' original sources
+     * @return the list of persisted entries without key having one of the given links, in no particular order
+     * @see #findAllByKeyIn(Collection)
+     */
+    List<FeedEntry> findUnkeyedByLinkIn(Collection<String> links);
+
+    /**
+     * Persist a list of entries. Entries without id are assigned one, entries with id are replaced.
+     *
+     * @param entries the entries to persist
+     * @param <S>     the type of the entries
+     * @return the persisted entries
+     */
+    <S extends FeedEntry> List<S> saveAll(Iterable<S> entries);
+
+    /**
+     * Update the content of persisted entries edited by their publisher: every field mapped from the feed but the key,
+     * the fingerprint, the update date and the ingest sequence. The other fields of the entries are left untouched,
+     * whether or not the given entries hold them.
+     *
+     * @param entries the edited entries, matched by id. Entries not persisted are ignored
+     */
+    void updateContents(Collection<FeedEntry> entries);
+
     /**
      * Delete all the feed entries related to a given list of channels
      *
      * @param channelIds the list of channel id whose entries will be retrieved.
      */
-    @Modifying
     void deleteAllByChannelIdIn(List<Long> channelIds);
 
+    /**
+     * Delete a batch of the feed entries related to a channel. Used to purge the entries of deleted channels without
+     * holding the storage busy for long.
+     * <p>
+     * Backends able to drop all the entries of a channel at a constant cost may delete more than
+     * <code>batchSize</code> entries at once.
+     *
+     * @param channelId the id of the channel whose entries will be deleted
+     * @param batchSize the number of entries to delete
+     * @return the number of deleted entries. Lower than <code>batchSize</code> once no entries are left
+     */
+    long deleteBatchByChannelId(long channelId, int batchSize);
+
+    /**
+     * Count the persisted entries
+     *
+     * @return the number of persisted entries
+     */
+    long count();
 }
@@ -0,0 +1,16 @@
+package com.assignment.aggregator.repositories;
+
+import com.assignment.aggregator.models.FeedEntry;
+
+import java.util.List;
+
+/**
+ * Custom fragment of {@link IMongoFeedEntryRepository} scanning entries by ingest sequence through a dedicated index
+ */
+public interface IMongoFeedEntryChangesRepository
+{
+    /**
+     * @see IFeedEntryRepository#findBySequenceRange(long, long, int)
+     */
+    List<FeedEntry> findBySequenceRange(long after, long upTo, int limit);
+}
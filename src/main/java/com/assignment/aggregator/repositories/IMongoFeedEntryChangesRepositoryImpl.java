@@ -0,0 +1,52 @@
+package com.assignment.aggregator.repositories;
+
+import com.assignment.aggregator.models.FeedEntry;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+
+/**
+ * Implementation of the {@link IMongoFeedEntryChangesRepository} fragment, picked up by Spring Data by its name
+ */
+class IMongoFeedEntryChangesRepositoryImpl implements IMongoFeedEntryChangesRepository
+{
+    private static final String INDEX_NAME = "sequence";
+
+    private final MongoOperations mongoOperations;
+
+    /**
+     * Whether the index has already been ensured. Ensuring an existing index is harmless, so concurrent first
+     * queries don't need to be synchronized
+     */
+    private volatile boolean indexed = false;
+
+    IMongoFeedEntryChangesRepositoryImpl(MongoOperations mongoOperations)
+    {
+        this.mongoOperations = mongoOperations;
+    }
+
+    /**
+     * The index is ensured on the first query rather than at startup, so that the application doesn't need MongoDB
+     * to be up to start
+     */
+    @Override
+    public List<FeedEntry> findBySequenceRange(long after, long upTo, int limit)
+    {
+        if (!indexed)
+        {
+            mongoOperations.indexOps(FeedEntry.class).ensureIndex(new Index().on("sequence", Sort.Direction.ASC)
+                                                                             .named(INDEX_NAME));
+            indexed = true;
+        }
+
+        var query = Query.query(Criteria.where("sequence").gt(after).lte(upTo))
+                         .with(Sort.by(Sort.Direction.ASC, "sequence"))
+                         .limit(limit);
+
+        return mongoOperations.find(query, FeedEntry.class);
+    }
+}
@@ -0,0 +1,16 @@
+package com.assignment.aggregator.repositories;
+
+import com.assignment.aggregator.models.FeedEntry;
+
+import java.util.Collection;
+
+/**
+ * Custom fragment of {@link IMongoFeedEntryRepository} updating the content of edited entries
+ */
+public interface IMongoFeedEntryContentRepository
+{
+    /**
+     * @see IFeedEntryRepository#updateContents(Collection)
+     */
+    void updateContents(Collection<FeedEntry> entries);
+}
@@ -0,0 +1,52 @@
+package com.assignment.aggregator.repositories;
+
+import com.assignment.aggregator.models.FeedEntry;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+
+/**
+ * Implementation of the {@link IMongoFeedEntryContentRepository} fragment, picked up by Spring Data by its name
+ */
+class IMongoFeedEntryContentRepositoryImpl implements IMongoFeedEntryContentRepository
+{
+    private final MongoOperations mongoOperations;
+
+    IMongoFeedEntryContentRepositoryImpl(MongoOperations mongoOperations)
+    {
+        this.mongoOperations = mongoOperations;
+    }
+
+    /**
+     * Only the content fields are set, so the documents are not replaced, and all the updates are sent in one single
+     * bulk operation
+     */
+    @Override
+    public void updateContents(Collection<FeedEntry> entries)
+    {
+        if (entries.isEmpty())
+        {
+            return;
+        }
+
+        var operations = mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, FeedEntry.class);
+        for (var entry : entries)
+        {
+            operations.updateOne(Query.query(Criteria.where("_id").is(entry.getId())),
+                                 new Update().set("link", entry.getLink())
+                                             .set("publicationDate", entry.getPublicationDate())
+                                             .set("title", entry.getTitle())
+                                             .set("contents", entry.getContents())
+                                             .set("authors", entry.getAuthors())
+                                             .set("fingerprint", entry.getFingerprint())
+                                             .set("updated", entry.getUpdated())
+                                             .set("sequence", entry.getSequence()));
+        }
+
+        operations.execute();
+    }
+}
@@ -0,0 +1,17 @@
+package com.assignment.aggregator.repositories;
+
+import com.assignment.aggregator.models.FeedEntry;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Custom fragment of {@link IMongoFeedEntryRepository} looking entries up by key through a dedicated index
+ */
+public interface IMongoFeedEntryKeyRepository
+{
+    /**
+     * @see IFeedEntryRepository#findAllByKeyIn(Collection)
+     */
+    List<FeedEntry> findAllByKeyIn(Collection<String> keys);
+}
@@ -0,0 +1,60 @@
+package com.assignment.aggregator.repositories;
+
+import com.assignment.aggregator.models.FeedEntry;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Implementation of the {@link IMongoFeedEntryKeyRepository} fragment, picked up by Spring Data by its name
+ */
+class IMongoFeedEntryKeyRepositoryImpl implements IMongoFeedEntryKeyRepository
+{
+    private static final String INDEX_NAME = "key";
+
+    private final MongoOperations mongoOperations;
+
+    /**
+     * Whether the index has already been ensured. Ensuring an existing index is harmless, so concurrent first
+     * queries don't need to be synchronized
+     */
+    private volatile boolean indexed = false;
+
+    IMongoFeedEntryKeyRepositoryImpl(MongoOperations mongoOperations)
+    {
+        this.mongoOperations = mongoOperations;
+    }
+
+    /**
+     * The index is ensured on the first query rather than at startup, so that the application doesn't need MongoDB
+     * to be up to start. Entries stored without key are left out of the index
+     */
+    @Override
+    public List<FeedEntry> findAllByKeyIn(Collection<String> keys)
+    {
+        if (keys.isEmpty())
+        {
+            return List.of();
+        }
+
+        ensureIndex();
+
+        return mongoOperations.find(Query.query(Criteria.where("key").in(keys)), FeedEntry.class);
+    }
+
+    private void ensureIndex()
+    {
+        if (!indexed)
+        {
+            mongoOperations.indexOps(FeedEntry.class).ensureIndex(new Index().on("key", Sort.Direction.ASC)
+                                                                             .sparse()
+                                                                             .named(INDEX_NAME));
+            indexed = true;
+        }
+    }
+}
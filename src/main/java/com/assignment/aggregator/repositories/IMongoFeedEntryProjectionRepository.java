@@ -0,0 +1,22 @@
+package com.assignment.aggregator.repositories;
+
+import com.assignment.aggregator.models.FeedEntry;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Custom fragment of {@link IMongoFeedEntryRepository} reading only some of the fields of the entries
+ */
+public interface IMongoFeedEntryProjectionRepository
+{
+    /**
+     * @see IFeedEntryRepository#findAllWithFields(Set)
+     */
+    List<FeedEntry> findAllWithFields(Set<String> fields);
+
+    /**
+     * @see IFeedEntryRepository#findAllByChannelIdInWithFields(List, Set)
+     */
+    List<FeedEntry> findAllByChannelIdInWithFields(List<Long> channelIds, Set<String> fields);
+}
@@ -0,0 +1,49 @@
+package com.assignment.aggregator.repositories;
+
+import com.assignment.aggregator.models.FeedEntry;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Implementation of the {@link IMongoFeedEntryProjectionRepository} fragment, picked up by Spring Data by its name
+ * <p>
+ * The fields are pushed down as a projection, so the fields left out are neither read nor sent by MongoDB.
+ */
+class IMongoFeedEntryProjectionRepositoryImpl implements IMongoFeedEntryProjectionRepository
+{
+    /**
+     * Fields identifying an entry and telling whether it was edited, always read
+     */
+    private static final String[] IDENTITY_FIELDS = {"id", "channelId", "link", "key", "fingerprint"};
+
+    private final MongoOperations mongoOperations;
+
+    IMongoFeedEntryProjectionRepositoryImpl(MongoOperations mongoOperations)
+    {
+        this.mongoOperations = mongoOperations;
+    }
+
+    @Override
+    public List<FeedEntry> findAllWithFields(Set<String> fields)
+    {
+        return mongoOperations.find(project(new Query(), fields), FeedEntry.class);
+    }
+
+    @Override
+    public List<FeedEntry> findAllByChannelIdInWithFields(List<Long> channelIds, Set<String> fields)
+    {
+        return mongoOperations.find(project(Query.query(Criteria.where("channelId").in(channelIds)), fields), FeedEntry.class);
+    }
+
+    private static Query project(Query query, Set<String> fields)
+    {
+        query.fields().include(IDENTITY_FIELDS);
+        fields.forEach(query.fields()::include);
+
+        return query;
+    }
+}
@@ -0,0 +1,13 @@
+package com.assignment.aggregator.repositories;
+
+/**
+ * Custom fragment of {@link IMongoFeedEntryRepository} holding the operations that can't be derived from their
+ * method name
+ */
+public interface IMongoFeedEntryPurgeRepository
+{
+    /**
+     * @see IFeedEntryRepository#deleteBatchByChannelId(long, int)
+     */
+    long deleteBatchByChannelId(long channelId, int batchSize);
+}
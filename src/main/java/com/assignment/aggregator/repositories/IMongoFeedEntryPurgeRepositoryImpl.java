@@ -0,0 +1,43 @@
+package com.assignment.aggregator.repositories;
+
+import com.assignment.aggregator.models.FeedEntry;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Implementation of the {@link IMongoFeedEntryPurgeRepository} fragment, picked up by Spring Data by its name
+ */
+class IMongoFeedEntryPurgeRepositoryImpl implements IMongoFeedEntryPurgeRepository
+{
+    private final MongoOperations mongoOperations;
+
+    IMongoFeedEntryPurgeRepositoryImpl(MongoOperations mongoOperations)
+    {
+        this.mongoOperations = mongoOperations;
+    }
+
+    /**
+     * MongoDB can't limit the number of documents removed at once: the ids of the batch are read first, and then
+     * removed in one single statement
+     */
+    @Override
+    public long deleteBatchByChannelId(long channelId, int batchSize)
+    {
+        var batchQuery = Query.query(Criteria.where("channelId").is(channelId)).limit(batchSize);
+        batchQuery.fields().include("_id");
+
+        var ids = mongoOperations.find(batchQuery, FeedEntry.class).stream()
+                                 .map(FeedEntry::getId)
+                                 .collect(toList());
+
+        if (ids.isEmpty())
+        {
+            return 0;
+        }
+
+        return mongoOperations.remove(Query.query(Criteria.where("_id").in(ids)), FeedEntry.class).getDeletedCount();
+    }
+}
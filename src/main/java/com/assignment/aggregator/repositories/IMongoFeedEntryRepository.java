@@ -0,0 +1,29 @@
+package com.assignment.aggregator.repositories;
+
+import com.assignment.aggregator.models.FeedEntry;
+import com.assignment.aggregator.models.FeedEntrySequence;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * MongoDB backend for {@link FeedEntry}s. Every operation of the {@link IFeedEntryRepository} contract is either
+ * provided by {@link MongoRepository}, derived from the method name, declared as a query or implemented by the
+ * {@link IMongoFeedEntryPurgeRepository}, {@link IMongoFeedEntryTimelineRepository},
+ * {@link IMongoFeedEntryChangesRepository}, {@link IMongoFeedEntryProjectionRepository},
+ * {@link IMongoFeedEntryKeyRepository} and {@link IMongoFeedEntryContentRepository} fragments.
+ */
+public interface IMongoFeedEntryRepository extends MongoRepository<FeedEntry, String>, IMongoFeedEntryPurgeRepository, IMongoFeedEntryTimelineRepository,
+                                                   IMongoFeedEntryChangesRepository, IMongoFeedEntryProjectionRepository, IMongoFeedEntryKeyRepository,
+                                                   IMongoFeedEntryContentRepository, IFeedEntryRepository
+{
+    @Override
+    @Query(value = "{ 'sequence' : { $gt : 0 } }", fields = "{ 'channelId' : 1, 'sequence' : 1 }")
+    List<FeedEntrySequence> findSequencesBy();
+
+    @Override
+    @Query("{ 'link' : { $in : ?0 }, 'key' : null }")
+    List<FeedEntry> findUnkeyedByLinkIn(Collection<String> links);
+}
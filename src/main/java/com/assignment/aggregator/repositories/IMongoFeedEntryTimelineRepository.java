@@ -0,0 +1,17 @@
+package com.assignment.aggregator.repositories;
+
+import com.assignment.aggregator.models.FeedEntry;
+
+import java.util.List;
+
+/**
+ * Custom fragment of {@link IMongoFeedEntryRepository} reading the newest entries of a channel through a dedicated
+ * index
+ */
+public interface IMongoFeedEntryTimelineRepository
+{
+    /**
+     * @see IFeedEntryRepository#findNewestByChannelId(long, int)
+     */
+    List<FeedEntry> findNewestByChannelId(long channelId, int limit);
+}
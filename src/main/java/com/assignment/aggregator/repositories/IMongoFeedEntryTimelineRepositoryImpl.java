@@ -0,0 +1,53 @@
+package com.assignment.aggregator.repositories;
+
+import com.assignment.aggregator.models.FeedEntry;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+
+/**
+ * Implementation of the {@link IMongoFeedEntryTimelineRepository} fragment, picked up by Spring Data by its name
+ */
+class IMongoFeedEntryTimelineRepositoryImpl implements IMongoFeedEntryTimelineRepository
+{
+    private static final String INDEX_NAME = "channel_publication_date";
+
+    private final MongoOperations mongoOperations;
+
+    /**
+     * Whether the index has already been ensured. Ensuring an existing index is harmless, so concurrent first
+     * queries don't need to be synchronized
+     */
+    private volatile boolean indexed = false;
+
+    IMongoFeedEntryTimelineRepositoryImpl(MongoOperations mongoOperations)
+    {
+        this.mongoOperations = mongoOperations;
+    }
+
+    /**
+     * The index is ensured on the first query rather than at startup, so that the application doesn't need MongoDB
+     * to be up to start. Documents without publication date sort first in ascending order, and thus come last
+     */
+    @Override
+    public List<FeedEntry> findNewestByChannelId(long channelId, int limit)
+    {
+        if (!indexed)
+        {
+            mongoOperations.indexOps(FeedEntry.class).ensureIndex(new Index().on("channelId", Sort.Direction.ASC)
+                                                                             .on("publicationDate", Sort.Direction.DESC)
+                                                                             .named(INDEX_NAME));
+            indexed = true;
+        }
+
+        var query = Query.query(Criteria.where("channelId").is(channelId))
+                         .with(Sort.by(Sort.Direction.DESC, "publicationDate"))
+                         .limit(limit);
+
+        return mongoOperations.find(query, FeedEntry.class);
+    }
+}
@@ -0,0 +1,25 @@
+package com.assignment.aggregator.repositories;
+
+import com.assignment.aggregator.models.ReadState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
+@Repository
+public interface IReadStateRepository extends JpaRepository<ReadState, String>
+{
+    /**
+     * Fetch the read state of a client, locking its row until the end of the transaction so that concurrent updates
+     * of the same client's bitmap are not lost
+     *
+     * @param clientId the id of the client
+     * @return an {@link Optional} of the locked read state
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select rs from ReadState rs where rs.clientId = ?1")
+    Optional<ReadState> findForUpdate(String clientId);
+}
@@ -0,0 +1,68 @@
+package com.assignment.aggregator.repositories;
+
+import com.assignment.aggregator.models.SequenceCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.time.ZonedDateTime;
+import java.util.Optional;
+
+@Repository
+public interface ISequenceCounterRepository extends JpaRepository<SequenceCounter, String>
+{
+    /**
+     * Fetch a counter by its name, locking its row until the end of the transaction so that concurrent allocations
+     * never hand out the same values
+     *
+     * @param name the name of the counter
+     * @return an {@link Optional} of the locked counter
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select sc from SequenceCounter sc where sc.name = ?1")
+    Optional<SequenceCounter> findForUpdate(String name);
+
+    /**
+     * Record a block of values of a counter as reserved, until the values are released
+     *
+     * @param name       the name of the counter
+     * @param firstValue the first value of the block
+     * @param reservedAt the time of the reservation
+     */
+    @Modifying
+    @Query(value = "insert into sequence_reservation (name, first_value, reserved_at) values (?1, ?2, ?3)", nativeQuery = true)
+    void reserve(String name, long firstValue, ZonedDateTime reservedAt);
+
+    /**
+     * Release a reserved block of values of a counter
+     *
+     * @param name       the name of the counter
+     * @param firstValue the first value of the block
+     */
+    @Modifying
+    @Query(value = "delete from sequence_reservation where name = ?1 and first_value = ?2", nativeQuery = true)
+    void release(String name, long firstValue);
+
+    /**
+     * Release the blocks of values of every counter reserved before a given time
+     *
+     * @param reservedBefore the time before which blocks are released
+     * @return the number of released blocks
+     */
+    @Modifying
+    @Query(value = "delete from sequence_reservation where reserved_at < ?1", nativeQuery = true)
+    int releaseReservedBefore(ZonedDateTime reservedBefore);
+
+    /**
+     * Fetch the lowest value of a counter that is still reserved
+     *
+     * @param name          the name of the counter
+     * @param reservedAfter  the time after which blocks must have been reserved to be considered
+     * @return an {@link Optional} of the first value of the oldest reserved block
+     */
+    @Query(value = "select min(first_value) from sequence_reservation where name = ?1 and reserved_at >= ?2", nativeQuery = true)
+    Optional<Long> findLowestReserved(String name, ZonedDateTime reservedAfter);
+}
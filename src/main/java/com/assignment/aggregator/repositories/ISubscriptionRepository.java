@@ -0,0 +1,42 @@
+package com.assignment.aggregator.repositories;
+
+import com.assignment.aggregator.models.Subscription;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ISubscriptionRepository extends JpaRepository<Subscription, Long>
+{
+    /**
+     * Fetch the subscriptions of a tenant
+     *
+     * @param tenant the tenant whose subscriptions are fetched
+     * @return the tenant's subscriptions
+     */
+    List<Subscription> findAllByTenantOrderById(String tenant);
+
+    /**
+     * Check if a tenant is subscribed to a channel. Provides an easy way to (business) validate that no duplicate
+     * subscriptions are created.
+     *
+     * @param tenant    the tenant subscribing
+     * @param channelId the id of the subscribed channel
+     * @return <code>true</code> if the tenant is already subscribed to the channel
+     */
+    boolean existsByTenantAndChannelId(String tenant, Long channelId);
+
+    /**
+     * Fetch the tightest TTL among the subscriptions to a channel
+     * <p>
+     * Backed by the index on <code>channel_id</code>.
+     *
+     * @param channelId the id of the subscribed channel
+     * @return an {@link Optional} of the lowest subscribed TTL, empty if the channel has no subscriptions
+     */
+    @Query("select min(s.ttl) from Subscription s where s.channelId = ?1")
+    Optional<Integer> findTightestTtl(long channelId);
+}
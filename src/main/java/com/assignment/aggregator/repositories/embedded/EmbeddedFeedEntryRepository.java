@@ -0,0 +1,806 @@
+package com.assignment.aggregator.repositories.embedded;
+
+import com.assignment.aggregator.models.FeedEntry;
+import com.assignment.aggregator.models.FeedEntrySequence;
+import com.assignment.aggregator.repositories.IFeedEntryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Range;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.MessageFormat;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Embedded, single-node storage engine for {@link FeedEntry}s
+ * <p>
+ * Entries are appended to memory-mapped {@link Segment} files, one active segment per publication date window.
+ * Every write appends a new record, so updating an entry or deleting a channel never rewrites existing data:
+ * superseded records are only marked as dead in memory, and channel deletions are recorded as tombstones in a
+ * dedicated log. The {@link EntryIndex} lives in memory and is rebuilt from the segments on startup.
+ * <p>
+ * A background task compacts the segments whose ratio of dead records exceeds a threshold. Live records are
+ * copied to a new segment, which is made durable and atomically renamed before the old segment gets deleted,
+ * so a crash at any point leaves the store in a recoverable state.
+ */
+public class EmbeddedFeedEntryRepository implements IFeedEntryRepository, Closeable
+{
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddedFeedEntryRepository.class);
+
+    private static final String SEGMENT_PREFIX = "segment-";
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private static final String COMPACTING_SUFFIX = ".compacting";
+
+    private static final String TOMBSTONE_LOG = "tombstones.log";
+
+    private final Path directory;
+
+    private final long windowMillis;
+
+    private final int maxSegmentSize;
+
+    private final double compactionThreshold;
+
+    private final EntryCodec codec = new EntryCodec();
+
+    private final EntryIndex index = new EntryIndex();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Segment> segments = new TreeMap<>();
+
+    private final Map<Long, Segment> activeSegments = new HashMap<>();
+
+    private final Map<Long, Long> tombstones = new HashMap<>();
+
+    private final ScheduledExecutorService compactionExecutor;
+
+    private Segment tombstoneLog;
+
+    private long nextSequence = 1;
+
+    private long nextGeneration = 1;
+
+    /**
+     * Open the store located in the given directory, creating it if it doesn't exist, and schedule its compaction
+     *
+     * @param directory           the directory holding the segment files
+     * @param segmentWindow       the publication date window covered by each segment
+     * @param maxSegmentSize      the size in bytes from which a new segment is started for the same window
+     * @param compactionThreshold the ratio of dead records from which a segment gets compacted
+     * @param compactionInterval  the delay between two compaction runs
+     */
+    public EmbeddedFeedEntryRepository(Path directory, Duration segmentWindow, int maxSegmentSize, double compactionThreshold, Duration compactionInterval)
+    {
+        this.directory = directory;
+        this.windowMillis = segmentWindow.toMillis();
+        this.maxSegmentSize = maxSegmentSize;
+        this.compactionThreshold = compactionThreshold;
+
+        recover();
+
+        this.compactionExecutor = Executors.newSingleThreadScheduledExecutor(r ->
+                                                                             {
+                                                                                 var thread = new Thread(r, "FeedStoreCompactionThread");
+                                                                                 thread.setDaemon(true);
+                                                                                 return thread;
+                                                                             });
+        this.compactionExecutor.scheduleWithFixedDelay(this::compactSafely, compactionInterval.toMillis(), compactionInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public List<FeedEntry> findAll()
+    {
+        lock.readLock().lock();
+        try
+        {
+            return decode(index.all());
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<FeedEntry> findAllByChannelIdIn(List<Long> channelIds)
+    {
+        lock.readLock().lock();
+        try
+        {
+            var entries = new ArrayList<FeedEntry>();
+            channelIds.forEach(channelId -> entries.addAll(decode(index.channel(channelId))));
+
+            return entries;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Entries are stored as one document, and are read whole.
+     */
+    @Override
+    public List<FeedEntry> findAllWithFields(Set<String> fields)
+    {
+        return findAll();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Entries are stored as one document, and are read whole.
+     */
+    @Override
+    public List<FeedEntry> findAllByChannelIdInWithFields(List<Long> channelIds, Set<String> fields)
+    {
+        return findAllByChannelIdIn(channelIds);
+    }
+
+    @Override
+    public List<FeedEntry> findAllByChannelIdInAndPublicationDateBetween(List<Long> channelIds, Range<Instant> range)
+    {
+        var lower = range.getLowerBound();
+        var upper = range.getUpperBound();
+
+        // entries without publication date are stored with the lowest possible date, an unbounded range starts right after it
+        var from = lower.isBounded()
+                   ? EntryLocation.probe(lower.getValue().orElseThrow().toEpochMilli(), lower.isInclusive() ? Long.MIN_VALUE : Long.MAX_VALUE)
+                   : EntryLocation.probe(EntryCodec.NO_PUBLICATION_DATE, Long.MAX_VALUE);
+        var to = upper.isBounded()
+                 ? EntryLocation.probe(upper.getValue().orElseThrow().toEpochMilli(), upper.isInclusive() ? Long.MAX_VALUE : Long.MIN_VALUE)
+                 : EntryLocation.probe(Long.MAX_VALUE, Long.MAX_VALUE);
+
+        if (EntryLocation.BY_PUBLICATION_DATE.compare(from, to) > 0)
+        {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try
+        {
+            var entries = new ArrayList<FeedEntry>();
+            channelIds.forEach(channelId -> entries.addAll(decode(index.channel(channelId).subSet(from, false, to, false))));
+
+            return entries;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<FeedEntry> findNewestByChannelId(long channelId, int limit)
+    {
+        lock.readLock().lock();
+        try
+        {
+            // the channel's index is sorted by publication date, entries without one being stored with the lowest date
+            var entries = new ArrayList<FeedEntry>();
+            var locations = index.channel(channelId).descendingIterator();
+            while (entries.size() < limit && locations.hasNext())
+            {
+                entries.add(decode(locations.next()));
+            }
+
+            return entries;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<FeedEntry> findAllByIdIn(Collection<String> ids)
+    {
+        lock.readLock().lock();
+        try
+        {
+            var entries = new ArrayList<FeedEntry>(ids.size());
+            for (var id : ids)
+            {
+                var location = entryId(id).map(index::get).orElse(null);
+                if (location != null)
+                {
+                    entries.add(decode(location));
+                }
+            }
+
+            return entries;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<FeedEntry> findAllBySequenceIn(Collection<Long> sequences)
+    {
+        lock.readLock().lock();
+        try
+        {
+            var entries = new ArrayList<FeedEntry>(sequences.size());
+            for (var sequence : sequences)
+            {
+                var location = index.getByIngestSequence(sequence);
+                if (location != null)
+                {
+                    entries.add(decode(location));
+                }
+            }
+
+            return entries;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<FeedEntry> findBySequenceRange(long after, long upTo, int limit)
+    {
+        lock.readLock().lock();
+        try
+        {
+            var entries = new ArrayList<FeedEntry>();
+            var locations = index.ingestSequenceRange(after, upTo).iterator();
+            while (entries.size() < limit && locations.hasNext())
+            {
+                entries.add(decode(locations.next()));
+            }
+
+            return entries;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<FeedEntrySequence> findSequencesBy()
+    {
+        lock.readLock().lock();
+        try
+        {
+            // answered from the index headers, no entry is decoded
+            return index.all().stream()
+                        .filter(l -> l.ingestSequence() != 0)
+                        .map(l -> new IndexedEntrySequence(l.channelId(), l.ingestSequence()))
+                        .collect(Collectors.toList());
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<FeedEntry> findAllByKeyIn(Collection<String> keys)
+    {
+        lock.readLock().lock();
+        try
+        {
+            var entries = new ArrayList<FeedEntry>();
+            for (var key : keys)
+            {
+                var location = index.getByKeyHash(EntryCodec.keyHash(key));
+                if (location != null)
+                {
+                    var entry = decode(location);
+                    if (key.equals(entry.getKey()))
+                    {
+                        entries.add(entry);
+                    }
+                }
+            }
+
+            return entries;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Entries stored without key are indexed by their link.
+     */
+    @Override
+    public List<FeedEntry> findUnkeyedByLinkIn(Collection<String> links)
+    {
+        lock.readLock().lock();
+        try
+        {
+            var entries = new ArrayList<FeedEntry>();
+            for (var link : links)
+            {
+                var location = index.getByKeyHash(EntryCodec.keyHash(link));
+                if (location != null)
+                {
+                    var entry = decode(location);
+                    if (entry.getKey() == null && link.equals(entry.getLink()))
+                    {
+                        entries.add(entry);
+                    }
+                }
+            }
+
+            return entries;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public <S extends FeedEntry> List<S> saveAll(Iterable<S> entries)
+    {
+        var saved = new ArrayList<S>();
+
+        lock.writeLock().lock();
+        try
+        {
+            var touched = new HashSet<Segment>();
+
+            for (var entry : entries)
+            {
+                var sequence = nextSequence++;
+                var entryId = resolveEntryId(entry, sequence);
+
+                var payload = codec.encodeEntry(sequence, entryId, entry);
+                var segment = activeSegment(entry.getPublicationDate() != null ? entry.getPublicationDate().toEpochMilli() : System.currentTimeMillis());
+                var location = EntryLocation.of(segment, segment.append(payload), payload);
+
+                register(location);
+                touched.add(segment);
+
+                entry.setId(String.valueOf(entryId));
+                saved.add(entry);
+            }
+
+            touched.forEach(Segment::force);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+
+        return saved;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Records are never rewritten: the stored entries are read, given their new content and ingest sequence and
+     * appended again.
+     */
+    @Override
+    public void updateContents(Collection<FeedEntry> entries)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            var updated = new ArrayList<FeedEntry>(entries.size());
+            for (var entry : entries)
+            {
+                var location = entryId(entry.getId()).map(index::get).orElse(null);
+                if (location != null)
+                {
+                    updated.add(decode(location).copyContent(entry).setUpdated(entry.getUpdated()).setSequence(entry.getSequence()));
+                }
+            }
+
+            saveAll(updated);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteAllByChannelIdIn(List<Long> channelIds)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            for (var channelId : channelIds)
+            {
+                var sequence = nextSequence++;
+                tombstoneLog.append(codec.encodeTombstone(sequence, channelId));
+                tombstones.put(channelId, sequence);
+
+                index.removeChannel(channelId).forEach(l -> l.segment().recordDead());
+            }
+
+            tombstoneLog.force();
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Deleting a channel costs a single tombstone record, so every entry of the channel is deleted at once.
+     */
+    @Override
+    public long deleteBatchByChannelId(long channelId, int batchSize)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            var deleted = index.channel(channelId).size();
+            deleteAllByChannelIdIn(List.of(channelId));
+
+            return deleted;
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public long count()
+    {
+        lock.readLock().lock();
+        try
+        {
+            return index.size();
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Compact every segment whose ratio of dead records exceeds the compaction threshold
+     * <p>
+     * Candidates are sealed first, so that no more records are appended to them. Their live records are then
+     * copied under the read lock, which doesn't block readers, and the index is finally switched to the copies
+     * under the write lock. Records superseded while copying are accounted as dead in the new segment.
+     */
+    public void compact()
+    {
+        List<Segment> candidates;
+
+        lock.writeLock().lock();
+        try
+        {
+            candidates = segments.values().stream()
+                                 .filter(s -> s.deadRecords() > 0 && s.deadRatio() >= compactionThreshold)
+                                 .collect(Collectors.toList());
+
+            candidates.forEach(s -> activeSegments.remove(s.window(), s));
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+
+        candidates.forEach(this::compact);
+    }
+
+    @Override
+    public void close()
+    {
+        compactionExecutor.shutdownNow();
+
+        lock.writeLock().lock();
+        try
+        {
+            segments.values().forEach(s ->
+                                      {
+                                          s.force();
+                                          s.close();
+                                      });
+            tombstoneLog.close();
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void compact(Segment segment)
+    {
+        long generation;
+
+        lock.writeLock().lock();
+        try
+        {
+            generation = nextGeneration++;
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+
+        var target = Segment.create(segmentPath(generation).resolveSibling(segmentPath(generation).getFileName() + COMPACTING_SUFFIX), generation, segment.window());
+        var copies = new HashMap<EntryLocation, EntryLocation>();
+
+        lock.readLock().lock();
+        try
+        {
+            segment.scan((payload, offset) ->
+                         {
+                             var location = EntryLocation.of(segment, offset, payload);
+                             if (index.isLive(location))
+                             {
+                                 copies.put(location, EntryLocation.of(target, target.append(payload), payload));
+                             }
+                         });
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+
+        target.force();
+        target.moveTo(segmentPath(generation));
+
+        lock.writeLock().lock();
+        try
+        {
+            copies.forEach((from, to) ->
+                           {
+                               target.recordLive();
+                               if (!index.relocate(from, to))
+                               {
+                                   target.recordDead();
+                               }
+                           });
+
+            segments.remove(segment.generation());
+            segment.delete();
+
+            if (target.liveRecords() > 0)
+            {
+                segments.put(target.generation(), target);
+            }
+            else
+            {
+                target.delete();
+            }
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+
+        if (logger.isInfoEnabled())
+        {
+            logger.info(MessageFormat.format("Compacted segment {0} into segment {1}. {2} live records kept", segment.generation(), generation, target.liveRecords()));
+        }
+    }
+
+    private void compactSafely()
+    {
+        try
+        {
+            compact();
+        }
+        catch (RuntimeException e)
+        {
+            logger.error("Segment compaction failed", e);
+        }
+    }
+
+    /**
+     * Rebuild the store's state from the files in its directory. Leftovers of interrupted compactions are
+     * deleted, tombstones are loaded first so that the entry records of deleted channels can be discarded.
+     */
+    private void recover()
+    {
+        try
+        {
+            Files.createDirectories(directory);
+
+            try (var files = Files.list(directory))
+            {
+                for (var file : files.filter(f -> f.getFileName().toString().endsWith(COMPACTING_SUFFIX)).collect(Collectors.toList()))
+                {
+                    Files.delete(file);
+                }
+            }
+
+            var tombstonePath = directory.resolve(TOMBSTONE_LOG);
+            tombstoneLog = Files.exists(tombstonePath) ? Segment.open(tombstonePath, 0) : Segment.create(tombstonePath, 0, -1);
+            tombstoneLog.recover((payload, offset) ->
+                                 {
+                                     tombstones.merge(EntryCodec.channelId(payload), EntryCodec.sequence(payload), Math::max);
+                                     nextSequence = Math.max(nextSequence, EntryCodec.sequence(payload) + 1);
+                                 });
+
+            List<Path> segmentFiles;
+            try (var files = Files.list(directory))
+            {
+                segmentFiles = files.filter(f -> f.getFileName().toString().startsWith(SEGMENT_PREFIX) && f.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                                    .sorted()
+                                    .collect(Collectors.toList());
+            }
+
+            for (var file : segmentFiles)
+            {
+                var name = file.getFileName().toString();
+                var generation = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+                var segment = Segment.open(file, generation);
+
+                segment.recover((payload, offset) ->
+                                {
+                                    var location = EntryLocation.of(segment, offset, payload);
+                                    nextSequence = Math.max(nextSequence, location.sequence() + 1);
+
+                                    if (tombstones.getOrDefault(location.channelId(), Long.MIN_VALUE) > location.sequence())
+                                    {
+                                        segment.recordLive();
+                                        segment.recordDead();
+                                    }
+                                    else
+                                    {
+                                        register(location);
+                                    }
+                                });
+
+                segments.put(generation, segment);
+                nextGeneration = Math.max(nextGeneration, generation + 1);
+
+                // keep appending to the latest segment of each window while it has room
+                if (segment.size() < maxSegmentSize)
+                {
+                    activeSegments.put(segment.window(), segment);
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+
+        if (logger.isInfoEnabled())
+        {
+            logger.info(MessageFormat.format("Embedded feed store opened at {0}. {1} segments, {2} entries", directory, segments.size(), index.size()));
+        }
+    }
+
+    private void register(EntryLocation location)
+    {
+        location.segment().recordLive();
+        index.put(location).forEach(l -> l.segment().recordDead());
+    }
+
+    /**
+     * @return the entry id held by an entry's id, empty if the id hasn't been assigned by this store
+     */
+    private static Optional<Long> entryId(String id)
+    {
+        try
+        {
+            return Optional.of(Long.parseLong(id));
+        }
+        catch (NumberFormatException e)
+        {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Determine the id of the entry being saved. Entries keep their id, and entries with the key of an already stored
+     * entry replace the stored entry.
+     */
+    private long resolveEntryId(FeedEntry entry, long sequence)
+    {
+        var entryId = entry.getId() != null ? entryId(entry.getId()) : Optional.<Long>empty();
+        if (entryId.isPresent())
+        {
+            return entryId.get();
+        }
+
+        var key = EntryCodec.key(entry);
+        var sameKey = key != null ? index.getByKeyHash(EntryCodec.keyHash(key)) : null;
+        if (sameKey != null && key.equals(EntryCodec.key(decode(sameKey))))
+        {
+            return sameKey.entryId();
+        }
+
+        return sequence;
+    }
+
+    private Segment activeSegment(long timestamp)
+    {
+        var window = Math.floorDiv(timestamp, windowMillis);
+        var segment = activeSegments.get(window);
+
+        if (segment == null || segment.size() >= maxSegmentSize)
+        {
+            var generation = nextGeneration++;
+            segment = Segment.create(segmentPath(generation), generation, window);
+
+            segments.put(generation, segment);
+            activeSegments.put(window, segment);
+        }
+
+        return segment;
+    }
+
+    private Path segmentPath(long generation)
+    {
+        return directory.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, generation, SEGMENT_SUFFIX));
+    }
+
+    private FeedEntry decode(EntryLocation location)
+    {
+        return codec.decodeEntry(location.segment().read(location.offset()));
+    }
+
+    private List<FeedEntry> decode(Collection<EntryLocation> locations)
+    {
+        var entries = new ArrayList<FeedEntry>(locations.size());
+        locations.forEach(l -> entries.add(decode(l)));
+
+        return entries;
+    }
+
+    private static final class IndexedEntrySequence implements FeedEntrySequence
+    {
+        private final long channelId;
+
+        private final long sequence;
+
+        private IndexedEntrySequence(long channelId, long sequence)
+        {
+            this.channelId = channelId;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public long getChannelId()
+        {
+            return channelId;
+        }
+
+        @Override
+        public long getSequence()
+        {
+            return sequence;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.assignment.aggregator.repositories.embedded;
+
+import com.assignment.aggregator.models.FeedEntry;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.rometools.rome.feed.synd.SyndContent;
+import com.rometools.rome.feed.synd.SyndContentImpl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Binary layout of the records stored by {@link EmbeddedFeedEntryRepository}
+ * <p>
+ * Two kinds of records exist:
+ *
+ * <li>Entry records: <code>[byte type][long sequence][long entryId][long channelId][long publicationDate][long keyHash][long ingestSequence][json]</code>.
+ * The fixed size header holds everything the in-memory indexes need, the entry itself is stored as JSON. The key hash
+ * is the hash of the entry's key, or of its link for the entries stored without key.</li>
+ *
+ * <li>Tombstone records: <code>[byte type][long sequence][long channelId]</code>. Every entry record of the
+ * channel with a lower sequence is considered deleted.</li>
+ * <p>
+ * The sequence is a store wide write counter used to tell which record is the latest when several versions of an
+ * entry, or an entry and a tombstone, are found on recovery. It is unrelated to the ingest sequence, which is
+ * assigned to the entry by the application and kept in the header so entries can be looked up by it.
+ */
+final class EntryCodec
+{
+    static final byte ENTRY = 1;
+
+    static final byte TOMBSTONE = 2;
+
+    /**
+     * Publication date stored for entries that don't have one. Never matches a publication date range
+     */
+    static final long NO_PUBLICATION_DATE = Long.MIN_VALUE;
+
+    private static final int ENTRY_HEADER_SIZE = 49;
+
+    private static final int TOMBSTONE_SIZE = 17;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final ObjectMapper objectMapper;
+
+    EntryCodec()
+    {
+        var romeModule = new SimpleModule().addAbstractTypeMapping(SyndContent.class, SyndContentImpl.class);
+
+        this.objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                                              .registerModule(romeModule)
+                                              .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    ByteBuffer encodeEntry(long sequence, long entryId, FeedEntry entry)
+    {
+        try
+        {
+            var json = objectMapper.writeValueAsBytes(entry);
+
+            return ByteBuffer.allocate(ENTRY_HEADER_SIZE + json.length)
+                             .put(ENTRY)
+                             .putLong(sequence)
+                             .putLong(entryId)
+                             .putLong(entry.getChannelId())
+                             .putLong(entry.getPublicationDate() != null ? entry.getPublicationDate().toEpochMilli() : NO_PUBLICATION_DATE)
+                             .putLong(keyHash(key(entry)))
+                             .putLong(entry.getSequence())
+                             .put(json)
+                             .flip();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    ByteBuffer encodeTombstone(long sequence, long channelId)
+    {
+        return ByteBuffer.allocate(TOMBSTONE_SIZE)
+                         .put(TOMBSTONE)
+                         .putLong(sequence)
+                         .putLong(channelId)
+                         .flip();
+    }
+
+    FeedEntry decodeEntry(ByteBuffer payload)
+    {
+        var json = payload.duplicate();
+        json.position(ENTRY_HEADER_SIZE);
+
+        try
+        {
+            return objectMapper.readValue(new ByteBufferBackedInputStream(json), FeedEntry.class)
+                               .setId(String.valueOf(entryId(payload)));
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static byte type(ByteBuffer payload)
+    {
+        return payload.get(0);
+    }
+
+    static long sequence(ByteBuffer payload)
+    {
+        return payload.getLong(1);
+    }
+
+    static long entryId(ByteBuffer payload)
+    {
+        return payload.getLong(9);
+    }
+
+    static long channelId(ByteBuffer payload)
+    {
+        return type(payload) == TOMBSTONE ? payload.getLong(9) : payload.getLong(17);
+    }
+
+    static long publicationDate(ByteBuffer payload)
+    {
+        return payload.getLong(25);
+    }
+
+    static long keyHash(ByteBuffer payload)
+    {
+        return payload.getLong(33);
+    }
+
+    static long ingestSequence(ByteBuffer payload)
+    {
+        return payload.getLong(41);
+    }
+
+    /**
+     * @return what an entry is identified by in the store: its key, or its link if it has none
+     */
+    static String key(FeedEntry entry)
+    {
+        return entry.getKey() != null ? entry.getKey() : entry.getLink();
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the key of an entry. Collisions are negligible for the amount of entries a single node
+     * holds, and lookups compare the actual keys anyway.
+     *
+     * @param key the key to hash
+     * @return the hash of the key, <code>0</code> for <code>null</code> keys
+     */
+    static long keyHash(String key)
+    {
+        if (key == null)
+        {
+            return 0;
+        }
+
+        var hash = FNV_OFFSET_BASIS;
+        for (var i = 0; i < key.length(); i++)
+        {
+            hash ^= key.charAt(i);
+            hash *= FNV_PRIME;
+        }
+
+        return hash == 0 ? 1 : hash;
+    }
+}
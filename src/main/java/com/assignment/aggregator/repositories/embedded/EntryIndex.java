@@ -0,0 +1,193 @@
+package com.assignment.aggregator.repositories.embedded;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * In-memory indexes over the live entry records of {@link EmbeddedFeedEntryRepository}
+ * <p>
+ * Entries are indexed by id, by <code>(channelId, publicationDate)</code>, by key hash and by ingest sequence. Only the latest
+ * version of every entry is indexed, older versions are reported back as dead so that their segments can account
+ * for the space to be reclaimed by compaction.
+ * <p>
+ * Not thread safe, guarded by the repository's read/write lock.
+ */
+final class EntryIndex
+{
+    private final Map<Long, EntryLocation> byId = new HashMap<>();
+
+    private final Map<Long, EntryLocation> byKeyHash = new HashMap<>();
+
+    private final Map<Long, NavigableSet<EntryLocation>> byChannel = new HashMap<>();
+
+    private final NavigableMap<Long, EntryLocation> byIngestSequence = new TreeMap<>();
+
+    /**
+     * Index a record
+     * <p>
+     * The record supersedes the indexed version of the same entry, as well as any other entry with the same key,
+     * unless they were written later (which may happen while replaying segments on recovery).
+     *
+     * @param location the location of the record
+     * @return the locations that are no longer live, possibly including the given one
+     */
+    List<EntryLocation> put(EntryLocation location)
+    {
+        var dead = new ArrayList<EntryLocation>(2);
+
+        var sameId = byId.get(location.entryId());
+        if (sameId != null && sameId.sequence() >= location.sequence())
+        {
+            dead.add(location);
+            return dead;
+        }
+
+        var sameKey = location.keyHash() != 0 ? byKeyHash.get(location.keyHash()) : null;
+        if (sameKey != null && sameKey != sameId && sameKey.sequence() >= location.sequence())
+        {
+            dead.add(location);
+            return dead;
+        }
+
+        if (sameId != null)
+        {
+            remove(sameId);
+            dead.add(sameId);
+        }
+
+        if (sameKey != null && sameKey != sameId)
+        {
+            remove(sameKey);
+            dead.add(sameKey);
+        }
+
+        byId.put(location.entryId(), location);
+        if (location.keyHash() != 0)
+        {
+            byKeyHash.put(location.keyHash(), location);
+        }
+        if (location.ingestSequence() != 0)
+        {
+            byIngestSequence.put(location.ingestSequence(), location);
+        }
+        byChannel.computeIfAbsent(location.channelId(), k -> new TreeSet<>(EntryLocation.BY_PUBLICATION_DATE))
+                 .add(location);
+
+        return dead;
+    }
+
+    /**
+     * Point the index to a copy of a live record
+     *
+     * @param from the current location of the record
+     * @param to   the location of the record's copy
+     * @return <code>true</code> if the record was still live and has been relocated, <code>false</code> otherwise
+     */
+    boolean relocate(EntryLocation from, EntryLocation to)
+    {
+        if (!isLive(from))
+        {
+            return false;
+        }
+
+        remove(from);
+        put(to);
+
+        return true;
+    }
+
+    /**
+     * Remove every entry of a channel from the index
+     *
+     * @param channelId the id of the channel
+     * @return the removed locations
+     */
+    Collection<EntryLocation> removeChannel(long channelId)
+    {
+        var locations = byChannel.remove(channelId);
+        if (locations == null)
+        {
+            return List.of();
+        }
+
+        for (var location : locations)
+        {
+            byId.remove(location.entryId());
+            byKeyHash.remove(location.keyHash(), location);
+            byIngestSequence.remove(location.ingestSequence(), location);
+        }
+
+        return locations;
+    }
+
+    boolean isLive(EntryLocation location)
+    {
+        var indexed = byId.get(location.entryId());
+
+        return indexed != null && indexed.segment() == location.segment() && indexed.offset() == location.offset();
+    }
+
+    EntryLocation get(long entryId)
+    {
+        return byId.get(entryId);
+    }
+
+    EntryLocation getByKeyHash(long keyHash)
+    {
+        return byKeyHash.get(keyHash);
+    }
+
+    EntryLocation getByIngestSequence(long ingestSequence)
+    {
+        return byIngestSequence.get(ingestSequence);
+    }
+
+    /**
+     * @param after the lowest ingest sequence, exclusive
+     * @param upTo  the highest ingest sequence, inclusive
+     * @return the entries within the ingest sequence range, sorted by ingest sequence
+     */
+    Collection<EntryLocation> ingestSequenceRange(long after, long upTo)
+    {
+        return after < upTo ? byIngestSequence.subMap(after, false, upTo, true).values() : List.of();
+    }
+
+    NavigableSet<EntryLocation> channel(long channelId)
+    {
+        return byChannel.getOrDefault(channelId, new TreeSet<>(EntryLocation.BY_PUBLICATION_DATE));
+    }
+
+    Collection<EntryLocation> all()
+    {
+        return byId.values();
+    }
+
+    int size()
+    {
+        return byId.size();
+    }
+
+    private void remove(EntryLocation location)
+    {
+        byId.remove(location.entryId(), location);
+        byKeyHash.remove(location.keyHash(), location);
+        byIngestSequence.remove(location.ingestSequence(), location);
+
+        var channel = byChannel.get(location.channelId());
+        if (channel != null)
+        {
+            channel.remove(location);
+            if (channel.isEmpty())
+            {
+                byChannel.remove(location.channelId());
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.assignment.aggregator.repositories.embedded;
+
+import java.nio.ByteBuffer;
+import java.util.Comparator;
+
+/**
+ * In-memory index entry pointing to the record holding the latest version of a {@link com.assignment.aggregator.models.FeedEntry}
+ * <p>
+ * Besides the record position, it carries the record's header fields, so the indexes can be rebuilt and queried
+ * without decoding the stored entries.
+ */
+final class EntryLocation
+{
+    /**
+     * Orders the entries of a channel by publication date, the entry id acting as a tie breaker
+     */
+    static final Comparator<EntryLocation> BY_PUBLICATION_DATE = Comparator.comparingLong(EntryLocation::publicationDate)
+                                                                           .thenComparingLong(EntryLocation::entryId);
+
+    private final Segment segment;
+
+    private final int offset;
+
+    private final long sequence;
+
+    private final long entryId;
+
+    private final long channelId;
+
+    private final long publicationDate;
+
+    private final long keyHash;
+
+    private final long ingestSequence;
+
+    EntryLocation(Segment segment, int offset, long sequence, long entryId, long channelId, long publicationDate, long keyHash, long ingestSequence)
+    {
+        this.segment = segment;
+        this.offset = offset;
+        this.sequence = sequence;
+        this.entryId = entryId;
+        this.channelId = channelId;
+        this.publicationDate = publicationDate;
+        this.keyHash = keyHash;
+        this.ingestSequence = ingestSequence;
+    }
+
+    /**
+     * Build a location from the header of an entry record
+     *
+     * @param segment the segment holding the record
+     * @param offset  the offset of the record within the segment
+     * @param payload the record's payload
+     * @return the location of the record
+     */
+    static EntryLocation of(Segment segment, int offset, ByteBuffer payload)
+    {
+        return new EntryLocation(segment, offset,
+                                 EntryCodec.sequence(payload),
+                                 EntryCodec.entryId(payload),
+                                 EntryCodec.channelId(payload),
+                                 EntryCodec.publicationDate(payload),
+                                 EntryCodec.keyHash(payload),
+                                 EntryCodec.ingestSequence(payload));
+    }
+
+    /**
+     * Build a probe used to delimit publication date ranges in the channel indexes
+     *
+     * @param publicationDate the publication date in epoch millis
+     * @param entryId         either {@link Long#MIN_VALUE} or {@link Long#MAX_VALUE}
+     * @return a location which doesn't point to any record
+     */
+    static EntryLocation probe(long publicationDate, long entryId)
+    {
+        return new EntryLocation(null, -1, -1, entryId, -1, publicationDate, 0, 0);
+    }
+
+    Segment segment()
+    {
+        return segment;
+    }
+
+    int offset()
+    {
+        return offset;
+    }
+
+    long sequence()
+    {
+        return sequence;
+    }
+
+    long entryId()
+    {
+        return entryId;
+    }
+
+    long channelId()
+    {
+        return channelId;
+    }
+
+    long publicationDate()
+    {
+        return publicationDate;
+    }
+
+    long keyHash()
+    {
+        return keyHash;
+    }
+
+    /**
+     * @return the ingest sequence assigned to the entry, <code>0</code> if it hasn't been assigned one
+     */
+    long ingestSequence()
+    {
+        return ingestSequence;
+    }
+}
@@ -0,0 +1,358 @@
+package com.assignment.aggregator.repositories.embedded;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.ObjIntConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, memory-mapped segment file
+ * <p>
+ * A segment starts with a fixed size header followed by a sequence of records. Every record is framed as
+ * <code>[int length][int crc32][payload]</code>, so that a torn write left behind by a crash can be detected
+ * and discarded on recovery: scanning stops at the first record whose length is zero, out of bounds or whose
+ * checksum doesn't match its payload.
+ * <p>
+ * The file is mapped in growing chunks. Buffers handed to readers are duplicates of the current mapping, so they
+ * remain valid even if the file is later remapped, renamed or deleted by a compaction.
+ * <p>
+ * Segments are not thread safe. {@link EmbeddedFeedEntryRepository} guards them with its read/write lock.
+ */
+final class Segment implements Closeable
+{
+    static final int HEADER_SIZE = 16;
+
+    static final int RECORD_OVERHEAD = 8;
+
+    private static final int MAGIC = 0x46454544;
+
+    private static final int VERSION = 2;
+
+    private static final int INITIAL_CAPACITY = 1024 * 1024;
+
+    private final long generation;
+
+    private final long window;
+
+    private final FileChannel channel;
+
+    private Path path;
+
+    private MappedByteBuffer buffer;
+
+    private int position;
+
+    private int liveRecords;
+
+    private int deadRecords;
+
+    private Segment(Path path, long generation, long window, FileChannel channel, MappedByteBuffer buffer, int position)
+    {
+        this.path = path;
+        this.generation = generation;
+        this.window = window;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.position = position;
+    }
+
+    /**
+     * Create a new empty segment file
+     *
+     * @param path       the path of the file to create
+     * @param generation the generation of the segment, used to order segments
+     * @param window     the time window whose records the segment holds
+     * @return the new segment, ready to be appended to
+     */
+    static Segment create(Path path, long generation, long window)
+    {
+        try
+        {
+            var channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            var buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, INITIAL_CAPACITY);
+
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putLong(8, window);
+
+            return new Segment(path, generation, window, channel, buffer, HEADER_SIZE);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Open an existing segment file. Records must be then read with {@link Segment#recover}, which also sets the
+     * position at which new records will be appended.
+     *
+     * @param path       the path of the file to open
+     * @param generation the generation of the segment
+     * @return the opened segment
+     * @throws IllegalStateException if the file is not a segment file
+     */
+    static Segment open(Path path, long generation)
+    {
+        try
+        {
+            var channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            var size = (int) Math.max(channel.size(), INITIAL_CAPACITY);
+            var buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+            {
+                channel.close();
+                throw new IllegalStateException("Not a segment file [path: " + path + "]");
+            }
+
+            return new Segment(path, generation, buffer.getLong(8), channel, buffer, HEADER_SIZE);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Scan every valid record of the segment and set the position at which new records will be appended. The scan
+     * stops at the end of the written data or at the first corrupted record, which is wiped so that the space can
+     * be reused by new records.
+     *
+     * @param consumer the consumer of the record payloads and their offsets
+     */
+    void recover(ObjIntConsumer<ByteBuffer> consumer)
+    {
+        var end = scan(consumer);
+
+        if (end + RECORD_OVERHEAD <= buffer.capacity() && buffer.getInt(end) != 0)
+        {
+            // torn write: wipe anything left after the last valid record
+            for (var i = end; i < buffer.capacity(); i++)
+            {
+                buffer.put(i, (byte) 0);
+            }
+        }
+
+        this.position = end;
+    }
+
+    /**
+     * Scan every valid record of the segment, without modifying it
+     *
+     * @param consumer the consumer of the record payloads and their offsets
+     * @return the offset right after the last valid record
+     */
+    int scan(ObjIntConsumer<ByteBuffer> consumer)
+    {
+        var offset = HEADER_SIZE;
+
+        while (offset + RECORD_OVERHEAD <= buffer.capacity())
+        {
+            var length = buffer.getInt(offset);
+
+            if (length <= 0 || offset + RECORD_OVERHEAD + length > buffer.capacity() || buffer.getInt(offset + 4) != checksum(payload(offset, length)))
+            {
+                break;
+            }
+
+            consumer.accept(payload(offset, length), offset);
+            offset += RECORD_OVERHEAD + length;
+        }
+
+        return offset;
+    }
+
+    /**
+     * Append a record to the segment
+     *
+     * @param payload the record's payload
+     * @return the offset of the record within the segment
+     */
+    int append(ByteBuffer payload)
+    {
+        var length = payload.remaining();
+        ensureCapacity(RECORD_OVERHEAD + length);
+
+        var offset = position;
+        var crc = checksum(payload.duplicate());
+
+        var target = buffer.duplicate();
+        target.position(offset + RECORD_OVERHEAD);
+        target.put(payload);
+
+        // length is written last so that a partially written record reads as the end of the segment
+        buffer.putInt(offset + 4, crc);
+        buffer.putInt(offset, length);
+
+        position += RECORD_OVERHEAD + length;
+
+        return offset;
+    }
+
+    /**
+     * Read the payload of the record at the given offset
+     *
+     * @param offset the offset of the record, as returned by {@link Segment#append}
+     * @return a read only view of the record's payload
+     */
+    ByteBuffer read(int offset)
+    {
+        return payload(offset, buffer.getInt(offset)).asReadOnlyBuffer();
+    }
+
+    /**
+     * Flush the written records to the storage device
+     */
+    void force()
+    {
+        buffer.force();
+    }
+
+    /**
+     * Atomically rename the segment file
+     *
+     * @param target the new path of the file
+     */
+    void moveTo(Path target)
+    {
+        try
+        {
+            Files.move(path, target, StandardCopyOption.ATOMIC_MOVE);
+            this.path = target;
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Close and delete the segment file
+     */
+    void delete()
+    {
+        close();
+
+        try
+        {
+            Files.deleteIfExists(path);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        try
+        {
+            channel.close();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void recordLive()
+    {
+        liveRecords++;
+    }
+
+    void recordDead()
+    {
+        liveRecords--;
+        deadRecords++;
+    }
+
+    /**
+     * @return the ratio of records that have been superseded or deleted
+     */
+    double deadRatio()
+    {
+        var total = liveRecords + deadRecords;
+
+        return total == 0 ? 0 : (double) deadRecords / total;
+    }
+
+    int liveRecords()
+    {
+        return liveRecords;
+    }
+
+    int deadRecords()
+    {
+        return deadRecords;
+    }
+
+    int size()
+    {
+        return position;
+    }
+
+    long generation()
+    {
+        return generation;
+    }
+
+    long window()
+    {
+        return window;
+    }
+
+    Path path()
+    {
+        return path;
+    }
+
+    private void ensureCapacity(int recordSize)
+    {
+        if (position + recordSize <= buffer.capacity())
+        {
+            return;
+        }
+
+        var capacity = (long) buffer.capacity();
+        while (capacity < position + recordSize)
+        {
+            capacity *= 2;
+        }
+
+        try
+        {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.min(capacity, Integer.MAX_VALUE));
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ByteBuffer payload(int offset, int length)
+    {
+        var payload = buffer.duplicate();
+        payload.position(offset + RECORD_OVERHEAD);
+        payload.limit(offset + RECORD_OVERHEAD + length);
+
+        return payload.slice();
+    }
+
+    private static int checksum(ByteBuffer payload)
+    {
+        var crc = new CRC32();
+        crc.update(payload);
+
+        return (int) crc.getValue();
+    }
+}
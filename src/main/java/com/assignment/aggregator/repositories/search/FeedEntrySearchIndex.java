@@ -0,0 +1,291 @@
+package com.assignment.aggregator.repositories.search;
+
+import com.assignment.aggregator.models.FeedEntry;
+import com.rometools.rome.feed.synd.SyndContent;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.ControlledRealTimeReopenThread;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.MMapDirectory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * Full-text index over {@link FeedEntry}s, backed by Lucene
+ * <p>
+ * Entries are indexed by their title, their authors and the text of their contents, along with their channel and
+ * publication date so that searches can be filtered on them. Only the ids of the entries are stored, matching entries
+ * are read from the {@link com.assignment.aggregator.repositories.IFeedEntryRepository}.
+ * <p>
+ * The index lives on local disk and is read through memory-mapped files. Indexed entries are made searchable by a
+ * background thread reopening the index every refresh interval, so that indexing a batch of entries doesn't open a new
+ * reader, and are made durable when the index is committed.
+ */
+public class FeedEntrySearchIndex implements Closeable
+{
+    static final String ID = "id";
+
+    static final String CHANNEL_ID = "channelId";
+
+    static final String PUBLICATION_DATE = "publicationDate";
+
+    static final String TITLE = "title";
+
+    static final String AUTHORS = "authors";
+
+    static final String CONTENTS = "contents";
+
+    /**
+     * The fields matched by the search text, and their weight
+     */
+    private static final Map<String, Float> SEARCHED_FIELDS = Map.of(TITLE, 2f, AUTHORS, 1f, CONTENTS, 1f);
+
+    private static final Pattern MARKUP = Pattern.compile("<[^>]*>");
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+
+    private final Directory directory;
+
+    private final IndexWriter writer;
+
+    private final SearcherManager searcherManager;
+
+    private final ControlledRealTimeReopenThread<IndexSearcher> reopenThread;
+
+    /**
+     * @param directory       the directory holding the index, created if missing
+     * @param refreshInterval the longest time indexed entries take to become searchable
+     */
+    public FeedEntrySearchIndex(Path directory, Duration refreshInterval)
+    {
+        try
+        {
+            Files.createDirectories(directory);
+
+            this.directory = new MMapDirectory(directory);
+            this.writer = new IndexWriter(this.directory, new IndexWriterConfig(analyzer).setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+            this.searcherManager = new SearcherManager(writer, null);
+
+            // nothing waits for a specific generation, the index is only reopened every refresh interval
+            this.reopenThread = new ControlledRealTimeReopenThread<>(writer, searcherManager, refreshInterval.toMillis() / 1000d, 0);
+            this.reopenThread.setName("FeedSearchRefreshThread");
+            this.reopenThread.setDaemon(true);
+            this.reopenThread.start();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Index entries, replacing the indexed version of the entries already indexed
+     *
+     * @param entries the entries to index, which must have been assigned their id
+     */
+    public void index(Collection<FeedEntry> entries)
+    {
+        try
+        {
+            for (var entry : entries)
+            {
+                writer.updateDocument(new Term(ID, entry.getId()), document(entry));
+            }
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Remove the entries of a channel from the index
+     *
+     * @param channelId the id of the channel
+     */
+    public void deleteByChannelId(long channelId)
+    {
+        try
+        {
+            writer.deleteDocuments(LongPoint.newExactQuery(CHANNEL_ID, channelId));
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Remove every entry from the index
+     */
+    public void deleteAll()
+    {
+        try
+        {
+            writer.deleteAll();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Search the entries matching a text, best matches first
+     * <p>
+     * The text supports the simple query syntax: every term must match unless separated by <code>|</code> (or), and
+     * <code>-</code> (not), quoted phrases and <code>*</code> prefixes are supported. The total number of matches is
+     * exact up to a thousand matches, and a lower bound beyond. Pages beyond the last match are empty, however far
+     * they are.
+     *
+     * @param text       the text to search
+     * @param channelIds the ids of the channels whose entries are searched. All the channels if empty
+     * @param from       the lowest publication date of the entries, inclusive. Unbounded if <code>null</code>
+     * @param to         the highest publication date of the entries, inclusive. Unbounded if <code>null</code>
+     * @param pageable   the page of results
+     * @return the page of ids of the matching entries
+     */
+    public Page<String> search(String text, Collection<Long> channelIds, Instant from, Instant to, Pageable pageable)
+    {
+        var parser = new SimpleQueryParser(analyzer, SEARCHED_FIELDS);
+        parser.setDefaultOperator(BooleanClause.Occur.MUST);
+
+        var query = new BooleanQuery.Builder().add(parser.parse(text), BooleanClause.Occur.MUST);
+
+        if (!channelIds.isEmpty())
+        {
+            query.add(LongPoint.newSetQuery(CHANNEL_ID, channelIds), BooleanClause.Occur.FILTER);
+        }
+
+        // entries without publication date don't match a date range
+        if (from != null || to != null)
+        {
+            query.add(LongPoint.newRangeQuery(PUBLICATION_DATE,
+                                              from != null ? from.toEpochMilli() : Long.MIN_VALUE,
+                                              to != null ? to.toEpochMilli() : Long.MAX_VALUE),
+                      BooleanClause.Occur.FILTER);
+        }
+
+        try
+        {
+            var searcher = searcherManager.acquire();
+            try
+            {
+                // the number of hits is clamped rather than allowed to overflow. Lucene then caps it to the number
+                // of indexed entries, which bounds the memory a search takes whatever the page asked for
+                var offset = pageable.getOffset();
+                var topDocs = searcher.search(query.build(), (int) Math.min(Integer.MAX_VALUE, offset + pageable.getPageSize()));
+
+                var ids = new ArrayList<String>((int) Math.max(0, topDocs.scoreDocs.length - offset));
+                for (var i = offset; i < topDocs.scoreDocs.length; i++)
+                {
+                    ids.add(searcher.doc(topDocs.scoreDocs[(int) i].doc).get(ID));
+                }
+
+                return new PageImpl<>(ids, pageable, topDocs.totalHits.value);
+            }
+            finally
+            {
+                searcherManager.release(searcher);
+            }
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Make the indexed entries searchable at once, rather than within the refresh interval
+     */
+    void refresh()
+    {
+        try
+        {
+            searcherManager.maybeRefreshBlocking();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Make the indexed entries durable
+     */
+    public void commit()
+    {
+        try
+        {
+            writer.commit();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        reopenThread.close();
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    private static Document document(FeedEntry entry)
+    {
+        var document = new Document();
+        document.add(new StringField(ID, entry.getId(), Field.Store.YES));
+        document.add(new LongPoint(CHANNEL_ID, entry.getChannelId()));
+
+        if (entry.getPublicationDate() != null)
+        {
+            document.add(new LongPoint(PUBLICATION_DATE, entry.getPublicationDate().toEpochMilli()));
+        }
+
+        if (entry.getTitle() != null)
+        {
+            document.add(new TextField(TITLE, entry.getTitle(), Field.Store.NO));
+        }
+
+        entry.getAuthors().stream()
+             .filter(Objects::nonNull)
+             .forEach(a -> document.add(new TextField(AUTHORS, a, Field.Store.NO)));
+
+        entry.getContents().stream()
+             .map(SyndContent::getValue)
+             .filter(Objects::nonNull)
+             .forEach(c -> document.add(new TextField(CONTENTS, MARKUP.matcher(c).replaceAll(" "), Field.Store.NO)));
+
+        return document;
+    }
+}
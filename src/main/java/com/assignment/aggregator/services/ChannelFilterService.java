@@ -0,0 +1,73 @@
+package com.assignment.aggregator.services;
+
+import com.assignment.aggregator.helpers.EntryFilter;
+import com.assignment.aggregator.models.Channel;
+import com.rometools.rome.feed.synd.SyndEntry;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link EntryFilter} based channel filters
+ * <p>
+ * Compiled filters are kept per channel. Filters are compiled when the rules of a channel are created or modified
+ * through this node, and lazily for the rest, i.e. after a restart. Before being applied, the rules a filter was
+ * compiled from are compared with those of the channel, so rules modified through another node sharing the database
+ * are compiled again on the next refresh.
+ */
+@Service
+public class ChannelFilterService implements IChannelFilterService
+{
+    private final Map<Long, EntryFilter> filters = new ConcurrentHashMap<>();
+
+    @Override
+    public List<SyndEntry> filter(Channel channel, List<SyndEntry> entries)
+    {
+        if (channel.getFilters() == null || channel.getFilters().isEmpty())
+        {
+            return entries;
+        }
+
+        var filter = filters.get(channel.getId());
+        if (filter == null || !filter.getRules().equals(channel.getFilters()))
+        {
+            filter = EntryFilter.compile(channel.getFilters());
+            filters.put(channel.getId(), filter);
+        }
+
+        var accepted = new ArrayList<SyndEntry>(entries.size());
+        for (var entry : entries)
+        {
+            if (filter.accepts(entry))
+            {
+                accepted.add(entry);
+            }
+        }
+
+        return accepted;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The rules of new channels are only validated, until the channel gets an id.
+     */
+    @Override
+    public void compile(Channel channel)
+    {
+        var filter = EntryFilter.compile(channel.getFilters());
+        if (channel.getId() != null)
+        {
+            filters.put(channel.getId(), filter);
+        }
+    }
+
+    @Override
+    public void evict(long channelId)
+    {
+        filters.remove(channelId);
+    }
+}
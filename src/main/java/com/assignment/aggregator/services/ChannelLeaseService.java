@@ -0,0 +1,195 @@
+package com.assignment.aggregator.services;
+
+import com.assignment.aggregator.helpers.ConsistentHashRing;
+import com.assignment.aggregator.helpers.EventLogger;
+import com.assignment.aggregator.models.Channel;
+import com.assignment.aggregator.models.ChannelLease;
+import com.assignment.aggregator.repositories.IChannelLeaseRepository;
+import com.assignment.aggregator.repositories.IClusterNodeRepository;
+import com.assignment.aggregator.repositories.IClusterTaskRepository;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.text.MessageFormat;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static java.util.stream.Collectors.toSet;
+
+/**
+ * Lease based channel ownership
+ * <p>
+ * Nodes record a heartbeat every <code>aggregator.cluster.heartbeat-interval</code>, and are considered alive
+ * while their latest heartbeat is younger than <code>aggregator.cluster.lease-duration</code>. Every node builds
+ * the same {@link ConsistentHashRing} out of the live nodes, so they all agree on the owner of each channel, and
+ * joining or leaving only moves the channels next to the node's points on the ring.
+ * <p>
+ * Owning a channel on the ring is not enough to refresh it: the owner must also take the channel's lease with a
+ * conditional update, which only succeeds if the lease is free, expired or already held by the same node. This
+ * covers the transitions during which nodes don't share the same view of the ring. Leases are renewed along with
+ * the heartbeat, and the leases of channels that moved to another node are freed.
+ */
+@Service
+@Transactional
+public class ChannelLeaseService implements IChannelLeaseService
+{
+    private static final Logger logger = LoggerFactory.getLogger(ChannelLeaseService.class);
+
+    private static final EventLogger events = EventLogger.of("request");
+
+    private final IChannelLeaseRepository channelLeaseRepository;
+
+    private final IClusterNodeRepository clusterNodeRepository;
+
+    private final IClusterTaskRepository clusterTaskRepository;
+
+    private final String nodeId;
+
+    private final Duration leaseDuration;
+
+    private final int virtualNodes;
+
+    private volatile ConsistentHashRing ring;
+
+    public ChannelLeaseService(IChannelLeaseRepository channelLeaseRepository, IClusterNodeRepository clusterNodeRepository, IClusterTaskRepository clusterTaskRepository,
+                               @Value("${aggregator.cluster.node-id:}") String nodeId,
+                               @Value("${aggregator.cluster.lease-duration:PT30S}") Duration leaseDuration,
+                               @Value("${aggregator.cluster.virtual-nodes:64}") int virtualNodes)
+    {
+        this.channelLeaseRepository = channelLeaseRepository;
+        this.clusterNodeRepository = clusterNodeRepository;
+        this.clusterTaskRepository = clusterTaskRepository;
+        this.nodeId = StringUtils.isNotBlank(nodeId) ? nodeId : UUID.randomUUID().toString();
+        this.leaseDuration = leaseDuration;
+        this.virtualNodes = virtualNodes;
+    }
+
+    @Override
+    public String nodeId()
+    {
+        return nodeId;
+    }
+
+    @Override
+    public void register(Channel channel)
+    {
+        channelLeaseRepository.save(new ChannelLease(channel.getId()));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Runs in its own transaction, so the leases are visible to the other nodes before the feeds are fetched.
+     */
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public Set<Long> acquire(Collection<Channel> channels)
+    {
+        if (ring == null)
+        {
+            heartbeat();
+        }
+
+        var currentRing = ring;
+        var ownedIds = channels.stream()
+                               .map(Channel::getId)
+                               .filter(id -> nodeId.equals(currentRing.owner(id)))
+                               .collect(toSet());
+
+        if (ownedIds.isEmpty())
+        {
+            return Set.of();
+        }
+
+        var now = ZonedDateTime.now();
+        channelLeaseRepository.acquire(ownedIds, nodeId, now.plus(leaseDuration), now);
+
+        var leasedIds = channelLeaseRepository.findChannelIdsByOwnerAndChannelIdIn(nodeId, ownedIds);
+
+        if (events.isInfoEnabled())
+        {
+            events.info("leases.acquired", "channels", channels.size(), "owned", ownedIds.size(), "leased", leasedIds.size());
+        }
+
+        return leasedIds;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Runs in its own transaction, so the lease is visible to the other nodes before the task runs.
+     */
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean lead(String task)
+    {
+        var now = ZonedDateTime.now();
+
+        return clusterTaskRepository.acquire(task, nodeId, now.plus(leaseDuration), now) > 0;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${aggregator.cluster.heartbeat-interval:PT10S}")
+    public void heartbeat()
+    {
+        var now = ZonedDateTime.now();
+
+        clusterNodeRepository.heartbeat(nodeId, now);
+        clusterNodeRepository.deleteStale(now.minus(leaseDuration.multipliedBy(10)));
+
+        var liveNodes = new HashSet<>(clusterNodeRepository.findLiveNodeIds(now.minus(leaseDuration)));
+        liveNodes.add(nodeId);
+
+        var previousRing = ring;
+        var currentRing = previousRing != null && previousRing.nodes().equals(liveNodes) ? previousRing : new ConsistentHashRing(liveNodes, virtualNodes);
+        ring = currentRing;
+
+        if (currentRing != previousRing && logger.isInfoEnabled())
+        {
+            logger.info(MessageFormat.format("Node {0} sees {1} live nodes: {2}", nodeId, liveNodes.size(), liveNodes));
+        }
+
+        // hand over the channels that moved to another node, keep the rest
+        var movedIds = channelLeaseRepository.findChannelIdsByOwner(nodeId).stream()
+                                             .filter(id -> !nodeId.equals(currentRing.owner(id)))
+                                             .collect(toSet());
+        if (!movedIds.isEmpty())
+        {
+            channelLeaseRepository.release(nodeId, movedIds);
+        }
+
+        channelLeaseRepository.renew(nodeId, now.plus(leaseDuration));
+    }
+
+    @Override
+    @EventListener(ContextClosedEvent.class)
+    public void leave()
+    {
+        var leasedIds = channelLeaseRepository.findChannelIdsByOwner(nodeId);
+        if (!leasedIds.isEmpty())
+        {
+            channelLeaseRepository.release(nodeId, leasedIds);
+        }
+        clusterTaskRepository.releaseAll(nodeId);
+
+        clusterNodeRepository.findById(nodeId).ifPresent(clusterNodeRepository::delete);
+        ring = null;
+
+        if (logger.isInfoEnabled())
+        {
+            logger.info(MessageFormat.format("Node {0} left, {1} leases freed", nodeId, leasedIds.size()));
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.assignment.aggregator.services;
+
+import com.assignment.aggregator.helpers.EventLogger;
+import com.assignment.aggregator.models.Channel;
+import com.assignment.aggregator.models.ChannelPurge;
+import com.assignment.aggregator.repositories.IChannelPurgeRepository;
+import com.assignment.aggregator.repositories.IFeedEntryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.text.MessageFormat;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Batched purges of the entries of deleted channels
+ * <p>
+ * Purges are run by a single node at a time, the one holding the lease of the {@value #PURGE_TASK} task, so that
+ * nodes don't delete the same entries concurrently and complete a purge before its entries are gone.
+ */
+@Service
+@Transactional
+public class ChannelPurgeService implements IChannelPurgeService
+{
+    private static final Logger logger = LoggerFactory.getLogger(ChannelPurgeService.class);
+
+    private static final EventLogger events = EventLogger.of("purge");
+
+    /**
+     * Name of the purge task among the tasks run by a single node
+     */
+    static final String PURGE_TASK = "purge";
+
+    private final IChannelPurgeRepository channelPurgeRepository;
+
+    private final IFeedEntryRepository feedEntryRepository;
+
+    private final IFeedSearchService feedSearchService;
+
+    private final ISequenceService sequenceService;
+
+    private final IChannelLeaseService channelLeaseService;
+
+    private final int batchSize;
+
+    public ChannelPurgeService(IChannelPurgeRepository channelPurgeRepository, IFeedEntryRepository feedEntryRepository, IFeedSearchService feedSearchService,
+                               ISequenceService sequenceService, IChannelLeaseService channelLeaseService,
+                               @Value("${aggregator.purge.batch-size:1000}") int batchSize)
+    {
+        this.channelPurgeRepository = channelPurgeRepository;
+        this.feedEntryRepository = feedEntryRepository;
+        this.feedSearchService = feedSearchService;
+        this.sequenceService = sequenceService;
+        this.channelLeaseService = channelLeaseService;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The deletion is given the next ingest sequence as part of the caller's transaction, so that it becomes visible
+     * to delta-sync clients along with the entries ingested before it.
+     */
+    @Override
+    public void schedule(Channel channel)
+    {
+        var sequence = sequenceService.increment(ISequenceService.FEED_ENTRY_SEQUENCE);
+        channelPurgeRepository.save(new ChannelPurge(channel.getId(), channel.getName()).setSequence(sequence));
+
+        // unlike stored entries, indexed entries can be dropped at once
+        feedSearchService.remove(channel.getId());
+
+        if (events.isInfoEnabled())
+        {
+            events.info("channel.purge-scheduled", "channelId", channel.getId(), "sequence", sequence);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ChannelPurge> list()
+    {
+        return channelPurgeRepository.findAllByOrderByRequestedAtDesc();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Set<Long> pendingChannelIds()
+    {
+        return channelPurgeRepository.findPendingChannelIds();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Set<Long> deletedChannelIds(long after, long upTo)
+    {
+        return channelPurgeRepository.findChannelIdsBySequenceRange(after, upTo);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Runs at a fixed delay, one batch per run, which bounds the rate at which entries are deleted to
+     * <code>aggregator.purge.batch-size</code> entries per <code>aggregator.purge.interval</code>. Nodes not holding
+     * the purge task lease skip their runs.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${aggregator.purge.interval:PT1S}")
+    public void purgeNextBatch()
+    {
+        if (!channelLeaseService.lead(PURGE_TASK))
+        {
+            return;
+        }
+
+        var pending = channelPurgeRepository.findFirstByCompletedAtIsNullOrderByRequestedAt();
+        if (pending.isEmpty())
+        {
+            return;
+        }
+
+        var purge = pending.get();
+        var deleted = feedEntryRepository.deleteBatchByChannelId(purge.getChannelId(), batchSize);
+
+        var now = ZonedDateTime.now();
+        purge.setPurgedEntries(purge.getPurgedEntries() + deleted)
+             .setLastBatchAt(now);
+
+        // a short batch means no entries are left
+        if (deleted < batchSize)
+        {
+            purge.setCompletedAt(now);
+
+            if (logger.isInfoEnabled())
+            {
+                logger.info(MessageFormat.format("Completed the purge of channel {0}. {1} entries deleted", purge.getChannelId(), purge.getPurgedEntries()));
+            }
+        }
+
+        channelPurgeRepository.save(purge);
+    }
+}
@@ -3,12 +3,14 @@ package com.assignment.aggregator.services;
 import com.assignment.aggregator.client.IFeedClient;
 import com.assignment.aggregator.exceptions.ChannelNotFoundException;
 import com.assignment.aggregator.exceptions.DuplicatedChannelException;
+import com.assignment.aggregator.helpers.EventLogger;
 import com.assignment.aggregator.models.Channel;
 import com.assignment.aggregator.repositories.IChannelRepository;
-import com.assignment.aggregator.repositories.IFeedEntryRepository;
+import com.assignment.aggregator.repositories.ISubscriptionRepository;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
@@ -17,7 +19,10 @@ import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import java.text.MessageFormat;
 import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Service
 @Transactional
@@ -26,17 +31,41 @@ public class ChannelService implements IChannelService
 {
     private static final Logger logger = LoggerFactory.getLogger(ChannelService.class);
 
+    private static final EventLogger events = EventLogger.of("ingest");
+
+    /**
+     * Events logged once per channel, sampled
+     */
+    private static final EventLogger channelEvents = EventLogger.of("ingest.channel");
+
     private final IChannelRepository channelRepository;
 
-    private final IFeedEntryRepository feedEntryRepository;
+    private final IChannelPurgeService channelPurgeService;
 
     private final IFeedClient feedClient;
 
-    public ChannelService(IChannelRepository channelRepository, IFeedClient feedClient, IFeedEntryRepository feedEntryRepository)
+    private final IReadStateService readStateService;
+
+    private final IChannelLeaseService channelLeaseService;
+
+    private final ISequenceService sequenceService;
+
+    private final IChannelFilterService channelFilterService;
+
+    private final ISubscriptionRepository subscriptionRepository;
+
+    public ChannelService(IChannelRepository channelRepository, IFeedClient feedClient, IChannelPurgeService channelPurgeService, IReadStateService readStateService,
+                          IChannelLeaseService channelLeaseService, ISequenceService sequenceService, IChannelFilterService channelFilterService,
+                          ISubscriptionRepository subscriptionRepository)
     {
         this.channelRepository = channelRepository;
         this.feedClient = feedClient;
-        this.feedEntryRepository = feedEntryRepository;
+        this.channelPurgeService = channelPurgeService;
+        this.readStateService = readStateService;
+        this.channelLeaseService = channelLeaseService;
+        this.sequenceService = sequenceService;
+        this.channelFilterService = channelFilterService;
+        this.subscriptionRepository = subscriptionRepository;
     }
 
     @Override
@@ -46,6 +75,13 @@ public class ChannelService implements IChannelService
         return channelRepository.findAll();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<Channel> listDue(int page, int size)
+    {
+        return channelRepository.findAllDue(ZonedDateTime.now(), PageRequest.of(page, size));
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Channel get(@Positive long channelId)
@@ -62,6 +98,9 @@ public class ChannelService implements IChannelService
             throw new DuplicatedChannelException(channel.getUrl());
         }
 
+        // reject invalid filter rules before fetching the source
+        channelFilterService.compile(channel);
+
         // let ROME determine if the provided URL is a valid syndication source. While fetching
         // the source the URL syntax is checked as well so there is no need for previous validation
         var feed = this.feedClient.fetch(channel.getUrl());
@@ -76,7 +115,15 @@ public class ChannelService implements IChannelService
             }
         }
 
+        // the TTL given through the channel API is kept apart, subscriptions only ever tighten it
+        if (!channel.isOwnedBySubscriptions())
+        {
+            channel.setConfiguredTtl(channel.getTtl());
+        }
+
         channelRepository.save(channel);
+        channelLeaseService.register(channel);
+        sequenceService.increment(ISequenceService.CHANNEL_VERSION_SEQUENCE);
 
         return channel;
     }
@@ -102,26 +149,83 @@ public class ChannelService implements IChannelService
             }
         }
 
-        channel.setTtl(updatedChannel.getTtl());
+        // the configured TTL is still tightened by the channel's subscriptions, if any
+        channel.setConfiguredTtl(updatedChannel.getTtl());
+        channel.setTtl(effectiveTtl(channel));
         if (logger.isInfoEnabled())
         {
             logger.info(MessageFormat.format("Updating TTL to : {0}", channel.getTtl()));
         }
 
+        // filter rules are only compiled again when modified
+        if (updatedChannel.getFilters() != null && !updatedChannel.getFilters().equals(channel.getFilters()))
+        {
+            channel.setFilters(updatedChannel.getFilters());
+            channelFilterService.compile(channel);
+            if (logger.isInfoEnabled())
+            {
+                logger.info(MessageFormat.format("Updating filters to : {0}", channel.getFilters()));
+            }
+        }
+
+        sequenceService.increment(ISequenceService.CHANNEL_VERSION_SEQUENCE);
+
         return channelRepository.save(channel);
     }
 
     @Override
     public void delete(long channelId)
     {
-        if (!channelRepository.existsById(channelId))
+        var channel = channelRepository.findById(channelId)
+                                       .orElseThrow(() -> new ChannelNotFoundException(channelId));
+
+        // the channel's entries are filtered out of reads right away and purged in the background
+        channelRepository.delete(channel);
+        channelPurgeService.schedule(channel);
+        readStateService.unregisterChannel(channelId);
+        channelFilterService.evict(channelId);
+        sequenceService.increment(ISequenceService.CHANNEL_VERSION_SEQUENCE);
+    }
+
+    @Override
+    public void adjustTtl(long channelId)
+    {
+        var channel = channelRepository.findById(channelId)
+                                       .orElseThrow(() -> new ChannelNotFoundException(channelId));
+
+        var ttl = effectiveTtl(channel);
+        if (ttl == channel.getTtl())
+        {
+            return;
+        }
+
+        if (logger.isInfoEnabled())
         {
-            throw new ChannelNotFoundException(channelId);
+            logger.info(MessageFormat.format("Refreshing channel {0} every {1} seconds, as its subscriptions require", channelId, ttl));
         }
 
-        channelRepository.deleteById(channelId);
-        feedEntryRepository.deleteAllByChannelIdIn(List.of(channelId));
+        channel.setTtl(ttl);
+        channelRepository.save(channel);
+        sequenceService.increment(ISequenceService.CHANNEL_VERSION_SEQUENCE);
+    }
 
+    /**
+     * Compute the effective TTL of a channel, the tightest of its configured TTL and of its subscribed TTLs. A channel
+     * created for subscriptions keeps its current TTL when it has none left, as it is about to be deleted
+     *
+     * @param channel the channel
+     * @return the TTL the channel must be refreshed at
+     */
+    private int effectiveTtl(Channel channel)
+    {
+        var tightest = subscriptionRepository.findTightestTtl(channel.getId());
+        if (channel.getConfiguredTtl() == null)
+        {
+            return tightest.orElse(channel.getTtl());
+        }
+
+        return tightest.map(ttl -> Math.min(ttl, channel.getConfiguredTtl()))
+                       .orElse(channel.getConfiguredTtl());
     }
 
     @Override
@@ -129,9 +233,56 @@ public class ChannelService implements IChannelService
     {
         channelRepository.updateRefreshTime(channelId, ZonedDateTime.now());
 
-        if (logger.isInfoEnabled())
+        if (channelEvents.isInfoEnabled())
+        {
+            channelEvents.info("channel.refresh-time-updated", "channelId", channelId);
+        }
+    }
+
+    @Override
+    public void updateRefreshTime(Collection<Long> channelIds)
+    {
+        if (channelIds.isEmpty())
+        {
+            return;
+        }
+
+        var updated = channelRepository.updateRefreshTime(channelIds, ZonedDateTime.now());
+
+        if (events.isInfoEnabled())
         {
-            logger.info(MessageFormat.format("Refreshing channel last update time TTL. Channel id: {0}", channelId));
+            events.info("channels.refresh-time-updated", "channels", updated);
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public void updateVersion()
+    {
+        sequenceService.increment(ISequenceService.CHANNEL_VERSION_SEQUENCE);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The latest sequence isn't part of the channel's representation, so the channel table version is left as is.
+     */
+    @Override
+    public void updateLatestSequences(Map<Long, Long> latestSequences)
+    {
+        latestSequences.forEach(channelRepository::updateLatestSequence);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long version()
+    {
+        return sequenceService.current(ISequenceService.CHANNEL_VERSION_SEQUENCE);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<ZonedDateTime> nextRefreshAt()
+    {
+        return channelRepository.findEarliestRefreshAt();
+    }
+}
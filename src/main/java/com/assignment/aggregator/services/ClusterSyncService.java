@@ -0,0 +1,163 @@
+package com.assignment.aggregator.services;
+
+import com.assignment.aggregator.helpers.EventLogger;
+import com.assignment.aggregator.models.FeedEntry;
+import com.assignment.aggregator.repositories.IFeedEntryRepository;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Ingest sequence based cluster synchronization
+ * <p>
+ * Every <code>aggregator.cluster.sync-interval</code>, the entries stored with a sequence above the latest
+ * synchronized one and up to the {@link ISequenceService#stable(String) stable} one are read in batches of
+ * <code>aggregator.cluster.sync-batch-size</code>, in ingest order. The entries ingested by the current node are
+ * skipped, the rest are registered as live, indexed for search, remembered as near duplicates and streamed. The
+ * channels deleted within the same range of sequences are forgotten.
+ * <p>
+ * Synchronization starts from the stable sequence at the first run: state rebuilt from storage on first use, such as
+ * the live sequences, already holds the entries stored before. Entries ingested by other nodes while a node was down
+ * are only found by its search index once it is rebuilt.
+ */
+@Service
+public class ClusterSyncService implements IClusterSyncService
+{
+    private static final EventLogger events = EventLogger.of("ingest");
+
+    private final IFeedEntryRepository feedEntryRepository;
+
+    private final ISequenceService sequenceService;
+
+    private final IChannelPurgeService channelPurgeService;
+
+    private final IReadStateService readStateService;
+
+    private final IFeedSearchService feedSearchService;
+
+    private final INearDuplicateService nearDuplicateService;
+
+    private final IFeedStreamService feedStreamService;
+
+    private final int batchSize;
+
+    /**
+     * Sequences of the entries ingested by the current node and not synchronized yet. Guarded by its own monitor
+     */
+    private final Roaring64Bitmap local = new Roaring64Bitmap();
+
+    /**
+     * Latest synchronized sequence, <code>-1</code> until the first run
+     */
+    private long syncedSequence = -1;
+
+    public ClusterSyncService(IFeedEntryRepository feedEntryRepository, ISequenceService sequenceService, IChannelPurgeService channelPurgeService,
+                              IReadStateService readStateService, IFeedSearchService feedSearchService, INearDuplicateService nearDuplicateService,
+                              IFeedStreamService feedStreamService, @Value("${aggregator.cluster.sync-batch-size:500}") int batchSize)
+    {
+        this.feedEntryRepository = feedEntryRepository;
+        this.sequenceService = sequenceService;
+        this.channelPurgeService = channelPurgeService;
+        this.readStateService = readStateService;
+        this.feedSearchService = feedSearchService;
+        this.nearDuplicateService = nearDuplicateService;
+        this.feedStreamService = feedStreamService;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void ingested(Collection<FeedEntry> entries)
+    {
+        synchronized (local)
+        {
+            entries.forEach(e -> local.addLong(e.getSequence()));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Scheduled runs never overlap.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${aggregator.cluster.sync-interval:PT5S}")
+    public synchronized void sync()
+    {
+        var stable = sequenceService.stable(ISequenceService.FEED_ENTRY_SEQUENCE);
+        if (syncedSequence < 0)
+        {
+            syncedSequence = stable;
+            forgetLocal(stable);
+            return;
+        }
+
+        var applied = 0;
+        while (syncedSequence < stable)
+        {
+            var entries = feedEntryRepository.findBySequenceRange(syncedSequence, stable, batchSize);
+            var upTo = entries.size() < batchSize ? stable : entries.get(entries.size() - 1).getSequence();
+
+            var remote = new ArrayList<FeedEntry>(entries.size());
+            synchronized (local)
+            {
+                for (var entry : entries)
+                {
+                    if (!local.contains(entry.getSequence()))
+                    {
+                        remote.add(entry);
+                    }
+                }
+            }
+
+            if (!remote.isEmpty())
+            {
+                readStateService.register(remote);
+                feedSearchService.index(remote);
+                nearDuplicateService.remember(remote);
+                feedStreamService.publish(remote);
+                applied += remote.size();
+            }
+
+            for (var channelId : channelPurgeService.deletedChannelIds(syncedSequence, upTo))
+            {
+                readStateService.unregisterChannel(channelId);
+                feedSearchService.remove(channelId);
+            }
+
+            readStateService.synced(upTo);
+            syncedSequence = upTo;
+            forgetLocal(upTo);
+        }
+
+        if (applied > 0 && events.isInfoEnabled())
+        {
+            events.info("cluster.synced", "syncedSequence", syncedSequence, "remoteEntries", applied);
+        }
+    }
+
+    /**
+     * Forget the local sequences up to a synchronized one, they won't be read again
+     */
+    private void forgetLocal(long upTo)
+    {
+        synchronized (local)
+        {
+            var forgotten = new ArrayList<Long>();
+            var iterator = local.getLongIterator();
+            while (iterator.hasNext())
+            {
+                var sequence = iterator.next();
+                if (sequence > upTo)
+                {
+                    break;
+                }
+                forgotten.add(sequence);
+            }
+            forgotten.forEach(local::removeLong);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.assignment.aggregator.services;
+
+import com.assignment.aggregator.models.Channel;
+import com.assignment.aggregator.models.FeedEntry;
+import com.assignment.aggregator.repositories.IChannelRepository;
+import com.assignment.aggregator.repositories.IFeedEntryRepository;
+import com.assignment.aggregator.repositories.search.FeedEntrySearchIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.text.MessageFormat;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+
+/**
+ * Lucene based feed search
+ * <p>
+ * The index is updated as entries are ingested, and can be rebuilt out of the {@link IFeedEntryRepository}, one
+ * channel at a time. Entries are searchable within <code>aggregator.search.refresh-interval</code> of being indexed,
+ * while the index is committed to disk every <code>aggregator.search.commit-interval</code>: the entries indexed
+ * since the latest commit are lost on a crash, until the index is rebuilt.
+ */
+@Service
+public class FeedSearchService implements IFeedSearchService
+{
+    private static final Logger logger = LoggerFactory.getLogger(FeedSearchService.class);
+
+    private final FeedEntrySearchIndex searchIndex;
+
+    private final IFeedEntryRepository feedEntryRepository;
+
+    private final IChannelRepository channelRepository;
+
+    public FeedSearchService(FeedEntrySearchIndex searchIndex, IFeedEntryRepository feedEntryRepository, IChannelRepository channelRepository)
+    {
+        this.searchIndex = searchIndex;
+        this.feedEntryRepository = feedEntryRepository;
+        this.channelRepository = channelRepository;
+    }
+
+    @Override
+    public Page<FeedEntry> search(String text, Collection<Long> channelIds, Instant from, Instant to, Pageable pageable)
+    {
+        var ids = searchIndex.search(text, channelIds, from, to, pageable);
+        if (ids.isEmpty())
+        {
+            return new PageImpl<>(List.of(), pageable, ids.getTotalElements());
+        }
+
+        // entries are read in one go, and put back in the order of the matches
+        var entries = feedEntryRepository.findAllByIdIn(ids.getContent()).stream()
+                                         .collect(toMap(FeedEntry::getId, Function.identity()));
+
+        return new PageImpl<>(ids.stream()
+                                 .map(entries::get)
+                                 .filter(Objects::nonNull)
+                                 .collect(toList()), pageable, ids.getTotalElements());
+    }
+
+    @Override
+    public void index(Collection<FeedEntry> entries)
+    {
+        if (!entries.isEmpty())
+        {
+            searchIndex.index(entries);
+        }
+    }
+
+    @Override
+    public void remove(long channelId)
+    {
+        searchIndex.deleteByChannelId(channelId);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Entries ingested while rebuilding are indexed as usual: they are either indexed twice, which is harmless, or
+     * read from storage after the index has been cleared.
+     */
+    @Override
+    @Async("asyncExecutor")
+    public void rebuild()
+    {
+        searchIndex.deleteAll();
+
+        var indexed = 0L;
+        for (var channelId : channelRepository.findAll().stream().map(Channel::getId).collect(toList()))
+        {
+            var entries = feedEntryRepository.findAllByChannelIdIn(List.of(channelId));
+            searchIndex.index(entries);
+            indexed += entries.size();
+        }
+
+        searchIndex.commit();
+
+        if (logger.isInfoEnabled())
+        {
+            logger.info(MessageFormat.format("Rebuilt the search index. {0} entries indexed", indexed));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Runs at a fixed delay, every <code>aggregator.search.commit-interval</code>.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${aggregator.search.commit-interval:PT1M}")
+    public void commit()
+    {
+        searchIndex.commit();
+    }
+}
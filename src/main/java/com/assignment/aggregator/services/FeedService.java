@@ -1,36 +1,78 @@
 package com.assignment.aggregator.services;
 
 import com.assignment.aggregator.client.IFeedClient;
-import com.assignment.aggregator.mappers.IMapper;
+import com.assignment.aggregator.helpers.ContentFingerprint;
+import com.assignment.aggregator.helpers.EventLogger;
+import com.assignment.aggregator.helpers.SortedMerge;
+import com.assignment.aggregator.mappers.IDTOMapper;
 import com.assignment.aggregator.models.Channel;
+import com.assignment.aggregator.models.ContentVersion;
+import com.assignment.aggregator.models.FeedChanges;
 import com.assignment.aggregator.models.FeedEntry;
 import com.assignment.aggregator.repositories.IFeedEntryRepository;
 import com.rometools.rome.feed.synd.SyndEntry;
 import com.rometools.rome.feed.synd.SyndFeed;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.text.MessageFormat;
+import java.io.UncheckedIOException;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
+import static java.util.stream.Collectors.toCollection;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
 import static java.util.stream.Collectors.toSet;
 
 @Service
 @Transactional
 public class FeedService implements IFeedService
 {
-    private static final Logger logger = LoggerFactory.getLogger(FeedService.class);
+    private static final EventLogger events = EventLogger.of("ingest");
+
+    /**
+     * Events logged once per channel, sampled
+     */
+    private static final EventLogger channelEvents = EventLogger.of("ingest.channel");
+
+    /**
+     * Number of due channels read at once when curating the channels to refresh
+     */
+    private static final int DUE_CHANNELS_PAGE_SIZE = 500;
+
+    /**
+     * Number of channels whose stored entries are read at once when streaming an aggregation
+     */
+    private static final int STREAMED_CHANNELS_BATCH_SIZE = 50;
+
+    /**
+     * Order of the timeline: newest entries first, entries without publication date last
+     */
+    private static final Comparator<FeedEntry> TIMELINE_ORDER = Comparator.comparing(FeedEntry::getPublicationDate, Comparator.nullsLast(Comparator.reverseOrder()));
 
     private final IChannelService channelService;
 
@@ -38,100 +80,231 @@ public class FeedService implements IFeedService
 
     private final IFeedEntryRepository feedEntryRepository;
 
-    private final IMapper<SyndEntry, FeedEntry> mapper;
+    private final IDTOMapper<SyndEntry, FeedEntry> mapper;
+
+    private final ISequenceService sequenceService;
+
+    private final IReadStateService readStateService;
+
+    private final IChannelPurgeService channelPurgeService;
+
+    private final IChannelLeaseService channelLeaseService;
+
+    private final IFeedStreamService feedStreamService;
+
+    private final IFeedSearchService feedSearchService;
+
+    private final IRefreshAdmissionService refreshAdmissionService;
+
+    private final INearDuplicateService nearDuplicateService;
+
+    private final IChannelFilterService channelFilterService;
+
+    private final IClusterSyncService clusterSyncService;
+
+    private final Executor fetchExecutor;
+
+    /**
+     * Reads the stored entries and completes the asynchronous operations, so that neither the request threads nor the
+     * fetch threads do
+     */
+    private final Executor completionExecutor;
+
+    /**
+     * Runs the completion of the asynchronous operations, on the completion executor
+     */
+    private final TransactionTemplate transactionTemplate;
 
-    public FeedService(IChannelService channelService, IFeedClient feedClient, IFeedEntryRepository feedEntryRepository, IMapper<SyndEntry, FeedEntry> mapper)
+    public FeedService(IChannelService channelService, IFeedClient feedClient, IFeedEntryRepository feedEntryRepository, IDTOMapper<SyndEntry, FeedEntry> mapper,
+                       ISequenceService sequenceService, IReadStateService readStateService, IChannelPurgeService channelPurgeService,
+                       IChannelLeaseService channelLeaseService, IFeedStreamService feedStreamService, IFeedSearchService feedSearchService,
+                       IRefreshAdmissionService refreshAdmissionService, INearDuplicateService nearDuplicateService,
+                       IChannelFilterService channelFilterService, IClusterSyncService clusterSyncService,
+                       @Qualifier("fetchExecutor") Executor fetchExecutor, @Qualifier("completionExecutor") Executor completionExecutor,
+                       PlatformTransactionManager transactionManager)
     {
         this.channelService = channelService;
         this.feedClient = feedClient;
         this.feedEntryRepository = feedEntryRepository;
         this.mapper = mapper;
+        this.sequenceService = sequenceService;
+        this.readStateService = readStateService;
+        this.channelPurgeService = channelPurgeService;
+        this.channelLeaseService = channelLeaseService;
+        this.feedStreamService = feedStreamService;
+        this.feedSearchService = feedSearchService;
+        this.refreshAdmissionService = refreshAdmissionService;
+        this.nearDuplicateService = nearDuplicateService;
+        this.channelFilterService = channelFilterService;
+        this.clusterSyncService = clusterSyncService;
+        this.fetchExecutor = fetchExecutor;
+        this.completionExecutor = completionExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     @Override
     public Set<FeedEntry> fetch(long channelId, boolean forceRefresh)
+    {
+        return fetch(channelId, forceRefresh, Set.of());
+    }
+
+    @Override
+    public Set<FeedEntry> fetch(long channelId, boolean forceRefresh, Set<String> fields)
+    {
+        return await(fetchAsync(channelId, forceRefresh, fields));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The fetch is dispatched on the calling thread. The stored entries are read on the completion executor while the
+     * feed is being fetched, and the new entries are then persisted there, in a transaction of their own.
+     */
+    @Override
+    public CompletableFuture<Set<FeedEntry>> fetchAsync(long channelId, boolean forceRefresh, Set<String> fields)
     {
         var channel = channelService.get(channelId);
 
         // retrieve older feed entries stored in db
-        var entries = new HashSet<>(feedEntryRepository.findAllByChannelIdIn(List.of(channelId)));
+        var stored = CompletableFuture.supplyAsync(() -> readStored(channel, fields), completionExecutor);
 
-        if (logger.isInfoEnabled())
+        // channels fetched too recently, even when forced, and channels owned by other nodes are served from storage
+        if (!(forceRefresh || isRefreshNeeded(channel.getTtl(), channel.getLastRefresh()))
+            || !refreshAdmissionService.reserveRefetch(channel)
+            || !channelLeaseService.acquire(List.of(channel)).contains(channel.getId()))
         {
-            logger.info(MessageFormat.format("Retrieved {0} existing entries for channel [{1}, id: {2}]", entries.size(), channel.getName(), channel.getId()));
+            return stored;
         }
 
-        if (forceRefresh || isRefreshNeeded(channel.getTtl(), channel.getLastRefresh()))
-        {
-            var newEntries = this.feedClient.fetch(channel.getUrl())
-                                            .getEntries()
-                                            .stream()
-                                            .map(e -> mapper.mapToDTO(e, FeedEntry.class))
-                                            .map(e -> e.setChannelId(channelId))
-                                            .collect(toSet());
+        return stored.thenCombineAsync(fetchFeedEntriesAsync(channel),
+                                       (entries, feed) -> inTransaction(() -> completeFetch(channel, forceRefresh, entries, feed)),
+                                       completionExecutor);
+    }
 
-            if (logger.isInfoEnabled())
-            {
-                logger.info(MessageFormat.format("Fetching channel {0}. Force refresh set to {1}. {2} fresh entries fetched", channelId, forceRefresh, newEntries.size()));
-            }
+    /**
+     * @param channel the channel whose entries are read
+     * @param fields  the fields of the entries to read. Every field if empty
+     * @return the stored entries of the channel
+     */
+    private Set<FeedEntry> readStored(Channel channel, Set<String> fields)
+    {
+        var channelIds = List.of(channel.getId());
+        var entries = new HashSet<>(fields.isEmpty()
+                                    ? feedEntryRepository.findAllByChannelIdIn(channelIds)
+                                    : feedEntryRepository.findAllByChannelIdInWithFields(channelIds, fields));
 
-            // update the channel to keep track of the TTL functionality
-            channelService.updateRefreshTime(channel.getId());
+        if (channelEvents.isInfoEnabled())
+        {
+            channelEvents.info("channel.entries-read", "channelId", channel.getId(), "entries", entries.size());
+        }
 
-            // remove previously fetched entries
-            newEntries.removeAll(entries);
+        return entries;
+    }
 
-            // store the received entries in the FeedEntry collection
-            feedEntryRepository.saveAll(newEntries);
+    /**
+     * Persist the new entries of a fetched channel and add them to its stored entries
+     *
+     * @param channel      the fetched channel
+     * @param forceRefresh if the fetch was forced
+     * @param entries      the stored entries of the channel
+     * @param feed         the fetched feed
+     * @return the stored entries and the new ones
+     */
+    private Set<FeedEntry> completeFetch(Channel channel, boolean forceRefresh, Set<FeedEntry> entries, SyndFeed feed)
+    {
+        var filtered = filterEntries(channel, feed);
+        var newEntries = new HashSet<FeedEntry>(filtered.size() * 2);
+        for (var entry : filtered)
+        {
+            newEntries.add(mapper.mapToDTO(entry, FeedEntry.class).setChannelId(channel.getId()));
+        }
 
-            entries.addAll(newEntries.stream()
-                                     .map(e -> e.setFresh(true))
-                                     .collect(toSet()));
+        if (channelEvents.isInfoEnabled())
+        {
+            channelEvents.info("channel.fetched", "channelId", channel.getId(), "forceRefresh", forceRefresh, "fetchedEntries", newEntries.size());
         }
 
+        // update the stored entries edited since, and remove previously fetched entries
+        updateEdited(newEntries, entries);
+        removeStored(newEntries, entries);
+
+        // store the received entries in the FeedEntry collection
+        persist(newEntries);
+
+        // update the channel to keep track of the TTL functionality, last as it locks the channel table version
+        channelService.updateRefreshTime(channel.getId());
+        channelService.updateVersion();
+
+        entries.addAll(newEntries.stream()
+                                 .map(e -> e.setFresh(true))
+                                 .collect(toSet()));
         return entries;
     }
 
     @Override
     public Set<FeedEntry> aggregate(boolean forceRefresh)
     {
-        var channelFutureMap = new HashMap<Channel, CompletableFuture<List<FeedEntry>>>();
-
-        // retrieve older feed entries stored in db
-        var entries = new HashSet<>(feedEntryRepository.findAll());
-
-        // curated list of the updatable channels
-        var channels = channelService.list().stream()
-                                     .filter(c -> forceRefresh || isRefreshNeeded(c.getTtl(), c.getLastRefresh()))
-                                     .collect(toList());
-
-        channels.forEach(c ->
-                         {
-                             var channelFuture = this.fetchFeedEntriesAsync(c).thenApply(f -> this.mapFeedEntries(f, c.getId()));
-                             channelFutureMap.put(c, channelFuture);
-                         });
+        return aggregate(forceRefresh, Set.of());
+    }
 
-        var allFutures = CompletableFuture.allOf(channelFutureMap.values().toArray(CompletableFuture[]::new));
+    @Override
+    public Set<FeedEntry> aggregate(boolean forceRefresh, Set<String> fields)
+    {
+        return await(aggregateAsync(forceRefresh, fields));
+    }
 
-        // once all the futures completed, call future.join() to get the results and collect them in a list
-        var allFeedFuture = allFutures.thenApply(v -> channelFutureMap.values().stream()
-                                                                      .map(CompletableFuture::join)
-                                                                      .collect(toList()));
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The fetches are dispatched on the calling thread. The stored entries are read on the completion executor while
+     * the feeds are being fetched, and the new entries are then persisted there, in a transaction of their own.
+     */
+    @Override
+    public CompletableFuture<Set<FeedEntry>> aggregateAsync(boolean forceRefresh, Set<String> fields)
+    {
+        var channelFutureMap = new HashMap<Channel, CompletableFuture<List<FeedEntry>>>();
+        dispatchRefreshes(forceRefresh, channelFutureMap);
 
-        if (logger.isInfoEnabled())
+        if (events.isInfoEnabled())
         {
-            logger.info(MessageFormat.format("Aggregating {0} channels. Force refresh set to {1}", channels.size(), forceRefresh));
+            events.info("aggregation.dispatched", "channels", channelFutureMap.size(), "forceRefresh", forceRefresh);
         }
 
-        var newEntries = new HashSet<FeedEntry>();
+        // retrieve older feed entries stored in db, leaving out those of deleted channels not purged yet
+        var stored = CompletableFuture.supplyAsync(() ->
+                                                   {
+                                                       var purgedChannelIds = channelPurgeService.pendingChannelIds();
+                                                       var entries = fields.isEmpty() ? feedEntryRepository.findAll() : feedEntryRepository.findAllWithFields(fields);
+                                                       return entries.stream()
+                                                                     .filter(e -> !purgedChannelIds.contains(e.getChannelId()))
+                                                                     .collect(toCollection(HashSet::new));
+                                                   }, completionExecutor);
 
+        return stored.thenCombineAsync(settle(channelFutureMap),
+                                       (entries, v) -> inTransaction(() -> completeAggregate(channelFutureMap, entries)),
+                                       completionExecutor);
+    }
+
+    /**
+     * Persist the new entries of the refreshed channels and add them to the stored entries
+     *
+     * @param channelFutureMap the settled fetches
+     * @param entries          the stored entries
+     * @return the stored entries and the new ones
+     */
+    private Set<FeedEntry> completeAggregate(Map<Channel, CompletableFuture<List<FeedEntry>>> channelFutureMap, Set<FeedEntry> entries)
+    {
         // merge all new entries to minimize stream loops and db queries
-        allFeedFuture.join().forEach(newEntries::addAll);
+        var newEntries = new HashSet<FeedEntry>();
+        var refreshed = awaitRefreshes(channelFutureMap);
+        refreshed.values().forEach(newEntries::addAll);
 
-        //remove duplicates and persist delta
-        newEntries.removeAll(entries);
+        //update edited entries, remove duplicates and persist delta
+        updateEdited(newEntries, entries);
+        removeStored(newEntries, entries);
 
-        feedEntryRepository.saveAll(newEntries);
+        persist(newEntries);
+        flagRefreshed(channelIds(refreshed.keySet()));
 
         entries.addAll(newEntries.stream()
                                  .map(e -> e.setFresh(true))
@@ -140,16 +313,714 @@ public class FeedService implements IFeedService
     }
 
     /**
-     * Asynchronously fetch of a {@link Channel}'s feed
+     * {@inheritDoc}
+     * <p>
+     * The stream itself is not transactional, as it lasts as long as the client reads it: every completed channel is
+     * persisted in its own transaction, so a client going away with an {@link UncheckedIOException} does not undo
+     * the channels already persisted. The refreshed channels are flagged in one single statement once the stream
+     * ends, however it ends.
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void aggregate(boolean forceRefresh, Consumer<Collection<FeedEntry>> sink)
+    {
+        // stored entries are handed over a few channels at a time, so they are never all held in memory
+        var purgedChannelIds = channelPurgeService.pendingChannelIds();
+        var channelIds = channelService.list().stream()
+                                       .map(Channel::getId)
+                                       .filter(id -> !purgedChannelIds.contains(id))
+                                       .collect(toList());
+
+        for (var from = 0; from < channelIds.size(); from += STREAMED_CHANNELS_BATCH_SIZE)
+        {
+            var batch = channelIds.subList(from, Math.min(from + STREAMED_CHANNELS_BATCH_SIZE, channelIds.size()));
+            sink.accept(feedEntryRepository.findAllByChannelIdIn(batch));
+        }
+
+        var channelFutureMap = new HashMap<Channel, CompletableFuture<List<FeedEntry>>>();
+        dispatchRefreshes(forceRefresh, channelFutureMap);
+
+        if (events.isInfoEnabled())
+        {
+            events.info("stream.dispatched", "channels", channelFutureMap.size(), "forceRefresh", forceRefresh);
+        }
+
+        // channels are handled in the order their fetch completes, on the calling thread, which owns the sink
+        var completedChannels = new LinkedBlockingQueue<Channel>();
+        channelFutureMap.forEach((channel, future) -> future.whenComplete((r, e) -> completedChannels.add(channel)));
+
+        var refreshedChannelIds = new HashSet<Long>();
+        try
+        {
+            for (var i = 0; i < channelFutureMap.size(); i++)
+            {
+                Channel channel;
+                try
+                {
+                    channel = completedChannels.take();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+
+                var future = channelFutureMap.get(channel);
+                if (future.isCompletedExceptionally())
+                {
+                    if (channelEvents.isWarnEnabled())
+                    {
+                        channelEvents.warn("channel.refresh-failed", "channelId", channel.getId(), "channelName", channel.getName());
+                    }
+                    continue;
+                }
+
+                var newEntries = inTransaction(() -> completeStreamedChannel(channel, future.join()));
+                refreshedChannelIds.add(channel.getId());
+
+                sink.accept(newEntries.stream()
+                                      .map(e -> e.setFresh(true))
+                                      .collect(toList()));
+            }
+        }
+        finally
+        {
+            if (!refreshedChannelIds.isEmpty())
+            {
+                inTransaction(() ->
+                              {
+                                  flagRefreshed(refreshedChannelIds);
+                                  return null;
+                              });
+            }
+        }
+    }
+
+    /**
+     * Persist the entries fetched for one channel of a streamed aggregation
+     *
+     * @param channel the refreshed channel
+     * @param entries the entries fetched for the channel
+     * @return the new entries
+     */
+    private Set<FeedEntry> completeStreamedChannel(Channel channel, List<FeedEntry> entries)
+    {
+        var newEntries = new HashSet<>(entries);
+        var stored = new HashSet<>(feedEntryRepository.findAllByChannelIdIn(List.of(channel.getId())));
+        updateEdited(newEntries, stored);
+        removeStored(newEntries, stored);
+        persist(newEntries);
+
+        return newEntries;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Every channel contributes at most its <code>limit</code> newest stored entries, read through the publication
+     * date index while the feeds are being fetched, and the new entries are merged in the same pass. All these
+     * contributions are already sorted, so the timeline is a k-way merge stopping after <code>limit</code> entries
+     * rather than a sort of every stored entry.
+     */
+    @Override
+    public List<FeedEntry> timeline(boolean forceRefresh, int limit)
+    {
+        return await(timelineAsync(forceRefresh, limit));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The fetches are dispatched on the calling thread. The newest stored entries are read on the completion executor
+     * while the feeds are being fetched, and the new entries are then merged and persisted there.
+     */
+    @Override
+    public CompletableFuture<List<FeedEntry>> timelineAsync(boolean forceRefresh, int limit)
+    {
+        var channelFutureMap = new HashMap<Channel, CompletableFuture<List<FeedEntry>>>();
+        dispatchRefreshes(forceRefresh, channelFutureMap);
+
+        if (events.isInfoEnabled())
+        {
+            events.info("timeline.dispatched", "channels", channelFutureMap.size(), "limit", limit, "forceRefresh", forceRefresh);
+        }
+
+        var stored = CompletableFuture.supplyAsync(() ->
+                                                   {
+                                                       var purgedChannelIds = channelPurgeService.pendingChannelIds();
+                                                       var storedEntries = new HashMap<Long, List<FeedEntry>>();
+                                                       channelService.list().stream()
+                                                                     .map(Channel::getId)
+                                                                     .filter(id -> !purgedChannelIds.contains(id))
+                                                                     .forEach(id -> storedEntries.put(id, feedEntryRepository.findNewestByChannelId(id, limit)));
+                                                       return storedEntries;
+                                                   }, completionExecutor);
+
+        return stored.thenCombineAsync(settle(channelFutureMap),
+                                       (storedEntries, v) -> inTransaction(() -> completeTimeline(channelFutureMap, storedEntries, limit)),
+                                       completionExecutor);
+    }
+
+    /**
+     * Persist the new entries of the refreshed channels and merge them with the newest stored entries
+     *
+     * @param channelFutureMap the settled fetches
+     * @param storedEntries    the newest stored entries of every channel, by channel id
+     * @param limit            the maximum number of entries to merge
+     * @return the newest entries, sorted by descending publication date
+     */
+    private List<FeedEntry> completeTimeline(Map<Channel, CompletableFuture<List<FeedEntry>>> channelFutureMap, Map<Long, List<FeedEntry>> storedEntries, int limit)
+    {
+        var newEntries = new HashSet<FeedEntry>();
+        var stored = new HashSet<FeedEntry>();
+        var refreshed = awaitRefreshes(channelFutureMap);
+        refreshed.forEach((channel, entries) ->
+                                                 {
+                                                     newEntries.addAll(entries);
+                                                     stored.addAll(storedEntries.getOrDefault(channel.getId(), List.of()));
+                                                 });
+
+        completeStored(newEntries, stored);
+        updateEdited(newEntries, stored);
+        removeStored(newEntries, stored);
+
+        persist(newEntries);
+        flagRefreshed(channelIds(refreshed.keySet()));
+
+        var sources = new ArrayList<List<FeedEntry>>(storedEntries.values());
+        sources.add(newEntries.stream()
+                              .map(e -> e.setFresh(true))
+                              .sorted(TIMELINE_ORDER)
+                              .collect(toList()));
+
+        return SortedMerge.merge(sources, TIMELINE_ORDER, limit);
+    }
+
+    @Override
+    public void refresh()
+    {
+        await(refreshAsync());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The fetches are dispatched on the calling thread, the new entries are persisted on the completion executor.
+     */
+    @Override
+    public CompletableFuture<Void> refreshAsync()
+    {
+        var channelFutureMap = new HashMap<Channel, CompletableFuture<List<FeedEntry>>>();
+        dispatchRefreshes(false, channelFutureMap);
+
+        if (channelFutureMap.isEmpty())
+        {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        if (events.isInfoEnabled())
+        {
+            events.info("refresh.dispatched", "channels", channelFutureMap.size());
+        }
+
+        return settle(channelFutureMap).thenRunAsync(() -> inTransaction(() -> completeRefresh(channelFutureMap)), completionExecutor);
+    }
+
+    private Void completeRefresh(Map<Channel, CompletableFuture<List<FeedEntry>>> channelFutureMap)
+    {
+        var newEntries = new HashSet<FeedEntry>();
+        var stored = new HashSet<FeedEntry>();
+        var refreshed = awaitRefreshes(channelFutureMap);
+        refreshed.forEach((channel, entries) ->
+                                                 {
+                                                     newEntries.addAll(entries);
+                                                     stored.addAll(feedEntryRepository.findNewestByChannelId(channel.getId(), Math.max(1, entries.size())));
+                                                 });
+
+        completeStored(newEntries, stored);
+        updateEdited(newEntries, stored);
+        removeStored(newEntries, stored);
+
+        persist(newEntries);
+        flagRefreshed(channelIds(refreshed.keySet()));
+
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The version combines the channel's id with the ingest sequence of its latest stored entry, and the feed can be
+     * cached until the channel's TTL expires.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<ContentVersion> version(long channelId)
+    {
+        var channel = channelService.get(channelId);
+
+        if (isRefreshNeeded(channel.getTtl(), channel.getLastRefresh()))
+        {
+            return Optional.empty();
+        }
+
+        var maxAge = Duration.between(Instant.now(), channel.getLastRefresh().toInstant().plusSeconds(channel.getTtl()));
+
+        return Optional.of(new ContentVersion("channel-" + channelId + "-" + channel.getLatestSequence(), maxAge));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The version combines the version of the channel table, which covers subscriptions and unsubscriptions, with
+     * the latest ingest sequence, and the aggregation can be cached until the earliest channel refresh deadline.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<ContentVersion> aggregateVersion()
+    {
+        var now = ZonedDateTime.now();
+        var nextRefreshAt = channelService.nextRefreshAt();
+
+        if (nextRefreshAt.isPresent() && !nextRefreshAt.get().isAfter(now))
+        {
+            return Optional.empty();
+        }
+
+        var tag = "aggregate-" + channelService.version() + "-" + sequenceService.current(ISequenceService.FEED_ENTRY_SEQUENCE);
+        var maxAge = nextRefreshAt.map(n -> Duration.between(now, n)).orElse(Duration.ZERO);
+
+        return Optional.of(new ContentVersion(tag, maxAge));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Changes are only read up to the stable ingest sequence: sequences are allocated before entries are stored, so
+     * entries with a lower sequence than the latest stored one may still be on their way. Reading past it would let
+     * clients move their token beyond entries they would then never get.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public FeedChanges changes(long since, int limit)
+    {
+        var stable = sequenceService.stable(ISequenceService.FEED_ENTRY_SEQUENCE);
+        var entries = feedEntryRepository.findBySequenceRange(since, stable, limit);
+
+        // a full page may be followed by more entries, the following changes are then read from its last entry
+        var next = entries.size() == limit ? entries.get(entries.size() - 1).getSequence() : Math.max(since, stable);
+        var purgedChannelIds = channelPurgeService.pendingChannelIds();
+
+        return new FeedChanges(entries.stream()
+                                      .filter(e -> !purgedChannelIds.contains(e.getChannelId()))
+                                      .collect(toList()),
+                               channelPurgeService.deletedChannelIds(since, next),
+                               next,
+                               next < stable);
+    }
+
+    /**
+     * Update the stored entries their publisher edited since they were stored, in place. Fetched entries are matched
+     * with the stored ones by key, and only the content of those whose fingerprint changed is written: unchanged
+     * entries cost no writes. Entries stored before entries were fingerprinted are never deemed edited
+     * <p>
+     * Edited entries are given new ingest sequences, which brings them back to the changes served to delta-sync
+     * clients and makes them unread again, indexed again for search and streamed. The latest sequence of their
+     * channels is raised accordingly, which changes the version of their feeds and of the aggregation.
+     *
+     * @param fetched the fetched entries
+     * @param stored  the stored entries, updated in place
+     */
+    private void updateEdited(Collection<FeedEntry> fetched, Collection<FeedEntry> stored)
+    {
+        var storedByKey = stored.stream()
+                                .filter(e -> e.getKey() != null && e.getFingerprint() != ContentFingerprint.NONE)
+                                .collect(toMap(FeedEntry::getKey, Function.identity(), (a, b) -> a));
+        if (storedByKey.isEmpty())
+        {
+            return;
+        }
+
+        var now = Instant.now();
+        var edited = new ArrayList<FeedEntry>();
+        for (var entry : fetched)
+        {
+            var storedEntry = entry.getKey() != null ? storedByKey.get(entry.getKey()) : null;
+            if (storedEntry != null && storedEntry.getFingerprint() != entry.getFingerprint())
+            {
+                edited.add(storedEntry.copyContent(entry).setUpdated(now));
+            }
+        }
+
+        if (edited.isEmpty())
+        {
+            return;
+        }
+
+        if (events.isInfoEnabled())
+        {
+            events.info("entries.edited", "entries", edited.size());
+        }
+
+        // edited entries are given new sequences, so that delta-sync clients, syndicated documents and the other
+        // nodes read them again. The sequences stay reserved until the entries are stored, as new entries' do
+        var first = sequenceService.reserve(ISequenceService.FEED_ENTRY_SEQUENCE, edited.size());
+        try
+        {
+            readStateService.unregister(edited);
+
+            var sequence = first;
+            for (var entry : edited)
+            {
+                entry.setSequence(sequence++);
+            }
+            clusterSyncService.ingested(edited);
+
+            feedEntryRepository.updateContents(edited);
+        }
+        finally
+        {
+            sequenceService.release(ISequenceService.FEED_ENTRY_SEQUENCE, first);
+        }
+
+        channelService.updateLatestSequences(edited.stream()
+                                                   .collect(toMap(FeedEntry::getChannelId, FeedEntry::getSequence, Math::max)));
+
+        readStateService.register(edited);
+        indexAfterCommit(edited);
+    }
+
+    /**
+     * Remove the fetched entries already stored. The entries stored before entries were given a key are identified
+     * by their link, and match the fetched entries with the same link
+     *
+     * @param newEntries the fetched entries
+     * @param stored     the stored entries
+     */
+    private static void removeStored(Set<FeedEntry> newEntries, Set<FeedEntry> stored)
+    {
+        newEntries.removeAll(stored);
+
+        var unkeyedLinks = stored.stream()
+                                 .filter(e -> e.getKey() == null)
+                                 .map(FeedEntry::getLink)
+                                 .collect(toSet());
+        if (!unkeyedLinks.isEmpty())
+        {
+            newEntries.removeIf(e -> unkeyedLinks.contains(e.getLink()));
+        }
+    }
+
+    /**
+     * Add to the newest stored entries the stored entries matching the fetched entries found among none of them, looked
+     * up in two queries whatever their number: by key, and by link for the entries stored before entries were given a
+     * key. Fetched entries are most likely among the newest stored ones, so this is usually a small batch
+     *
+     * @param fetched the fetched entries
+     * @param stored  the newest stored entries, completed in place
+     */
+    private void completeStored(Set<FeedEntry> fetched, Set<FeedEntry> stored)
+    {
+        var keys = new HashSet<String>();
+        var links = new HashSet<String>();
+        for (var entry : fetched)
+        {
+            if (!stored.contains(entry))
+            {
+                if (entry.getKey() != null)
+                {
+                    keys.add(entry.getKey());
+                }
+                links.add(entry.getLink());
+            }
+        }
+
+        if (links.isEmpty())
+        {
+            return;
+        }
+
+        if (!keys.isEmpty())
+        {
+            stored.addAll(feedEntryRepository.findAllByKeyIn(keys));
+        }
+        stored.addAll(feedEntryRepository.findUnkeyedByLinkIn(links));
+    }
+
+    /**
+     * Persist newly fetched entries, assigning them their ingest sequences first so they can be tracked as unread,
+     * and their clusters of near duplicates. The latest sequence of every channel is then raised, which changes the
+     * version of their feeds, and the entries are indexed for search and pushed to the stream subscribers once the
+     * transaction commits
+     * <p>
+     * The sequences stay reserved until the entries are stored, which holds back the changes served to delta-sync
+     * clients.
+     *
+     * @param newEntries the entries not stored yet
+     */
+    private void persist(Set<FeedEntry> newEntries)
+    {
+        if (!newEntries.isEmpty())
+        {
+            var first = sequenceService.reserve(ISequenceService.FEED_ENTRY_SEQUENCE, newEntries.size());
+            try
+            {
+                var sequence = first;
+                for (var entry : newEntries)
+                {
+                    entry.setSequence(sequence++);
+                }
+                clusterSyncService.ingested(newEntries);
+
+                nearDuplicateService.cluster(newEntries);
+                feedEntryRepository.saveAll(newEntries);
+            }
+            finally
+            {
+                sequenceService.release(ISequenceService.FEED_ENTRY_SEQUENCE, first);
+            }
+
+            channelService.updateLatestSequences(newEntries.stream()
+                                                           .collect(toMap(FeedEntry::getChannelId, FeedEntry::getSequence, Math::max)));
+        }
+
+        readStateService.register(newEntries);
+        indexAfterCommit(newEntries);
+    }
+
+    /**
+     * Index entries for search and push them to the stream subscribers once the current transaction commits, so that
+     * entries rolled back are never searched nor streamed, and the transaction doesn't last while they are. Done at
+     * once outside of a transaction
+     *
+     * @param entries the stored entries
+     */
+    private void indexAfterCommit(Collection<FeedEntry> entries)
+    {
+        if (entries.isEmpty())
+        {
+            return;
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive())
+        {
+            index(entries);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization()
+        {
+            @Override
+            public void afterCommit()
+            {
+                index(entries);
+            }
+        });
+    }
+
+    /**
+     * Index entries for search and push them to the stream subscribers. The entries are stored by then, so a failure
+     * must not fail the operation that stored them: the index can be rebuilt, and the entries are read from storage
+     *
+     * @param entries the stored entries
+     */
+    private void index(Collection<FeedEntry> entries)
+    {
+        try
+        {
+            feedSearchService.index(entries);
+            feedStreamService.publish(entries);
+        }
+        catch (RuntimeException e)
+        {
+            if (events.isWarnEnabled())
+            {
+                events.warn("entries.index-failed", "entries", entries.size(), "error", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Dispatch the fetch of the updatable channels: every channel if forced, the channels whose TTL has expired
+     * otherwise. Fetches are dispatched as soon as each page of due channels is read. Only the channels leased by
+     * the current node are fetched, the rest are served from storage
+     *
+     * @param forceRefresh     if every channel must be fetched whether or not its TTL has yet expired
+     * @param channelFutureMap the map collecting the dispatched fetches
+     */
+    private void dispatchRefreshes(boolean forceRefresh, Map<Channel, CompletableFuture<List<FeedEntry>>> channelFutureMap)
+    {
+        if (forceRefresh)
+        {
+            dispatchLeased(channelService.list(), channelFutureMap);
+            return;
+        }
+
+        List<Channel> dueChannels;
+        var page = 0;
+        do
+        {
+            dueChannels = channelService.listDue(page++, DUE_CHANNELS_PAGE_SIZE);
+            dispatchLeased(dueChannels, channelFutureMap);
+        }
+        while (dueChannels.size() == DUE_CHANNELS_PAGE_SIZE);
+    }
+
+    /**
+     * Wait for every dispatched fetch to settle, whether it succeeded or not. A failing channel must not prevent the
+     * rest of the channels from being aggregated
+     *
+     * @param channelFutureMap the dispatched fetches
+     * @return the entries fetched for every refreshed channel
+     */
+    private Map<Channel, List<FeedEntry>> awaitRefreshes(Map<Channel, CompletableFuture<List<FeedEntry>>> channelFutureMap)
+    {
+        settle(channelFutureMap).join();
+
+        var refreshed = new HashMap<Channel, List<FeedEntry>>();
+        channelFutureMap.forEach((channel, future) ->
+                                 {
+                                     if (future.isCompletedExceptionally())
+                                     {
+                                         if (channelEvents.isWarnEnabled())
+                                         {
+                                             channelEvents.warn("channel.refresh-failed", "channelId", channel.getId(), "channelName", channel.getName());
+                                         }
+                                         return;
+                                     }
+
+                                     refreshed.put(channel, future.join());
+                                 });
+
+        return refreshed;
+    }
+
+    /**
+     * Flag the refreshed channels in one single statement, and change the version of the channel table their refresh
+     * times are part of. Done last in the completion's transaction: the version is a single row shared by every
+     * node, locked until the transaction ends, so taking it before the entries are stored would serialize every
+     * completion across the cluster
+     *
+     * @param channelIds the ids of the refreshed channels
+     */
+    private void flagRefreshed(Collection<Long> channelIds)
+    {
+        if (channelIds.isEmpty())
+        {
+            return;
+        }
+
+        channelService.updateRefreshTime(channelIds);
+        channelService.updateVersion();
+    }
+
+    private static Set<Long> channelIds(Collection<Channel> channels)
+    {
+        var channelIds = new HashSet<Long>(channels.size() * 2);
+        for (var channel : channels)
+        {
+            channelIds.add(channel.getId());
+        }
+
+        return channelIds;
+    }
+
+    /**
+     * @param channelFutureMap the dispatched fetches
+     * @return a future completed once every dispatched fetch has completed, whether it succeeded or not
+     */
+    private static CompletableFuture<Void> settle(Map<Channel, CompletableFuture<List<FeedEntry>>> channelFutureMap)
+    {
+        return CompletableFuture.allOf(channelFutureMap.values().toArray(CompletableFuture[]::new))
+                                .exceptionally(e -> null);
+    }
+
+    /**
+     * Run the completion of an asynchronous operation in a transaction. The operation's own transaction has ended by
+     * then, unless its fetches were already completed
+     *
+     * @param completion the completion of the operation
+     * @param <T>        the type of the operation's result
+     * @return the result of the operation
+     */
+    private <T> T inTransaction(Supplier<T> completion)
+    {
+        return transactionTemplate.execute(status -> completion.get());
+    }
+
+    /**
+     * Wait for an asynchronous operation, rethrowing the exception it failed with
+     *
+     * @param future the operation
+     * @param <T>    the type of the operation's result
+     * @return the result of the operation
+     */
+    private static <T> T await(CompletableFuture<T> future)
+    {
+        try
+        {
+            return future.join();
+        }
+        catch (CompletionException e)
+        {
+            if (e.getCause() instanceof RuntimeException)
+            {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * Dispatch the fetch of the channels the current node holds a lease on, leaving out the channels fetched, or whose
+     * fetch is reserved, within the minimum refetch interval. Fetches are only reserved for the leased channels
+     *
+     * @param candidates       the candidate channels
+     * @param channelFutureMap the map collecting the dispatched fetches
+     */
+    private void dispatchLeased(List<Channel> candidates, Map<Channel, CompletableFuture<List<FeedEntry>>> channelFutureMap)
+    {
+        if (candidates.isEmpty())
+        {
+            return;
+        }
+
+        var leasedIds = channelLeaseService.acquire(candidates);
+        candidates.stream()
+                  .filter(c -> leasedIds.contains(c.getId()))
+                  .filter(refreshAdmissionService::reserveRefetch)
+                  .forEach(c -> channelFutureMap.put(c, this.fetchChannelEntriesAsync(c)));
+    }
+
+    /**
+     * Asynchronously fetch a {@link Channel}'s feed and map its entries
+     *
+     * @param channel the {@link Channel} to be fetch
+     * @return the {@link CompletableFuture} holding the channel's mapped entries
+     */
+    private CompletableFuture<List<FeedEntry>> fetchChannelEntriesAsync(Channel channel)
+    {
+        return this.fetchFeedEntriesAsync(channel).thenApply(f -> this.mapFeedEntries(f, channel));
+    }
+
+    /**
+     * Asynchronously fetch of a {@link Channel}'s feed, on the fetch executor. A fetch the executor can't take fails
+     * like an unreachable feed
      *
      * @param channel the {@link Channel} to be fetch
      * @return the {@link CompletableFuture} holding the fetching operation execution
      */
-    @Async("asyncExecutor")
-    CompletableFuture<SyndFeed> fetchFeedEntriesAsync(Channel channel)
+    private CompletableFuture<SyndFeed> fetchFeedEntriesAsync(Channel channel)
     {
-        channelService.updateRefreshTime(channel.getId());
-        return CompletableFuture.supplyAsync(() -> this.feedClient.fetch(channel.getUrl()));
+        try
+        {
+            return CompletableFuture.supplyAsync(() -> this.feedClient.fetch(channel.getUrl()), fetchExecutor);
+        }
+        catch (RejectedExecutionException e)
+        {
+            return CompletableFuture.failedFuture(e);
+        }
     }
 
     /**
@@ -174,14 +1045,38 @@ public class FeedService implements IFeedService
     /**
      * Execute the mapper converting {@link SyndEntry} elements and sets the channel to the resulting DTO
      *
-     * @param feed      the original object fetched from the feed
-     * @param channelId the id of the channel it belongs to
+     * @param feed    the original object fetched from the feed
+     * @param channel the channel it belongs to
      * @return the representation of the feed entry that will be returned to the client and persisten in DB
      */
-    private List<FeedEntry> mapFeedEntries(SyndFeed feed, Long channelId)
+    private List<FeedEntry> mapFeedEntries(SyndFeed feed, Channel channel)
+    {
+        var entries = mapper.mapToDTO(filterEntries(channel, feed), FeedEntry.class);
+        for (var entry : entries)
+        {
+            entry.setChannelId(channel.getId());
+        }
+
+        return entries;
+    }
+
+    /**
+     * Apply the filter rules of a channel to its fetched entries, before they are mapped and stored
+     *
+     * @param channel the channel
+     * @param feed    the fetched feed
+     * @return the entries to ingest
+     */
+    private List<SyndEntry> filterEntries(Channel channel, SyndFeed feed)
     {
-        return mapper.mapToDTO(feed.getEntries(), FeedEntry.class).stream()
-                     .map(e -> e.setChannelId(channelId))
-                     .collect(toList());
+        var entries = channelFilterService.filter(channel, feed.getEntries());
+
+        var dropped = feed.getEntries().size() - entries.size();
+        if (dropped > 0 && channelEvents.isInfoEnabled())
+        {
+            channelEvents.info("channel.filtered", "channelId", channel.getId(), "droppedEntries", dropped);
+        }
+
+        return entries;
     }
 }
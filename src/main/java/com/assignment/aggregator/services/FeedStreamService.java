@@ -0,0 +1,386 @@
+package com.assignment.aggregator.services;
+
+import com.assignment.aggregator.helpers.EventLogger;
+import com.assignment.aggregator.models.FeedEntry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Server-Sent Events based feed stream
+ * <p>
+ * Subscriptions rely on asynchronous requests: an idle subscription holds its connection, but no thread. Events are
+ * written by a small shared executor, and every subscriber has its own bounded buffer of pending entries, so a slow
+ * client never slows down ingestion nor the other clients. When a subscriber's buffer overflows, its oldest entries
+ * are dropped and coalesced into a single <code>resync</code> event telling the client how many entries it missed.
+ * Writes block while the client doesn't read, for at most the connector's write timeout, after which the subscription
+ * is completed: the client resumes from where it stopped when reconnecting, or is told to resync.
+ * <p>
+ * Publishing only appends to the replay buffer: the published entries are handed to the subscribers by an executor
+ * task, one batch after the other in publication order, so that the cost of publishing doesn't grow with the number of
+ * subscribers.
+ * <p>
+ * The latest ingested entries are kept in a bounded replay buffer, from which reconnecting clients are resumed.
+ * Entries ingested by other nodes are streamed once synchronized, so they may follow entries with a higher sequence.
+ */
+@Service
+public class FeedStreamService implements IFeedStreamService
+{
+    private static final EventLogger events = EventLogger.of("request");
+
+    static final String ENTRY_EVENT = "entry";
+
+    static final String RESYNC_EVENT = "resync";
+
+    private final Executor executor;
+
+    private final int replaySize;
+
+    private final int subscriberBufferSize;
+
+    private final Duration timeout;
+
+    /**
+     * Latest ingested entries, ordered by ingest sequence
+     */
+    private final Deque<FeedEntry> replay = new ArrayDeque<>();
+
+    private final Set<Subscriber> subscribers = new HashSet<>();
+
+    /**
+     * Guards the replay buffer and the subscribers, so that a subscriber being resumed misses no entry
+     */
+    private final Lock lock = new ReentrantLock();
+
+    /**
+     * Sequence of the latest entry evicted from the replay buffer
+     */
+    private long evictedSequence = 0;
+
+    /**
+     * Published batches not handed to their subscribers yet, in publication order. Guarded by {@link #lock}
+     */
+    private final Deque<Runnable> fanOuts = new ArrayDeque<>();
+
+    /**
+     * Whether an executor task is handing the published batches to their subscribers. Guarded by {@link #lock}
+     */
+    private boolean fanningOut = false;
+
+    public FeedStreamService(@Qualifier("streamExecutor") Executor executor,
+                             @Value("${aggregator.stream.replay-size:1000}") int replaySize,
+                             @Value("${aggregator.stream.subscriber-buffer-size:256}") int subscriberBufferSize,
+                             @Value("${aggregator.stream.timeout:PT30M}") Duration timeout)
+    {
+        this.executor = executor;
+        this.replaySize = replaySize;
+        this.subscriberBufferSize = subscriberBufferSize;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public SseEmitter subscribe(Collection<Long> channelIds, Long lastEventId)
+    {
+        var emitter = newEmitter();
+        var subscriber = new Subscriber(emitter, channelIds == null ? Set.of() : Set.copyOf(channelIds));
+
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+
+        lock.lock();
+        try
+        {
+            if (lastEventId != null)
+            {
+                if (lastEventId < evictedSequence)
+                {
+                    subscriber.missed(evictedSequence - lastEventId);
+                }
+
+                subscriber.offer(replay.stream()
+                                       .filter(e -> e.getSequence() > lastEventId)
+                                       .collect(toList()));
+            }
+
+            subscribers.add(subscriber);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+
+        if (events.isInfoEnabled())
+        {
+            events.info("stream.subscribed", "channelIds", subscriber.channelIds, "lastEventId", lastEventId);
+        }
+
+        return emitter;
+    }
+
+    @Override
+    public void publish(Collection<FeedEntry> entries)
+    {
+        if (entries.isEmpty())
+        {
+            return;
+        }
+
+        var sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparingLong(FeedEntry::getSequence));
+
+        lock.lock();
+        try
+        {
+            for (var entry : sorted)
+            {
+                replay.addLast(entry);
+            }
+
+            while (replay.size() > replaySize)
+            {
+                evictedSequence = replay.removeFirst().getSequence();
+            }
+
+            // the subscribers are those of the moment the entries enter the replay buffer: later subscribers are
+            // resumed from it
+            var recipients = List.copyOf(subscribers);
+            fanOuts.addLast(() -> recipients.forEach(s -> s.offer(sorted)));
+
+            if (!fanningOut)
+            {
+                fanningOut = true;
+                executor.execute(this::fanOut);
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Hand the published batches to their subscribers, until there are none left
+     */
+    private void fanOut()
+    {
+        while (true)
+        {
+            List<Runnable> batches;
+
+            lock.lock();
+            try
+            {
+                if (fanOuts.isEmpty())
+                {
+                    fanningOut = false;
+                    return;
+                }
+
+                batches = new ArrayList<>(fanOuts);
+                fanOuts.clear();
+            }
+            finally
+            {
+                lock.unlock();
+            }
+
+            batches.forEach(Runnable::run);
+        }
+    }
+
+    /**
+     * Send a comment to every subscriber, so that idle connections aren't closed by proxies and dead clients are
+     * detected
+     */
+    @Scheduled(fixedDelayString = "${aggregator.stream.heartbeat-interval:PT30S}")
+    public void heartbeat()
+    {
+        lock.lock();
+        try
+        {
+            subscribers.forEach(Subscriber::heartbeat);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    int subscriberCount()
+    {
+        lock.lock();
+        try
+        {
+            return subscribers.size();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    SseEmitter newEmitter()
+    {
+        return new SseEmitter(timeout.toMillis());
+    }
+
+    private void unsubscribe(Subscriber subscriber)
+    {
+        lock.lock();
+        try
+        {
+            subscribers.remove(subscriber);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A subscription and its pending events
+     * <p>
+     * Pending events are written by at most one executor task at a time. A task writes the events pending when it
+     * starts and then hands over to the next one, so that subscribers with a steady flow of events take turns on the
+     * executor.
+     */
+    private final class Subscriber
+    {
+        private final SseEmitter emitter;
+
+        private final Set<Long> channelIds;
+
+        private final Deque<FeedEntry> pending = new ArrayDeque<>();
+
+        private long missed = 0;
+
+        private boolean heartbeat = false;
+
+        private boolean draining = false;
+
+        private Subscriber(SseEmitter emitter, Set<Long> channelIds)
+        {
+            this.emitter = emitter;
+            this.channelIds = channelIds;
+        }
+
+        synchronized void offer(Collection<FeedEntry> entries)
+        {
+            for (var entry : entries)
+            {
+                if (channelIds.isEmpty() || channelIds.contains(entry.getChannelId()))
+                {
+                    pending.addLast(entry);
+                }
+            }
+
+            // slow consumer: drop the oldest entries, the client is told how many it missed
+            while (pending.size() > subscriberBufferSize)
+            {
+                pending.removeFirst();
+                missed++;
+            }
+
+            schedule();
+        }
+
+        synchronized void missed(long count)
+        {
+            missed += count;
+            schedule();
+        }
+
+        synchronized void heartbeat()
+        {
+            heartbeat = true;
+            schedule();
+        }
+
+        private void schedule()
+        {
+            if (!draining && (!pending.isEmpty() || missed > 0 || heartbeat))
+            {
+                draining = true;
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain()
+        {
+            List<FeedEntry> entries;
+            long missedEntries;
+            boolean keepAlive;
+
+            synchronized (this)
+            {
+                entries = new ArrayList<>(pending);
+                missedEntries = missed;
+                keepAlive = heartbeat;
+
+                pending.clear();
+                missed = 0;
+                heartbeat = false;
+            }
+
+            try
+            {
+                send(entries, missedEntries, keepAlive);
+            }
+            catch (IOException | IllegalStateException e)
+            {
+                // the client went away, didn't read within the write timeout, or the emitter already completed
+                unsubscribe(this);
+                return;
+            }
+
+            synchronized (this)
+            {
+                draining = false;
+                schedule();
+            }
+        }
+
+        private void send(List<FeedEntry> entries, long missedEntries, boolean keepAlive) throws IOException
+        {
+            if (missedEntries > 0)
+            {
+                emitter.send(SseEmitter.event()
+                                       .name(RESYNC_EVENT)
+                                       .data(missedEntries));
+            }
+
+            for (var entry : entries)
+            {
+                emitter.send(SseEmitter.event()
+                                       .id(String.valueOf(entry.getSequence()))
+                                       .name(ENTRY_EVENT)
+                                       .data(entry, MediaType.APPLICATION_JSON));
+            }
+
+            if (keepAlive && entries.isEmpty() && missedEntries == 0)
+            {
+                emitter.send(SseEmitter.event().comment("keep-alive"));
+            }
+        }
+    }
+}
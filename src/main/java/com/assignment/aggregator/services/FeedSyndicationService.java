@@ -0,0 +1,333 @@
+package com.assignment.aggregator.services;
+
+import com.assignment.aggregator.helpers.SortedMerge;
+import com.assignment.aggregator.helpers.SyndicationWriter;
+import com.assignment.aggregator.models.Channel;
+import com.assignment.aggregator.models.ContentVersion;
+import com.assignment.aggregator.models.FeedDocument;
+import com.assignment.aggregator.models.FeedEntry;
+import com.assignment.aggregator.models.SyndicationFormat;
+import com.assignment.aggregator.repositories.IFeedEntryRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.text.MessageFormat;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+
+/**
+ * Web syndication service, rendering cached Atom and RSS documents
+ * <p>
+ * Every document is kept along with its entries and the stable ingest sequence it was rendered at. As long as the
+ * rendered channels stay the same, a document is brought up to date by reading the entries ingested since that
+ * sequence only, which are merged into the document's entries before it is written again. Documents are not rendered
+ * again at all while nothing is ingested, and are rendered from scratch when channels are subscribed or
+ * unsubscribed. At most <code>aggregator.syndication.cache-size</code> documents are kept, one per format, selection
+ * of channels and limit: the self link of a document is the one it was first rendered for.
+ * <p>
+ * Requests never wait for the due channels to be refreshed. A refresh is started in the background, at most one at a
+ * time, and its new entries are served once stored.
+ */
+@Service
+public class FeedSyndicationService implements IFeedSyndicationService
+{
+    private static final Logger logger = LoggerFactory.getLogger(FeedSyndicationService.class);
+
+    /**
+     * Order of the documents: newest entries first, entries without publication date last
+     */
+    private static final Comparator<FeedEntry> NEWEST_FIRST = Comparator.comparing(FeedEntry::getPublicationDate, Comparator.nullsLast(Comparator.reverseOrder()));
+
+    /**
+     * Number of ingested entries beyond which a document is rendered from scratch rather than brought up to date
+     */
+    private static final int MAX_INGESTED_ENTRIES = 10_000;
+
+    private final IFeedService feedService;
+
+    private final IChannelService channelService;
+
+    private final IChannelPurgeService channelPurgeService;
+
+    private final ISequenceService sequenceService;
+
+    private final IFeedEntryRepository feedEntryRepository;
+
+    private final String title;
+
+    private final Cache<RenditionKey, Rendition> renditions;
+
+    /**
+     * Whether a background refresh of the due channels is under way
+     */
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    public FeedSyndicationService(IFeedService feedService, IChannelService channelService, IChannelPurgeService channelPurgeService,
+                                  ISequenceService sequenceService, IFeedEntryRepository feedEntryRepository,
+                                  @Value("${aggregator.syndication.title:Feed aggregator}") String title,
+                                  @Value("${aggregator.syndication.cache-size:100}") long cacheSize)
+    {
+        this.feedService = feedService;
+        this.channelService = channelService;
+        this.channelPurgeService = channelPurgeService;
+        this.sequenceService = sequenceService;
+        this.feedEntryRepository = feedEntryRepository;
+        this.title = title;
+        this.renditions = Caffeine.newBuilder()
+                                  .maximumSize(cacheSize)
+                                  .build();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The tag combines the version of the channel table, which covers subscriptions and unsubscriptions, with the
+     * stable ingest sequence. Both are single row reads, so polling clients are answered without rendering anything.
+     */
+    @Override
+    public Optional<ContentVersion> version(SyndicationFormat format, Collection<Long> channelIds, int limit)
+    {
+        var now = ZonedDateTime.now();
+        var nextRefreshAt = channelService.nextRefreshAt();
+
+        if (isRefreshDue(now, nextRefreshAt))
+        {
+            return Optional.empty();
+        }
+
+        var tag = tag(format, channelService.version(), sequenceService.stable(ISequenceService.FEED_ENTRY_SEQUENCE));
+
+        return Optional.of(new ContentVersion(tag, maxAge(now, nextRefreshAt)));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The document can be cached until the earliest channel refresh deadline, and carries the same tag as
+     * {@link FeedSyndicationService#version}.
+     */
+    @Override
+    public FeedDocument render(SyndicationFormat format, Collection<Long> channelIds, int limit, String link)
+    {
+        var now = ZonedDateTime.now();
+        var nextRefreshAt = channelService.nextRefreshAt();
+
+        if (isRefreshDue(now, nextRefreshAt))
+        {
+            refreshInBackground();
+        }
+
+        // the versions are read before the entries, so that the tag never claims more than the document holds.
+        // Entries are only read up to the stable sequence, so that no entry still being stored is skipped
+        var channelVersion = channelService.version();
+        var sequence = sequenceService.stable(ISequenceService.FEED_ENTRY_SEQUENCE);
+        var purgedChannelIds = channelPurgeService.pendingChannelIds();
+        var renderedChannelIds = channelService.list().stream()
+                                               .map(Channel::getId)
+                                               .filter(id -> channelIds.isEmpty() || channelIds.contains(id))
+                                               .filter(id -> !purgedChannelIds.contains(id))
+                                               .collect(toSet());
+
+        var key = new RenditionKey(format, channelIds.stream().distinct().sorted().collect(toList()), limit);
+        var rendition = renditions.asMap().compute(key, (k, cached) -> update(k, cached, renderedChannelIds, sequence, link));
+
+        return new FeedDocument(format, rendition.document, new ContentVersion(tag(format, channelVersion, sequence), maxAge(now, nextRefreshAt)));
+    }
+
+    /**
+     * Refresh the due channels without waiting for their fetches, unless a refresh is already under way
+     */
+    private void refreshInBackground()
+    {
+        if (!refreshing.compareAndSet(false, true))
+        {
+            return;
+        }
+
+        try
+        {
+            feedService.refreshAsync().whenComplete((v, e) ->
+                                                    {
+                                                        refreshing.set(false);
+
+                                                        if (e != null && logger.isWarnEnabled())
+                                                        {
+                                                            logger.warn(MessageFormat.format("Background refresh failed: {0}", e.getMessage()));
+                                                        }
+                                                    });
+        }
+        catch (RuntimeException e)
+        {
+            refreshing.set(false);
+            throw e;
+        }
+    }
+
+    private static boolean isRefreshDue(ZonedDateTime now, Optional<ZonedDateTime> nextRefreshAt)
+    {
+        return nextRefreshAt.isPresent() && !nextRefreshAt.get().isAfter(now);
+    }
+
+    private static Duration maxAge(ZonedDateTime now, Optional<ZonedDateTime> nextRefreshAt)
+    {
+        return nextRefreshAt.map(n -> Duration.between(now, n))
+                            .filter(d -> !d.isNegative())
+                            .orElse(Duration.ZERO);
+    }
+
+    private static String tag(SyndicationFormat format, long channelVersion, long sequence)
+    {
+        return format.name().toLowerCase() + "-" + channelVersion + "-" + sequence;
+    }
+
+    /**
+     * Bring a document up to date with the entries ingested since it was rendered, or render it from scratch
+     *
+     * @param key        the rendered feed
+     * @param cached     the cached rendition of the feed, <code>null</code> if there is none
+     * @param channelIds the ids of the channels currently rendered in the feed
+     * @param sequence   the stable ingest sequence
+     * @param link       the URL the document is served at, used when it is rendered from scratch
+     * @return the up to date rendition
+     */
+    private Rendition update(RenditionKey key, Rendition cached, Set<Long> channelIds, long sequence, String link)
+    {
+        if (cached != null && cached.channelIds.equals(channelIds))
+        {
+            if (cached.sequence >= sequence)
+            {
+                return cached;
+            }
+
+            var ingested = feedEntryRepository.findBySequenceRange(cached.sequence, sequence, MAX_INGESTED_ENTRIES);
+            if (ingested.size() < MAX_INGESTED_ENTRIES)
+            {
+                // edited entries are ingested again under a new sequence, and replace their rendered copy. Entries
+                // read when the document was rendered from scratch may also have been ingested after its sequence
+                var rendered = cached.entries.stream()
+                                             .map(FeedEntry::getSequence)
+                                             .collect(toSet());
+                var changed = ingested.stream()
+                                      .filter(e -> channelIds.contains(e.getChannelId()) && !rendered.contains(e.getSequence()))
+                                      .collect(toSet());
+
+                if (changed.isEmpty())
+                {
+                    return new Rendition(channelIds, sequence, cached.entries, cached.link, cached.document);
+                }
+
+                var kept = cached.entries.stream()
+                                         .filter(e -> !changed.contains(e))
+                                         .collect(toList());
+                var added = changed.stream()
+                                   .sorted(NEWEST_FIRST)
+                                   .collect(toList());
+
+                return render(key, channelIds, sequence, SortedMerge.merge(List.of(kept, added), NEWEST_FIRST, key.limit), cached.link, added.size());
+            }
+        }
+
+        var sources = channelIds.stream()
+                                .map(id -> feedEntryRepository.findNewestByChannelId(id, key.limit))
+                                .collect(toList());
+
+        return render(key, channelIds, sequence, SortedMerge.merge(sources, NEWEST_FIRST, key.limit), link, -1);
+    }
+
+    private Rendition render(RenditionKey key, Set<Long> channelIds, long sequence, List<FeedEntry> entries, String link, int added)
+    {
+        var document = SyndicationWriter.write(key.format, title, link, entries);
+
+        if (logger.isInfoEnabled())
+        {
+            logger.info(added < 0
+                        ? MessageFormat.format("Rendered the {0} document of {1} channels. {2} entries", key.format, channelIds.size(), entries.size())
+                        : MessageFormat.format("Updated the {0} document of {1} channels. {2} entries added or edited", key.format, channelIds.size(), added));
+        }
+
+        return new Rendition(channelIds, sequence, entries, link, document);
+    }
+
+    /**
+     * Identity of a rendered feed
+     */
+    private static final class RenditionKey
+    {
+        private final SyndicationFormat format;
+
+        /**
+         * Sorted ids of the selected channels, empty for every channel
+         */
+        private final List<Long> channelIds;
+
+        private final int limit;
+
+        private RenditionKey(SyndicationFormat format, List<Long> channelIds, int limit)
+        {
+            this.format = format;
+            this.channelIds = channelIds;
+            this.limit = limit;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass())
+            {
+                return false;
+            }
+
+            var that = (RenditionKey) o;
+            return limit == that.limit && format == that.format && channelIds.equals(that.channelIds);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(format, channelIds, limit);
+        }
+    }
+
+    /**
+     * Rendered document of a feed, along with what it was rendered from
+     */
+    private static final class Rendition
+    {
+        private final Set<Long> channelIds;
+
+        private final long sequence;
+
+        private final List<FeedEntry> entries;
+
+        private final String link;
+
+        private final byte[] document;
+
+        private Rendition(Set<Long> channelIds, long sequence, List<FeedEntry> entries, String link, byte[] document)
+        {
+            this.channelIds = channelIds;
+            this.sequence = sequence;
+            this.entries = entries;
+            this.link = link;
+            this.document = document;
+        }
+    }
+}
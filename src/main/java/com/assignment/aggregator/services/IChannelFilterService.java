@@ -0,0 +1,39 @@
+package com.assignment.aggregator.services;
+
+import com.assignment.aggregator.exceptions.InvalidFilterRuleException;
+import com.assignment.aggregator.models.Channel;
+import com.assignment.aggregator.models.FilterRule;
+import com.rometools.rome.feed.synd.SyndEntry;
+
+import java.util.List;
+
+/**
+ * Interface for the channel filter service
+ * <p>
+ * The {@link FilterRule}s of every {@link Channel} decide which of its entries are ingested. Rules are compiled once,
+ * and compiled again only when they change, so that filtering a fetched feed doesn't depend on the number of rules.
+ */
+public interface IChannelFilterService
+{
+    /**
+     * @param channel the channel the entries were fetched from
+     * @param entries the fetched entries
+     * @return the entries to ingest, in the same order. The same list if the channel has no rules
+     */
+    List<SyndEntry> filter(Channel channel, List<SyndEntry> entries);
+
+    /**
+     * Compile the rules of a channel, replacing those compiled before
+     *
+     * @param channel the channel, new or whose rules were modified
+     * @throws InvalidFilterRuleException if any of the rules is invalid
+     */
+    void compile(Channel channel);
+
+    /**
+     * Forget the compiled rules of a channel
+     *
+     * @param channelId the id of the deleted channel
+     */
+    void evict(long channelId);
+}
@@ -0,0 +1,57 @@
+package com.assignment.aggregator.services;
+
+import com.assignment.aggregator.models.Channel;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Interface for the channel lease service
+ * <p>
+ * Several application nodes may share the same database. To avoid fetching the same feeds from every node, each
+ * {@link Channel} is owned by a single node, chosen by consistent hashing over the live nodes, and a node only
+ * refreshes the channels it holds a lease on. Leases are stored in the database, expire unless renewed, and are
+ * handed over when nodes join or leave.
+ */
+public interface IChannelLeaseService
+{
+    /**
+     * @return the id of the current node
+     */
+    String nodeId();
+
+    /**
+     * Create the lease of a new channel, free until a node takes it
+     *
+     * @param channel the new channel
+     */
+    void register(Channel channel);
+
+    /**
+     * Take the leases of the channels the current node owns
+     *
+     * @param channels the channels the current node would like to refresh
+     * @return the ids of the channels the current node holds a lease on, and thus may refresh
+     */
+    Set<Long> acquire(Collection<Channel> channels);
+
+    /**
+     * Take or renew the lease of a background task that must only run on one node at a time. The lease lasts as long
+     * as the channel leases, so a task keeps running on the same node as long as that node calls this method
+     *
+     * @param task the name of the task
+     * @return <code>true</code> if the current node holds the lease, and thus may run the task
+     */
+    boolean lead(String task);
+
+    /**
+     * Record the current node's heartbeat, renew its leases and free those of the channels it no longer owns
+     */
+    void heartbeat();
+
+    /**
+     * Free every lease of the current node, including its task leases, and remove it from the live nodes, so that its channels are taken over
+     * right away
+     */
+    void leave();
+}
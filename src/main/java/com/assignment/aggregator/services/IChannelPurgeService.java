@@ -0,0 +1,52 @@
+package com.assignment.aggregator.services;
+
+import com.assignment.aggregator.models.Channel;
+import com.assignment.aggregator.models.ChannelPurge;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Interface for the channel purge service
+ * <p>
+ * Deleting a {@link Channel} only records a {@link ChannelPurge}. Its entries are then deleted in the background,
+ * in rate limited batches, and are filtered out of reads in the meantime. Purges are persisted, so pending ones
+ * are resumed after a restart.
+ */
+public interface IChannelPurgeService
+{
+    /**
+     * Schedule the purge of a deleted channel's entries
+     *
+     * @param channel the deleted channel
+     */
+    void schedule(Channel channel);
+
+    /**
+     * List every purge, latest requested first
+     *
+     * @return the list of purges, along with their progress
+     */
+    List<ChannelPurge> list();
+
+    /**
+     * Get the ids of the channels whose entries are still being purged
+     *
+     * @return the ids of the channels being purged. Their entries must be filtered out of reads
+     */
+    Set<Long> pendingChannelIds();
+
+    /**
+     * Get the ids of the channels deleted within a range of ingest sequences
+     *
+     * @param after the lowest ingest sequence, exclusive
+     * @param upTo  the highest ingest sequence, inclusive
+     * @return the ids of the channels deleted within the range
+     */
+    Set<Long> deletedChannelIds(long after, long upTo);
+
+    /**
+     * Delete the next batch of entries of the oldest pending purge, completing the purge once no entries are left
+     */
+    void purgeNextBatch();
+}
@@ -4,7 +4,11 @@ import com.assignment.aggregator.models.Channel;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
+import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Interface for the channel service
@@ -22,6 +26,15 @@ public interface IChannelService
      */
     List<Channel> list();
 
+    /**
+     * List a page of the channels whose TTL has expired and thus are due for a refresh, ordered by refresh deadline
+     *
+     * @param page the number of the page to retrieve, starting at 0
+     * @param size the size of the page
+     * @return the page of due channels. Returns an empty list if there are no more due channels
+     */
+    List<Channel> listDue(int page, int size);
+
     /**
      * Get a channel within the list of channels the user has subscribed to based on the channel id
      *
@@ -51,7 +64,8 @@ public interface IChannelService
     Channel update(@Positive long channelId, @Valid Channel channel);
 
     /**
-     * Delete a channel from the subscription list
+     * Delete a channel from the subscription list. The channel's entries stop being served right away, and are
+     * purged in the background
      *
      * @param channelId the id of the channel to delete
      * @throws com.assignment.aggregator.exceptions.ChannelNotFoundException if the channel is not found
@@ -59,9 +73,59 @@ public interface IChannelService
     void delete(long channelId);
 
     /**
-     * Updates a {@link Channel} last refresh time
+     * Bring the effective TTL of a {@link Channel} in line with its subscriptions: the tightest of its configured TTL
+     * and of its subscribed TTLs. Channels created for subscriptions have no configured TTL, and keep their TTL once
+     * unsubscribed
+     *
+     * @param channelId the id of the channel whose subscriptions changed
+     * @throws com.assignment.aggregator.exceptions.ChannelNotFoundException if the channel is not found
+     */
+    void adjustTtl(long channelId);
+
+    /**
+     * Updates a {@link Channel} last refresh time. The version of the channel table is left as is, see
+     * {@link #updateVersion()}
      *
      * @param channelId the id of the {@link Channel} to update
      */
     void updateRefreshTime(long channelId);
+
+    /**
+     * Updates the last refresh time of a group of {@link Channel}s at once
+     * <p>
+     * Meant to be called once per aggregation, after all the fetch operations have settled, so the refresh
+     * of many channels costs a single statement instead of one round trip per channel. The version of the channel
+     * table is left as is, see {@link #updateVersion()}
+     *
+     * @param channelIds the ids of the {@link Channel}s to update. An empty collection is a no-op
+     */
+    void updateRefreshTime(Collection<Long> channelIds);
+
+    /**
+     * Change the version of the {@link Channel} table once the refresh times of channels were updated. The version is
+     * a single row, locked until the transaction ends, so this is meant to be called last in the transaction
+     */
+    void updateVersion();
+
+    /**
+     * Raise the latest ingest sequence of a group of {@link Channel}s, once their new entries are stored
+     *
+     * @param latestSequences the ingest sequence of the latest stored entry, by channel id
+     */
+    void updateLatestSequences(Map<Long, Long> latestSequences);
+
+    /**
+     * Get the version of the {@link Channel} table, which changes whenever a channel is created, updated, deleted
+     * or refreshed
+     *
+     * @return the current version of the channel table
+     */
+    long version();
+
+    /**
+     * Get the earliest refresh deadline among all the {@link Channel}s
+     *
+     * @return an {@link Optional} of the earliest refresh deadline, empty if there are no channels
+     */
+    Optional<ZonedDateTime> nextRefreshAt();
 }
@@ -0,0 +1,29 @@
+package com.assignment.aggregator.services;
+
+import com.assignment.aggregator.models.FeedEntry;
+
+import java.util.Collection;
+
+/**
+ * Interface for the cluster synchronization service
+ * <p>
+ * Several nodes may ingest entries into the same storage, while every node keeps its own in-memory state about the
+ * stored entries: the live sequences of the read states, the search index, the near-duplicate index and the stream's
+ * replay buffer. Each node applies its own ingest right away, and catches up with the entries ingested and the
+ * channels deleted by the other nodes by following the ingest sequence in storage.
+ */
+public interface IClusterSyncService
+{
+    /**
+     * Record entries ingested by the current node, which must not be applied again when they are synchronized.
+     * Must be called once their ingest sequences are assigned and before these are released
+     *
+     * @param entries the ingested entries
+     */
+    void ingested(Collection<FeedEntry> entries);
+
+    /**
+     * Apply the entries stored and the channels deleted by the other nodes since the latest synchronization
+     */
+    void sync();
+}
@@ -0,0 +1,52 @@
+package com.assignment.aggregator.services;
+
+import com.assignment.aggregator.models.FeedEntry;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Instant;
+import java.util.Collection;
+
+/**
+ * Interface for the feed search service
+ * <p>
+ * Keeps a full-text index over the stored {@link FeedEntry}s, updated as entries are ingested, and searches it.
+ */
+public interface IFeedSearchService
+{
+    /**
+     * Search the stored entries, best matches first
+     *
+     * @param text       the text to search in the entries' title, authors and contents
+     * @param channelIds the ids of the channels whose entries are searched. All the channels if empty
+     * @param from       the lowest publication date of the entries, inclusive. Unbounded if <code>null</code>
+     * @param to         the highest publication date of the entries, inclusive. Unbounded if <code>null</code>
+     * @param pageable   the page of results
+     * @return the page of matching entries
+     */
+    Page<FeedEntry> search(String text, Collection<Long> channelIds, Instant from, Instant to, Pageable pageable);
+
+    /**
+     * Index newly persisted entries
+     *
+     * @param entries the entries, which must have been assigned their id
+     */
+    void index(Collection<FeedEntry> entries);
+
+    /**
+     * Remove the entries of a deleted channel from the index
+     *
+     * @param channelId the id of the channel
+     */
+    void remove(long channelId);
+
+    /**
+     * Rebuild the index out of the stored entries, in the background
+     */
+    void rebuild();
+
+    /**
+     * Make the entries indexed since the latest commit durable
+     */
+    void commit();
+}
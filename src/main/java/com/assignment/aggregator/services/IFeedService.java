@@ -1,8 +1,15 @@
 package com.assignment.aggregator.services;
 
+import com.assignment.aggregator.models.ContentVersion;
+import com.assignment.aggregator.models.FeedChanges;
 import com.assignment.aggregator.models.FeedEntry;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * Interface for the feed service
@@ -27,6 +34,32 @@ public interface IFeedService
      */
     Collection<FeedEntry> fetch(long channelId, boolean forceRefresh);
 
+    /**
+     * Version of {@link IFeedService#fetch(long, boolean)} reading only some fields of the stored entries
+     * <p>
+     * Stored entries hold at least the given fields, and their id, channel and link. Fetched entries are whole.
+     *
+     * @param channelId    the id of the {@link com.assignment.aggregator.models.Channel} being fetch
+     * @param forceRefresh if the channel must be fetch whether or not its TTL has yet expired
+     * @param fields       the names of the fields to read. Every field if empty
+     * @return the list of the channel's published entries
+     */
+    Collection<FeedEntry> fetch(long channelId, boolean forceRefresh, Set<String> fields);
+
+    /**
+     * Asynchronous version of {@link IFeedService#fetch(long, boolean, Set)}
+     * <p>
+     * The calling thread doesn't wait for the channel's feed to be fetched: the returned future completes once the
+     * new entries are persisted, or with the exception the fetch failed with.
+     *
+     * @param channelId    the id of the {@link com.assignment.aggregator.models.Channel} being fetch
+     * @param forceRefresh if the channel must be fetch whether or not its TTL has yet expired
+     * @param fields       the names of the fields to read. Every field if empty
+     * @return the future list of the channel's published entries
+     * @throws com.assignment.aggregator.exceptions.ChannelNotFoundException if the channel is not found
+     */
+    CompletableFuture<? extends Collection<FeedEntry>> fetchAsync(long channelId, boolean forceRefresh, Set<String> fields);
+
     /**
      * Aggregate the contents of all the subscribed {@link com.assignment.aggregator.models.Channel}'s feeds
      * <p>
@@ -38,4 +71,104 @@ public interface IFeedService
      * @return the combined list of all published entries for all subscribed channels
      */
     Collection<FeedEntry> aggregate(boolean forceRefresh);
+
+    /**
+     * Version of {@link IFeedService#aggregate(boolean)} reading only some fields of the stored entries, see
+     * {@link IFeedService#fetch(long, boolean, Set)}
+     *
+     * @param forceRefresh if the channels must be fetch whether or not their TTL has yet expired
+     * @param fields       the names of the fields to read. Every field if empty
+     * @return the combined list of all published entries for all subscribed channels
+     */
+    Collection<FeedEntry> aggregate(boolean forceRefresh, Set<String> fields);
+
+    /**
+     * Asynchronous version of {@link IFeedService#aggregate(boolean, Set)}
+     * <p>
+     * The calling thread doesn't wait for the channels' feeds to be fetched: the returned future completes once the
+     * new entries of the refreshed channels are persisted.
+     *
+     * @param forceRefresh if the channels must be fetch whether or not their TTL has yet expired
+     * @param fields       the names of the fields to read. Every field if empty
+     * @return the future combined list of all published entries for all subscribed channels
+     */
+    CompletableFuture<? extends Collection<FeedEntry>> aggregateAsync(boolean forceRefresh, Set<String> fields);
+
+    /**
+     * Streaming version of {@link IFeedService#aggregate(boolean)}
+     * <p>
+     * Rather than building the whole aggregation before returning it, entries are handed over to the
+     * <code>sink</code> in chunks: persisted entries first, a few channels at a time, and then the new entries of
+     * every refreshed channel as soon as its fetch completes. The sink is always called from the calling thread.
+     *
+     * @param forceRefresh if the channels must be fetch whether or not their TTL has yet expired
+     * @param sink         the consumer of the chunks of entries
+     */
+    void aggregate(boolean forceRefresh, Consumer<Collection<FeedEntry>> sink);
+
+    /**
+     * Sorted and bounded version of {@link IFeedService#aggregate(boolean)}: the newest entries among all the
+     * subscribed channels, including the new entries of the refreshed channels
+     *
+     * @param forceRefresh if the channels must be fetch whether or not their TTL has yet expired
+     * @param limit        the maximum number of entries to return
+     * @return the newest entries, sorted by descending publication date. Entries without one come last
+     */
+    List<FeedEntry> timeline(boolean forceRefresh, int limit);
+
+    /**
+     * Asynchronous version of {@link IFeedService#timeline(boolean, int)}, see
+     * {@link IFeedService#aggregateAsync(boolean, Set)}
+     *
+     * @param forceRefresh if the channels must be fetch whether or not their TTL has yet expired
+     * @param limit        the maximum number of entries to return
+     * @return the future newest entries, sorted by descending publication date. Entries without one come last
+     */
+    CompletableFuture<List<FeedEntry>> timelineAsync(boolean forceRefresh, int limit);
+
+    /**
+     * Refresh the channels whose TTL has expired and store their new entries, without reading any stored entry
+     * <p>
+     * Used to keep the stored feeds up to date before serving them from storage only.
+     */
+    void refresh();
+
+    /**
+     * Asynchronous version of {@link IFeedService#refresh()}
+     *
+     * @return a future completed once the new entries are stored
+     */
+    CompletableFuture<Void> refreshAsync();
+
+    /**
+     * Get the changes made to the stored feeds since a given ingest sequence, without refreshing any channel
+     * <p>
+     * Entries are read in ingest order through a range scan of their ingest sequence, along with the channels
+     * deleted within the same range. Entries of channels being purged are left out.
+     *
+     * @param since the ingest sequence of the latest change known to the client, <code>0</code> for every change
+     * @param limit the maximum number of entries to return
+     * @return the page of changes, along with the sequence to request the following ones from
+     */
+    FeedChanges changes(long since, int limit);
+
+    /**
+     * Get the version of a {@link com.assignment.aggregator.models.Channel}'s feed, without reading its entries
+     * <p>
+     * No version is returned while the channel is due for a refresh, as fetching it may add new entries.
+     *
+     * @param channelId the id of the {@link com.assignment.aggregator.models.Channel}
+     * @return an {@link Optional} of the feed's version, empty if the channel is due for a refresh
+     * @throws com.assignment.aggregator.exceptions.ChannelNotFoundException if the channel is not found
+     */
+    Optional<ContentVersion> version(long channelId);
+
+    /**
+     * Get the version of the aggregation of all the subscribed channels, without reading any entry
+     * <p>
+     * No version is returned while any channel is due for a refresh, as aggregating may add new entries.
+     *
+     * @return an {@link Optional} of the aggregation's version, empty if a channel is due for a refresh
+     */
+    Optional<ContentVersion> aggregateVersion();
 }
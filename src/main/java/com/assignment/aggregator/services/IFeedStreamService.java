@@ -0,0 +1,37 @@
+package com.assignment.aggregator.services;
+
+import com.assignment.aggregator.models.FeedEntry;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Collection;
+
+/**
+ * Interface for the feed stream service
+ * <p>
+ * Pushes newly ingested {@link FeedEntry}s to subscribed clients as Server-Sent Events, so that clients don't have
+ * to poll the aggregation to discover new entries. Events are identified by the ingest sequence of their entry,
+ * which clients send back as <code>Last-Event-ID</code> when reconnecting to resume where they left.
+ */
+public interface IFeedStreamService
+{
+    /**
+     * Subscribe to the stream of newly ingested entries
+     * <p>
+     * When resuming, the entries ingested after <code>lastEventId</code> that are still held in the replay buffer
+     * are sent first. If some of them already left the buffer, a <code>resync</code> event is sent instead, telling
+     * the client to catch up through the aggregation.
+     *
+     * @param channelIds  the ids of the channels whose entries will be pushed. All the channels if empty
+     * @param lastEventId the sequence of the latest entry received by the client, <code>null</code> for new clients
+     * @return the emitter of the subscription's events
+     */
+    SseEmitter subscribe(Collection<Long> channelIds, Long lastEventId);
+
+    /**
+     * Push newly ingested entries to the subscribed clients. The entries are handed to the subscribers asynchronously,
+     * and must be stored by then: publishing is meant to follow the commit of the entries
+     *
+     * @param entries the ingested entries, which must have been assigned their ingest sequence
+     */
+    void publish(Collection<FeedEntry> entries);
+}
@@ -0,0 +1,42 @@
+package com.assignment.aggregator.services;
+
+import com.assignment.aggregator.models.ContentVersion;
+import com.assignment.aggregator.models.FeedDocument;
+import com.assignment.aggregator.models.SyndicationFormat;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Interface for the feed syndication service
+ * <p>
+ * Renders the newest stored {@link com.assignment.aggregator.models.FeedEntry}s of the subscribed channels as web
+ * syndication documents, for clients that are feed readers themselves.
+ */
+public interface IFeedSyndicationService
+{
+    /**
+     * Get the version of the document of a set of channels without rendering it, so that conditional requests can be
+     * answered first
+     *
+     * @param format     the format of the document
+     * @param channelIds the ids of the channels whose entries are rendered. All the channels if empty
+     * @param limit      the maximum number of entries to render
+     * @return the version the document would be rendered at, empty if channels are due for a refresh
+     */
+    Optional<ContentVersion> version(SyndicationFormat format, Collection<Long> channelIds, int limit);
+
+    /**
+     * Render the newest entries of a set of channels, newest first
+     * <p>
+     * The refresh of the channels due for one is started, but not waited for. Rendered documents are cached, and only
+     * rendered again when entries are ingested or channels are subscribed or unsubscribed.
+     *
+     * @param format     the format of the document
+     * @param channelIds the ids of the channels whose entries are rendered. All the channels if empty
+     * @param limit      the maximum number of entries to render
+     * @param link       the URL the document is served at
+     * @return the rendered document, along with its version
+     */
+    FeedDocument render(SyndicationFormat format, Collection<Long> channelIds, int limit, String link);
+}
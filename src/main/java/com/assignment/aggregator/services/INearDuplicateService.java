@@ -0,0 +1,39 @@
+package com.assignment.aggregator.services;
+
+import com.assignment.aggregator.models.FeedEntry;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Interface for the near-duplicate service
+ * <p>
+ * Different feeds often carry the same story, syndicated or lightly rewritten, under different links. Entries are
+ * clustered with their near duplicates when they are ingested, and each cluster can then be collapsed into a single
+ * entry carrying the others as its alternates.
+ */
+public interface INearDuplicateService
+{
+    /**
+     * Assign the cluster of near duplicates of newly ingested entries
+     *
+     * @param entries the new entries, with their ingest sequence already assigned. Clustered in iteration order, so
+     *                near duplicates among them are clustered together as well
+     */
+    void cluster(Collection<FeedEntry> entries);
+
+    /**
+     * Remember entries clustered by another node, so that the entries ingested later on are clustered with them
+     *
+     * @param entries the entries, with their ingest sequence and cluster assigned
+     */
+    void remember(Collection<FeedEntry> entries);
+
+    /**
+     * Collapse the entries of each cluster into the first ingested one, which carries the others as its alternates
+     *
+     * @param entries the entries
+     * @return the representative of every cluster, in the order of the first entry of each cluster
+     */
+    List<FeedEntry> collapse(Collection<FeedEntry> entries);
+}
@@ -0,0 +1,83 @@
+package com.assignment.aggregator.services;
+
+import com.assignment.aggregator.models.FeedEntry;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Interface for the read state service
+ * <p>
+ * Keeps track of the {@link FeedEntry}s every client has already read. Entries are identified by their ingest
+ * sequence, and the read entries of a client are stored as a compressed bitmap of sequences, so asking for the
+ * unread entries is answered with bitmap operations rather than by scanning the stored entries.
+ * <p>
+ * Clients are identified by an opaque id of their choice.
+ */
+public interface IReadStateService
+{
+    /**
+     * List the entries a client hasn't read yet, oldest ingested first
+     *
+     * @param clientId   the id of the client
+     * @param channelIds the ids of the channels whose entries will be listed. All the channels if empty
+     * @param limit      the maximum number of entries to list
+     * @return the unread entries, ordered by ingest sequence
+     */
+    List<FeedEntry> listUnread(String clientId, Collection<Long> channelIds, int limit);
+
+    /**
+     * Count the entries a client hasn't read yet
+     *
+     * @param clientId   the id of the client
+     * @param channelIds the ids of the channels whose entries will be counted. All the channels if empty
+     * @return the number of unread entries
+     */
+    long countUnread(String clientId, Collection<Long> channelIds);
+
+    /**
+     * Mark a set of entries as read by a client. Sequences not matching a stored entry are ignored
+     *
+     * @param clientId  the id of the client
+     * @param sequences the ingest sequences of the read entries
+     */
+    void markRead(String clientId, Collection<Long> sequences);
+
+    /**
+     * Mark a range of entries as read by a client. Sequences not matching a stored entry are ignored
+     *
+     * @param clientId the id of the client
+     * @param from     the ingest sequence of the first read entry, inclusive
+     * @param to       the ingest sequence of the last read entry, inclusive
+     */
+    void markRead(String clientId, long from, long to);
+
+    /**
+     * Register newly ingested entries, which become unread for every client
+     *
+     * @param entries the ingested entries, already assigned an ingest sequence
+     */
+    void register(Collection<FeedEntry> entries);
+
+    /**
+     * Forget the current ingest sequences of entries about to be given new ones, as edited entries are
+     *
+     * @param entries the entries, still holding their current ingest sequence
+     */
+    void unregister(Collection<FeedEntry> entries);
+
+    /**
+     * Forget the entries of a deleted channel
+     *
+     * @param channelId the id of the deleted channel
+     */
+    void unregisterChannel(long channelId);
+
+    /**
+     * Record that every entry stored up to an ingest sequence, including those ingested by other nodes, has been
+     * registered
+     *
+     * @param sequence the ingest sequence
+     */
+    void synced(long sequence);
+}
@@ -0,0 +1,31 @@
+package com.assignment.aggregator.services;
+
+import com.assignment.aggregator.models.Channel;
+
+/**
+ * Interface for the refresh admission service
+ * <p>
+ * Protects the feeds' publishers from being fetched too often on our clients' behalf: forced refreshes are rate
+ * limited, both per client and overall, and no channel is fetched again before a minimum interval, forced or not.
+ */
+public interface IRefreshAdmissionService
+{
+    /**
+     * Admit a forced refresh requested by a client
+     *
+     * @param clientId the id of the client
+     * @throws com.assignment.aggregator.exceptions.RefreshRateLimitedException if the client, or the clients as a
+     *                                                                          whole, forced too many refreshes lately
+     */
+    void admit(String clientId);
+
+    /**
+     * Reserve the fetch of a channel, whether the refresh is forced or not. Once reserved, no other fetch of the
+     * channel is allowed within the minimum refetch interval, even before the fetch completes
+     *
+     * @param channel the channel
+     * @return <code>true</code> if the fetch is reserved, <code>false</code> if the channel has been fetched, or its
+     * fetch reserved, within the minimum refetch interval
+     */
+    boolean reserveRefetch(Channel channel);
+}
@@ -0,0 +1,77 @@
+package com.assignment.aggregator.services;
+
+/**
+ * Interface for the sequence service
+ * <p>
+ * Sequences are named counters handing out dense, strictly increasing values starting at 1.
+ */
+public interface ISequenceService
+{
+    /**
+     * Name of the sequence numbering the ingested {@link com.assignment.aggregator.models.FeedEntry}s
+     */
+    String FEED_ENTRY_SEQUENCE = "feed_entry";
+
+    /**
+     * Name of the sequence versioning the {@link com.assignment.aggregator.models.Channel} table, advanced by every
+     * channel mutation
+     */
+    String CHANNEL_VERSION_SEQUENCE = "channel_version";
+
+    /**
+     * Allocate a block of consecutive values of a sequence. The sequence is created if it doesn't exist yet
+     *
+     * @param name  the name of the sequence
+     * @param count the number of values to allocate
+     * @return the first value of the allocated block
+     */
+    long allocate(String name, int count);
+
+    /**
+     * Allocate a block of consecutive values of a sequence, and keep them reserved until they are released. Reserved
+     * values hold back the {@link #stable(String) stable value} of the sequence, so they must be released once the
+     * records they number are stored, whether storing them succeeded or not
+     *
+     * @param name  the name of the sequence
+     * @param count the number of values to allocate
+     * @return the first value of the allocated block
+     */
+    long reserve(String name, int count);
+
+    /**
+     * Release a block of values reserved with {@link #reserve(String, int)}
+     *
+     * @param name  the name of the sequence
+     * @param first the first value of the block
+     */
+    void release(String name, long first);
+
+    /**
+     * Advance a sequence by one as part of the caller's transaction. The counter's row stays locked until the
+     * caller's transaction ends, so the new value is never visible before the caller's changes.
+     *
+     * @param name the name of the sequence
+     * @return the value handed out
+     */
+    long increment(String name);
+
+    /**
+     * Get the latest value handed out by a sequence, without allocating any
+     *
+     * @param name the name of the sequence
+     * @return the latest value of the sequence, <code>0</code> if none has been handed out yet
+     */
+    long current(String name);
+
+    /**
+     * Get the highest value of a sequence below which no value is reserved anymore. Unlike the
+     * {@link #current(String) current value}, every record numbered up to the stable value has been stored, so
+     * readers scanning records by sequence up to it don't miss records stored later on with a lower value
+     * <p>
+     * Reservations not released within the reservation timeout (i.e: those of a crashed node) are ignored.
+     *
+     * @param name the name of the sequence
+     * @return the stable value of the sequence, <code>0</code> if none
+     */
+    long stable(String name);
+}
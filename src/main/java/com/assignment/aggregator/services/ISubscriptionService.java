@@ -0,0 +1,68 @@
+package com.assignment.aggregator.services;
+
+import com.assignment.aggregator.models.Subscription;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+import java.util.List;
+
+/**
+ * Interface for the subscription service
+ * <p>
+ * Subscriptions are the tenants' views of {@link com.assignment.aggregator.models.Channel}s. Tenants subscribing to
+ * the same URL share the same channel, which is fetched once for all of them, at the tightest subscribed TTL
+ */
+public interface ISubscriptionService
+{
+    /**
+     * List the subscriptions of a tenant
+     *
+     * @param tenant the tenant whose subscriptions are listed
+     * @return the tenant's subscriptions. Returns an empty list if the tenant has no subscriptions
+     */
+    List<Subscription> list(String tenant);
+
+    /**
+     * Get a subscription based on its id
+     *
+     * @param subscriptionId the id of the subscription to fetch
+     * @return the subscription matching the <code>subscriptionId</code>
+     * @throws com.assignment.aggregator.exceptions.SubscriptionNotFoundException if the subscription is not found
+     */
+    Subscription get(@Positive long subscriptionId);
+
+    /**
+     * Subscribe a tenant to a feed, creating the feed's channel if no tenant has subscribed to it yet
+     *
+     * @param subscription the new subscription. Its TTL defaults to the minimum subscription TTL
+     * @return the new subscription, along with the id of the subscribed channel
+     * @throws com.assignment.aggregator.exceptions.DuplicatedSubscriptionException if the tenant has already
+     *                                                                               subscribed to the feed
+     * @throws com.assignment.aggregator.exceptions.InvalidChannelException         if the URL is not a valid feed
+     * @throws com.assignment.aggregator.exceptions.InvalidSubscriptionTtlException if the TTL is below the minimum
+     */
+    Subscription create(@Valid Subscription subscription);
+
+    /**
+     * Update the name and TTL of a subscription. The subscribed URL can't be modified
+     *
+     * @param subscriptionId the id of the subscription to update
+     * @param name           the new name of the subscription, left as is if blank
+     * @param ttl            the new TTL of the subscription
+     * @return the updated subscription
+     * @throws com.assignment.aggregator.exceptions.SubscriptionNotFoundException   if the subscription is not found
+     * @throws com.assignment.aggregator.exceptions.InvalidSubscriptionTtlException if the TTL is below the minimum
+     */
+    Subscription update(@Positive long subscriptionId, String name, @NotNull @PositiveOrZero Integer ttl);
+
+    /**
+     * Delete a subscription. The subscribed channel is deleted along with its last subscription, unless it was
+     * created through the channel API
+     *
+     * @param subscriptionId the id of the subscription to delete
+     * @throws com.assignment.aggregator.exceptions.SubscriptionNotFoundException if the subscription is not found
+     */
+    void delete(@Positive long subscriptionId);
+}
@@ -0,0 +1,166 @@
+package com.assignment.aggregator.services;
+
+import com.assignment.aggregator.helpers.EventLogger;
+import com.assignment.aggregator.helpers.NearDuplicateIndex;
+import com.assignment.aggregator.helpers.SimHash;
+import com.assignment.aggregator.models.AlternateEntry;
+import com.assignment.aggregator.models.FeedEntry;
+import com.rometools.rome.feed.synd.SyndContent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * SimHash based near-duplicate detection
+ * <p>
+ * Entries are fingerprinted over their title and their first content, and looked up in a {@link NearDuplicateIndex}
+ * of the entries ingested within <code>aggregator.dedup.window</code>. Entries whose fingerprints differ in at most
+ * <code>aggregator.dedup.max-distance</code> bits are near duplicates. Fingerprinting is done before taking the
+ * index's lock, which is only held to look the fingerprints up and add them.
+ * <p>
+ * The index is held by each node and starts empty. Entries ingested by the other nodes are added to it as they are
+ * synchronized, so entries are clustered with the near duplicates ingested anywhere since the node started, short of
+ * those ingested by several nodes within the same synchronization interval.
+ */
+@Service
+public class NearDuplicateService implements INearDuplicateService
+{
+    private static final EventLogger events = EventLogger.of("ingest");
+
+    private final NearDuplicateIndex index;
+
+    /**
+     * Guards the index, which is not safe for concurrent access
+     */
+    private final Lock lock = new ReentrantLock();
+
+    public NearDuplicateService(@Value("${aggregator.dedup.window:PT48H}") Duration window,
+                                @Value("${aggregator.dedup.max-entries:100000}") int maxEntries,
+                                @Value("${aggregator.dedup.max-distance:6}") int maxDistance)
+    {
+        this.index = new NearDuplicateIndex(window, maxEntries, maxDistance);
+    }
+
+    @Override
+    public void cluster(Collection<FeedEntry> entries)
+    {
+        var start = System.nanoTime();
+
+        var fingerprints = entries.stream()
+                                  .mapToLong(NearDuplicateService::fingerprint)
+                                  .toArray();
+
+        var duplicates = 0;
+        lock.lock();
+        try
+        {
+            var now = System.currentTimeMillis();
+            var i = 0;
+            for (var entry : entries)
+            {
+                entry.setCluster(index.add(fingerprints[i++], entry.getSequence(), now));
+                if (entry.getCluster() != entry.getSequence())
+                {
+                    duplicates++;
+                }
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+
+        if (events.isInfoEnabled())
+        {
+            events.info("entries.clustered", "entries", entries.size(), "micros", (System.nanoTime() - start) / 1000, "duplicates", duplicates);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Entries ingested before entries were clustered are remembered as clusters of their own.
+     */
+    @Override
+    public void remember(Collection<FeedEntry> entries)
+    {
+        var fingerprints = entries.stream()
+                                  .mapToLong(NearDuplicateService::fingerprint)
+                                  .toArray();
+
+        lock.lock();
+        try
+        {
+            var now = System.currentTimeMillis();
+            var i = 0;
+            for (var entry : entries)
+            {
+                index.put(fingerprints[i++], entry.getCluster() != 0 ? entry.getCluster() : entry.getSequence(), now);
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The representatives are the given entries themselves, their alternates are set. Entries ingested before entries
+     * were clustered are clusters of their own.
+     */
+    @Override
+    public List<FeedEntry> collapse(Collection<FeedEntry> entries)
+    {
+        var clusters = new LinkedHashMap<Object, List<FeedEntry>>();
+        for (var entry : entries)
+        {
+            var cluster = entry.getCluster() == 0 ? entry : (Object) entry.getCluster();
+            clusters.computeIfAbsent(cluster, c -> new ArrayList<>()).add(entry);
+        }
+
+        return clusters.values().stream()
+                       .map(NearDuplicateService::represent)
+                       .collect(toList());
+    }
+
+    /**
+     * @return the first ingested entry of a cluster, carrying the other entries as its alternates
+     */
+    private static FeedEntry represent(List<FeedEntry> cluster)
+    {
+        if (cluster.size() == 1)
+        {
+            return cluster.get(0);
+        }
+
+        cluster.sort(Comparator.comparingLong(FeedEntry::getSequence));
+
+        return cluster.get(0).setAlternates(cluster.subList(1, cluster.size()).stream()
+                                                   .map(AlternateEntry::new)
+                                                   .collect(toList()));
+    }
+
+    private static long fingerprint(FeedEntry entry)
+    {
+        var text = entry.getContents().stream()
+                        .map(SyndContent::getValue)
+                        .filter(Objects::nonNull)
+                        .findFirst()
+                        .orElse(null);
+
+        return SimHash.fingerprint(entry.getTitle(), text);
+    }
+}
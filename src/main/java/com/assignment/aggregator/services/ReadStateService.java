@@ -0,0 +1,420 @@
+package com.assignment.aggregator.services;
+
+import com.assignment.aggregator.helpers.EventLogger;
+import com.assignment.aggregator.models.FeedEntry;
+import com.assignment.aggregator.models.ReadState;
+import com.assignment.aggregator.repositories.IFeedEntryRepository;
+import com.assignment.aggregator.repositories.IReadStateRepository;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Read state tracking based on Roaring bitmaps
+ * <p>
+ * The sequences of the stored entries are kept in memory as one bitmap per channel plus one bitmap holding all of
+ * them. These bitmaps are built from the stored sequences on first use, and then kept up to date as entries are
+ * ingested and channels deleted. The unread entries of a client are the live sequences that are not set in the
+ * client's read bitmap: only the resulting page of sequences is then loaded from the entry repository.
+ * <p>
+ * Read bitmaps are intersected with the live sequences whenever they are updated, so bits of deleted entries don't
+ * pile up. As sequences are dense, read bitmaps mostly compress into a few runs.
+ * <p>
+ * Entries ingested by other nodes only become live once synchronized. Until then, the bits of the sequences above the
+ * latest synchronized one are kept as they are, so entries read as soon as they were stored are not forgotten.
+ * <p>
+ * Edited entries are given new sequences, and become unread again. Other nodes only learn about the new sequences, the
+ * old ones are dropped from the live bitmaps once found missing from the entry repository when listing unread entries.
+ */
+@Service
+@Transactional
+public class ReadStateService implements IReadStateService
+{
+    private static final Logger logger = LoggerFactory.getLogger(ReadStateService.class);
+
+    private static final EventLogger events = EventLogger.of("request");
+
+    private final IReadStateRepository readStateRepository;
+
+    private final IFeedEntryRepository feedEntryRepository;
+
+    private final IChannelPurgeService channelPurgeService;
+
+    private final ISequenceService sequenceService;
+
+    private final Map<Long, Roaring64Bitmap> liveByChannel = new HashMap<>();
+
+    private final Roaring64Bitmap live = new Roaring64Bitmap();
+
+    /**
+     * Guards the live bitmaps. Bitmaps are not safe for concurrent access, not even for concurrent reads
+     */
+    private final Lock lock = new ReentrantLock();
+
+    private boolean loaded = false;
+
+    /**
+     * Sequence up to which every stored entry is known to the live bitmaps
+     */
+    private long syncedSequence = 0;
+
+    public ReadStateService(IReadStateRepository readStateRepository, IFeedEntryRepository feedEntryRepository, IChannelPurgeService channelPurgeService,
+                            ISequenceService sequenceService)
+    {
+        this.readStateRepository = readStateRepository;
+        this.feedEntryRepository = feedEntryRepository;
+        this.channelPurgeService = channelPurgeService;
+        this.sequenceService = sequenceService;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<FeedEntry> listUnread(String clientId, Collection<Long> channelIds, int limit)
+    {
+        var unread = unread(clientId, channelIds);
+
+        var sequences = new ArrayList<Long>(limit);
+        var iterator = unread.getLongIterator();
+        while (iterator.hasNext() && sequences.size() < limit)
+        {
+            sequences.add(iterator.next());
+        }
+
+        if (sequences.isEmpty())
+        {
+            return List.of();
+        }
+
+        var entries = new ArrayList<>(feedEntryRepository.findAllBySequenceIn(sequences));
+        entries.sort(Comparator.comparingLong(FeedEntry::getSequence));
+
+        if (entries.size() < sequences.size())
+        {
+            forgetMissing(sequences, entries);
+        }
+
+        return entries;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long countUnread(String clientId, Collection<Long> channelIds)
+    {
+        return unread(clientId, channelIds).getLongCardinality();
+    }
+
+    @Override
+    public void markRead(String clientId, Collection<Long> sequences)
+    {
+        var update = new Roaring64Bitmap();
+        sequences.forEach(update::addLong);
+
+        updateReadState(clientId, update);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The range is clamped to the sequences handed out so far before being turned into a bitmap, so its size is
+     * bounded by the number of ingested entries whatever the bounds given by the client.
+     */
+    @Override
+    public void markRead(String clientId, long from, long to)
+    {
+        var update = new Roaring64Bitmap();
+
+        var first = Math.max(from, 1);
+        var last = Math.min(to, sequenceService.current(ISequenceService.FEED_ENTRY_SEQUENCE));
+        if (first <= last)
+        {
+            update.add(first, last + 1);
+        }
+
+        updateReadState(clientId, update);
+    }
+
+    @Override
+    public void register(Collection<FeedEntry> entries)
+    {
+        lock.lock();
+        try
+        {
+            // not loaded yet: the entries will be read from the repository along with the rest
+            if (!loaded)
+            {
+                return;
+            }
+
+            entries.stream()
+                   .filter(e -> e.getSequence() > 0)
+                   .forEach(e -> addLive(e.getChannelId(), e.getSequence()));
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void unregister(Collection<FeedEntry> entries)
+    {
+        lock.lock();
+        try
+        {
+            if (!loaded)
+            {
+                return;
+            }
+
+            entries.stream()
+                   .filter(e -> e.getSequence() > 0)
+                   .forEach(e -> removeLive(e.getChannelId(), e.getSequence()));
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void synced(long sequence)
+    {
+        lock.lock();
+        try
+        {
+            syncedSequence = Math.max(syncedSequence, sequence);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void unregisterChannel(long channelId)
+    {
+        lock.lock();
+        try
+        {
+            var channel = liveByChannel.remove(channelId);
+            if (channel != null)
+            {
+                live.andNot(channel);
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Compute the sequences of the live entries a client hasn't read
+     */
+    private Roaring64Bitmap unread(String clientId, Collection<Long> channelIds)
+    {
+        var unread = new Roaring64Bitmap();
+
+        lock.lock();
+        try
+        {
+            ensureLoaded();
+
+            if (channelIds == null || channelIds.isEmpty())
+            {
+                unread.or(live);
+            }
+            else
+            {
+                channelIds.stream()
+                          .map(liveByChannel::get)
+                          .filter(Objects::nonNull)
+                          .forEach(unread::or);
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+
+        readStateRepository.findById(clientId)
+                           .map(s -> deserialize(s.getBitmap()))
+                           .ifPresent(unread::andNot);
+
+        return unread;
+    }
+
+    /**
+     * Merge a set of sequences into a client's read bitmap, dropping the bits of entries that no longer exist or were
+     * never handed out
+     */
+    private void updateReadState(String clientId, Roaring64Bitmap update)
+    {
+        var readState = readStateRepository.findForUpdate(clientId)
+                                           .orElseGet(() -> new ReadState(clientId, null));
+
+        var read = readState.getBitmap() != null ? deserialize(readState.getBitmap()) : new Roaring64Bitmap();
+        read.or(update);
+
+        var current = sequenceService.current(ISequenceService.FEED_ENTRY_SEQUENCE);
+
+        lock.lock();
+        try
+        {
+            ensureLoaded();
+
+            // entries not synchronized yet may have been ingested by another node
+            var unsynced = new Roaring64Bitmap();
+            var iterator = read.getLongIterator();
+            iterator.advanceIfNeeded(syncedSequence + 1);
+            while (iterator.hasNext())
+            {
+                var sequence = iterator.next();
+                if (sequence > current)
+                {
+                    break;
+                }
+                unsynced.addLong(sequence);
+            }
+
+            read.and(live);
+            read.or(unsynced);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+
+        read.runOptimize();
+        readStateRepository.save(readState.setBitmap(serialize(read)));
+
+        if (events.isInfoEnabled())
+        {
+            events.info("read-state.updated", "clientId", clientId, "readEntries", read.getLongCardinality());
+        }
+    }
+
+    /**
+     * Build the live bitmaps from the stored sequences. Must be called holding the lock
+     */
+    private void ensureLoaded()
+    {
+        if (loaded)
+        {
+            return;
+        }
+
+        // every entry up to the stable sequence is stored, and so is read below
+        syncedSequence = Math.max(syncedSequence, sequenceService.stable(ISequenceService.FEED_ENTRY_SEQUENCE));
+
+        // entries of deleted channels may remain stored until purged
+        var purgedChannelIds = channelPurgeService.pendingChannelIds();
+        var sequences = feedEntryRepository.findSequencesBy();
+        sequences.stream()
+                 .filter(s -> !purgedChannelIds.contains(s.getChannelId()))
+                 .forEach(s -> addLive(s.getChannelId(), s.getSequence()));
+        loaded = true;
+
+        if (logger.isInfoEnabled())
+        {
+            logger.info(MessageFormat.format("Loaded the sequences of {0} entries from {1} channels", sequences.size(), liveByChannel.size()));
+        }
+    }
+
+    /**
+     * Drop the live sequences no stored entry has anymore, such as the former sequences of the entries edited on other
+     * nodes
+     *
+     * @param sequences the listed sequences
+     * @param entries   the entries found for them
+     */
+    private void forgetMissing(List<Long> sequences, List<FeedEntry> entries)
+    {
+        var missing = new Roaring64Bitmap();
+        sequences.forEach(missing::addLong);
+        entries.forEach(e -> missing.removeLong(e.getSequence()));
+
+        lock.lock();
+        try
+        {
+            // the sequences above the synchronized one may belong to entries still being stored
+            missing.forEach(sequence ->
+                            {
+                                if (sequence <= syncedSequence)
+                                {
+                                    live.removeLong(sequence);
+                                    liveByChannel.values().forEach(b -> b.removeLong(sequence));
+                                }
+                            });
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private void addLive(long channelId, long sequence)
+    {
+        liveByChannel.computeIfAbsent(channelId, k -> new Roaring64Bitmap()).addLong(sequence);
+        live.addLong(sequence);
+    }
+
+    private void removeLive(long channelId, long sequence)
+    {
+        var channel = liveByChannel.get(channelId);
+        if (channel != null)
+        {
+            channel.removeLong(sequence);
+        }
+        live.removeLong(sequence);
+    }
+
+    private static byte[] serialize(Roaring64Bitmap bitmap)
+    {
+        try
+        {
+            var bytes = new ByteArrayOutputStream();
+            bitmap.serialize(new DataOutputStream(bytes));
+
+            return bytes.toByteArray();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Roaring64Bitmap deserialize(byte[] bytes)
+    {
+        try
+        {
+            var bitmap = new Roaring64Bitmap();
+            bitmap.deserialize(new DataInputStream(new ByteArrayInputStream(bytes)));
+
+            return bitmap;
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
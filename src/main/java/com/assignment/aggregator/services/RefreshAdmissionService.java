@@ -0,0 +1,110 @@
+package com.assignment.aggregator.services;
+
+import com.assignment.aggregator.exceptions.RefreshRateLimitedException;
+import com.assignment.aggregator.helpers.EventLogger;
+import com.assignment.aggregator.helpers.TokenBucket;
+import com.assignment.aggregator.models.Channel;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+
+/**
+ * Token bucket based refresh admission
+ * <p>
+ * Every client gets a bucket of <code>aggregator.refresh.client-burst</code> forced refreshes, refilled at
+ * <code>aggregator.refresh.client-permits-per-minute</code>, and every forced refresh also takes a permit from a
+ * global bucket sized likewise. Admissions never lock: buckets are lock-free, and the buckets of the clients are held
+ * in a concurrent cache, where idle buckets expire once they would be full again.
+ * <p>
+ * Fetches are reserved when they are dispatched, rather than only checked against the channel's latest refresh time,
+ * which is written once the fetch completes: concurrent refreshes of a channel fetch it once.
+ * <p>
+ * The buckets and the reservations are held by each node, so the global limit applies to every node on its own.
+ * Channels are only fetched by the node holding their lease, so reservations need no sharing.
+ */
+@Service
+public class RefreshAdmissionService implements IRefreshAdmissionService
+{
+    private static final EventLogger events = EventLogger.of("request");
+
+    private final LoadingCache<String, TokenBucket> clientBuckets;
+
+    private final TokenBucket globalBucket;
+
+    private final Duration minInterval;
+
+    /**
+     * Ids of the channels whose fetch was reserved within the minimum refetch interval
+     */
+    private final Cache<Long, Boolean> refetchReservations;
+
+    public RefreshAdmissionService(@Value("${aggregator.refresh.client-permits-per-minute:6}") int clientPermitsPerMinute,
+                                   @Value("${aggregator.refresh.client-burst:3}") int clientBurst,
+                                   @Value("${aggregator.refresh.global-permits-per-minute:60}") int globalPermitsPerMinute,
+                                   @Value("${aggregator.refresh.global-burst:10}") int globalBurst,
+                                   @Value("${aggregator.refresh.min-interval:PT1M}") Duration minInterval)
+    {
+        var clientRefillPeriod = Duration.ofMinutes(1).dividedBy(clientPermitsPerMinute);
+        var clientRefillTime = new TokenBucket(clientRefillPeriod, clientBurst).getRefillTime();
+
+        this.clientBuckets = Caffeine.newBuilder()
+                                     .expireAfterAccess(clientRefillTime)
+                                     .build(clientId -> new TokenBucket(clientRefillPeriod, clientBurst));
+        this.globalBucket = new TokenBucket(Duration.ofMinutes(1).dividedBy(globalPermitsPerMinute), globalBurst);
+        this.minInterval = minInterval;
+        this.refetchReservations = Caffeine.newBuilder()
+                                           .expireAfterWrite(minInterval)
+                                           .build();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The client's bucket is checked first, so a client over its own limit doesn't use up the global one, and its
+     * permit is given back when the global limit is reached, so a client isn't charged for a refused refresh.
+     */
+    @Override
+    public void admit(String clientId)
+    {
+        var clientBucket = clientBuckets.get(clientId);
+
+        var clientWait = clientBucket.tryAcquire();
+        if (!clientWait.isZero())
+        {
+            throw rejection("client", clientId, clientWait);
+        }
+
+        var globalWait = globalBucket.tryAcquire();
+        if (!globalWait.isZero())
+        {
+            clientBucket.refund();
+            throw rejection("global", clientId, globalWait);
+        }
+    }
+
+    @Override
+    public boolean reserveRefetch(Channel channel)
+    {
+        if (channel.getLastRefresh() != null && channel.getLastRefresh().plus(minInterval).isAfter(ZonedDateTime.now()))
+        {
+            return false;
+        }
+
+        return refetchReservations.asMap().putIfAbsent(channel.getId(), Boolean.TRUE) == null;
+    }
+
+    private static RefreshRateLimitedException rejection(String limit, String clientId, Duration retryAfter)
+    {
+        if (events.isInfoEnabled())
+        {
+            events.info("refresh.rejected", "clientId", clientId, "limit", limit);
+        }
+
+        return new RefreshRateLimitedException(limit, retryAfter);
+    }
+}
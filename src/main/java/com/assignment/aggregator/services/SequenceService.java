@@ -0,0 +1,115 @@
+package com.assignment.aggregator.services;
+
+import com.assignment.aggregator.models.SequenceCounter;
+import com.assignment.aggregator.repositories.ISequenceCounterRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+
+@Service
+public class SequenceService implements ISequenceService
+{
+    private final ISequenceCounterRepository sequenceCounterRepository;
+
+    private final Duration reservationTimeout;
+
+    public SequenceService(ISequenceCounterRepository sequenceCounterRepository,
+                           @Value("${aggregator.sequence.reservation-timeout:PT5M}") Duration reservationTimeout)
+    {
+        this.sequenceCounterRepository = sequenceCounterRepository;
+        this.reservationTimeout = reservationTimeout;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Runs in its own transaction so the counter's row lock is released right away instead of being held until the
+     * caller's transaction ends.
+     */
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public long allocate(String name, int count)
+    {
+        if (count <= 0)
+        {
+            throw new IllegalArgumentException("The number of values to allocate must be positive");
+        }
+
+        var counter = sequenceCounterRepository.findForUpdate(name)
+                                               .orElseGet(() -> new SequenceCounter(name, 1));
+
+        var first = counter.getNextValue();
+        sequenceCounterRepository.save(counter.setNextValue(first + count));
+
+        return first;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The block is recorded as reserved in the same transaction as the allocation, so the reservation is visible as
+     * soon as the values are. Expired reservations are cleared along the way.
+     */
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public long reserve(String name, int count)
+    {
+        var first = allocate(name, count);
+
+        var now = ZonedDateTime.now();
+        sequenceCounterRepository.releaseReservedBefore(now.minus(reservationTimeout));
+        sequenceCounterRepository.reserve(name, first, now);
+
+        return first;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void release(String name, long first)
+    {
+        sequenceCounterRepository.release(name, first);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long increment(String name)
+    {
+        var counter = sequenceCounterRepository.findForUpdate(name)
+                                               .orElseGet(() -> new SequenceCounter(name, 1));
+
+        var value = counter.getNextValue();
+        sequenceCounterRepository.save(counter.setNextValue(value + 1));
+
+        return value;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long current(String name)
+    {
+        return sequenceCounterRepository.findById(name)
+                                        .map(c -> c.getNextValue() - 1)
+                                        .orElse(0L);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The current value is read before the reservations: a block allocated up to that value is either still
+     * reserved when the reservations are read, or released, and thus stored.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long stable(String name)
+    {
+        var current = current(name);
+
+        return sequenceCounterRepository.findLowestReserved(name, ZonedDateTime.now().minus(reservationTimeout))
+                                        .map(lowest -> Math.min(current, lowest - 1))
+                                        .orElse(current);
+    }
+}
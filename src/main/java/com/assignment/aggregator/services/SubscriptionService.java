@@ -0,0 +1,178 @@
+package com.assignment.aggregator.services;
+
+import com.assignment.aggregator.exceptions.DuplicatedSubscriptionException;
+import com.assignment.aggregator.exceptions.InvalidSubscriptionTtlException;
+import com.assignment.aggregator.exceptions.SubscriptionNotFoundException;
+import com.assignment.aggregator.models.Channel;
+import com.assignment.aggregator.models.Subscription;
+import com.assignment.aggregator.repositories.IChannelRepository;
+import com.assignment.aggregator.repositories.ISubscriptionRepository;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+import java.text.MessageFormat;
+import java.util.List;
+
+/**
+ * Subscription service, sharing one channel among the tenants subscribed to the same URL
+ * <p>
+ * Whenever its subscriptions change, the effective TTL of a channel is brought back to the tightest of its subscribed
+ * TTLs and of the TTL configured through the channel API, if any, so its feed is fetched as often as the most
+ * demanding tenant needs it and no more. Subscribed TTLs can't go below a minimum, so that no tenant can have a shared
+ * feed fetched on every request.
+ */
+@Service
+@Transactional
+@Validated
+public class SubscriptionService implements ISubscriptionService
+{
+    private static final Logger logger = LoggerFactory.getLogger(SubscriptionService.class);
+
+    private final ISubscriptionRepository subscriptionRepository;
+
+    private final IChannelRepository channelRepository;
+
+    private final IChannelService channelService;
+
+    /**
+     * The lowest TTL a subscription can have, in seconds. Also the TTL of subscriptions created without one
+     */
+    private final int minTtl;
+
+    public SubscriptionService(ISubscriptionRepository subscriptionRepository, IChannelRepository channelRepository, IChannelService channelService,
+                               @Value("${aggregator.subscription.min-ttl:60}") int minTtl)
+    {
+        this.subscriptionRepository = subscriptionRepository;
+        this.channelRepository = channelRepository;
+        this.channelService = channelService;
+        this.minTtl = minTtl;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Subscription> list(String tenant)
+    {
+        return subscriptionRepository.findAllByTenantOrderById(tenant);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Subscription get(@Positive long subscriptionId)
+    {
+        return subscriptionRepository.findById(subscriptionId)
+                                     .orElseThrow(() -> new SubscriptionNotFoundException(subscriptionId));
+    }
+
+    @Override
+    public Subscription create(@Valid Subscription subscription)
+    {
+        if (subscription.getTtl() == null)
+        {
+            subscription.setTtl(minTtl);
+        }
+        checkTtl(subscription.getTtl());
+
+        var channel = channelRepository.findOneByUrl(subscription.getUrl()).orElse(null);
+        if (channel == null)
+        {
+            // the channel service validates the feed and names the channel after its title
+            channel = channelService.create(new Channel(null, subscription.getUrl(), subscription.getTtl()).setOwnedBySubscriptions(true));
+        }
+        else if (subscriptionRepository.existsByTenantAndChannelId(subscription.getTenant(), channel.getId()))
+        {
+            throw new DuplicatedSubscriptionException(subscription.getTenant(), subscription.getUrl());
+        }
+
+        // if no subscription name is provided, use the channel's
+        if (StringUtils.isBlank(subscription.getName()))
+        {
+            subscription.setName(channel.getName());
+        }
+
+        subscription.setChannelId(channel.getId());
+        subscriptionRepository.save(subscription);
+
+        if (logger.isInfoEnabled())
+        {
+            logger.info(MessageFormat.format("Subscribed tenant {0} to channel {1}", subscription.getTenant(), channel.getId()));
+        }
+
+        adjustTtl(channel);
+
+        return subscription;
+    }
+
+    @Override
+    public Subscription update(@Positive long subscriptionId, String name, @NotNull @PositiveOrZero Integer ttl)
+    {
+        checkTtl(ttl);
+
+        var subscription = get(subscriptionId);
+
+        if (StringUtils.isNotBlank(name))
+        {
+            subscription.setName(name);
+        }
+        subscription.setTtl(ttl);
+        subscriptionRepository.save(subscription);
+
+        adjustTtl(channelService.get(subscription.getChannelId()));
+
+        return subscription;
+    }
+
+    @Override
+    public void delete(@Positive long subscriptionId)
+    {
+        var subscription = get(subscriptionId);
+
+        subscriptionRepository.delete(subscription);
+
+        if (logger.isInfoEnabled())
+        {
+            logger.info(MessageFormat.format("Unsubscribed tenant {0} from channel {1}", subscription.getTenant(), subscription.getChannelId()));
+        }
+
+        adjustTtl(channelService.get(subscription.getChannelId()));
+    }
+
+    /**
+     * Reject the TTLs below the minimum subscription TTL
+     *
+     * @param ttl the requested TTL
+     * @throws InvalidSubscriptionTtlException if the TTL is too low
+     */
+    private void checkTtl(int ttl)
+    {
+        if (ttl < minTtl)
+        {
+            throw new InvalidSubscriptionTtlException(ttl, minTtl);
+        }
+    }
+
+    /**
+     * Bring the TTL of a channel in line with its subscriptions, or delete the channel if it was created for
+     * subscriptions and none is left
+     *
+     * @param channel the channel whose subscriptions changed
+     */
+    private void adjustTtl(Channel channel)
+    {
+        if (channel.isOwnedBySubscriptions() && subscriptionRepository.findTightestTtl(channel.getId()).isEmpty())
+        {
+            channelService.delete(channel.getId());
+            return;
+        }
+
+        channelService.adjustTtl(channel.getId());
+    }
+}
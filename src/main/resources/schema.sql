@@ -4,6 +4,106 @@ CREATE TABLE IF NOT EXISTS channel (
     url VARCHAR(2048) UNIQUE NOT NULL,
     ttl INTEGER NOT NULL,
     last_refresh TIMESTAMP NULL DEFAULT NULL,
+    next_refresh_at TIMESTAMP NULL DEFAULT NULL,
     created TIMESTAMP NOT NULL,
     updated TIMESTAMP NULL DEFAULT NULL
 );
+
+-- channels created before the refresh deadline was introduced
+ALTER TABLE channel ADD COLUMN IF NOT EXISTS next_refresh_at TIMESTAMP NULL DEFAULT NULL;
+
+UPDATE channel SET next_refresh_at = COALESCE(DATEADD('SECOND', ttl, last_refresh), created) WHERE next_refresh_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_channel_next_refresh_at ON channel (next_refresh_at);
+
+-- channels created before feed versions were introduced
+ALTER TABLE channel ADD COLUMN IF NOT EXISTS latest_sequence BIGINT NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS sequence_counter (
+    name VARCHAR(255) PRIMARY KEY,
+    next_value BIGINT NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS read_state (
+    client_id VARCHAR(255) PRIMARY KEY,
+    bitmap BLOB NOT NULL,
+    updated TIMESTAMP NOT NULL
+);
+
+INSERT INTO sequence_counter (name, next_value)
+SELECT 'feed_entry', 1 FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM sequence_counter WHERE name = 'feed_entry');
+
+INSERT INTO sequence_counter (name, next_value)
+SELECT 'channel_version', 1 FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM sequence_counter WHERE name = 'channel_version');
+
+CREATE TABLE IF NOT EXISTS channel_purge (
+    channel_id BIGINT PRIMARY KEY,
+    channel_name VARCHAR(255),
+    requested_at TIMESTAMP NOT NULL,
+    purged_entries BIGINT NOT NULL,
+    last_batch_at TIMESTAMP,
+    completed_at TIMESTAMP
+);
+
+-- purges requested before deletions were sequenced
+ALTER TABLE channel_purge ADD COLUMN IF NOT EXISTS sequence BIGINT NOT NULL DEFAULT 0;
+
+CREATE INDEX IF NOT EXISTS idx_channel_purge_sequence ON channel_purge (sequence);
+
+CREATE TABLE IF NOT EXISTS sequence_reservation (
+    name VARCHAR(255) NOT NULL,
+    first_value BIGINT NOT NULL,
+    reserved_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (name, first_value)
+);
+
+CREATE TABLE IF NOT EXISTS cluster_node (
+    node_id VARCHAR(255) PRIMARY KEY,
+    heartbeat_at TIMESTAMP NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS channel_lease (
+    channel_id BIGINT PRIMARY KEY,
+    owner VARCHAR(255) NULL DEFAULT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    FOREIGN KEY (channel_id) REFERENCES channel (id) ON DELETE CASCADE
+);
+
+-- channels created before leases were introduced
+INSERT INTO channel_lease (channel_id, owner, expires_at)
+SELECT id, NULL, created FROM channel WHERE id NOT IN (SELECT channel_id FROM channel_lease);
+
+-- background tasks run by a single node at a time
+CREATE TABLE IF NOT EXISTS cluster_task (
+    name VARCHAR(255) PRIMARY KEY,
+    owner VARCHAR(255) NULL DEFAULT NULL,
+    expires_at TIMESTAMP NOT NULL
+);
+
+INSERT INTO cluster_task (name, owner, expires_at)
+SELECT 'purge', NULL, CURRENT_TIMESTAMP WHERE NOT EXISTS (SELECT name FROM cluster_task WHERE name = 'purge');
+
+-- channels created through the channel API are kept when their last subscription goes
+ALTER TABLE channel ADD COLUMN IF NOT EXISTS owned_by_subscriptions BOOLEAN NOT NULL DEFAULT FALSE;
+
+-- the TTL configured through the channel API, the ttl column holding the effective one
+ALTER TABLE channel ADD COLUMN IF NOT EXISTS configured_ttl INTEGER NULL DEFAULT NULL;
+UPDATE channel SET configured_ttl = ttl WHERE configured_ttl IS NULL AND owned_by_subscriptions = FALSE;
+
+CREATE TABLE IF NOT EXISTS subscription (
+    id LONG AUTO_INCREMENT PRIMARY KEY,
+    tenant VARCHAR(255) NOT NULL,
+    channel_id BIGINT NOT NULL,
+    name VARCHAR(255) NOT NULL,
+    url VARCHAR(2048) NOT NULL,
+    ttl INTEGER NOT NULL,
+    created TIMESTAMP NOT NULL,
+    updated TIMESTAMP NULL DEFAULT NULL,
+    UNIQUE (tenant, channel_id),
+    FOREIGN KEY (channel_id) REFERENCES channel (id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_subscription_channel_id ON subscription (channel_id);
+
+-- rules deciding which entries of a channel are ingested, as a JSON document
+ALTER TABLE channel ADD COLUMN IF NOT EXISTS filters CLOB NULL DEFAULT NULL;
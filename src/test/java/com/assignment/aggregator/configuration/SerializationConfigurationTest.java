@@ -0,0 +1,99 @@
+package com.assignment.aggregator.configuration;
+
+import com.assignment.aggregator.AbstractSpringTest;
+import com.assignment.aggregator.models.FeedEntry;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rometools.rome.feed.synd.SyndContentImpl;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.text.MessageFormat;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the size and the serialization time of 10k entries in every supported format. Timings are only logged,
+ * as they depend on the machine running the tests
+ */
+class SerializationConfigurationTest extends AbstractSpringTest
+{
+    private static final Logger logger = LoggerFactory.getLogger(SerializationConfigurationTest.class);
+
+    private static final int ENTRIES = 10_000;
+
+    private static final int ROUNDS = 5;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborConverter;
+
+    @Autowired
+    private MappingJackson2SmileHttpMessageConverter smileConverter;
+
+    @Test
+    @DisplayName("Binary formats must hold the same entries as JSON in fewer bytes")
+    void binaryFormats() throws Exception
+    {
+        var entries = entries();
+
+        var json = serialize("json", objectMapper, entries);
+        var cbor = serialize("cbor", cborConverter.getObjectMapper(), entries);
+        var smile = serialize("smile", smileConverter.getObjectMapper(), entries);
+
+        assertAll(
+                () -> assertTrue(cbor.length < json.length),
+                () -> assertTrue(smile.length < json.length),
+                () -> assertEquals(objectMapper.readTree(json), cborConverter.getObjectMapper().readTree(cbor)),
+                () -> assertEquals(objectMapper.readTree(json), smileConverter.getObjectMapper().readTree(smile)));
+    }
+
+    private static byte[] serialize(String format, ObjectMapper mapper, List<FeedEntry> entries) throws JsonProcessingException
+    {
+        // the first rounds warm the serializers up
+        var bytes = mapper.writeValueAsBytes(entries);
+        var start = System.nanoTime();
+        for (var i = 0; i < ROUNDS; i++)
+        {
+            bytes = mapper.writeValueAsBytes(entries);
+        }
+        var elapsed = (System.nanoTime() - start) / ROUNDS / 1_000_000;
+
+        logger.info(MessageFormat.format("{0}: {1} bytes, {2} ms per {3} entries", format, bytes.length, elapsed, ENTRIES));
+
+        return bytes;
+    }
+
+    private static List<FeedEntry> entries()
+    {
+        var now = Instant.now();
+
+        return IntStream.range(0, ENTRIES)
+                        .mapToObj(i -> {
+                            var content = new SyndContentImpl();
+                            content.setType("text/html");
+                            content.setValue("<p>Contents of the entry number " + i + ", <a href=\"https://example.com/" + i + "\">read more</a></p>");
+
+                            return new FeedEntry().setId(String.valueOf(i))
+                                                  .setChannelId(i % 10)
+                                                  .setSequence(i)
+                                                  .setLink("https://example.com/" + i)
+                                                  .setTitle("Title of the entry number " + i)
+                                                  .setPublicationDate(now.minusSeconds(i))
+                                                  .setAuthors(List.of("author"))
+                                                  .setContents(List.of(content));
+                        })
+                        .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,64 @@
+package com.assignment.aggregator.controllers;
+
+import com.assignment.aggregator.models.ChannelPurge;
+import com.assignment.aggregator.services.IChannelPurgeService;
+import com.assignment.aggregator.services.IFeedSearchService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class AdminControllerTest extends AbstractControllerTest
+{
+    @MockBean
+    private IChannelPurgeService service;
+
+    @MockBean
+    private IFeedSearchService searchService;
+
+    @Test
+    public void testContext()
+    {
+        Assertions.assertNotNull(context.getBean("adminController"));
+    }
+
+    @Test
+    void listPurges() throws Exception
+    {
+        when(service.list()).thenReturn(List.of(new ChannelPurge(1L, "name").setPurgedEntries(500)));
+
+        var result = mockMvc.perform(get("/admin/purges"))
+                            .andDo(print())
+                            .andExpect(status().isOk())
+                            .andExpect(jsonPath("$", hasSize(1)))
+                            .andExpect(jsonPath("$[0].channelId").value(1))
+                            .andExpect(jsonPath("$[0].purgedEntries").value(500))
+                            .andExpect(jsonPath("$[0].completed").value(false))
+                            .andReturn();
+
+        assertJsonResponse(result);
+
+        verify(service, times(1)).list();
+        verifyNoMoreInteractions(service);
+    }
+
+    @Test
+    void rebuildSearchIndex() throws Exception
+    {
+        mockMvc.perform(post("/admin/search/rebuild"))
+               .andDo(print())
+               .andExpect(status().isAccepted());
+
+        verify(searchService, times(1)).rebuild();
+        verifyNoMoreInteractions(searchService);
+    }
+}
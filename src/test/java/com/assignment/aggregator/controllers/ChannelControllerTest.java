@@ -3,14 +3,16 @@ package com.assignment.aggregator.controllers;
 import com.assignment.aggregator.dto.ChannelDTO;
 import com.assignment.aggregator.exceptions.ChannelNotFoundException;
 import com.assignment.aggregator.exceptions.DuplicatedChannelException;
-import com.assignment.aggregator.mappers.IMapper;
+import com.assignment.aggregator.mappers.IEntityMapper;
 import com.assignment.aggregator.models.Channel;
 import com.assignment.aggregator.services.IChannelService;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentMatchers;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockServletContext;
 
@@ -33,7 +35,7 @@ class ChannelControllerTest extends AbstractControllerTest
     private IChannelService service;
 
     @MockBean
-    private IMapper<Channel, ChannelDTO> mapper;
+    private IEntityMapper<Channel, ChannelDTO> mapper;
 
     @Test
     public void testContext()
@@ -64,6 +66,7 @@ class ChannelControllerTest extends AbstractControllerTest
 
             assertJsonResponse(result);
 
+            verify(service, times(1)).version();
             verify(service, times(1)).list();
             verifyNoMoreInteractions(service);
         }
@@ -89,9 +92,63 @@ class ChannelControllerTest extends AbstractControllerTest
 
             assertJsonResponse(result);
 
+            verify(service, times(1)).version();
             verify(service, times(1)).list();
             verifyNoMoreInteractions(service);
         }
+
+        @Test
+        void getChannelList_Smile() throws Exception
+        {
+            var channel = new Channel("name", "url", 0);
+            channel.setId(1L);
+
+            when(service.list()).thenReturn(List.of(channel));
+
+            var result = mockMvc.perform(get("/channel/")
+                                                 .accept("application/x-jackson-smile"))
+                                .andDo(print())
+                                .andExpect(status().isOk())
+                                .andReturn();
+
+            Assertions.assertEquals("application/x-jackson-smile", result.getResponse().getContentType());
+
+            var channels = new SmileMapper().readTree(result.getResponse().getContentAsByteArray());
+            Assertions.assertEquals(1, channels.size());
+            Assertions.assertEquals(channel.getName(), channels.get(0).get("name").asText());
+        }
+
+        @Test
+        void getChannelList_NotModified() throws Exception
+        {
+            when(service.version()).thenReturn(7L);
+
+            mockMvc.perform(get("/channel/")
+                                    .header(HttpHeaders.IF_NONE_MATCH, "\"channels-7\""))
+                   .andDo(print())
+                   .andExpect(status().isNotModified())
+                   .andExpect(header().string(HttpHeaders.ETAG, "\"channels-7\""));
+
+            // answered without reading any channel
+            verify(service, times(1)).version();
+            verifyNoMoreInteractions(service);
+        }
+
+        @Test
+        void getChannelList_Modified() throws Exception
+        {
+            when(service.version()).thenReturn(8L);
+            when(service.list()).thenReturn(List.of());
+
+            mockMvc.perform(get("/channel/")
+                                    .header(HttpHeaders.IF_NONE_MATCH, "\"channels-7\""))
+                   .andDo(print())
+                   .andExpect(status().isOk())
+                   .andExpect(header().string(HttpHeaders.ETAG, "\"channels-8\""))
+                   .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"));
+
+            verify(service, times(1)).list();
+        }
     }
 
     @Nested
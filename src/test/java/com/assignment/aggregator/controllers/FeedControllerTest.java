@@ -1,21 +1,54 @@
 package com.assignment.aggregator.controllers;
 
+import com.assignment.aggregator.exceptions.InvalidChannelException;
+import com.assignment.aggregator.exceptions.RefreshRateLimitedException;
+import com.assignment.aggregator.models.AlternateEntry;
+import com.assignment.aggregator.models.ContentVersion;
+import com.assignment.aggregator.models.FeedChanges;
+import com.assignment.aggregator.models.FeedDocument;
 import com.assignment.aggregator.models.FeedEntry;
+import com.assignment.aggregator.models.Subscription;
+import com.assignment.aggregator.models.SyndicationFormat;
+import com.assignment.aggregator.services.IFeedSearchService;
 import com.assignment.aggregator.services.IFeedService;
+import com.assignment.aggregator.services.IFeedStreamService;
+import com.assignment.aggregator.services.IFeedSyndicationService;
+import com.assignment.aggregator.services.INearDuplicateService;
+import com.assignment.aggregator.services.IRefreshAdmissionService;
+import com.assignment.aggregator.services.ISubscriptionService;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import javax.servlet.ServletContext;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 class FeedControllerTest extends AbstractControllerTest
@@ -24,6 +57,24 @@ class FeedControllerTest extends AbstractControllerTest
     @MockBean
     private IFeedService service;
 
+    @MockBean
+    private IFeedStreamService streamService;
+
+    @MockBean
+    private IFeedSearchService searchService;
+
+    @MockBean
+    private IFeedSyndicationService syndicationService;
+
+    @MockBean
+    private IRefreshAdmissionService refreshAdmissionService;
+
+    @MockBean
+    private ISubscriptionService subscriptionService;
+
+    @MockBean
+    private INearDuplicateService nearDuplicateService;
+
     @Test
     public void testContext()
     {
@@ -35,6 +86,18 @@ class FeedControllerTest extends AbstractControllerTest
         Assertions.assertNotNull(context.getBean("feedController"));
     }
 
+    /**
+     * Perform a request handled asynchronously, and dispatch its result
+     */
+    private ResultActions performAsync(MockHttpServletRequestBuilder builder) throws Exception
+    {
+        var asyncResult = mockMvc.perform(builder)
+                                 .andExpect(request().asyncStarted())
+                                 .andReturn();
+
+        return mockMvc.perform(asyncDispatch(asyncResult));
+    }
+
     @Nested
     class TestFetch
     {
@@ -45,19 +108,19 @@ class FeedControllerTest extends AbstractControllerTest
 
             var channelId = 1L;
 
-            when(service.fetch(anyLong(), anyBoolean())).thenReturn(List.of());
+            doReturn(CompletableFuture.completedFuture(List.of())).when(service).fetchAsync(anyLong(), anyBoolean(), anySet());
 
-            var result = mockMvc.perform(get("/feed/channel/{channelId}", channelId)
-                                                 .param("forceRefresh", Boolean.TRUE.toString()))
-                                .andDo(print())
-                                .andExpect(status().isOk())
-                                .andExpect(jsonPath("$").isArray())
-                                .andExpect(jsonPath("$", hasSize(0)))
-                                .andReturn();
+            var result = performAsync(get("/feed/channel/{channelId}", channelId)
+                                              .param("forceRefresh", Boolean.TRUE.toString()))
+                         .andDo(print())
+                         .andExpect(status().isOk())
+                         .andExpect(jsonPath("$").isArray())
+                         .andExpect(jsonPath("$", hasSize(0)))
+                         .andReturn();
 
             assertJsonResponse(result);
 
-            verify(service, times(1)).fetch(channelId, true);
+            verify(service, times(1)).fetchAsync(channelId, true, Set.of());
             verifyNoMoreInteractions(service);
         }
 
@@ -66,21 +129,205 @@ class FeedControllerTest extends AbstractControllerTest
         {
             var channelId = 1L;
 
-            when(service.fetch(anyLong(), anyBoolean())).thenReturn(List.of(new FeedEntry()));
+            doReturn(CompletableFuture.completedFuture(List.of(new FeedEntry()))).when(service).fetchAsync(anyLong(), anyBoolean(), anySet());
 
-            var result = mockMvc.perform(get("/feed/channel/{channelId}", channelId)
-                                                 .param("forceRefresh", Boolean.TRUE.toString()))
-                                .andDo(print())
-                                .andExpect(status().isOk())
-                                .andExpect(jsonPath("$").isArray())
-                                .andExpect(jsonPath("$", hasSize(1)))
-                                .andReturn();
+            var result = performAsync(get("/feed/channel/{channelId}", channelId)
+                                              .param("forceRefresh", Boolean.TRUE.toString()))
+                         .andDo(print())
+                         .andExpect(status().isOk())
+                         .andExpect(jsonPath("$").isArray())
+                         .andExpect(jsonPath("$", hasSize(1)))
+                         .andReturn();
 
             assertJsonResponse(result);
 
-            verify(service, times(1)).fetch(channelId, true);
+            verify(service, times(1)).fetchAsync(channelId, true, Set.of());
             verifyNoMoreInteractions(service);
         }
+
+        @Test
+        void fetch_Cbor() throws Exception
+        {
+            var channelId = 1L;
+
+            doReturn(CompletableFuture.completedFuture(List.of(new FeedEntry().setLink("url1")))).when(service).fetchAsync(anyLong(), anyBoolean(), anySet());
+
+            var result = performAsync(get("/feed/channel/{channelId}", channelId)
+                                              .param("forceRefresh", Boolean.TRUE.toString())
+                                              .accept(MediaType.APPLICATION_CBOR))
+                         .andDo(print())
+                         .andExpect(status().isOk())
+                         .andReturn();
+
+            Assertions.assertEquals(MediaType.APPLICATION_CBOR_VALUE, result.getResponse().getContentType());
+
+            var entries = new CBORMapper().readTree(result.getResponse().getContentAsByteArray());
+            Assertions.assertEquals(1, entries.size());
+            Assertions.assertEquals("url1", entries.get(0).get("link").asText());
+        }
+
+        @Test
+        void fetch_ReleasesRequestThread() throws Exception
+        {
+            var channelId = 1L;
+            var entries = new CompletableFuture<List<FeedEntry>>();
+
+            doReturn(entries).when(service).fetchAsync(anyLong(), anyBoolean(), anySet());
+
+            // the request is started while the feed is still being fetched
+            var asyncResult = mockMvc.perform(get("/feed/channel/{channelId}", channelId)
+                                                      .param("forceRefresh", Boolean.TRUE.toString()))
+                                     .andExpect(request().asyncStarted())
+                                     .andReturn();
+
+            entries.complete(List.of(new FeedEntry().setLink("url1")));
+
+            mockMvc.perform(asyncDispatch(asyncResult))
+                   .andDo(print())
+                   .andExpect(status().isOk())
+                   .andExpect(jsonPath("$[0].link").value("url1"));
+        }
+
+        @Test
+        void fetch_Failed() throws Exception
+        {
+            doReturn(CompletableFuture.failedFuture(new InvalidChannelException("url"))).when(service).fetchAsync(anyLong(), anyBoolean(), anySet());
+
+            performAsync(get("/feed/channel/{channelId}", 1L)
+                                 .param("forceRefresh", Boolean.TRUE.toString()))
+                    .andDo(print())
+                    .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        void fetch_ForcedRefreshRateLimited() throws Exception
+        {
+            doThrow(new RefreshRateLimitedException("client", Duration.ofMillis(2500))).when(refreshAdmissionService).admit(anyString());
+
+            mockMvc.perform(get("/feed/channel/{channelId}", 1L)
+                                    .param("forceRefresh", Boolean.TRUE.toString()))
+                   .andDo(print())
+                   .andExpect(status().isTooManyRequests())
+                   .andExpect(header().string(HttpHeaders.RETRY_AFTER, "3"));
+
+            verify(refreshAdmissionService, times(1)).admit("127.0.0.1");
+            verifyNoInteractions(service);
+        }
+
+        @Test
+        void fetch_NotForcedIsNotRateLimited() throws Exception
+        {
+            doReturn(CompletableFuture.completedFuture(List.of())).when(service).fetchAsync(anyLong(), anyBoolean(), anySet());
+
+            performAsync(get("/feed/channel/{channelId}", 1L))
+                    .andDo(print())
+                    .andExpect(status().isOk());
+
+            verifyNoInteractions(refreshAdmissionService);
+        }
+
+        @Test
+        void fetch_Subscription() throws Exception
+        {
+            when(subscriptionService.get(5L)).thenReturn(new Subscription("tenant", "name", "url", 60).setId(5L).setChannelId(1L));
+            doReturn(CompletableFuture.completedFuture(List.of(new FeedEntry().setLink("url1").setChannelId(1L)))).when(service).fetchAsync(anyLong(), anyBoolean(), anySet());
+
+            performAsync(get("/feed/subscription/{id}", 5L))
+                    .andDo(print())
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].link").value("url1"));
+
+            // the entries are those of the subscribed channel
+            verify(service, times(1)).fetchAsync(1L, false, Set.of());
+        }
+
+        @Test
+        void fetch_NotModified() throws Exception
+        {
+            var channelId = 1L;
+
+            when(service.version(channelId)).thenReturn(Optional.of(new ContentVersion("channel-1-10", Duration.ofMinutes(1))));
+
+            mockMvc.perform(get("/feed/channel/{channelId}", channelId)
+                                    .header(HttpHeaders.IF_NONE_MATCH, "\"channel-1-10\""))
+                   .andDo(print())
+                   .andExpect(status().isNotModified())
+                   .andExpect(header().string(HttpHeaders.ETAG, "\"channel-1-10\""))
+                   .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=60, public"));
+
+            // answered without reading any entry
+            verify(service, times(1)).version(channelId);
+            verifyNoMoreInteractions(service);
+        }
+
+        @Test
+        void fetch_CachedUntilTTLExpires() throws Exception
+        {
+            var channelId = 1L;
+
+            when(service.version(channelId)).thenReturn(Optional.of(new ContentVersion("channel-1-11", Duration.ofMinutes(1))));
+            doReturn(CompletableFuture.completedFuture(List.of(new FeedEntry()))).when(service).fetchAsync(anyLong(), anyBoolean(), anySet());
+
+            performAsync(get("/feed/channel/{channelId}", channelId)
+                                 .header(HttpHeaders.IF_NONE_MATCH, "\"channel-1-10\""))
+            .andDo(print())
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(header().string(HttpHeaders.ETAG, "\"channel-1-11\""))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=60, public"));
+
+            verify(service, times(1)).fetchAsync(channelId, false, Set.of());
+        }
+
+        @Test
+        void fetch_Fields() throws Exception
+        {
+            var channelId = 1L;
+
+            when(service.version(channelId)).thenReturn(Optional.of(new ContentVersion("channel-1-10", Duration.ofMinutes(1))));
+            doReturn(CompletableFuture.completedFuture(List.of(new FeedEntry().setLink("url1").setTitle("title1").setAuthors(List.of("author"))))).when(service).fetchAsync(anyLong(), anyBoolean(), anySet());
+
+            performAsync(get("/feed/channel/{channelId}", channelId)
+                                 .param("fields", "title,link"))
+            .andDo(print())
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].link").value("url1"))
+            .andExpect(jsonPath("$[0].title").value("title1"))
+            .andExpect(jsonPath("$[0].authors").doesNotExist())
+            .andExpect(jsonPath("$[0].contents").doesNotExist())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"channel-1-10-link.title\""));
+
+            verify(service, times(1)).fetchAsync(channelId, false, Set.of("title", "link"));
+        }
+
+        @Test
+        void fetch_UnknownField() throws Exception
+        {
+            mockMvc.perform(get("/feed/channel/{channelId}", 1L)
+                                    .param("fields", "title,password"))
+                   .andDo(print())
+                   .andExpect(status().isBadRequest());
+
+            verifyNoInteractions(service);
+        }
+
+        @Test
+        void fetch_DueChannelIsNotCached() throws Exception
+        {
+            var channelId = 1L;
+
+            when(service.version(channelId)).thenReturn(Optional.empty());
+            doReturn(CompletableFuture.completedFuture(List.of())).when(service).fetchAsync(anyLong(), anyBoolean(), anySet());
+
+            performAsync(get("/feed/channel/{channelId}", channelId)
+                                 .header(HttpHeaders.IF_NONE_MATCH, "\"channel-1-10\""))
+            .andDo(print())
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(HttpHeaders.ETAG))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"));
+
+            verify(service, times(1)).fetchAsync(channelId, false, Set.of());
+        }
     }
 
     @Nested
@@ -89,39 +336,442 @@ class FeedControllerTest extends AbstractControllerTest
         @Test
         void aggregate_NoResponse() throws Exception
         {
-            when(service.aggregate(anyBoolean())).thenReturn(List.of());
+            doReturn(CompletableFuture.completedFuture(List.of())).when(service).aggregateAsync(anyBoolean(), anySet());
+
+            var result = performAsync(get("/feed/aggregate/")
+                                              .param("forceRefresh", Boolean.TRUE.toString()))
+                         .andDo(print())
+                         .andExpect(status().isOk())
+                         .andExpect(jsonPath("$").isArray())
+                         .andExpect(jsonPath("$", hasSize(0)))
+                         .andReturn();
 
-            var result = mockMvc.perform(get("/feed/aggregate/")
-                                                 .param("forceRefresh", Boolean.TRUE.toString()))
+            assertJsonResponse(result);
+
+            verify(service, times(1)).aggregateAsync(true, Set.of());
+            verifyNoMoreInteractions(service);
+        }
+
+        @Test
+        void aggregate_ReturnsList() throws Exception
+        {
+            doReturn(CompletableFuture.completedFuture(List.of(new FeedEntry()))).when(service).aggregateAsync(anyBoolean(), anySet());
+
+            var result = performAsync(get("/feed/aggregate/")
+                                              .param("forceRefresh", Boolean.TRUE.toString()))
+                         .andDo(print())
+                         .andExpect(status().isOk())
+                         .andExpect(jsonPath("$").isArray())
+                         .andExpect(jsonPath("$", hasSize(1)))
+                         .andReturn();
+
+            assertJsonResponse(result);
+
+            verify(service, times(1)).aggregateAsync(true, Set.of());
+            verifyNoMoreInteractions(service);
+        }
+
+        @Test
+        void aggregate_NotModified() throws Exception
+        {
+            when(service.aggregateVersion()).thenReturn(Optional.of(new ContentVersion("aggregate-3-100", Duration.ofSeconds(30))));
+
+            mockMvc.perform(get("/feed/aggregate/")
+                                    .header(HttpHeaders.IF_NONE_MATCH, "\"aggregate-3-100\""))
+                   .andDo(print())
+                   .andExpect(status().isNotModified())
+                   .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=30, public"));
+
+            verify(service, times(1)).aggregateVersion();
+            verifyNoMoreInteractions(service);
+        }
+
+        @Test
+        void aggregate_ForcedRefreshIsNotConditional() throws Exception
+        {
+            doReturn(CompletableFuture.completedFuture(List.of())).when(service).aggregateAsync(anyBoolean(), anySet());
+
+            performAsync(get("/feed/aggregate/")
+                                 .param("forceRefresh", Boolean.TRUE.toString())
+                                 .header(HttpHeaders.IF_NONE_MATCH, "\"aggregate-3-100\""))
+            .andDo(print())
+            .andExpect(status().isOk());
+
+            verify(service, never()).aggregateVersion();
+        }
+
+        @Test
+        void aggregate_StreamsNdjson() throws Exception
+        {
+            doAnswer(i ->
+                     {
+                         Consumer<Collection<FeedEntry>> sink = i.getArgument(1);
+                         sink.accept(List.of(new FeedEntry().setLink("url11"), new FeedEntry().setLink("url12")));
+                         sink.accept(List.of());
+                         sink.accept(List.of(new FeedEntry().setLink("url21")));
+                         return null;
+                     }).when(service).aggregate(anyBoolean(), any(Consumer.class));
+
+            var asyncResult = mockMvc.perform(get("/feed/aggregate/")
+                                                      .accept(MediaType.APPLICATION_NDJSON)
+                                                      .param("forceRefresh", Boolean.TRUE.toString()))
+                                     .andExpect(request().asyncStarted())
+                                     .andReturn();
+
+            var result = mockMvc.perform(asyncDispatch(asyncResult))
                                 .andDo(print())
                                 .andExpect(status().isOk())
-                                .andExpect(jsonPath("$").isArray())
-                                .andExpect(jsonPath("$", hasSize(0)))
                                 .andReturn();
 
-            assertJsonResponse(result);
+            Assertions.assertEquals(MediaType.APPLICATION_NDJSON_VALUE, result.getResponse().getContentType());
 
-            verify(service, times(1)).aggregate(true);
+            var lines = result.getResponse().getContentAsString().split("\n");
+            Assertions.assertEquals(3, lines.length);
+            Assertions.assertEquals("url11", objectMapper.readTree(lines[0]).get("link").asText());
+            Assertions.assertEquals("url21", objectMapper.readTree(lines[2]).get("link").asText());
+
+            verify(service, times(1)).aggregate(eq(true), any(Consumer.class));
             verifyNoMoreInteractions(service);
         }
 
         @Test
-        void aggregate_ReturnsList() throws Exception
+        void aggregate_StreamsNdjsonFields() throws Exception
+        {
+            doAnswer(i ->
+                     {
+                         Consumer<Collection<FeedEntry>> sink = i.getArgument(1);
+                         sink.accept(List.of(new FeedEntry().setLink("url11").setTitle("title11")));
+                         return null;
+                     }).when(service).aggregate(anyBoolean(), any(Consumer.class));
+
+            var asyncResult = mockMvc.perform(get("/feed/aggregate/")
+                                                      .accept(MediaType.APPLICATION_NDJSON)
+                                                      .param("fields", "link"))
+                                     .andExpect(request().asyncStarted())
+                                     .andReturn();
+
+            var result = mockMvc.perform(asyncDispatch(asyncResult))
+                                .andDo(print())
+                                .andExpect(status().isOk())
+                                .andReturn();
+
+            var entry = objectMapper.readTree(result.getResponse().getContentAsString().split("\n")[0]);
+            Assertions.assertEquals("url11", entry.get("link").asText());
+            Assertions.assertEquals(1, entry.size());
+        }
+
+        @Test
+        void aggregate_SortedTimeline() throws Exception
+        {
+            when(service.timelineAsync(anyBoolean(), anyInt())).thenReturn(CompletableFuture.completedFuture(List.of(new FeedEntry().setLink("url1"), new FeedEntry().setLink("url2"))));
+
+            performAsync(get("/feed/aggregate/")
+                                 .param("forceRefresh", Boolean.TRUE.toString())
+                                 .param("sort", "publicationDate")
+                                 .param("limit", "2"))
+            .andDo(print())
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$[0].link").value("url1"));
+
+            verify(service, times(1)).timelineAsync(true, 2);
+            verifyNoMoreInteractions(service);
+        }
+
+        @Test
+        void aggregate_SortedTimelineDefaultLimit() throws Exception
+        {
+            when(service.timelineAsync(anyBoolean(), anyInt())).thenReturn(CompletableFuture.completedFuture(List.of()));
+
+            performAsync(get("/feed/aggregate/")
+                                 .param("forceRefresh", Boolean.TRUE.toString())
+                                 .param("sort", "publicationDate"))
+            .andDo(print())
+            .andExpect(status().isOk());
+
+            verify(service, times(1)).timelineAsync(true, 100);
+            verifyNoMoreInteractions(service);
+        }
+
+        @Test
+        void aggregate_Collapsed() throws Exception
+        {
+            var representative = new FeedEntry().setLink("url1").setSequence(1).setCluster(1);
+            var duplicate = new FeedEntry().setId("2").setChannelId(2).setLink("url2").setSequence(2).setCluster(1);
+
+            when(service.aggregateVersion()).thenReturn(Optional.of(new ContentVersion("aggregate-3-100", Duration.ofSeconds(30))));
+            doReturn(CompletableFuture.completedFuture(List.of(representative, duplicate))).when(service).aggregateAsync(anyBoolean(), anySet());
+            when(nearDuplicateService.collapse(anyCollection())).thenReturn(List.of(representative.setAlternates(List.of(new AlternateEntry(duplicate)))));
+
+            performAsync(get("/feed/aggregate/")
+                                 .param("fields", "link")
+                                 .param("collapse", Boolean.TRUE.toString()))
+            .andDo(print())
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"aggregate-3-100-alternates.link-collapsed\""))
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$[0].link").value("url1"))
+            .andExpect(jsonPath("$[0].sequence").doesNotExist())
+            .andExpect(jsonPath("$[0].alternates[0].link").value("url2"))
+            .andExpect(jsonPath("$[0].alternates[0].channelId").value(2));
+
+            // the entries are read along with what they are clustered by
+            verify(service, times(1)).aggregateAsync(false, Set.of("link", "sequence", "cluster"));
+            verify(nearDuplicateService, times(1)).collapse(List.of(representative, duplicate));
+        }
+
+        @Test
+        void aggregate_NotCollapsedByDefault() throws Exception
+        {
+            doReturn(CompletableFuture.completedFuture(List.of())).when(service).aggregateAsync(anyBoolean(), anySet());
+
+            performAsync(get("/feed/aggregate/")
+                                 .param("fields", "link"))
+            .andDo(print())
+            .andExpect(status().isOk());
+
+            verify(service, times(1)).aggregateAsync(false, Set.of("link"));
+            verifyNoInteractions(nearDuplicateService);
+        }
+
+        @Test
+        void aggregate_UnsupportedSort() throws Exception
+        {
+            mockMvc.perform(get("/feed/aggregate/")
+                                    .param("sort", "title"))
+                   .andDo(print())
+                   .andExpect(status().isBadRequest());
+
+            verifyNoInteractions(service);
+        }
+
+        @Test
+        void aggregate_LimitTooHigh() throws Exception
+        {
+            mockMvc.perform(get("/feed/aggregate/")
+                                    .param("limit", "1001"))
+                   .andDo(print())
+                   .andExpect(status().isBadRequest());
+
+            verifyNoInteractions(service);
+        }
+    }
+
+    @Nested
+    class TestStream
+    {
+        @Test
+        void stream_Subscribes() throws Exception
         {
-            when(service.aggregate(anyBoolean())).thenReturn(List.of(new FeedEntry()));
+            when(streamService.subscribe(any(), any())).thenReturn(new SseEmitter());
+
+            mockMvc.perform(get("/feed/stream")
+                                    .accept(MediaType.TEXT_EVENT_STREAM)
+                                    .param("channelIds", "1", "2")
+                                    .header("Last-Event-ID", "10"))
+                   .andExpect(status().isOk())
+                   .andExpect(request().asyncStarted());
+
+            verify(streamService, times(1)).subscribe(Set.of(1L, 2L), 10L);
+            verifyNoMoreInteractions(streamService);
+        }
+
+        @Test
+        void stream_NewSubscriber() throws Exception
+        {
+            when(streamService.subscribe(any(), any())).thenReturn(new SseEmitter());
+
+            mockMvc.perform(get("/feed/stream")
+                                    .accept(MediaType.TEXT_EVENT_STREAM))
+                   .andExpect(status().isOk())
+                   .andExpect(request().asyncStarted());
+
+            verify(streamService, times(1)).subscribe(null, null);
+            verifyNoMoreInteractions(streamService);
+        }
+    }
+
+    @Nested
+    class TestSearch
+    {
+        @Test
+        void search() throws Exception
+        {
+            var from = Instant.parse("2021-01-01T00:00:00Z");
+            var pageable = PageRequest.of(1, 10);
+
+            when(searchService.search(anyString(), anyCollection(), any(), any(), any())).thenReturn(new PageImpl<>(List.of(new FeedEntry().setLink("url1")), pageable, 11));
 
-            var result = mockMvc.perform(get("/feed/aggregate/")
-                                                 .param("forceRefresh", Boolean.TRUE.toString()))
+            var result = mockMvc.perform(get("/feed/search")
+                                                 .param("q", "java")
+                                                 .param("channelIds", "1,2")
+                                                 .param("from", "2021-01-01T00:00:00Z")
+                                                 .param("page", "1")
+                                                 .param("size", "10"))
                                 .andDo(print())
                                 .andExpect(status().isOk())
-                                .andExpect(jsonPath("$").isArray())
-                                .andExpect(jsonPath("$", hasSize(1)))
+                                .andExpect(jsonPath("$.content", hasSize(1)))
+                                .andExpect(jsonPath("$.content[0].link").value("url1"))
+                                .andExpect(jsonPath("$.totalElements").value(11))
                                 .andReturn();
 
             assertJsonResponse(result);
 
-            verify(service, times(1)).aggregate(true);
+            verify(searchService, times(1)).search("java", Set.of(1L, 2L), from, null, pageable);
+            verifyNoMoreInteractions(searchService);
+        }
+
+        @Test
+        void search_BlankText() throws Exception
+        {
+            mockMvc.perform(get("/feed/search")
+                                    .param("q", " "))
+                   .andDo(print())
+                   .andExpect(status().isBadRequest());
+
+            verifyNoInteractions(searchService);
+        }
+
+        @Test
+        void search_PageTooLarge() throws Exception
+        {
+            mockMvc.perform(get("/feed/search")
+                                    .param("q", "java")
+                                    .param("size", "101"))
+                   .andDo(print())
+                   .andExpect(status().isBadRequest());
+
+            verifyNoInteractions(searchService);
+        }
+    }
+
+    @Nested
+    class TestChanges
+    {
+        @Test
+        void changes() throws Exception
+        {
+            var changes = new FeedChanges(List.of(new FeedEntry().setLink("url1").setSequence(11L)), Set.of(2L), 11L, true);
+
+            when(service.changes(10L, 1)).thenReturn(changes);
+
+            var result = mockMvc.perform(get("/feed/changes")
+                                                 .param("since", "10")
+                                                 .param("limit", "1"))
+                                .andDo(print())
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.entries", hasSize(1)))
+                                .andExpect(jsonPath("$.entries[0].link").value("url1"))
+                                .andExpect(jsonPath("$.deletedChannelIds[0]").value(2))
+                                .andExpect(jsonPath("$.next").value(11))
+                                .andExpect(jsonPath("$.hasMore").value(true))
+                                .andReturn();
+
+            assertJsonResponse(result);
+
+            verify(service, times(1)).changes(10L, 1);
             verifyNoMoreInteractions(service);
         }
+
+        @Test
+        void changes_Defaults() throws Exception
+        {
+            when(service.changes(0L, 100)).thenReturn(new FeedChanges(List.of(), Set.of(), 0L, false));
+
+            mockMvc.perform(get("/feed/changes"))
+                   .andDo(print())
+                   .andExpect(status().isOk())
+                   .andExpect(jsonPath("$.next").value(0));
+
+            verify(service, times(1)).changes(0L, 100);
+        }
+
+        @Test
+        void changes_NegativeSince() throws Exception
+        {
+            mockMvc.perform(get("/feed/changes")
+                                    .param("since", "-1"))
+                   .andDo(print())
+                   .andExpect(status().isBadRequest());
+
+            verifyNoInteractions(service);
+        }
+    }
+
+    @Nested
+    class TestSyndication
+    {
+        private final FeedDocument atom = new FeedDocument(SyndicationFormat.ATOM, "<feed/>".getBytes(), new ContentVersion("atom-10-1", Duration.ofSeconds(60)));
+
+        @Test
+        void aggregateAtom() throws Exception
+        {
+            when(syndicationService.render(eq(SyndicationFormat.ATOM), eq(List.of(1L, 2L)), eq(50), anyString())).thenReturn(atom);
+
+            mockMvc.perform(get("/feed/aggregate/atom?limit=50&channelIds=2,1&unused=1"))
+                   .andDo(print())
+                   .andExpect(status().isOk())
+                   .andExpect(header().string(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_ATOM_XML_VALUE))
+                   .andExpect(header().string(HttpHeaders.ETAG, "\"atom-10-1\""))
+                   .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=60, public"))
+                   .andExpect(content().string("<feed/>"));
+
+            verify(syndicationService, times(1)).render(eq(SyndicationFormat.ATOM), eq(List.of(1L, 2L)), eq(50), eq("http://localhost/feed/aggregate/atom?channelIds=1,2&limit=50"));
+            verifyNoInteractions(service);
+        }
+
+        @Test
+        void aggregateRss_Defaults() throws Exception
+        {
+            var rss = new FeedDocument(SyndicationFormat.RSS, "<rss/>".getBytes(), new ContentVersion("rss-10-1", Duration.ZERO));
+            when(syndicationService.render(eq(SyndicationFormat.RSS), eq(List.of()), eq(100), anyString())).thenReturn(rss);
+
+            mockMvc.perform(get("/feed/aggregate/rss")
+                                    .accept(MediaType.TEXT_XML))
+                   .andDo(print())
+                   .andExpect(status().isOk())
+                   .andExpect(header().string(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_RSS_XML_VALUE))
+                   .andExpect(content().string("<rss/>"));
+        }
+
+        @Test
+        void aggregateAtom_NotModified() throws Exception
+        {
+            when(syndicationService.version(eq(SyndicationFormat.ATOM), anyCollection(), anyInt())).thenReturn(Optional.of(atom.getVersion()));
+
+            mockMvc.perform(get("/feed/aggregate/atom")
+                                    .header(HttpHeaders.IF_NONE_MATCH, "\"atom-10-1\""))
+                   .andDo(print())
+                   .andExpect(status().isNotModified())
+                   .andExpect(header().string(HttpHeaders.ETAG, "\"atom-10-1\""))
+                   .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=60, public"))
+                   .andExpect(content().string(""));
+
+            verify(syndicationService, never()).render(any(), anyCollection(), anyInt(), anyString());
+        }
+
+        @Test
+        void aggregateAtom_NotModifiedRefreshDue() throws Exception
+        {
+            when(syndicationService.render(eq(SyndicationFormat.ATOM), anyCollection(), anyInt(), anyString())).thenReturn(atom);
+
+            mockMvc.perform(get("/feed/aggregate/atom")
+                                    .header(HttpHeaders.IF_NONE_MATCH, "\"atom-10-1\""))
+                   .andDo(print())
+                   .andExpect(status().isNotModified())
+                   .andExpect(header().string(HttpHeaders.ETAG, "\"atom-10-1\""))
+                   .andExpect(content().string(""));
+        }
+
+        @Test
+        void aggregateAtom_LimitTooHigh() throws Exception
+        {
+            mockMvc.perform(get("/feed/aggregate/atom")
+                                    .param("limit", "1001"))
+                   .andDo(print())
+                   .andExpect(status().isBadRequest());
+
+            verifyNoInteractions(syndicationService);
+        }
     }
-}
\ No newline at end of file
+}
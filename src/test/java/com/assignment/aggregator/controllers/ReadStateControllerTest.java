@@ -0,0 +1,129 @@
+package com.assignment.aggregator.controllers;
+
+import com.assignment.aggregator.models.FeedEntry;
+import com.assignment.aggregator.services.IReadStateService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ReadStateControllerTest extends AbstractControllerTest
+{
+    @MockBean
+    private IReadStateService service;
+
+    @Test
+    public void testContext()
+    {
+        Assertions.assertNotNull(context.getBean("readStateController"));
+    }
+
+    @Nested
+    class TestListUnread
+    {
+        @Test
+        void listUnread() throws Exception
+        {
+            when(service.listUnread(anyString(), anyCollection(), anyInt())).thenReturn(List.of(new FeedEntry().setSequence(1)));
+
+            var result = mockMvc.perform(get("/read-state/{clientId}/unread", "client")
+                                                 .param("channelIds", "1", "2")
+                                                 .param("limit", "10"))
+                                .andDo(print())
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$", hasSize(1)))
+                                .andExpect(jsonPath("$[0].sequence").value(1))
+                                .andReturn();
+
+            assertJsonResponse(result);
+
+            verify(service, times(1)).listUnread("client", List.of(1L, 2L), 10);
+            verifyNoMoreInteractions(service);
+        }
+
+        @Test
+        void listUnread_AllChannels() throws Exception
+        {
+            when(service.listUnread(anyString(), anyCollection(), anyInt())).thenReturn(List.of());
+
+            mockMvc.perform(get("/read-state/{clientId}/unread", "client"))
+                   .andDo(print())
+                   .andExpect(status().isOk())
+                   .andExpect(jsonPath("$", hasSize(0)));
+
+            verify(service, times(1)).listUnread("client", List.of(), 100);
+            verifyNoMoreInteractions(service);
+        }
+
+        @Test
+        void listUnread_InvalidLimit() throws Exception
+        {
+            mockMvc.perform(get("/read-state/{clientId}/unread", "client")
+                                    .param("limit", "0"))
+                   .andDo(print())
+                   .andExpect(status().isBadRequest());
+
+            verifyNoInteractions(service);
+        }
+    }
+
+    @Nested
+    class TestMarkRead
+    {
+        @Test
+        void markRead() throws Exception
+        {
+            mockMvc.perform(put("/read-state/{clientId}/read", "client")
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content(objectMapper.writeValueAsString(List.of(1, 2, 3))))
+                   .andDo(print())
+                   .andExpect(status().isOk());
+
+            verify(service, times(1)).markRead("client", List.of(1L, 2L, 3L));
+            verifyNoMoreInteractions(service);
+        }
+
+        @Test
+        void markRangeRead() throws Exception
+        {
+            mockMvc.perform(put("/read-state/{clientId}/read/range", "client")
+                                    .param("from", "1")
+                                    .param("to", "10"))
+                   .andDo(print())
+                   .andExpect(status().isOk());
+
+            verify(service, times(1)).markRead("client", 1L, 10L);
+            verifyNoMoreInteractions(service);
+        }
+
+        @Test
+        void markRangeRead_InvalidRange() throws Exception
+        {
+            mockMvc.perform(put("/read-state/{clientId}/read/range", "client")
+                                    .param("from", "10")
+                                    .param("to", "1"))
+                   .andDo(print())
+                   .andExpect(status().isBadRequest());
+
+            mockMvc.perform(put("/read-state/{clientId}/read/range", "client")
+                                    .param("from", "-1")
+                                    .param("to", "10"))
+                   .andDo(print())
+                   .andExpect(status().isBadRequest());
+
+            verifyNoInteractions(service);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.assignment.aggregator.controllers;
+
+import com.assignment.aggregator.dto.SubscriptionDTO;
+import com.assignment.aggregator.exceptions.DuplicatedSubscriptionException;
+import com.assignment.aggregator.exceptions.InvalidSubscriptionTtlException;
+import com.assignment.aggregator.exceptions.SubscriptionNotFoundException;
+import com.assignment.aggregator.models.Subscription;
+import com.assignment.aggregator.services.ISubscriptionService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class SubscriptionControllerTest extends AbstractControllerTest
+{
+    @MockBean
+    private ISubscriptionService service;
+
+    @Test
+    public void testContext()
+    {
+        Assertions.assertNotNull(context.getBean("subscriptionController"));
+    }
+
+    @Nested
+    class TestGetSubscriptionList
+    {
+        @Test
+        void getSubscriptionList_ReturnsTenantList() throws Exception
+        {
+            var subscription = new Subscription("tenant", "name", "url", 60).setId(5L).setChannelId(1L);
+
+            when(service.list("tenant")).thenReturn(List.of(subscription));
+
+            var result = mockMvc.perform(get("/subscription/?tenant=tenant"))
+                                .andDo(print())
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$", hasSize(1)))
+                                .andExpect(jsonPath("$[0].id", is(5)))
+                                .andExpect(jsonPath("$[0].channelId", is(1)))
+                                .andReturn();
+
+            assertJsonResponse(result);
+        }
+
+        @Test
+        void getSubscriptionList_TenantRequired() throws Exception
+        {
+            mockMvc.perform(get("/subscription/"))
+                   .andDo(print())
+                   .andExpect(status().isBadRequest());
+
+            verifyNoInteractions(service);
+        }
+    }
+
+    @Nested
+    class TestGetSubscription
+    {
+        @Test
+        void getSubscription_NotFound() throws Exception
+        {
+            when(service.get(5L)).thenThrow(new SubscriptionNotFoundException(5L));
+
+            mockMvc.perform(get("/subscription/{id}", 5L))
+                   .andDo(print())
+                   .andExpect(status().isNotFound())
+                   .andExpect(jsonPath("$.message", is("Unknown subscription [id: 5]")));
+        }
+    }
+
+    @Nested
+    class TestCreateSubscription
+    {
+        @Test
+        void createSubscription() throws Exception
+        {
+            var dto = new SubscriptionDTO().setTenant("tenant").setUrl("url");
+
+            when(service.create(any(Subscription.class))).thenReturn(new Subscription("tenant", null, "url", 60).setId(5L).setChannelId(1L));
+
+            mockMvc.perform(post("/subscription/")
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content(objectMapper.writeValueAsString(dto)))
+                   .andDo(print())
+                   .andExpect(status().isCreated())
+                   .andExpect(header().string(HttpHeaders.LOCATION, org.hamcrest.Matchers.endsWith("/subscription/5")))
+                   .andExpect(jsonPath("$.tenant", is("tenant")))
+                   .andExpect(jsonPath("$.ttl", is(60)))
+                   .andExpect(jsonPath("$.channelId", is(1)));
+
+            // the missing TTL is left for the service to default
+            verify(service, times(1)).create(new Subscription("tenant", null, "url", null));
+        }
+
+        @Test
+        void createSubscription_TtlBelowMinimum() throws Exception
+        {
+            var dto = new SubscriptionDTO().setTenant("tenant").setUrl("url").setTtl(0);
+
+            when(service.create(any(Subscription.class))).thenThrow(new InvalidSubscriptionTtlException(0, 60));
+
+            mockMvc.perform(post("/subscription/")
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content(objectMapper.writeValueAsString(dto)))
+                   .andDo(print())
+                   .andExpect(status().isBadRequest())
+                   .andExpect(jsonPath("$.status", is(400)));
+        }
+
+        @Test
+        void createSubscription_Duplicated() throws Exception
+        {
+            var dto = new SubscriptionDTO().setTenant("tenant").setUrl("url");
+
+            when(service.create(any(Subscription.class))).thenThrow(new DuplicatedSubscriptionException("tenant", "url"));
+
+            mockMvc.perform(post("/subscription/")
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content(objectMapper.writeValueAsString(dto)))
+                   .andDo(print())
+                   .andExpect(status().isConflict())
+                   .andExpect(jsonPath("$.status", is(409)));
+        }
+    }
+
+    @Nested
+    class TestUpdateSubscription
+    {
+        @Test
+        void updateSubscription() throws Exception
+        {
+            var dto = new SubscriptionDTO().setName("new name").setTtl(600);
+
+            when(service.update(5L, "new name", 600)).thenReturn(new Subscription("tenant", "new name", "url", 600).setId(5L));
+
+            mockMvc.perform(put("/subscription/{id}", 5L)
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content(objectMapper.writeValueAsString(dto)))
+                   .andDo(print())
+                   .andExpect(status().isOk())
+                   .andExpect(jsonPath("$.name", is("new name")));
+
+            verify(service, times(1)).update(5L, "new name", 600);
+        }
+    }
+
+    @Nested
+    class TestDeleteSubscription
+    {
+        @Test
+        void deleteSubscription() throws Exception
+        {
+            mockMvc.perform(delete("/subscription/{id}", 5L))
+                   .andDo(print())
+                   .andExpect(status().isOk());
+
+            verify(service, times(1)).delete(5L);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.assignment.aggregator.helpers;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AhoCorasickTest
+{
+    @Test
+    @DisplayName("A text must match when it contains any of the keywords, case insensitive")
+    void matches()
+    {
+        var automaton = new AhoCorasick(List.of("he", "she", "his", "hers", "Ünïcode"));
+
+        assertAll(
+                () -> assertTrue(automaton.matches("ushers")),
+                () -> assertTrue(automaton.matches("HIS")),
+                () -> assertTrue(automaton.matches("a shell")),
+                () -> assertTrue(automaton.matches("ÜNÏCODE text")),
+                () -> assertFalse(automaton.matches("hi s")),
+                () -> assertFalse(automaton.matches("")));
+    }
+
+    @Test
+    @DisplayName("Keywords found through the failure links must match")
+    void matches_ThroughFailures()
+    {
+        var automaton = new AhoCorasick(List.of("abcd", "bc", "cde"));
+
+        assertAll(
+                () -> assertTrue(automaton.matches("xabcx")),
+                () -> assertTrue(automaton.matches("abcde")),
+                () -> assertTrue(automaton.matches("aabcd")),
+                () -> assertFalse(automaton.matches("abdcd")));
+    }
+
+    @Test
+    @DisplayName("An automaton without keywords must not match anything")
+    void matches_NoKeywords()
+    {
+        var automaton = new AhoCorasick(List.of("", ""));
+
+        assertAll(
+                () -> assertFalse(automaton.matches("text")),
+                () -> assertFalse(automaton.matches("")));
+    }
+}
@@ -0,0 +1,72 @@
+package com.assignment.aggregator.helpers;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistentHashRingTest
+{
+    private static final int KEYS = 10_000;
+
+    @Test
+    @DisplayName("An empty ring has no owners")
+    void owner_EmptyRing()
+    {
+        assertNull(new ConsistentHashRing(Set.of(), 64).owner(1));
+    }
+
+    @Test
+    @DisplayName("Rings built out of the same nodes must agree on every owner, whatever the nodes order")
+    void owner_Deterministic()
+    {
+        var ring1 = new ConsistentHashRing(List.of("a", "b", "c"), 64);
+        var ring2 = new ConsistentHashRing(List.of("c", "a", "b"), 64);
+
+        for (long key = 0; key < KEYS; key++)
+        {
+            assertEquals(ring1.owner(key), ring2.owner(key));
+        }
+    }
+
+    @Test
+    @DisplayName("Keys must be spread among every node")
+    void owner_Balanced()
+    {
+        var ring = new ConsistentHashRing(List.of("a", "b", "c", "d"), 64);
+
+        var counts = new HashMap<String, Integer>();
+        for (long key = 0; key < KEYS; key++)
+        {
+            counts.merge(ring.owner(key), 1, Integer::sum);
+        }
+
+        assertEquals(4, counts.size());
+        // every node gets a fair share, give or take
+        counts.values().forEach(c -> assertTrue(c > KEYS / 4 / 2 && c < KEYS / 4 * 2, "unbalanced ring: " + counts));
+    }
+
+    @Test
+    @DisplayName("When a node joins, keys only move to the new node")
+    void owner_NodeJoins()
+    {
+        var before = new ConsistentHashRing(List.of("a", "b", "c"), 64);
+        var after = new ConsistentHashRing(List.of("a", "b", "c", "d"), 64);
+
+        var moved = 0;
+        for (long key = 0; key < KEYS; key++)
+        {
+            if (!before.owner(key).equals(after.owner(key)))
+            {
+                assertEquals("d", after.owner(key));
+                moved++;
+            }
+        }
+
+        assertTrue(moved > 0 && moved < KEYS / 2, "moved keys: " + moved);
+    }
+}
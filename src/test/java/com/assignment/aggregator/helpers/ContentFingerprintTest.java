@@ -0,0 +1,53 @@
+package com.assignment.aggregator.helpers;
+
+import com.assignment.aggregator.models.FeedEntry;
+import com.rometools.rome.feed.synd.SyndContentImpl;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentFingerprintTest
+{
+    private static FeedEntry entry(String title, String text)
+    {
+        var content = new SyndContentImpl();
+        content.setType("text/html");
+        content.setValue(text);
+
+        return new FeedEntry().setLink("http://example.com/news/1")
+                              .setTitle(title)
+                              .setPublicationDate(Instant.ofEpochMilli(1_600_000_000_000L))
+                              .setAuthors(List.of("author"))
+                              .setContents(List.of(content));
+    }
+
+    @Test
+    @DisplayName("Entries must get the same fingerprint as long as their content is the same")
+    void of_Unchanged()
+    {
+        var fingerprint = ContentFingerprint.of(entry("title", "<p>text</p>"));
+
+        assertAll(
+                () -> assertNotEquals(ContentFingerprint.NONE, fingerprint),
+                () -> assertEquals(fingerprint, ContentFingerprint.of(entry("title", "<p>text</p>").setKey("guid:1").setSequence(3))),
+                () -> assertNotEquals(ContentFingerprint.NONE, ContentFingerprint.of(new FeedEntry())));
+    }
+
+    @Test
+    @DisplayName("Any edit of the content of an entry must change its fingerprint")
+    void of_Edited()
+    {
+        var fingerprint = ContentFingerprint.of(entry("title", "<p>text</p>"));
+
+        assertAll(
+                () -> assertNotEquals(fingerprint, ContentFingerprint.of(entry("title.", "<p>text</p>"))),
+                () -> assertNotEquals(fingerprint, ContentFingerprint.of(entry("title", "<p>text.</p>"))),
+                () -> assertNotEquals(fingerprint, ContentFingerprint.of(entry("titl", "e<p>text</p>"))),
+                () -> assertNotEquals(fingerprint, ContentFingerprint.of(entry("title", "<p>text</p>").setAuthors(List.of("other")))),
+                () -> assertNotEquals(fingerprint, ContentFingerprint.of(entry("title", "<p>text</p>").setPublicationDate(null))));
+    }
+}
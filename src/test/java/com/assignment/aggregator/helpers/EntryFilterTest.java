@@ -0,0 +1,109 @@
+package com.assignment.aggregator.helpers;
+
+import com.assignment.aggregator.exceptions.InvalidFilterRuleException;
+import com.assignment.aggregator.models.FilterRule;
+import com.rometools.rome.feed.synd.SyndCategoryImpl;
+import com.rometools.rome.feed.synd.SyndEntry;
+import com.rometools.rome.feed.synd.SyndEntryImpl;
+import com.rometools.rome.feed.synd.SyndPersonImpl;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.assignment.aggregator.models.FilterRule.Action.EXCLUDE;
+import static com.assignment.aggregator.models.FilterRule.Action.INCLUDE;
+import static com.assignment.aggregator.models.FilterRule.Field.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntryFilterTest
+{
+    private static SyndEntry entry(String title, String link, String author, String category)
+    {
+        var entry = new SyndEntryImpl();
+        entry.setTitle(title);
+        entry.setLink(link);
+
+        var person = new SyndPersonImpl();
+        person.setName(author);
+        entry.setAuthors(List.of(person));
+
+        var syndCategory = new SyndCategoryImpl();
+        syndCategory.setName(category);
+        entry.setCategories(List.of(syndCategory));
+
+        return entry;
+    }
+
+    @Nested
+    @DisplayName("Test the compile() method")
+    class Compile
+    {
+        @Test
+        @DisplayName("Channels without rules must get the filter accepting every entry")
+        void compile_NoRules()
+        {
+            assertAll(
+                    () -> assertSame(EntryFilter.ACCEPT_ALL, EntryFilter.compile(null)),
+                    () -> assertSame(EntryFilter.ACCEPT_ALL, EntryFilter.compile(List.of())),
+                    () -> assertTrue(EntryFilter.ACCEPT_ALL.accepts(entry("title", "http://host/a", "author", "news"))));
+        }
+
+        @Test
+        @DisplayName("A InvalidFilterRuleException exception must be thrown for incomplete rules, blank keywords and invalid patterns")
+        void compile_ThrowsException_InvalidFilterRuleException()
+        {
+            assertAll(
+                    () -> assertThrows(InvalidFilterRuleException.class, () -> EntryFilter.compile(List.of(new FilterRule(null, EXCLUDE, List.of("a"), null)))),
+                    () -> assertThrows(InvalidFilterRuleException.class, () -> EntryFilter.compile(List.of(new FilterRule(TITLE, null, List.of("a"), null)))),
+                    () -> assertThrows(InvalidFilterRuleException.class, () -> EntryFilter.compile(List.of(new FilterRule(TITLE, EXCLUDE, List.of(), null)))),
+                    () -> assertThrows(InvalidFilterRuleException.class, () -> EntryFilter.compile(List.of(new FilterRule(TITLE, EXCLUDE, List.of(" "), null)))),
+                    () -> assertThrows(InvalidFilterRuleException.class, () -> EntryFilter.compile(List.of(new FilterRule(TITLE, EXCLUDE, null, "[a-")))));
+        }
+    }
+
+    @Nested
+    @DisplayName("Test the accepts() method")
+    class Accepts
+    {
+        @Test
+        @DisplayName("Entries matching an exclusion rule must be dropped, by keyword or pattern on any field")
+        void accepts_Exclusions()
+        {
+            var filter = EntryFilter.compile(List.of(new FilterRule(TITLE, EXCLUDE, List.of("sponsored", "advertorial"), null),
+                                                     new FilterRule(LINK, EXCLUDE, null, "/promo/\\d+"),
+                                                     new FilterRule(AUTHOR, EXCLUDE, List.of("press office"), null),
+                                                     new FilterRule(CATEGORY, EXCLUDE, List.of("horoscope"), null)));
+
+            assertAll(
+                    () -> assertTrue(filter.accepts(entry("Council approves plan", "http://host/news/1", "Jane Doe", "Politics"))),
+                    () -> assertFalse(filter.accepts(entry("SPONSORED: best phones", "http://host/news/2", "Jane Doe", "Tech"))),
+                    () -> assertFalse(filter.accepts(entry("Best phones", "http://host/promo/42", "Jane Doe", "Tech"))),
+                    () -> assertTrue(filter.accepts(entry("Best phones", "http://host/promo/new", "Jane Doe", "Tech"))),
+                    () -> assertFalse(filter.accepts(entry("Results", "http://host/news/3", "The Press Office", "Sports"))),
+                    () -> assertFalse(filter.accepts(entry("Today", "http://host/news/4", "Jane Doe", "Horoscope"))));
+        }
+
+        @Test
+        @DisplayName("When there are inclusion rules, only the entries matching one of them and no exclusion rule must be accepted")
+        void accepts_Inclusions()
+        {
+            var filter = EntryFilter.compile(List.of(new FilterRule(CATEGORY, INCLUDE, List.of("science"), null),
+                                                     new FilterRule(TITLE, INCLUDE, null, "\\bspace\\b"),
+                                                     new FilterRule(TITLE, EXCLUDE, List.of("rumour"), null)));
+
+            var authored = new SyndEntryImpl();
+            authored.setTitle("Space station resupplied");
+            authored.setAuthor("Jane Doe");
+
+            assertAll(
+                    () -> assertTrue(filter.accepts(entry("New species found", "http://host/1", "Jane Doe", "Science"))),
+                    () -> assertTrue(filter.accepts(entry("Private space flight", "http://host/2", "Jane Doe", "Business"))),
+                    () -> assertFalse(filter.accepts(entry("Spaceship sales", "http://host/3", "Jane Doe", "Business"))),
+                    () -> assertFalse(filter.accepts(entry("Space rumour", "http://host/4", "Jane Doe", "Science"))),
+                    () -> assertFalse(filter.accepts(new SyndEntryImpl())),
+                    () -> assertTrue(filter.accepts(authored)));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.assignment.aggregator.helpers;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.contrib.jackson.JacksonJsonFormatter;
+import ch.qos.logback.core.read.ListAppender;
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventJsonLayoutTest
+{
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    private final EventJsonLayout layout = new EventJsonLayout();
+
+    private Logger logger;
+
+    @BeforeEach
+    void setUp()
+    {
+        logger = (Logger) LoggerFactory.getLogger(EventLogger.PREFIX + "test");
+        logger.setLevel(Level.INFO);
+        logger.addAppender(appender);
+        appender.start();
+
+        layout.setContext(logger.getLoggerContext());
+        layout.setJsonFormatter(new JacksonJsonFormatter());
+        layout.start();
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        logger.detachAppender(appender);
+        logger.setLevel(null);
+    }
+
+    @Test
+    @DisplayName("Events must be written with their name and fields as attributes, and as text otherwise")
+    void doLayout()
+    {
+        EventLogger.of("test").info("channel.fetched", "channelId", 1L, "level", "skipped", "entries", 3);
+
+        var event = appender.list.get(0);
+
+        assertAll(
+                () -> assertEquals("channel.fetched", event.getFormattedMessage()),
+                () -> {
+                    var document = new ObjectMapper().readTree(layout.doLayout(event));
+                    assertEquals("channel.fetched", document.get(EventJsonLayout.EVENT_ATTR_NAME).asText());
+                    assertEquals(1, document.get("channelId").asLong());
+                    assertEquals(3, document.get("entries").asInt());
+                    assertEquals("INFO", document.get("level").asText());
+                    assertEquals("events.test", document.get("logger").asText());
+                });
+    }
+
+    @Test
+    @DisplayName("Preparing an event for an asynchronous appender must not turn its fields into text")
+    void prepareForDeferredProcessing()
+    {
+        var formatted = new AtomicInteger();
+        var value = new Object()
+        {
+            @Override
+            @JsonValue
+            public String toString()
+            {
+                formatted.incrementAndGet();
+                return "value";
+            }
+        };
+
+        EventLogger.of("test").info("channel.fetched", "value", value);
+
+        var event = appender.list.get(0);
+        event.prepareForDeferredProcessing();
+
+        assertAll(
+                () -> assertEquals(0, formatted.get()),
+                () -> assertEquals("value", new ObjectMapper().readTree(layout.doLayout(event)).get("value").asText()));
+    }
+
+    @Test
+    @DisplayName("Other log events must be written without event attributes")
+    void doLayout_NotAnEvent()
+    {
+        logger.info("plain {} message", "text");
+
+        var event = appender.list.get(0);
+
+        var document = assertDoesNotThrow(() -> new ObjectMapper().readTree(layout.doLayout(event)));
+
+        assertAll(
+                () -> assertNull(document.get(EventJsonLayout.EVENT_ATTR_NAME)),
+                () -> assertEquals("plain text message", document.get("message").asText()));
+    }
+}
@@ -0,0 +1,94 @@
+package com.assignment.aggregator.helpers;
+
+import com.assignment.aggregator.AbstractSpringTest;
+import com.assignment.aggregator.models.FeedEntry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rometools.rome.feed.synd.SyndContentImpl;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FeedEntryJsonCacheTest extends AbstractSpringTest
+{
+    private static final Set<String> ALL_FIELDS = Set.of(FieldSelection.FEED_ENTRY_FIELDS.split("\\|"));
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborConverter;
+
+    @Autowired
+    private FeedEntryJsonCache cache;
+
+    private static FeedEntry entry()
+    {
+        var content = new SyndContentImpl();
+        content.setType("text/html");
+        content.setValue("<p>contents</p>");
+
+        var id = UUID.randomUUID().toString();
+        return new FeedEntry().setId(id)
+                              .setChannelId(1L)
+                              .setLink("https://example.com/" + id)
+                              .setTitle("title")
+                              .setPublicationDate(Instant.now())
+                              .setAuthors(List.of("author"))
+                              .setContents(List.of(content));
+    }
+
+    @Test
+    @DisplayName("Cached documents must be written as the entries would be")
+    void cachedDocuments() throws Exception
+    {
+        var entries = List.of(entry(), entry());
+        var size = cache.size();
+
+        var first = objectMapper.writeValueAsString(entries);
+        var second = objectMapper.writeValueAsString(entries);
+
+        // selecting every field bypasses the cache
+        var uncached = objectMapper.writer(FieldSelection.only(ALL_FIELDS)).writeValueAsString(entries);
+
+        assertAll(
+                () -> assertEquals(uncached, first),
+                () -> assertEquals(uncached, second),
+                () -> assertEquals(size + 2, cache.size()));
+    }
+
+    @Test
+    @DisplayName("Fresh entries and field selections must not be cached")
+    void notCached() throws Exception
+    {
+        var size = cache.size();
+
+        var fresh = objectMapper.readTree(objectMapper.writeValueAsBytes(entry().setFresh(true)));
+        var selected = objectMapper.readTree(objectMapper.writer(FieldSelection.only(Set.of("title"))).writeValueAsBytes(entry()));
+
+        assertAll(
+                () -> assertTrue(fresh.get("fresh").asBoolean()),
+                () -> assertEquals(1, selected.size()),
+                () -> assertEquals(size, cache.size()));
+    }
+
+    @Test
+    @DisplayName("Binary formats must not be given cached JSON documents")
+    void binaryFormats() throws Exception
+    {
+        var entry = entry();
+        objectMapper.writeValueAsBytes(entry);
+
+        var cborMapper = cborConverter.getObjectMapper();
+        var decoded = cborMapper.readTree(cborMapper.writeValueAsBytes(entry));
+
+        assertEquals(objectMapper.readTree(objectMapper.writeValueAsBytes(entry)), decoded);
+    }
+}
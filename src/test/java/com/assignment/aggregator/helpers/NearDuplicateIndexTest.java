@@ -0,0 +1,69 @@
+package com.assignment.aggregator.helpers;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NearDuplicateIndexTest
+{
+    private static final long FINGERPRINT = 0x0123_4567_89AB_CDEFL;
+
+    @Test
+    @DisplayName("Entries must join the cluster of their nearest near duplicate, or start a cluster of their own")
+    void add_Clusters()
+    {
+        var index = new NearDuplicateIndex(Duration.ofHours(1), 100, 7);
+
+        assertAll(
+                () -> assertEquals(1, index.add(FINGERPRINT, 1, 0)),
+                // seven bits apart, in seven different bands
+                () -> assertEquals(1, index.add(FINGERPRINT ^ 1L ^ 1L << 8 ^ 1L << 16 ^ 1L << 24 ^ 1L << 32 ^ 1L << 40 ^ 1L << 48, 2, 0)),
+                // eight bits apart, one per band
+                () -> assertEquals(3, index.add(FINGERPRINT ^ 1L << 1 ^ 1L << 9 ^ 1L << 17 ^ 1L << 25 ^ 1L << 33 ^ 1L << 41 ^ 1L << 49 ^ 1L << 57, 3, 0)),
+                () -> assertEquals(4, index.add(~FINGERPRINT, 4, 0)),
+                () -> assertEquals(5, index.add(SimHash.NONE, 5, 0)),
+                () -> assertEquals(4, index.size()));
+    }
+
+    @Test
+    @DisplayName("Fingerprints must be dropped once out of the window, or beyond the maximum size, oldest first")
+    void add_Evicts()
+    {
+        var index = new NearDuplicateIndex(Duration.ofMillis(100), 2, 0);
+
+        index.add(FINGERPRINT, 1, 0);
+        index.add(~FINGERPRINT, 2, 50);
+
+        assertAll(
+                // the first fingerprint is out of the window
+                () -> assertEquals(3, index.add(FINGERPRINT, 3, 120)),
+                // the second one is beyond the maximum size once another one is added
+                () -> assertEquals(4, index.add(FINGERPRINT ^ 0xFFFF_FFFFL, 4, 120)),
+                () -> assertEquals(5, index.add(~FINGERPRINT, 5, 120)),
+                () -> assertEquals(2, index.size()));
+    }
+
+    @Test
+    @DisplayName("Entries clustered elsewhere must keep their cluster, and later entries must join it")
+    void put()
+    {
+        var index = new NearDuplicateIndex(Duration.ofHours(1), 100, 6);
+
+        index.put(FINGERPRINT, 7, 0);
+        index.put(SimHash.NONE, 8, 0);
+
+        assertAll(
+                () -> assertEquals(7, index.add(FINGERPRINT ^ 1L, 9, 0)),
+                () -> assertEquals(2, index.size()));
+    }
+
+    @Test
+    @DisplayName("Distances beyond what the bands guarantee to find must be refused")
+    void constructor_DistanceTooHigh()
+    {
+        assertThrows(IllegalArgumentException.class, () -> new NearDuplicateIndex(Duration.ofHours(1), 100, 8));
+    }
+}
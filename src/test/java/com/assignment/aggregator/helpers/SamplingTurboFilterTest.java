@@ -0,0 +1,60 @@
+package com.assignment.aggregator.helpers;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SamplingTurboFilterTest
+{
+    private final LoggerContext context = new LoggerContext();
+
+    private SamplingTurboFilter filter(String loggerName, int rate)
+    {
+        var filter = new SamplingTurboFilter();
+        filter.setContext(context);
+        filter.setLoggerName(loggerName);
+        filter.setRate(rate);
+        filter.start();
+
+        return filter;
+    }
+
+    private static long kept(SamplingTurboFilter filter, ch.qos.logback.classic.Logger logger, Level level, int count)
+    {
+        return IntStream.range(0, count)
+                        .mapToObj(i -> filter.decide(null, logger, level, "{} {}", null, null))
+                        .filter(r -> r == FilterReply.NEUTRAL)
+                        .count();
+    }
+
+    @Test
+    @DisplayName("One in every rate events of the sampled logger and its descendants must be kept")
+    void decide_Sampled()
+    {
+        var filter = filter("events.ingest.channel", 10);
+
+        assertAll(
+                () -> assertEquals(10, kept(filter, context.getLogger("events.ingest.channel"), Level.INFO, 100)),
+                () -> assertEquals(10, kept(filter, context.getLogger("events.ingest.channel.entry"), Level.INFO, 100)));
+    }
+
+    @Test
+    @DisplayName("Warnings, level checks and events of other loggers must never be sampled")
+    void decide_NotSampled()
+    {
+        var filter = filter("events.ingest.channel", 10);
+        var logger = context.getLogger("events.ingest.channel");
+
+        assertAll(
+                () -> assertEquals(100, kept(filter, logger, Level.WARN, 100)),
+                () -> assertEquals(100, kept(filter, context.getLogger("events.ingest"), Level.INFO, 100)),
+                () -> assertEquals(100, kept(filter, context.getLogger("events.ingest.channels"), Level.INFO, 100)),
+                () -> assertEquals(FilterReply.NEUTRAL, filter.decide(null, logger, Level.INFO, null, null, null)));
+    }
+}
@@ -0,0 +1,60 @@
+package com.assignment.aggregator.helpers;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimHashTest
+{
+    private static final String TITLE = "Central bank raises interest rates for the third time this year";
+
+    private static final String TEXT = "<p>The central bank raised its benchmark interest rate by a quarter point on Wednesday, "
+                                       + "citing persistent inflation and a tight labour market. Markets had widely expected the move.</p>";
+
+    @Test
+    @DisplayName("Near-duplicate texts must get fingerprints differing in a few bits")
+    void fingerprint_NearDuplicates()
+    {
+        var fingerprint = SimHash.fingerprint(TITLE, TEXT);
+
+        assertAll(
+                // markup, case and punctuation are ignored
+                () -> assertEquals(fingerprint, SimHash.fingerprint(TITLE.toUpperCase() + ".", TEXT.replace("<p>", "<div class=\"story\">"))),
+                () -> assertTrue(SimHash.distance(fingerprint, SimHash.fingerprint(TITLE + " - Reuters", TEXT)) <= 6),
+                () -> assertTrue(SimHash.distance(fingerprint, SimHash.fingerprint("Mars rover finds traces of ancient river delta in crater",
+                                                                                   "The rover sent back images of layered rock consistent with a delta.")) > 6));
+    }
+
+    @Test
+    @DisplayName("Texts too short to be compared must not be fingerprinted")
+    void fingerprint_TooShort()
+    {
+        assertAll(
+                () -> assertEquals(SimHash.NONE, SimHash.fingerprint("Breaking news", null)),
+                () -> assertEquals(SimHash.NONE, SimHash.fingerprint(null, "<p>&nbsp;</p>")),
+                () -> assertNotEquals(SimHash.NONE, SimHash.fingerprint("Breaking news", "Markets close higher")));
+    }
+
+    @Test
+    @DisplayName("Fingerprinting an entry must take well under a millisecond")
+    void fingerprint_Fast()
+    {
+        var text = TEXT.repeat(20);
+
+        // warm up
+        for (var i = 0; i < 1000; i++)
+        {
+            SimHash.fingerprint(TITLE, text);
+        }
+
+        var start = System.nanoTime();
+        for (var i = 0; i < 1000; i++)
+        {
+            SimHash.fingerprint(TITLE + i, text);
+        }
+
+        // a generous bound on slow machines, around 50 µs per entry otherwise
+        assertTrue(System.nanoTime() - start < 1_000_000_000L);
+    }
+}
@@ -0,0 +1,37 @@
+package com.assignment.aggregator.helpers;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SortedMergeTest
+{
+    @Test
+    @DisplayName("Sorted sources must be merged into one sorted list")
+    void merge()
+    {
+        var sources = List.of(List.of(9, 5, 1), List.of(8, 7), List.<Integer>of(), List.of(6, 4, 3, 2));
+
+        assertEquals(List.of(9, 8, 7, 6, 5, 4, 3, 2, 1), SortedMerge.merge(sources, Comparator.reverseOrder(), 100));
+    }
+
+    @Test
+    @DisplayName("The merge must stop once the limit is reached")
+    void merge_Limit()
+    {
+        var sources = List.of(List.of(1, 4, 7), List.of(2, 5, 8), List.of(3, 6, 9));
+
+        assertEquals(List.of(1, 2, 3, 4), SortedMerge.merge(sources, Comparator.naturalOrder(), 4));
+    }
+
+    @Test
+    @DisplayName("Merging no sources must return an empty list")
+    void merge_NoSources()
+    {
+        assertTrue(SortedMerge.merge(List.<List<Integer>>of(), Comparator.naturalOrder(), 10).isEmpty());
+    }
+}
@@ -0,0 +1,114 @@
+package com.assignment.aggregator.helpers;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest
+{
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    @DisplayName("A full bucket must admit as many permits as its capacity at once, and tell when the next one is available")
+    void tryAcquire_Burst()
+    {
+        var bucket = new TokenBucket(Duration.ofSeconds(1), 3);
+        var now = System.nanoTime();
+
+        assertAll(
+                () -> assertEquals(0, bucket.tryAcquire(now)),
+                () -> assertEquals(0, bucket.tryAcquire(now)),
+                () -> assertEquals(0, bucket.tryAcquire(now)),
+                () -> assertEquals(SECOND, bucket.tryAcquire(now)),
+                () -> assertEquals(SECOND / 2, bucket.tryAcquire(now + SECOND / 2)));
+    }
+
+    @Test
+    @DisplayName("Permits must be refilled at a steady rate, up to the capacity")
+    void tryAcquire_Refill()
+    {
+        var bucket = new TokenBucket(Duration.ofSeconds(1), 2);
+        var now = System.nanoTime();
+
+        bucket.tryAcquire(now);
+        bucket.tryAcquire(now);
+
+        assertAll(
+                () -> assertEquals(0, bucket.tryAcquire(now + SECOND)),
+                () -> assertNotEquals(0, bucket.tryAcquire(now + SECOND)),
+
+                // idle for long, the bucket is only full
+                () -> assertEquals(0, bucket.tryAcquire(now + 60 * SECOND)),
+                () -> assertEquals(0, bucket.tryAcquire(now + 60 * SECOND)),
+                () -> assertNotEquals(0, bucket.tryAcquire(now + 60 * SECOND)));
+    }
+
+    @Test
+    @DisplayName("A refunded permit must be available again, without an idle bucket holding more than its capacity")
+    void refund()
+    {
+        var bucket = new TokenBucket(Duration.ofSeconds(1), 1);
+        var now = System.nanoTime();
+
+        bucket.tryAcquire(now);
+        bucket.refund();
+
+        assertAll(
+                () -> assertEquals(0, bucket.tryAcquire(now)),
+                () -> assertNotEquals(0, bucket.tryAcquire(now)));
+
+        bucket.refund();
+        bucket.refund();
+
+        assertAll(
+                () -> assertEquals(0, bucket.tryAcquire(now + 60 * SECOND)),
+                () -> assertNotEquals(0, bucket.tryAcquire(now + 60 * SECOND)));
+    }
+
+    @Test
+    @DisplayName("Concurrent callers must never be admitted more permits than available")
+    void tryAcquire_Concurrent() throws Exception
+    {
+        var bucket = new TokenBucket(Duration.ofHours(1), 100);
+        var now = System.nanoTime();
+        var admitted = new AtomicInteger();
+        var start = new CountDownLatch(1);
+
+        var executor = Executors.newFixedThreadPool(8);
+        for (var i = 0; i < 8; i++)
+        {
+            executor.submit(() ->
+                            {
+                                start.await();
+                                for (var j = 0; j < 1000; j++)
+                                {
+                                    if (bucket.tryAcquire(now) == 0)
+                                    {
+                                        admitted.incrementAndGet();
+                                    }
+                                }
+                                return null;
+                            });
+        }
+
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(100, admitted.get());
+    }
+
+    @Test
+    @DisplayName("The refill time must be the time to refill the whole capacity")
+    void getRefillTime()
+    {
+        assertEquals(Duration.ofSeconds(30), new TokenBucket(Duration.ofSeconds(10), 3).getRefillTime());
+    }
+}
@@ -0,0 +1,50 @@
+package com.assignment.aggregator.helpers;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UrlCanonicalizerTest
+{
+    private final UrlCanonicalizer canonicalizer = new UrlCanonicalizer(List.of("utm_*", "fbclid", " gclid "));
+
+    @Test
+    @DisplayName("Scheme and host case, default ports, trailing slashes and fragments must not tell links apart")
+    void canonicalize_Spelling()
+    {
+        assertAll(
+                () -> assertEquals("http://example.com/news/1", canonicalizer.canonicalize(" HTTP://Example.COM:80/news/1/ ")),
+                () -> assertEquals("https://example.com/news/1", canonicalizer.canonicalize("https://example.com:443/news/1#comments")),
+                () -> assertEquals("https://example.com:8443/News", canonicalizer.canonicalize("https://example.com:8443/News//")),
+                () -> assertEquals("http://example.com/", canonicalizer.canonicalize("http://example.com")),
+                () -> assertEquals("http://user@[::1]:8080/", canonicalizer.canonicalize("http://user@[::1]:8080/")),
+                () -> assertEquals("http://example.com/#!/news/1", canonicalizer.canonicalize("http://example.com/#!/news/1")));
+    }
+
+    @Test
+    @DisplayName("Stripped parameters must be dropped, the other parameters must keep their order")
+    void canonicalize_Parameters()
+    {
+        assertAll(
+                () -> assertEquals("http://example.com/news?id=1&page=2",
+                                   canonicalizer.canonicalize("http://example.com/news?UTM_SOURCE=rss&id=1&fbclid=abc&page=2&gclid")),
+                () -> assertEquals("http://example.com/news", canonicalizer.canonicalize("http://example.com/news/?utm_medium=feed&utm_campaign=x")),
+                () -> assertEquals("http://example.com/news?fbclidx=1&utm", canonicalizer.canonicalize("http://example.com/news?fbclidx=1&utm&&")));
+    }
+
+    @Test
+    @DisplayName("Canonical links must be returned as is, links other than HTTP ones must only be trimmed")
+    void canonicalize_Unchanged()
+    {
+        var canonical = "https://example.com/news/1?id=2";
+
+        assertAll(
+                () -> assertSame(canonical, canonicalizer.canonicalize(canonical)),
+                () -> assertEquals("urn:uuid:1225c695", canonicalizer.canonicalize(" urn:uuid:1225c695 ")),
+                () -> assertEquals("ftp://Example.com/a/", canonicalizer.canonicalize("ftp://Example.com/a/")),
+                () -> assertNull(canonicalizer.canonicalize(null)));
+    }
+}
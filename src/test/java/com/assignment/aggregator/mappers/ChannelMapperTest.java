@@ -46,4 +46,4 @@ class ChannelMapperTest extends AbstractSpringTest
                 () -> assertNotNull(result),
                 () -> assertEquals(channelDTO.getTtl(), result.getTtl()));
     }
-}
\ No newline at end of file
+}
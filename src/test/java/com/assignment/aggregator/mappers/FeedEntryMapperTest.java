@@ -6,7 +6,6 @@ import com.rometools.rome.feed.synd.SyndContentImpl;
 import com.rometools.rome.feed.synd.SyndEntryImpl;
 import com.rometools.rome.feed.synd.SyndPersonImpl;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 
 import java.time.Instant;
 import java.util.Date;
@@ -17,8 +16,7 @@ import static org.junit.jupiter.api.Assertions.*;
 class FeedEntryMapperTest extends AbstractSpringTest
 {
 
-    @InjectMocks
-    private FeedEntryMapper mapper;
+    private final FeedEntryMapper mapper = new FeedEntryMapper(List.of("utm_*", "fbclid"));
 
     @Test
     void testMapToDTO_SingleElement()
@@ -103,4 +101,45 @@ class FeedEntryMapperTest extends AbstractSpringTest
                 () -> assertNotNull(result),
                 () -> assertEquals(3, result.size()));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testMapToDTO_KeyedByCanonicalLink()
+    {
+        var entry = new SyndEntryImpl();
+        entry.setLink("HTTP://Example.com:80/news/1/?utm_source=rss&id=2&fbclid=abc");
+        entry.setUri(entry.getLink());
+
+        var result = mapper.mapToDTO(entry, FeedEntry.class);
+
+        assertAll(
+                () -> assertEquals(entry.getLink(), result.getLink()),
+                () -> assertEquals("http://example.com/news/1?id=2", result.getKey()));
+    }
+
+    @Test
+    void testMapToDTO_KeyedByGuid()
+    {
+        var entry = new SyndEntryImpl();
+        entry.setLink("http://example.com/news/1");
+        entry.setUri("tag:example.com,2021:1");
+
+        var result = mapper.mapToDTO(entry, FeedEntry.class);
+
+        assertEquals("guid:tag:example.com,2021:1", result.getKey());
+    }
+
+    @Test
+    void testMapToDTO_Fingerprinted()
+    {
+        var entry = new SyndEntryImpl();
+        entry.setLink("http://example.com/news/1");
+        entry.setTitle("title");
+
+        var fingerprint = mapper.mapToDTO(entry, FeedEntry.class).getFingerprint();
+        entry.setTitle("edited title");
+
+        assertAll(
+                () -> assertNotEquals(0, fingerprint),
+                () -> assertNotEquals(fingerprint, mapper.mapToDTO(entry, FeedEntry.class).getFingerprint()));
+    }
+}
@@ -0,0 +1,405 @@
+package com.assignment.aggregator.repositories;
+
+import com.assignment.aggregator.models.FeedEntry;
+import com.rometools.rome.feed.synd.SyndContentImpl;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Range;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Contract test suite of the {@link IFeedEntryRepository}. Every storage backend must pass it.
+ */
+public abstract class AbstractFeedEntryRepositoryTest
+{
+    protected static final Instant NOW = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+
+    /**
+     * @return the repository under test, holding no entries
+     */
+    protected abstract IFeedEntryRepository repository();
+
+    protected static FeedEntry entry(long channelId, String link, Instant publicationDate)
+    {
+        var content = new SyndContentImpl();
+        content.setType("text/html");
+        content.setValue("<p>" + link + "</p>");
+
+        return new FeedEntry().setChannelId(channelId)
+                              .setLink(link)
+                              .setTitle("title " + link)
+                              .setPublicationDate(publicationDate)
+                              .setAuthors(List.of("author"))
+                              .setContents(List.of(content));
+    }
+
+    private static java.util.Set<String> links(List<FeedEntry> entries)
+    {
+        return entries.stream().map(FeedEntry::getLink).collect(toSet());
+    }
+
+    @Nested
+    class SaveAll
+    {
+        @Test
+        void saveAll_AssignsIds()
+        {
+            var saved = repository().saveAll(List.of(entry(1, "link1", NOW), entry(1, "link2", NOW)));
+
+            assertAll(
+                    () -> assertEquals(2, saved.size()),
+                    () -> assertTrue(saved.stream().allMatch(e -> e.getId() != null)),
+                    () -> assertEquals(2, repository().count()));
+        }
+
+        @Test
+        void saveAll_RoundTrip()
+        {
+            var entry = entry(1, "link1", NOW);
+            repository().saveAll(List.of(entry));
+
+            var stored = repository().findAll();
+
+            assertEquals(1, stored.size());
+
+            var result = stored.get(0);
+            assertAll(
+                    () -> assertEquals(entry.getId(), result.getId()),
+                    () -> assertEquals(entry.getChannelId(), result.getChannelId()),
+                    () -> assertEquals(entry.getLink(), result.getLink()),
+                    () -> assertEquals(entry.getTitle(), result.getTitle()),
+                    () -> assertEquals(entry.getPublicationDate(), result.getPublicationDate()),
+                    () -> assertEquals(entry.getAuthors(), result.getAuthors()),
+                    () -> assertEquals(1, result.getContents().size()),
+                    () -> assertEquals("text/html", result.getContents().get(0).getType()),
+                    () -> assertEquals(entry.getContents().get(0).getValue(), result.getContents().get(0).getValue()));
+        }
+
+        @Test
+        void saveAll_ReplacesEntryWithSameId()
+        {
+            var entry = repository().saveAll(List.of(entry(1, "link1", NOW))).get(0);
+
+            entry.setTitle("updated title");
+            repository().saveAll(List.of(entry));
+
+            var stored = repository().findAll();
+
+            assertAll(
+                    () -> assertEquals(1, stored.size()),
+                    () -> assertEquals("updated title", stored.get(0).getTitle()));
+        }
+    }
+
+    @Nested
+    class FindAllByChannelIdIn
+    {
+        @Test
+        void findAllByChannelIdIn_UnknownChannel()
+        {
+            repository().saveAll(List.of(entry(1, "link1", NOW)));
+
+            assertTrue(repository().findAllByChannelIdIn(List.of(2L)).isEmpty());
+        }
+
+        @Test
+        void findAllByChannelIdIn()
+        {
+            repository().saveAll(List.of(entry(1, "link11", NOW),
+                                         entry(1, "link12", null),
+                                         entry(2, "link21", NOW),
+                                         entry(3, "link31", NOW)));
+
+            assertEquals(java.util.Set.of("link11", "link12", "link21"), links(repository().findAllByChannelIdIn(List.of(1L, 2L))));
+        }
+    }
+
+    @Nested
+    class FindAllWithFields
+    {
+        @Test
+        void findAllWithFields()
+        {
+            repository().saveAll(List.of(entry(1, "link11", NOW), entry(2, "link21", NOW)));
+
+            var entries = repository().findAllWithFields(java.util.Set.of("title"));
+
+            assertAll(
+                    () -> assertEquals(java.util.Set.of("link11", "link21"), links(entries)),
+                    () -> assertTrue(entries.stream().allMatch(e -> e.getId() != null && e.getTitle().equals("title " + e.getLink()))));
+        }
+
+        @Test
+        void findAllByChannelIdInWithFields()
+        {
+            repository().saveAll(List.of(entry(1, "link11", NOW), entry(2, "link21", NOW)));
+
+            var entries = repository().findAllByChannelIdInWithFields(List.of(1L), java.util.Set.of("title"));
+
+            assertAll(
+                    () -> assertEquals(java.util.Set.of("link11"), links(entries)),
+                    () -> assertEquals(1L, entries.get(0).getChannelId()),
+                    () -> assertEquals("title link11", entries.get(0).getTitle()));
+        }
+    }
+
+    @Nested
+    class FindAllByChannelIdInAndPublicationDateBetween
+    {
+        @Test
+        void findAllByChannelIdInAndPublicationDateBetween()
+        {
+            repository().saveAll(List.of(entry(1, "before", NOW.minusSeconds(3600)),
+                                         entry(1, "from", NOW.minusSeconds(60)),
+                                         entry(1, "within", NOW.minusSeconds(30)),
+                                         entry(1, "to", NOW),
+                                         entry(1, "undated", null),
+                                         entry(2, "otherChannel", NOW.minusSeconds(30))));
+
+            var from = NOW.minusSeconds(60);
+
+            assertAll(
+                    () -> assertEquals(java.util.Set.of("from", "within", "to"),
+                                       links(repository().findAllByChannelIdInAndPublicationDateBetween(List.of(1L), Range.closed(from, NOW)))),
+                    () -> assertEquals(java.util.Set.of("from", "within"),
+                                       links(repository().findAllByChannelIdInAndPublicationDateBetween(List.of(1L), Range.rightOpen(from, NOW)))),
+                    () -> assertEquals(java.util.Set.of("within"),
+                                       links(repository().findAllByChannelIdInAndPublicationDateBetween(List.of(1L), Range.open(from, NOW)))),
+                    () -> assertEquals(java.util.Set.of("before", "from", "within"),
+                                       links(repository().findAllByChannelIdInAndPublicationDateBetween(List.of(1L), Range.of(Range.Bound.unbounded(), Range.Bound.exclusive(NOW))))));
+        }
+    }
+
+    @Nested
+    class FindNewestByChannelId
+    {
+        @Test
+        void findNewestByChannelId()
+        {
+            repository().saveAll(List.of(entry(1, "oldest", NOW.minusSeconds(3600)),
+                                         entry(1, "newest", NOW),
+                                         entry(1, "undated", null),
+                                         entry(1, "older", NOW.minusSeconds(60)),
+                                         entry(2, "otherChannel", NOW.plusSeconds(60))));
+
+            assertAll(
+                    () -> assertEquals(List.of("newest", "older"),
+                                       repository().findNewestByChannelId(1, 2).stream().map(FeedEntry::getLink).collect(toList())),
+                    () -> assertEquals(List.of("newest", "older", "oldest", "undated"),
+                                       repository().findNewestByChannelId(1, 10).stream().map(FeedEntry::getLink).collect(toList())));
+        }
+
+        @Test
+        void findNewestByChannelId_UnknownChannel()
+        {
+            repository().saveAll(List.of(entry(1, "link1", NOW)));
+
+            assertTrue(repository().findNewestByChannelId(2, 10).isEmpty());
+        }
+    }
+
+    @Nested
+    class FindAllByIdIn
+    {
+        @Test
+        void findAllByIdIn()
+        {
+            var saved = repository().saveAll(List.of(entry(1, "link1", NOW),
+                                                     entry(1, "link2", NOW),
+                                                     entry(2, "link3", NOW)));
+
+            assertEquals(java.util.Set.of("link1", "link3"),
+                         links(repository().findAllByIdIn(List.of(saved.get(0).getId(), saved.get(2).getId(), "unknown"))));
+        }
+    }
+
+    @Nested
+    class FindAllBySequenceIn
+    {
+        @Test
+        void findAllBySequenceIn()
+        {
+            repository().saveAll(List.of(entry(1, "link11", NOW).setSequence(1),
+                                         entry(1, "link12", NOW).setSequence(2),
+                                         entry(2, "link21", NOW).setSequence(3)));
+
+            assertAll(
+                    () -> assertEquals(java.util.Set.of("link11", "link21"), links(repository().findAllBySequenceIn(List.of(1L, 3L, 4L)))),
+                    () -> assertTrue(repository().findAllBySequenceIn(List.of(4L)).isEmpty()));
+        }
+    }
+
+    @Nested
+    class FindBySequenceRange
+    {
+        @Test
+        void findBySequenceRange()
+        {
+            repository().saveAll(List.of(entry(1, "link11", NOW).setSequence(3),
+                                         entry(2, "link21", NOW).setSequence(1),
+                                         entry(1, "link12", NOW).setSequence(4),
+                                         entry(2, "link22", NOW).setSequence(2),
+                                         entry(2, "unsequenced", NOW)));
+
+            var entries = repository().findBySequenceRange(1, 4, 10);
+
+            assertEquals(List.of(2L, 3L, 4L), entries.stream().map(FeedEntry::getSequence).collect(toList()));
+        }
+
+        @Test
+        void findBySequenceRange_Limit()
+        {
+            repository().saveAll(List.of(entry(1, "link11", NOW).setSequence(1),
+                                         entry(1, "link12", NOW).setSequence(2),
+                                         entry(1, "link13", NOW).setSequence(3)));
+
+            assertAll(
+                    () -> assertEquals(List.of("link11", "link12"), repository().findBySequenceRange(0, 3, 2).stream().map(FeedEntry::getLink).collect(toList())),
+                    () -> assertTrue(repository().findBySequenceRange(3, 3, 10).isEmpty()));
+        }
+    }
+
+    @Nested
+    class FindSequencesBy
+    {
+        @Test
+        void findSequencesBy()
+        {
+            repository().saveAll(List.of(entry(1, "link11", NOW).setSequence(1),
+                                         entry(2, "link21", NOW).setSequence(2),
+                                         entry(2, "unsequenced", NOW)));
+
+            var sequences = repository().findSequencesBy().stream()
+                                        .map(s -> s.getChannelId() + ":" + s.getSequence())
+                                        .collect(toSet());
+
+            assertEquals(java.util.Set.of("1:1", "2:2"), sequences);
+        }
+    }
+
+    @Nested
+    class FindAllByKeyIn
+    {
+        @Test
+        void findAllByKeyIn()
+        {
+            repository().saveAll(List.of(entry(1, "link1", NOW).setKey("guid:1"), entry(1, "link2", NOW).setKey("guid:2"), entry(1, "link3", NOW)));
+
+            var result = repository().findAllByKeyIn(List.of("guid:1", "guid:2", "guid:4", "link3"));
+
+            assertEquals(Set.of("link1", "link2"), result.stream().map(FeedEntry::getLink).collect(toSet()));
+        }
+    }
+
+    @Nested
+    class FindUnkeyedByLinkIn
+    {
+        @Test
+        void findUnkeyedByLinkIn()
+        {
+            repository().saveAll(List.of(entry(1, "link1", NOW), entry(1, "link2", NOW).setKey("guid:2"), entry(1, "link3", NOW)));
+
+            var result = repository().findUnkeyedByLinkIn(List.of("link1", "link2", "link4"));
+
+            assertEquals(List.of("link1"), result.stream().map(FeedEntry::getLink).collect(toList()));
+        }
+    }
+
+    @Nested
+    class UpdateContents
+    {
+        @Test
+        void updateContents()
+        {
+            var stored = entry(1, "link1", NOW).setKey("guid:1").setSequence(7).setCluster(7).setFingerprint(1);
+            repository().saveAll(List.of(stored, entry(1, "link2", NOW)));
+
+            var edited = entry(1, "link1", NOW.plusSeconds(60)).setTitle("edited title")
+                                                               .setFingerprint(2)
+                                                               .setUpdated(NOW)
+                                                               .setSequence(9)
+                                                               .setId(stored.getId());
+            repository().updateContents(List.of(edited, entry(1, "link3", NOW).setId("unknown")));
+
+            var result = repository().findAllByIdIn(List.of(stored.getId())).get(0);
+            assertAll(
+                    () -> assertEquals(2, repository().count()),
+                    () -> assertEquals("edited title", result.getTitle()),
+                    () -> assertEquals(NOW.plusSeconds(60), result.getPublicationDate()),
+                    () -> assertEquals(2, result.getFingerprint()),
+                    () -> assertEquals(NOW, result.getUpdated()),
+                    // edited entries are ingested again
+                    () -> assertEquals(9, result.getSequence()),
+                    () -> assertEquals(List.of(stored.getId()), repository().findBySequenceRange(8, 9, 10).stream().map(FeedEntry::getId).collect(toList())),
+                    // fields not mapped from the feed are left untouched
+                    () -> assertEquals("guid:1", result.getKey()),
+                    () -> assertEquals(7, result.getCluster()));
+        }
+    }
+
+    @Nested
+    class DeleteAllByChannelIdIn
+    {
+        @Test
+        void deleteAllByChannelIdIn()
+        {
+            repository().saveAll(List.of(entry(1, "link11", NOW),
+                                         entry(1, "link12", NOW),
+                                         entry(2, "link21", NOW),
+                                         entry(3, "link31", NOW)));
+
+            repository().deleteAllByChannelIdIn(List.of(1L, 3L));
+
+            assertAll(
+                    () -> assertEquals(1, repository().count()),
+                    () -> assertEquals(java.util.Set.of("link21"), links(repository().findAll())),
+                    () -> assertTrue(repository().findUnkeyedByLinkIn(List.of("link11")).isEmpty()));
+        }
+    }
+
+    @Nested
+    class DeleteBatchByChannelId
+    {
+        @Test
+        void deleteBatchByChannelId()
+        {
+            repository().saveAll(List.of(entry(1, "link11", NOW),
+                                         entry(1, "link12", NOW),
+                                         entry(1, "link13", NOW),
+                                         entry(2, "link21", NOW)));
+
+            var deleted = 0L;
+            var batches = 0;
+            long batch;
+            do
+            {
+                batch = repository().deleteBatchByChannelId(1, 2);
+                deleted += batch;
+                batches++;
+            }
+            while (batch >= 2);
+
+            var totalDeleted = deleted;
+            var totalBatches = batches;
+            assertAll(
+                    () -> assertEquals(3, totalDeleted),
+                    () -> assertTrue(totalBatches <= 3),
+                    () -> assertTrue(repository().findAllByChannelIdIn(List.of(1L)).isEmpty()),
+                    () -> assertEquals(java.util.Set.of("link21"), links(repository().findAll())));
+        }
+
+        @Test
+        void deleteBatchByChannelId_NothingToDelete()
+        {
+            assertEquals(0, repository().deleteBatchByChannelId(1, 2));
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.assignment.aggregator.repositories;
 
 import com.assignment.aggregator.models.Channel;
+import com.assignment.aggregator.models.FilterRule;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -10,10 +11,12 @@ import org.junit.jupiter.params.provider.ValueSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.List;
 
 @DataJpaTest
 class IChannelRepositoryTest
@@ -44,6 +47,18 @@ class IChannelRepositoryTest
 
             Assertions.assertEquals(channel, repository.findOneByUrl(channel.getUrl()).orElse(null));
         }
+
+        @Test
+        void findOneByUrl_Filters()
+        {
+            var filters = List.of(new FilterRule(FilterRule.Field.TITLE, FilterRule.Action.EXCLUDE, List.of("sponsored"), null),
+                                  new FilterRule(FilterRule.Field.LINK, FilterRule.Action.INCLUDE, List.of(), "/news/"));
+            var channel = new Channel("channelName", "channelURL", 1).setFilters(filters);
+            entityManager.persistAndFlush(channel);
+            entityManager.clear();
+
+            Assertions.assertEquals(filters, repository.findOneByUrl(channel.getUrl()).orElseThrow().getFilters());
+        }
     }
 
     @Nested
@@ -63,5 +78,151 @@ class IChannelRepositoryTest
 
             Assertions.assertTrue(entityManager.refresh(channel).getLastRefresh().isAfter(originalDate));
         }
+
+        @Test
+        void updateRefreshTime_Bulk()
+        {
+            var originalDate = ZonedDateTime.of(LocalDateTime.of(2000, 1, 1, 0, 0), ZoneId.systemDefault());
+
+            var channel1 = new Channel("channelName1", "channelURL1", 1);
+            channel1.setLastRefresh(originalDate);
+
+            var channel2 = new Channel("channelName2", "channelURL2", 1);
+            channel2.setLastRefresh(originalDate);
+
+            var channel3 = new Channel("channelName3", "channelURL3", 1);
+            channel3.setLastRefresh(originalDate);
+
+            entityManager.persist(channel1);
+            entityManager.persist(channel2);
+            entityManager.persistAndFlush(channel3);
+
+            var updated = repository.updateRefreshTime(List.of(channel1.getId(), channel2.getId()), ZonedDateTime.now());
+
+            Assertions.assertAll(
+                    () -> Assertions.assertEquals(2, updated),
+                    () -> Assertions.assertTrue(entityManager.refresh(channel1).getLastRefresh().isAfter(originalDate)),
+                    () -> Assertions.assertTrue(entityManager.refresh(channel2).getLastRefresh().isAfter(originalDate)),
+                    () -> Assertions.assertEquals(originalDate.toInstant(), entityManager.refresh(channel3).getLastRefresh().toInstant()));
+        }
+    }
+
+    @Nested
+    class FindAllDue
+    {
+        @Test
+        void findAllDue()
+        {
+            var now = ZonedDateTime.now();
+
+            // never refreshed, due since its creation
+            var neverRefreshed = new Channel("channelName1", "channelURL1", 3600);
+
+            var expired = new Channel("channelName2", "channelURL2", 60);
+            expired.setLastRefresh(now.minusSeconds(120));
+
+            var unexpired = new Channel("channelName3", "channelURL3", 3600);
+            unexpired.setLastRefresh(now.minusSeconds(120));
+
+            var longExpired = new Channel("channelName4", "channelURL4", 60);
+            longExpired.setLastRefresh(now.minusSeconds(7200));
+
+            entityManager.persist(neverRefreshed);
+            entityManager.persist(expired);
+            entityManager.persist(unexpired);
+            entityManager.persistAndFlush(longExpired);
+
+            var result = repository.findAllDue(ZonedDateTime.now(), PageRequest.of(0, 10));
+
+            Assertions.assertEquals(List.of(longExpired, expired, neverRefreshed), result);
+        }
+
+        @Test
+        void findAllDue_Paged()
+        {
+            for (var i = 0; i < 5; i++)
+            {
+                entityManager.persist(new Channel("channelName" + i, "channelURL" + i, 0));
+            }
+            entityManager.flush();
+
+            var now = ZonedDateTime.now();
+
+            Assertions.assertAll(
+                    () -> Assertions.assertEquals(2, repository.findAllDue(now, PageRequest.of(0, 2)).size()),
+                    () -> Assertions.assertEquals(2, repository.findAllDue(now, PageRequest.of(1, 2)).size()),
+                    () -> Assertions.assertEquals(1, repository.findAllDue(now, PageRequest.of(2, 2)).size()));
+        }
+
+        @Test
+        void findAllDue_RefreshedChannelIsNotDue()
+        {
+            var channel = new Channel("channelName", "channelURL", 3600);
+            entityManager.persistAndFlush(channel);
+
+            repository.updateRefreshTime(List.of(channel.getId()), ZonedDateTime.now());
+            entityManager.clear();
+
+            var refreshed = entityManager.find(Channel.class, channel.getId());
+
+            Assertions.assertAll(
+                    () -> Assertions.assertEquals(refreshed.getLastRefresh().plusSeconds(3600).toInstant(), refreshed.getNextRefreshAt().toInstant()),
+                    () -> Assertions.assertTrue(repository.findAllDue(ZonedDateTime.now(), PageRequest.of(0, 10)).isEmpty()));
+        }
+    }
+
+    @Nested
+    class UpdateLatestSequence
+    {
+        @Test
+        void updateLatestSequence()
+        {
+            var channel = new Channel("channelName", "channelURL", 1);
+            entityManager.persistAndFlush(channel);
+
+            var updated = repository.updateLatestSequence(channel.getId(), 10);
+
+            Assertions.assertAll(
+                    () -> Assertions.assertEquals(1, updated),
+                    () -> Assertions.assertEquals(10, entityManager.refresh(channel).getLatestSequence()));
+        }
+
+        @Test
+        void updateLatestSequence_LowerSequenceIsIgnored()
+        {
+            var channel = new Channel("channelName", "channelURL", 1).setLatestSequence(10);
+            entityManager.persistAndFlush(channel);
+
+            var updated = repository.updateLatestSequence(channel.getId(), 5);
+
+            Assertions.assertAll(
+                    () -> Assertions.assertEquals(0, updated),
+                    () -> Assertions.assertEquals(10, entityManager.refresh(channel).getLatestSequence()));
+        }
+    }
+
+    @Nested
+    class FindEarliestRefreshAt
+    {
+        @Test
+        void findEarliestRefreshAt_NoChannels()
+        {
+            Assertions.assertTrue(repository.findEarliestRefreshAt().isEmpty());
+        }
+
+        @Test
+        void findEarliestRefreshAt()
+        {
+            var channel1 = new Channel("channelName1", "channelURL1", 3600);
+            channel1.setLastRefresh(ZonedDateTime.now());
+
+            var channel2 = new Channel("channelName2", "channelURL2", 60);
+            channel2.setLastRefresh(ZonedDateTime.now());
+
+            entityManager.persist(channel1);
+            entityManager.persistAndFlush(channel2);
+
+            Assertions.assertEquals(channel2.getNextRefreshAt().toInstant(), repository.findEarliestRefreshAt().orElseThrow().toInstant());
+        }
     }
 }
\ No newline at end of file
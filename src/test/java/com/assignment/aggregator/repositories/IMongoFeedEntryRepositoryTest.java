@@ -0,0 +1,30 @@
+package com.assignment.aggregator.repositories;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+
+/**
+ * Runs the {@link IFeedEntryRepository} contract against MongoDB. Requires a running MongoDB instance (i.e: the one
+ * provided by <code>docker-compose</code>) and is enabled with <code>AGGREGATOR_TEST_MONGO=true</code>.
+ */
+@DataMongoTest
+@EnabledIfEnvironmentVariable(named = "AGGREGATOR_TEST_MONGO", matches = "true")
+class IMongoFeedEntryRepositoryTest extends AbstractFeedEntryRepositoryTest
+{
+    @Autowired
+    private IMongoFeedEntryRepository repository;
+
+    @BeforeEach
+    void setup()
+    {
+        repository.deleteAll();
+    }
+
+    @Override
+    protected IFeedEntryRepository repository()
+    {
+        return repository;
+    }
+}
@@ -0,0 +1,260 @@
+package com.assignment.aggregator.repositories.embedded;
+
+import com.assignment.aggregator.models.FeedEntry;
+import com.assignment.aggregator.repositories.AbstractFeedEntryRepositoryTest;
+import com.assignment.aggregator.repositories.IFeedEntryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmbeddedFeedEntryRepositoryTest extends AbstractFeedEntryRepositoryTest
+{
+    @TempDir
+    Path directory;
+
+    private EmbeddedFeedEntryRepository repository;
+
+    @BeforeEach
+    void setup()
+    {
+        repository = open();
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        repository.close();
+    }
+
+    @Override
+    protected IFeedEntryRepository repository()
+    {
+        return repository;
+    }
+
+    private EmbeddedFeedEntryRepository open()
+    {
+        return new EmbeddedFeedEntryRepository(directory, Duration.ofDays(1), 1024 * 1024, 0.5, Duration.ofHours(1));
+    }
+
+    private void reopen()
+    {
+        repository.close();
+        repository = open();
+    }
+
+    private List<Path> segmentFiles() throws IOException
+    {
+        try (var files = Files.list(directory))
+        {
+            return files.filter(f -> f.getFileName().toString().endsWith(".seg")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static Set<String> links(List<FeedEntry> entries)
+    {
+        return entries.stream().map(FeedEntry::getLink).collect(Collectors.toSet());
+    }
+
+    @Test
+    void saveAll_DeduplicatesOnLink()
+    {
+        repository.saveAll(List.of(entry(1, "link1", NOW)));
+        repository.saveAll(List.of(entry(1, "link1", NOW).setTitle("second")));
+
+        var stored = repository.findAll();
+
+        assertAll(
+                () -> assertEquals(1, stored.size()),
+                () -> assertEquals("second", stored.get(0).getTitle()));
+    }
+
+    @Test
+    void saveAll_SegmentPerTimeWindow() throws IOException
+    {
+        repository.saveAll(List.of(entry(1, "today", NOW),
+                                   entry(1, "lastWeek", NOW.minus(Duration.ofDays(7))),
+                                   entry(1, "undated", null)));
+
+        // undated entries are stored in the window of their ingestion
+        assertEquals(2, segmentFiles().size());
+    }
+
+    @Nested
+    class Recovery
+    {
+        @Test
+        void recover_EntriesAndDeletions()
+        {
+            var saved = repository.saveAll(List.of(entry(1, "link11", NOW), entry(2, "link21", NOW), entry(2, "link22", NOW)));
+            repository.saveAll(List.of(saved.get(1).setTitle("updated")));
+            repository.deleteAllByChannelIdIn(List.of(1L));
+
+            reopen();
+
+            var stored = repository.findAll();
+
+            assertAll(
+                    () -> assertEquals(Set.of("link21", "link22"), links(stored)),
+                    () -> assertTrue(stored.stream().anyMatch(e -> "updated".equals(e.getTitle()))),
+                    () -> assertTrue(repository.findUnkeyedByLinkIn(List.of("link11")).isEmpty()),
+                    () -> assertEquals(Set.of("link21"), links(repository.findUnkeyedByLinkIn(List.of("link21")))));
+
+            // ids keep being unique after recovery
+            var newEntry = repository.saveAll(List.of(entry(3, "link31", NOW))).get(0);
+            assertTrue(stored.stream().noneMatch(e -> e.getId().equals(newEntry.getId())));
+        }
+
+        @Test
+        void recover_IngestSequences()
+        {
+            repository.saveAll(List.of(entry(1, "link11", NOW).setSequence(1), entry(2, "link21", NOW).setSequence(2)));
+            // the entry pointing to the same link replaces the stored one, along with its sequence
+            repository.saveAll(List.of(entry(1, "link11", NOW).setSequence(3)));
+
+            reopen();
+
+            assertAll(
+                    () -> assertTrue(repository.findAllBySequenceIn(List.of(1L)).isEmpty()),
+                    () -> assertEquals(Set.of("link11", "link21"), links(repository.findAllBySequenceIn(List.of(2L, 3L)))),
+                    () -> assertEquals(2, repository.findSequencesBy().size()));
+        }
+
+        @Test
+        void recover_Keys()
+        {
+            repository.saveAll(List.of(entry(1, "http://host/a?utm_source=rss", NOW).setKey("http://host/a").setSequence(1)));
+            // the entry with the same key replaces the stored one, whatever its link
+            repository.saveAll(List.of(entry(1, "http://host/a?utm_source=mail", NOW).setKey("http://host/a").setSequence(2)));
+
+            reopen();
+
+            assertAll(
+                    () -> assertEquals(Set.of("http://host/a?utm_source=mail"), links(repository.findAll())),
+                    () -> assertEquals(Set.of("http://host/a?utm_source=mail"), links(repository.findAllByKeyIn(List.of("http://host/a")))),
+                    () -> assertTrue(repository.findUnkeyedByLinkIn(List.of("http://host/a?utm_source=rss")).isEmpty()));
+        }
+
+        @Test
+        void recover_TornWrite() throws IOException
+        {
+            repository.saveAll(List.of(entry(1, "link1", NOW)));
+            repository.saveAll(List.of(entry(1, "link2", NOW)));
+            repository.close();
+
+            // simulate a crash in the middle of the last write by corrupting its payload
+            var segment = segmentFiles().get(0);
+            try (var channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE))
+            {
+                var buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+
+                var offset = Segment.HEADER_SIZE;
+                offset += Segment.RECORD_OVERHEAD + buffer.getInt(offset);
+
+                buffer.put(offset + Segment.RECORD_OVERHEAD + 10, (byte) (buffer.get(offset + Segment.RECORD_OVERHEAD + 10) ^ 0xFF));
+                buffer.force();
+            }
+
+            repository = open();
+
+            assertEquals(Set.of("link1"), links(repository.findAll()));
+
+            // the space of the torn record is reused
+            repository.saveAll(List.of(entry(1, "link3", NOW)));
+            reopen();
+
+            assertEquals(Set.of("link1", "link3"), links(repository.findAll()));
+        }
+
+        @Test
+        void recover_InterruptedCompaction() throws IOException
+        {
+            repository.saveAll(List.of(entry(1, "link1", NOW)));
+            repository.close();
+
+            // a compaction interrupted before its output was renamed leaves a partial file behind
+            Files.write(directory.resolve("segment-0000000000000000099.seg.compacting"), new byte[]{1, 2, 3});
+
+            repository = open();
+
+            assertAll(
+                    () -> assertEquals(Set.of("link1"), links(repository.findAll())),
+                    () -> assertFalse(Files.exists(directory.resolve("segment-0000000000000000099.seg.compacting"))));
+        }
+    }
+
+    @Nested
+    class Compaction
+    {
+        @Test
+        void compact_ReclaimsDeadRecords() throws IOException
+        {
+            repository.saveAll(List.of(entry(1, "link11", NOW), entry(2, "link21", NOW), entry(2, "link22", NOW)));
+            repository.deleteAllByChannelIdIn(List.of(2L));
+
+            var segmentsBefore = segmentFiles();
+            var sizeBefore = Files.size(segmentsBefore.get(0));
+
+            repository.compact();
+
+            var segmentsAfter = segmentFiles();
+
+            assertAll(
+                    () -> assertEquals(1, segmentsAfter.size()),
+                    () -> assertNotEquals(segmentsBefore, segmentsAfter),
+                    () -> assertEquals(Set.of("link11"), links(repository.findAll())),
+                    () -> assertEquals(Set.of("link11"), links(repository.findUnkeyedByLinkIn(List.of("link11")))));
+
+            // compacted data survives a restart, and deleted entries don't come back
+            reopen();
+
+            assertEquals(Set.of("link11"), links(repository.findAll()));
+            assertTrue(sizeBefore >= Files.size(segmentFiles().get(0)));
+        }
+
+        @Test
+        void compact_NothingToReclaim() throws IOException
+        {
+            repository.saveAll(List.of(entry(1, "link11", NOW)));
+
+            var segmentsBefore = segmentFiles();
+
+            repository.compact();
+
+            assertEquals(segmentsBefore, segmentFiles());
+        }
+
+        @Test
+        void compact_DropsFullyDeadSegments() throws IOException
+        {
+            repository.saveAll(List.of(entry(1, "link11", NOW)));
+            repository.deleteAllByChannelIdIn(List.of(1L));
+
+            repository.compact();
+
+            assertAll(
+                    () -> assertTrue(segmentFiles().isEmpty()),
+                    () -> assertEquals(0, repository.count()));
+
+            // writes after the compaction go to a new segment
+            repository.saveAll(List.of(entry(1, "link12", NOW)));
+            reopen();
+
+            assertEquals(Set.of("link12"), links(repository.findAll()));
+        }
+    }
+}
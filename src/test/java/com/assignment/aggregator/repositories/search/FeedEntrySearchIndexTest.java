@@ -0,0 +1,197 @@
+package com.assignment.aggregator.repositories.search;
+
+import com.assignment.aggregator.models.FeedEntry;
+import com.rometools.rome.feed.synd.SyndContentImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FeedEntrySearchIndexTest
+{
+    private static final Instant NOW = Instant.now();
+
+    private static final PageRequest FIRST_PAGE = PageRequest.of(0, 10);
+
+    /**
+     * Long enough for the index never to be reopened in the background during a test
+     */
+    private static final Duration REFRESH_INTERVAL = Duration.ofHours(1);
+
+    @TempDir
+    Path directory;
+
+    private FeedEntrySearchIndex index;
+
+    @BeforeEach
+    void setup()
+    {
+        index = new FeedEntrySearchIndex(directory, REFRESH_INTERVAL);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException
+    {
+        index.close();
+    }
+
+    private static FeedEntry entry(String id, long channelId, String title, String content, Instant publicationDate)
+    {
+        var syndContent = new SyndContentImpl();
+        syndContent.setType("text/html");
+        syndContent.setValue(content);
+
+        return new FeedEntry().setId(id)
+                              .setChannelId(channelId)
+                              .setTitle(title)
+                              .setAuthors(List.of("Jane Doe"))
+                              .setContents(List.of(syndContent))
+                              .setPublicationDate(publicationDate);
+    }
+
+    private List<String> search(String text)
+    {
+        index.refresh();
+
+        return index.search(text, Set.of(), null, null, FIRST_PAGE).getContent();
+    }
+
+    @Nested
+    class Search
+    {
+        @Test
+        void search_MatchesTitleAuthorsAndContents()
+        {
+            index.index(List.of(entry("1", 1, "Java 11 released", "<p>Modules are <b>here</b></p>", NOW),
+                                entry("2", 1, "Gradle 6", "<p>Faster java builds</p>", NOW),
+                                entry("3", 1, "Rust news", "<p>Nothing else</p>", NOW)));
+
+            assertAll(
+                    // title matches weigh more than contents matches
+                    () -> assertEquals(List.of("1", "2"), search("java")),
+                    () -> assertEquals(List.of("1"), search("here")),
+                    () -> assertEquals(3, search("doe").size()),
+                    () -> assertEquals(List.of("2"), search("java -modules")),
+                    () -> assertTrue(search("python").isEmpty()));
+        }
+
+        @Test
+        void search_Filtered()
+        {
+            index.index(List.of(entry("1", 1, "java", "", NOW.minusSeconds(3600)),
+                                entry("2", 1, "java", "", NOW),
+                                entry("3", 2, "java", "", NOW),
+                                entry("4", 1, "java", "", null)));
+            index.refresh();
+
+            assertAll(
+                    () -> assertEquals(Set.of("1", "2", "4"), Set.copyOf(index.search("java", Set.of(1L), null, null, FIRST_PAGE).getContent())),
+                    () -> assertEquals(Set.of("2", "3"), Set.copyOf(index.search("java", Set.of(), NOW.minusSeconds(60), null, FIRST_PAGE).getContent())),
+                    () -> assertEquals(List.of("1"), index.search("java", Set.of(1L), null, NOW.minusSeconds(60), FIRST_PAGE).getContent()));
+        }
+
+        @Test
+        void search_Paged()
+        {
+            index.index(List.of(entry("1", 1, "java", "", NOW),
+                                entry("2", 1, "java", "", NOW),
+                                entry("3", 1, "java", "", NOW)));
+            index.refresh();
+
+            var page = index.search("java", Set.of(), null, null, PageRequest.of(1, 2));
+
+            assertAll(
+                    () -> assertEquals(1, page.getContent().size()),
+                    () -> assertEquals(3, page.getTotalElements()));
+        }
+
+        @Test
+        void search_PageBeyondIntegerRange()
+        {
+            index.index(List.of(entry("1", 1, "java", "", NOW)));
+            index.refresh();
+
+            var page = index.search("java", Set.of(), null, null, PageRequest.of(Integer.MAX_VALUE - 1, 1000));
+
+            assertAll(
+                    () -> assertTrue(page.getContent().isEmpty()),
+                    () -> assertEquals(1, page.getTotalElements()));
+        }
+    }
+
+    @Nested
+    class Index
+    {
+        @Test
+        void index_SearchableOnceRefreshed()
+        {
+            index.index(List.of(entry("1", 1, "java", "", NOW)));
+
+            // indexing doesn't reopen the index, the refresh does
+            assertTrue(index.search("java", Set.of(), null, null, FIRST_PAGE).isEmpty());
+
+            index.refresh();
+
+            assertEquals(List.of("1"), index.search("java", Set.of(), null, null, FIRST_PAGE).getContent());
+        }
+
+        @Test
+        void index_ReplacesIndexedEntry()
+        {
+            index.index(List.of(entry("1", 1, "java", "", NOW)));
+            index.index(List.of(entry("1", 1, "kotlin", "", NOW)));
+
+            assertAll(
+                    () -> assertTrue(search("java").isEmpty()),
+                    () -> assertEquals(List.of("1"), search("kotlin")));
+        }
+
+        @Test
+        void index_SurvivesReopening() throws IOException
+        {
+            index.index(List.of(entry("1", 1, "java", "", NOW)));
+            index.commit();
+
+            index.close();
+            index = new FeedEntrySearchIndex(directory, REFRESH_INTERVAL);
+
+            assertEquals(List.of("1"), search("java"));
+        }
+    }
+
+    @Nested
+    class Delete
+    {
+        @Test
+        void deleteByChannelId()
+        {
+            index.index(List.of(entry("1", 1, "java", "", NOW),
+                                entry("2", 2, "java", "", NOW)));
+
+            index.deleteByChannelId(1);
+
+            assertEquals(List.of("2"), search("java"));
+        }
+
+        @Test
+        void deleteAll()
+        {
+            index.index(List.of(entry("1", 1, "java", "", NOW)));
+
+            index.deleteAll();
+
+            assertTrue(search("java").isEmpty());
+        }
+    }
+}
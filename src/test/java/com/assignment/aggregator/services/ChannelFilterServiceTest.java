@@ -0,0 +1,80 @@
+package com.assignment.aggregator.services;
+
+import com.assignment.aggregator.exceptions.InvalidFilterRuleException;
+import com.assignment.aggregator.models.Channel;
+import com.assignment.aggregator.models.FilterRule;
+import com.rometools.rome.feed.synd.SyndEntry;
+import com.rometools.rome.feed.synd.SyndEntryImpl;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChannelFilterServiceTest
+{
+    private final ChannelFilterService service = new ChannelFilterService();
+
+    private static SyndEntry entry(String title)
+    {
+        var entry = new SyndEntryImpl();
+        entry.setTitle(title);
+
+        return entry;
+    }
+
+    private static List<FilterRule> excluding(String keyword)
+    {
+        return List.of(new FilterRule(FilterRule.Field.TITLE, FilterRule.Action.EXCLUDE, List.of(keyword), null));
+    }
+
+    @Nested
+    @DisplayName("Test the filter() method")
+    class Filter
+    {
+        @Test
+        @DisplayName("The entries of channels without rules must be returned as is")
+        void filter_NoRules()
+        {
+            var entries = List.of(entry("a"), entry("b"));
+
+            assertAll(
+                    () -> assertSame(entries, service.filter(new Channel("name", "url", 0).setId(1L), entries)),
+                    () -> assertSame(entries, service.filter(new Channel("name", "url", 0).setId(1L).setFilters(null), entries)));
+        }
+
+        @Test
+        @DisplayName("Rules must be applied in order, and compiled again when modified elsewhere")
+        void filter()
+        {
+            var sponsored = entry("Sponsored post");
+            var news = entry("News");
+            var advertising = entry("Advertising");
+            var channel = new Channel("name", "url", 0).setId(1L).setFilters(excluding("sponsored"));
+
+            assertEquals(List.of(news, advertising), service.filter(channel, List.of(sponsored, news, advertising)));
+
+            channel.setFilters(excluding("advertising"));
+
+            assertEquals(List.of(sponsored, news), service.filter(channel, List.of(sponsored, news, advertising)));
+        }
+    }
+
+    @Nested
+    @DisplayName("Test the compile() method")
+    class Compile
+    {
+        @Test
+        @DisplayName("A InvalidFilterRuleException exception must be thrown if a rule is invalid, for new and existing channels")
+        void compile_ThrowsException_InvalidFilterRuleException()
+        {
+            var rules = List.of(new FilterRule(FilterRule.Field.LINK, FilterRule.Action.INCLUDE, null, "(unclosed"));
+
+            assertAll(
+                    () -> assertThrows(InvalidFilterRuleException.class, () -> service.compile(new Channel("name", "url", 0).setFilters(rules))),
+                    () -> assertThrows(InvalidFilterRuleException.class, () -> service.compile(new Channel("name", "url", 0).setId(1L).setFilters(rules))));
+        }
+    }
+}
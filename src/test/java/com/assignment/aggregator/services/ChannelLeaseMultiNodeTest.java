@@ -0,0 +1,244 @@
+package com.assignment.aggregator.services;
+
+import com.assignment.aggregator.FeedAggregatorApplication;
+import com.assignment.aggregator.models.Channel;
+import com.assignment.aggregator.models.ChannelPurge;
+import com.assignment.aggregator.repositories.IChannelPurgeRepository;
+import com.assignment.aggregator.repositories.IChannelLeaseRepository;
+import com.assignment.aggregator.repositories.IChannelRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static java.util.stream.Collectors.toSet;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs several application nodes in the same JVM, sharing one in-memory database, and checks that every channel is
+ * leased by exactly one node as nodes join and leave
+ */
+class ChannelLeaseMultiNodeTest
+{
+    private static final int CHANNELS = 200;
+
+    @TempDir
+    Path directory;
+
+    private final Map<String, ConfigurableApplicationContext> nodes = new HashMap<>();
+
+    private String database;
+
+    private List<Channel> channels;
+
+    @BeforeEach
+    void setup()
+    {
+        database = "cluster_" + UUID.randomUUID();
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        nodes.values().forEach(ConfigurableApplicationContext::close);
+    }
+
+    private ConfigurableApplicationContext start(String nodeId)
+    {
+        // passed as arguments, so they override the application properties
+        var context = new SpringApplicationBuilder(FeedAggregatorApplication.class)
+                              .profiles("embedded")
+                              .run("--spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1",
+                                   // schema.sql owns the schema, as with the default file database
+                                   "--spring.jpa.hibernate.ddl-auto=none",
+                                   "--spring.main.web-application-type=none",
+                                   "--spring.h2.console.enabled=false",
+                                   "--aggregator.storage.embedded.directory=" + directory.resolve(nodeId),
+                                   "--aggregator.search.directory=" + directory.resolve(nodeId + "-search"),
+                                   "--aggregator.cluster.node-id=" + nodeId,
+                                   // heartbeats are triggered by the test
+                                   "--aggregator.cluster.heartbeat-interval=PT1H",
+                                   "--aggregator.cluster.lease-duration=PT1M",
+                                   // so are purges and synchronizations
+                                   "--aggregator.purge.interval=PT1H",
+                                   "--aggregator.cluster.sync-interval=PT1H");
+
+        nodes.put(nodeId, context);
+
+        return context;
+    }
+
+    private void stop(String nodeId)
+    {
+        nodes.remove(nodeId).close();
+    }
+
+    private static IChannelLeaseService leaseService(ConfigurableApplicationContext node)
+    {
+        return node.getBean(IChannelLeaseService.class);
+    }
+
+    private void createChannels(ConfigurableApplicationContext node)
+    {
+        var channelRepository = node.getBean(IChannelRepository.class);
+
+        channels = new ArrayList<>();
+        for (var i = 0; i < CHANNELS; i++)
+        {
+            var channel = channelRepository.save(new Channel("channel " + i, "http://feed/" + i, 3600));
+            leaseService(node).register(channel);
+            channels.add(channel);
+        }
+    }
+
+    /**
+     * Let every node record its heartbeat and then see the others
+     */
+    private void heartbeats()
+    {
+        nodes.values().forEach(n -> leaseService(n).heartbeat());
+        nodes.values().forEach(n -> leaseService(n).heartbeat());
+    }
+
+    /**
+     * Let every node take the leases of the channels it owns, and check that they don't overlap and cover every channel
+     */
+    private Map<String, Set<Long>> acquireAndCheck()
+    {
+        var leases = new HashMap<String, Set<Long>>();
+        nodes.forEach((nodeId, node) -> leases.put(nodeId, leaseService(node).acquire(channels)));
+
+        var leased = new HashSet<Long>();
+        leases.forEach((nodeId, ids) ->
+                       {
+                           assertFalse(ids.isEmpty(), "node " + nodeId + " holds no lease");
+                           ids.forEach(id -> assertTrue(leased.add(id), "channel " + id + " leased twice"));
+                       });
+
+        assertEquals(channels.stream().map(Channel::getId).collect(toSet()), leased);
+
+        return leases;
+    }
+
+    @Test
+    @DisplayName("Every channel must be leased by exactly one node while nodes join and leave")
+    void leases_JoinAndLeave()
+    {
+        createChannels(start("node-1"));
+        start("node-2");
+        heartbeats();
+
+        var twoNodes = acquireAndCheck();
+
+        start("node-3");
+        heartbeats();
+
+        var threeNodes = acquireAndCheck();
+
+        // consistent hashing: channels only move to the new node
+        assertTrue(twoNodes.get("node-1").containsAll(threeNodes.get("node-1")));
+        assertTrue(twoNodes.get("node-2").containsAll(threeNodes.get("node-2")));
+
+        stop("node-2");
+        heartbeats();
+
+        var afterLeave = acquireAndCheck();
+
+        // the channels of the node that left are taken over, the rest keep their owner
+        assertTrue(afterLeave.get("node-1").containsAll(threeNodes.get("node-1")));
+        assertTrue(afterLeave.get("node-3").containsAll(threeNodes.get("node-3")));
+    }
+
+    @Test
+    @DisplayName("Acquiring a few channels must only return their leases, not every lease held by the node")
+    void acquire_RequestedChannelsOnly()
+    {
+        var node = start("node-1");
+        createChannels(node);
+        heartbeats();
+
+        acquireAndCheck();
+
+        var requested = channels.subList(0, 3);
+
+        assertEquals(requested.stream().map(Channel::getId).collect(toSet()), leaseService(node).acquire(requested));
+    }
+
+    @Test
+    @DisplayName("A task must only be run by one node at a time, and be taken over once its node leaves")
+    void lead_SingleNode()
+    {
+        var node1 = start("node-1");
+        var node2 = start("node-2");
+
+        assertAll(
+                () -> assertTrue(leaseService(node1).lead(ChannelPurgeService.PURGE_TASK)),
+                () -> assertFalse(leaseService(node2).lead(ChannelPurgeService.PURGE_TASK)),
+                // renewed by the node holding it
+                () -> assertTrue(leaseService(node1).lead(ChannelPurgeService.PURGE_TASK)));
+
+        stop("node-1");
+
+        assertTrue(leaseService(node2).lead(ChannelPurgeService.PURGE_TASK));
+    }
+
+    @Test
+    @DisplayName("Purges must only be progressed by the node holding the purge task lease")
+    void purge_SingleNode()
+    {
+        var node1 = start("node-1");
+        var node2 = start("node-2");
+
+        var purgeRepository = node1.getBean(IChannelPurgeRepository.class);
+        purgeRepository.save(new ChannelPurge(1L, "deleted"));
+
+        assertTrue(leaseService(node1).lead(ChannelPurgeService.PURGE_TASK));
+
+        node2.getBean(IChannelPurgeService.class).purgeNextBatch();
+        assertNull(purgeRepository.findById(1L).orElseThrow().getLastBatchAt());
+
+        node1.getBean(IChannelPurgeService.class).purgeNextBatch();
+        assertTrue(purgeRepository.findById(1L).orElseThrow().isCompleted());
+    }
+
+    @Test
+    @DisplayName("A lease held by a node must not be taken by another node before it expires")
+    void leases_Exclusive()
+    {
+        var node = start("node-1");
+        createChannels(node);
+        heartbeats();
+
+        var leased = leaseService(node).acquire(channels);
+        assertEquals(CHANNELS, leased.size());
+
+        var leaseRepository = node.getBean(IChannelLeaseRepository.class);
+        var transaction = new TransactionTemplate(node.getBean(PlatformTransactionManager.class));
+
+        var now = ZonedDateTime.now();
+        var taken = transaction.execute(s -> leaseRepository.acquire(leased, "intruder", now.plusMinutes(1), now));
+
+        assertEquals(0, taken);
+
+        // once expired, the leases can be taken
+        var later = now.plusMinutes(2);
+        var takenLater = transaction.execute(s -> leaseRepository.acquire(leased, "intruder", later.plusMinutes(1), later));
+
+        assertEquals(CHANNELS, takenLater);
+    }
+}
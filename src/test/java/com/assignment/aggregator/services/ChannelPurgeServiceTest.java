@@ -0,0 +1,148 @@
+package com.assignment.aggregator.services;
+
+import com.assignment.aggregator.AbstractSpringTest;
+import com.assignment.aggregator.models.Channel;
+import com.assignment.aggregator.models.ChannelPurge;
+import com.assignment.aggregator.repositories.IChannelPurgeRepository;
+import com.assignment.aggregator.repositories.IFeedEntryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ChannelPurgeServiceTest extends AbstractSpringTest
+{
+    private static final int BATCH_SIZE = 100;
+
+    @Mock
+    private IChannelPurgeRepository channelPurgeRepository;
+
+    @Mock
+    private IFeedEntryRepository feedEntryRepository;
+
+    @Mock
+    private IFeedSearchService feedSearchService;
+
+    @Mock
+    private ISequenceService sequenceService;
+
+    @Mock
+    private IChannelLeaseService channelLeaseService;
+
+    private ChannelPurgeService service;
+
+    @BeforeEach
+    void setupService()
+    {
+        service = new ChannelPurgeService(channelPurgeRepository, feedEntryRepository, feedSearchService, sequenceService, channelLeaseService, BATCH_SIZE);
+    }
+
+    /**
+     * Single node: the current node runs the purges unless stated otherwise
+     */
+    @BeforeEach
+    void leadPurges()
+    {
+        when(channelLeaseService.lead(ChannelPurgeService.PURGE_TASK)).thenReturn(true);
+    }
+
+    @Nested
+    @DisplayName("Test the schedule() method")
+    class Schedule
+    {
+        @Test
+        @DisplayName("A pending purge must be recorded with the next ingest sequence and the channel removed from the search index, no entries must be deleted")
+        void schedule()
+        {
+            when(sequenceService.increment(ISequenceService.FEED_ENTRY_SEQUENCE)).thenReturn(42L);
+
+            service.schedule(new Channel("name", "url", 3600).setId(1L));
+
+            var captor = ArgumentCaptor.forClass(ChannelPurge.class);
+            verify(channelPurgeRepository, times(1)).save(captor.capture());
+
+            assertAll(
+                    () -> assertEquals(1L, captor.getValue().getChannelId()),
+                    () -> assertEquals("name", captor.getValue().getChannelName()),
+                    () -> assertNotNull(captor.getValue().getRequestedAt()),
+                    () -> assertEquals(42L, captor.getValue().getSequence()),
+                    () -> assertFalse(captor.getValue().isCompleted()));
+
+            verify(feedSearchService, times(1)).remove(1L);
+            verifyNoInteractions(feedEntryRepository);
+        }
+    }
+
+    @Nested
+    @DisplayName("Test the purgeNextBatch() method")
+    class PurgeNextBatch
+    {
+        @Test
+        @DisplayName("Nothing must be deleted if no purge is pending")
+        void purgeNextBatch_NothingPending()
+        {
+            when(channelPurgeRepository.findFirstByCompletedAtIsNullOrderByRequestedAt()).thenReturn(Optional.empty());
+
+            service.purgeNextBatch();
+
+            verifyNoInteractions(feedEntryRepository);
+            verify(channelPurgeRepository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("Nothing must be deleted by a node not holding the purge task lease")
+        void purgeNextBatch_NotLeading()
+        {
+            when(channelLeaseService.lead(ChannelPurgeService.PURGE_TASK)).thenReturn(false);
+
+            service.purgeNextBatch();
+
+            verifyNoInteractions(feedEntryRepository);
+            verifyNoInteractions(channelPurgeRepository);
+        }
+
+        @Test
+        @DisplayName("A full batch must keep the purge pending and record its progress")
+        void purgeNextBatch_FullBatch()
+        {
+            var purge = new ChannelPurge(1L, "name").setPurgedEntries(200);
+
+            when(channelPurgeRepository.findFirstByCompletedAtIsNullOrderByRequestedAt()).thenReturn(Optional.of(purge));
+            when(feedEntryRepository.deleteBatchByChannelId(1L, BATCH_SIZE)).thenReturn((long) BATCH_SIZE);
+
+            service.purgeNextBatch();
+
+            verify(channelPurgeRepository, times(1)).save(purge);
+
+            assertAll(
+                    () -> assertEquals(300, purge.getPurgedEntries()),
+                    () -> assertNotNull(purge.getLastBatchAt()),
+                    () -> assertFalse(purge.isCompleted()));
+        }
+
+        @Test
+        @DisplayName("A short batch must complete the purge")
+        void purgeNextBatch_LastBatch()
+        {
+            var purge = new ChannelPurge(1L, "name");
+
+            when(channelPurgeRepository.findFirstByCompletedAtIsNullOrderByRequestedAt()).thenReturn(Optional.of(purge));
+            when(feedEntryRepository.deleteBatchByChannelId(1L, BATCH_SIZE)).thenReturn(10L);
+
+            service.purgeNextBatch();
+
+            verify(channelPurgeRepository, times(1)).save(purge);
+
+            assertAll(
+                    () -> assertEquals(10, purge.getPurgedEntries()),
+                    () -> assertTrue(purge.isCompleted()));
+        }
+    }
+}
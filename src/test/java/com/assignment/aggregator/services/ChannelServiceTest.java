@@ -5,19 +5,23 @@ import com.assignment.aggregator.client.IFeedClient;
 import com.assignment.aggregator.exceptions.ChannelNotFoundException;
 import com.assignment.aggregator.exceptions.DuplicatedChannelException;
 import com.assignment.aggregator.exceptions.InvalidChannelException;
+import com.assignment.aggregator.exceptions.InvalidFilterRuleException;
 import com.assignment.aggregator.models.Channel;
+import com.assignment.aggregator.models.FilterRule;
 import com.assignment.aggregator.repositories.IChannelRepository;
-import com.assignment.aggregator.repositories.IFeedEntryRepository;
+import com.assignment.aggregator.repositories.ISubscriptionRepository;
 import com.rometools.rome.feed.synd.SyndFeedImpl;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.springframework.data.domain.PageRequest;
 
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -33,7 +37,22 @@ class ChannelServiceTest extends AbstractSpringTest
     private IChannelRepository channelRepository;
 
     @Mock
-    private IFeedEntryRepository feedEntryRepository;
+    private IChannelPurgeService channelPurgeService;
+
+    @Mock
+    private IReadStateService readStateService;
+
+    @Mock
+    private IChannelLeaseService channelLeaseService;
+
+    @Mock
+    private ISequenceService sequenceService;
+
+    @Mock
+    private IChannelFilterService channelFilterService;
+
+    @Mock
+    private ISubscriptionRepository subscriptionRepository;
 
     @InjectMocks
     private ChannelService service;
@@ -57,7 +76,7 @@ class ChannelServiceTest extends AbstractSpringTest
             verifyNoMoreInteractions(channelRepository);
 
             verifyNoInteractions(feedClient);
-            verifyNoInteractions(feedEntryRepository);
+            verifyNoInteractions(channelPurgeService);
         }
 
         @Test
@@ -81,7 +100,29 @@ class ChannelServiceTest extends AbstractSpringTest
             verifyNoMoreInteractions(channelRepository);
 
             verifyNoInteractions(feedClient);
-            verifyNoInteractions(feedEntryRepository);
+            verifyNoInteractions(channelPurgeService);
+        }
+    }
+
+    @Nested
+    @DisplayName("Test the listDue() method")
+    class ListDue
+    {
+        @Test
+        @DisplayName("The service must return the page of due channels returned by the repository")
+        void listDue()
+        {
+            var channels = java.util.List.of(new Channel("name", "url", 0));
+
+            when(channelRepository.findAllDue(any(), eq(PageRequest.of(2, 10)))).thenReturn(channels);
+
+            assertEquals(channels, service.listDue(2, 10));
+
+            verify(channelRepository, times(1)).findAllDue(any(), eq(PageRequest.of(2, 10)));
+            verifyNoMoreInteractions(channelRepository);
+
+            verifyNoInteractions(feedClient);
+            verifyNoInteractions(channelPurgeService);
         }
     }
 
@@ -101,7 +142,7 @@ class ChannelServiceTest extends AbstractSpringTest
             verifyNoMoreInteractions(channelRepository);
 
             verifyNoInteractions(feedClient);
-            verifyNoInteractions(feedEntryRepository);
+            verifyNoInteractions(channelPurgeService);
         }
 
         @Test
@@ -118,7 +159,7 @@ class ChannelServiceTest extends AbstractSpringTest
             verifyNoMoreInteractions(channelRepository);
 
             verifyNoInteractions(feedClient);
-            verifyNoInteractions(feedEntryRepository);
+            verifyNoInteractions(channelPurgeService);
         }
     }
 
@@ -140,7 +181,7 @@ class ChannelServiceTest extends AbstractSpringTest
             verifyNoMoreInteractions(channelRepository);
 
             verifyNoInteractions(feedClient);
-            verifyNoInteractions(feedEntryRepository);
+            verifyNoInteractions(channelPurgeService);
         }
 
         @Test
@@ -160,7 +201,26 @@ class ChannelServiceTest extends AbstractSpringTest
             verify(feedClient, times(1)).fetch(anyString());
             verifyNoMoreInteractions(channelRepository);
 
-            verifyNoInteractions(feedEntryRepository);
+            verifyNoInteractions(channelPurgeService);
+            verifyNoInteractions(sequenceService);
+        }
+
+        @Test
+        @DisplayName("A InvalidFilterRuleException exception must be thrown before fetching the source if a filter rule is invalid")
+        void create_ThrowsException_InvalidFilterRuleException()
+        {
+            var channel = new Channel("name", "url", 0).setFilters(java.util.List.of(new FilterRule()));
+
+            when(channelRepository.findOneByUrl(anyString())).thenReturn(Optional.empty());
+            doThrow(InvalidFilterRuleException.class).when(channelFilterService).compile(channel);
+
+            assertThrows(InvalidFilterRuleException.class, () -> service.create(channel));
+
+            verify(channelRepository, times(1)).findOneByUrl(anyString());
+            verifyNoMoreInteractions(channelRepository);
+
+            verifyNoInteractions(feedClient);
+            verifyNoInteractions(sequenceService);
         }
 
         @Test
@@ -180,15 +240,19 @@ class ChannelServiceTest extends AbstractSpringTest
             var result = service.create(channel);
 
             assertEquals(completedChannel, result);
+            assertEquals(0, result.getConfiguredTtl());
 
             verify(channelRepository, times(1)).findOneByUrl(anyString());
             verify(channelRepository, times(1)).save(completedChannel);
             verifyNoMoreInteractions(channelRepository);
 
+            verify(channelLeaseService, times(1)).register(completedChannel);
+            verify(sequenceService, times(1)).increment(ISequenceService.CHANNEL_VERSION_SEQUENCE);
+
             verify(feedClient, times(1)).fetch(anyString());
             verifyNoMoreInteractions(channelRepository);
 
-            verifyNoInteractions(feedEntryRepository);
+            verifyNoInteractions(channelPurgeService);
         }
     }
 
@@ -211,7 +275,7 @@ class ChannelServiceTest extends AbstractSpringTest
             verifyNoMoreInteractions(channelRepository);
 
             verifyNoInteractions(feedClient);
-            verifyNoInteractions(feedEntryRepository);
+            verifyNoInteractions(channelPurgeService);
         }
 
         @Test
@@ -229,8 +293,114 @@ class ChannelServiceTest extends AbstractSpringTest
             verify(channelRepository, times(1)).save(any());
             verifyNoMoreInteractions(channelRepository);
 
+            verify(sequenceService, times(1)).increment(ISequenceService.CHANNEL_VERSION_SEQUENCE);
+
             verifyNoInteractions(feedClient);
-            verifyNoInteractions(feedEntryRepository);
+            verifyNoInteractions(channelPurgeService);
+        }
+
+        @Test
+        @DisplayName("Filter rules must only be compiled again when modified, and kept when not provided")
+        void update_Filters()
+        {
+            var rules = java.util.List.of(new FilterRule(FilterRule.Field.TITLE, FilterRule.Action.EXCLUDE, java.util.List.of("sponsored"), null));
+            var channel = new Channel("name", "url", 0).setId(1L).setFilters(rules);
+
+            when(channelRepository.findById(channel.getId())).thenReturn(Optional.of(channel));
+
+            service.update(channel.getId(), new Channel("name", "url", 0).setFilters(null));
+            service.update(channel.getId(), new Channel("name", "url", 0).setFilters(java.util.List.copyOf(rules)));
+            verify(channelFilterService, never()).compile(any());
+
+            var modified = java.util.List.of(new FilterRule(FilterRule.Field.TITLE, FilterRule.Action.EXCLUDE, java.util.List.of("advertising"), null));
+            service.update(channel.getId(), new Channel("name", "url", 0).setFilters(modified));
+
+            assertEquals(modified, channel.getFilters());
+            verify(channelFilterService, times(1)).compile(channel);
+        }
+
+        @Test
+        @DisplayName("The configured TTL must be kept apart, the channel being refreshed at the tightest of it and of its subscribed TTLs")
+        void update_TightenedBySubscriptions()
+        {
+            var channel = new Channel("name", "url", 3600).setId(1L).setConfiguredTtl(3600);
+
+            when(channelRepository.findById(channel.getId())).thenReturn(Optional.of(channel));
+            when(subscriptionRepository.findTightestTtl(1L)).thenReturn(Optional.of(600));
+
+            service.update(channel.getId(), new Channel("name", "url", 1800));
+
+            assertAll(
+                    () -> assertEquals(1800, channel.getConfiguredTtl()),
+                    () -> assertEquals(600, channel.getTtl()));
+        }
+    }
+
+    @Nested
+    @DisplayName("Test the adjustTtl() method")
+    class AdjustTtl
+    {
+        @Test
+        @DisplayName("A subscription tighter than the configured TTL must tighten the channel's TTL")
+        void adjustTtl_Tightened()
+        {
+            var channel = new Channel("name", "url", 3600).setId(1L).setConfiguredTtl(3600);
+
+            when(channelRepository.findById(1L)).thenReturn(Optional.of(channel));
+            when(subscriptionRepository.findTightestTtl(1L)).thenReturn(Optional.of(600));
+
+            service.adjustTtl(1L);
+
+            assertAll(
+                    () -> assertEquals(600, channel.getTtl()),
+                    () -> assertEquals(3600, channel.getConfiguredTtl()));
+            verify(channelRepository, times(1)).save(channel);
+            verify(sequenceService, times(1)).increment(ISequenceService.CHANNEL_VERSION_SEQUENCE);
+        }
+
+        @Test
+        @DisplayName("The configured TTL must be restored once the subscriptions tightening it are gone")
+        void adjustTtl_Restored()
+        {
+            var channel = new Channel("name", "url", 600).setId(1L).setConfiguredTtl(3600);
+
+            when(channelRepository.findById(1L)).thenReturn(Optional.of(channel));
+            when(subscriptionRepository.findTightestTtl(1L)).thenReturn(Optional.empty());
+
+            service.adjustTtl(1L);
+
+            assertEquals(3600, channel.getTtl());
+            verify(channelRepository, times(1)).save(channel);
+        }
+
+        @Test
+        @DisplayName("A channel created for subscriptions must be refreshed at the tightest subscribed TTL, looser or not")
+        void adjustTtl_OwnedBySubscriptions()
+        {
+            var channel = new Channel("name", "url", 60).setId(1L).setOwnedBySubscriptions(true);
+
+            when(channelRepository.findById(1L)).thenReturn(Optional.of(channel));
+            when(subscriptionRepository.findTightestTtl(1L)).thenReturn(Optional.of(300));
+
+            service.adjustTtl(1L);
+
+            assertEquals(300, channel.getTtl());
+            verify(channelRepository, times(1)).save(channel);
+        }
+
+        @Test
+        @DisplayName("Nothing must be saved if the effective TTL is unchanged")
+        void adjustTtl_Unchanged()
+        {
+            var channel = new Channel("name", "url", 600).setId(1L).setConfiguredTtl(3600);
+
+            when(channelRepository.findById(1L)).thenReturn(Optional.of(channel));
+            when(subscriptionRepository.findTightestTtl(1L)).thenReturn(Optional.of(600));
+
+            service.adjustTtl(1L);
+
+            verify(channelRepository, never()).save(any());
+            verifyNoInteractions(sequenceService);
         }
     }
 
@@ -244,34 +414,95 @@ class ChannelServiceTest extends AbstractSpringTest
         {
             var channelId = 1L;
 
-            when(channelRepository.existsById(channelId)).thenReturn(false);
+            when(channelRepository.findById(channelId)).thenReturn(Optional.empty());
 
             assertThrows(ChannelNotFoundException.class, () -> service.delete(channelId));
 
-            verify(channelRepository, times(1)).existsById(channelId);
+            verify(channelRepository, times(1)).findById(channelId);
             verifyNoMoreInteractions(channelRepository);
 
             verifyNoInteractions(feedClient);
-            verifyNoInteractions(feedEntryRepository);
+            verifyNoInteractions(channelPurgeService);
+            verifyNoInteractions(readStateService);
         }
 
         @Test
-        @DisplayName("Delete takes place")
+        @DisplayName("Delete takes place and the channel's entries are scheduled for purge, not deleted right away")
         void delete()
         {
             var channelId = 1L;
+            var channel = new Channel("name", "url", 3600).setId(channelId);
 
-            when(channelRepository.existsById(channelId)).thenReturn(true);
+            when(channelRepository.findById(channelId)).thenReturn(Optional.of(channel));
 
             service.delete(channelId);
 
-            verify(channelRepository, times(1)).existsById(channelId);
-            verify(channelRepository, times(1)).deleteById(channelId);
+            verify(channelRepository, times(1)).findById(channelId);
+            verify(channelRepository, times(1)).delete(channel);
             verifyNoMoreInteractions(channelRepository);
 
-            verify(feedEntryRepository, times(1)).deleteAllByChannelIdIn(java.util.List.of(channelId));
+            verify(channelPurgeService, times(1)).schedule(channel);
+            verifyNoMoreInteractions(channelPurgeService);
+
+            verify(readStateService, times(1)).unregisterChannel(channelId);
+            verify(channelFilterService, times(1)).evict(channelId);
+            verify(sequenceService, times(1)).increment(ISequenceService.CHANNEL_VERSION_SEQUENCE);
 
             verifyNoInteractions(feedClient);
         }
     }
-}
\ No newline at end of file
+
+    @Nested
+    @DisplayName("Test the updateRefreshTime() method")
+    class UpdateRefreshTime
+    {
+        @Test
+        @DisplayName("No statement must be issued if there are no channels to update")
+        void updateRefreshTime_NoChannels()
+        {
+            service.updateRefreshTime(Set.of());
+
+            verifyNoInteractions(channelRepository);
+            verifyNoInteractions(feedClient);
+            verifyNoInteractions(channelPurgeService);
+            verifyNoInteractions(sequenceService);
+        }
+
+        @Test
+        @DisplayName("All the channels must be updated in one single statement")
+        void updateRefreshTime()
+        {
+            var channelIds = Set.of(1L, 2L, 3L);
+
+            when(channelRepository.updateRefreshTime(eq(channelIds), any())).thenReturn(channelIds.size());
+
+            service.updateRefreshTime(channelIds);
+
+            verify(channelRepository, times(1)).updateRefreshTime(eq(channelIds), any());
+            verifyNoMoreInteractions(channelRepository);
+
+            // the version is changed by the caller, last in its transaction
+            verifyNoInteractions(sequenceService);
+
+            verifyNoInteractions(feedClient);
+            verifyNoInteractions(channelPurgeService);
+        }
+    }
+
+    @Nested
+    @DisplayName("Test the updateVersion() method")
+    class UpdateVersion
+    {
+        @Test
+        @DisplayName("The version of the channel table must be incremented")
+        void updateVersion()
+        {
+            service.updateVersion();
+
+            verify(sequenceService, times(1)).increment(ISequenceService.CHANNEL_VERSION_SEQUENCE);
+            verifyNoMoreInteractions(sequenceService);
+
+            verifyNoInteractions(channelRepository);
+        }
+    }
+}
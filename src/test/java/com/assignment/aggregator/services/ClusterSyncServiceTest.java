@@ -0,0 +1,98 @@
+package com.assignment.aggregator.services;
+
+import com.assignment.aggregator.AbstractSpringTest;
+import com.assignment.aggregator.models.FeedEntry;
+import com.assignment.aggregator.repositories.IFeedEntryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.Mockito.*;
+
+class ClusterSyncServiceTest extends AbstractSpringTest
+{
+    private static final int BATCH_SIZE = 2;
+
+    @Mock
+    private IFeedEntryRepository feedEntryRepository;
+
+    @Mock
+    private ISequenceService sequenceService;
+
+    @Mock
+    private IChannelPurgeService channelPurgeService;
+
+    @Mock
+    private IReadStateService readStateService;
+
+    @Mock
+    private IFeedSearchService feedSearchService;
+
+    @Mock
+    private INearDuplicateService nearDuplicateService;
+
+    @Mock
+    private IFeedStreamService feedStreamService;
+
+    private ClusterSyncService service;
+
+    @BeforeEach
+    void setupService()
+    {
+        service = new ClusterSyncService(feedEntryRepository, sequenceService, channelPurgeService, readStateService, feedSearchService, nearDuplicateService,
+                                         feedStreamService, BATCH_SIZE);
+    }
+
+    private static FeedEntry entry(long sequence)
+    {
+        return new FeedEntry().setId(String.valueOf(sequence)).setChannelId(1L).setLink("http://host/" + sequence).setKey("http://host/" + sequence).setSequence(sequence);
+    }
+
+    @Test
+    @DisplayName("The first run must only record where synchronization starts from")
+    void sync_FirstRun()
+    {
+        when(sequenceService.stable(ISequenceService.FEED_ENTRY_SEQUENCE)).thenReturn(10L);
+
+        service.sync();
+
+        verifyNoInteractions(feedEntryRepository, readStateService, feedSearchService, nearDuplicateService, feedStreamService);
+    }
+
+    @Test
+    @DisplayName("Entries stored and channels deleted by other nodes must be applied in batches, local entries must be skipped")
+    void sync()
+    {
+        var local = entry(11);
+        var remote1 = entry(12);
+        var remote2 = entry(13);
+
+        when(sequenceService.stable(ISequenceService.FEED_ENTRY_SEQUENCE)).thenReturn(10L, 14L);
+        when(feedEntryRepository.findBySequenceRange(10, 14, BATCH_SIZE)).thenReturn(List.of(local, remote1));
+        when(feedEntryRepository.findBySequenceRange(12, 14, BATCH_SIZE)).thenReturn(List.of(remote2));
+        when(channelPurgeService.deletedChannelIds(anyLong(), anyLong())).thenReturn(Set.of());
+        when(channelPurgeService.deletedChannelIds(12, 14)).thenReturn(Set.of(2L));
+
+        service.sync();
+        service.ingested(List.of(local));
+        service.sync();
+
+        var inOrder = inOrder(readStateService);
+        inOrder.verify(readStateService, times(1)).register(List.of(remote1));
+        inOrder.verify(readStateService, times(1)).synced(12);
+        inOrder.verify(readStateService, times(1)).register(List.of(remote2));
+        inOrder.verify(readStateService, times(1)).unregisterChannel(2L);
+        inOrder.verify(readStateService, times(1)).synced(14);
+
+        verify(feedSearchService, times(1)).index(List.of(remote1));
+        verify(feedSearchService, times(1)).index(List.of(remote2));
+        verify(feedSearchService, times(1)).remove(2L);
+        verify(nearDuplicateService, times(1)).remember(List.of(remote1));
+        verify(feedStreamService, times(1)).publish(List.of(remote2));
+        verify(feedStreamService, never()).publish(argThat(entries -> entries.contains(local)));
+    }
+}
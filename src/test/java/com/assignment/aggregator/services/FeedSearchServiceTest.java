@@ -0,0 +1,108 @@
+package com.assignment.aggregator.services;
+
+import com.assignment.aggregator.AbstractSpringTest;
+import com.assignment.aggregator.models.Channel;
+import com.assignment.aggregator.models.FeedEntry;
+import com.assignment.aggregator.repositories.IChannelRepository;
+import com.assignment.aggregator.repositories.IFeedEntryRepository;
+import com.assignment.aggregator.repositories.search.FeedEntrySearchIndex;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class FeedSearchServiceTest extends AbstractSpringTest
+{
+    @Mock
+    private FeedEntrySearchIndex searchIndex;
+
+    @Mock
+    private IFeedEntryRepository feedEntryRepository;
+
+    @Mock
+    private IChannelRepository channelRepository;
+
+    @InjectMocks
+    private FeedSearchService service;
+
+    @Nested
+    @DisplayName("Test the search() method")
+    class Search
+    {
+        @Test
+        @DisplayName("Matching entries must be read from storage and returned in the order of the matches")
+        void search()
+        {
+            var pageable = PageRequest.of(0, 10);
+            var entry1 = new FeedEntry().setId("1").setLink("url1");
+            var entry2 = new FeedEntry().setId("2").setLink("url2");
+
+            when(searchIndex.search("java", Set.of(), null, null, pageable)).thenReturn(new PageImpl<>(List.of("2", "1"), pageable, 2));
+            when(feedEntryRepository.findAllByIdIn(List.of("2", "1"))).thenReturn(List.of(entry1, entry2));
+
+            var result = service.search("java", Set.of(), null, null, pageable);
+
+            assertEquals(List.of(entry2, entry1), result.getContent());
+            assertEquals(2, result.getTotalElements());
+        }
+
+        @Test
+        @DisplayName("Storage must not be read when nothing matches")
+        void search_NoMatches()
+        {
+            var pageable = PageRequest.of(0, 10);
+
+            when(searchIndex.search("java", Set.of(), null, null, pageable)).thenReturn(new PageImpl<>(List.of(), pageable, 0));
+
+            var result = service.search("java", Set.of(), null, null, pageable);
+
+            assertTrue(result.isEmpty());
+            verifyNoInteractions(feedEntryRepository);
+        }
+    }
+
+    @Nested
+    @DisplayName("Test the rebuild() method")
+    class Rebuild
+    {
+        @Test
+        @DisplayName("The index must be cleared and every channel's entries indexed again, then committed")
+        void rebuild()
+        {
+            var entries1 = List.of(new FeedEntry().setId("1").setLink("url11"));
+            var entries2 = List.of(new FeedEntry().setId("2").setLink("url21"));
+
+            when(channelRepository.findAll()).thenReturn(List.of(new Channel("channel 1", "url1", 3600).setId(1L),
+                                                                 new Channel("channel 2", "url2", 3600).setId(2L)));
+            when(feedEntryRepository.findAllByChannelIdIn(List.of(1L))).thenReturn(entries1);
+            when(feedEntryRepository.findAllByChannelIdIn(List.of(2L))).thenReturn(entries2);
+
+            service.rebuild();
+
+            InOrder inOrder = inOrder(searchIndex);
+            inOrder.verify(searchIndex).deleteAll();
+            inOrder.verify(searchIndex).index(entries1);
+            inOrder.verify(searchIndex).index(entries2);
+            inOrder.verify(searchIndex).commit();
+        }
+    }
+
+    @Test
+    @DisplayName("Empty batches of new entries must not be indexed")
+    void index_Empty()
+    {
+        service.index(List.of());
+
+        verifyNoInteractions(searchIndex);
+    }
+}
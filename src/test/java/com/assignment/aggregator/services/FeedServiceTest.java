@@ -3,27 +3,47 @@ package com.assignment.aggregator.services;
 import com.assignment.aggregator.AbstractSpringTest;
 import com.assignment.aggregator.client.IFeedClient;
 import com.assignment.aggregator.exceptions.ChannelNotFoundException;
-import com.assignment.aggregator.mappers.IMapper;
+import com.assignment.aggregator.exceptions.InvalidChannelException;
+import com.assignment.aggregator.mappers.IDTOMapper;
 import com.assignment.aggregator.models.Channel;
 import com.assignment.aggregator.models.FeedEntry;
 import com.assignment.aggregator.repositories.IFeedEntryRepository;
 import com.rometools.rome.feed.synd.SyndEntry;
 import com.rometools.rome.feed.synd.SyndEntryImpl;
 import com.rometools.rome.feed.synd.SyndFeedImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
-
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
+import static java.util.stream.Collectors.toSet;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -39,11 +59,91 @@ class FeedServiceTest extends AbstractSpringTest
     private IFeedEntryRepository feedEntryRepository;
 
     @Mock
-    private IMapper<SyndEntry, FeedEntry> mapper;
+    private IDTOMapper<SyndEntry, FeedEntry> mapper;
+
+    @Mock
+    private ISequenceService sequenceService;
+
+    @Mock
+    private IReadStateService readStateService;
+
+    @Mock
+    private IChannelPurgeService channelPurgeService;
+
+    @Mock
+    private IChannelLeaseService channelLeaseService;
+
+    @Mock
+    private IFeedStreamService feedStreamService;
+
+    @Mock
+    private IFeedSearchService feedSearchService;
+
+    @Mock
+    private IRefreshAdmissionService refreshAdmissionService;
+
+    @Mock
+    private INearDuplicateService nearDuplicateService;
+
+    @Mock
+    private IChannelFilterService channelFilterService;
+
+    @Mock
+    private IClusterSyncService clusterSyncService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final ExecutorService fetchExecutor = Executors.newFixedThreadPool(2);
+
+    private final ExecutorService completionExecutor = Executors.newFixedThreadPool(2);
 
-    @InjectMocks
     private FeedService service;
 
+    @BeforeEach
+    void setupService()
+    {
+        service = new FeedService(channelService, feedClient, feedEntryRepository, mapper, sequenceService, readStateService, channelPurgeService,
+                                  channelLeaseService, feedStreamService, feedSearchService, refreshAdmissionService, nearDuplicateService,
+                                  channelFilterService, clusterSyncService, fetchExecutor, completionExecutor, transactionManager);
+    }
+
+    @AfterEach
+    void shutdownExecutors()
+    {
+        fetchExecutor.shutdownNow();
+        completionExecutor.shutdownNow();
+    }
+
+    /**
+     * Single node: every channel is leased by the current node unless stated otherwise
+     */
+    @BeforeEach
+    void leaseEveryChannel()
+    {
+        when(channelLeaseService.acquire(anyCollection())).thenAnswer(i -> ((Collection<Channel>) i.getArgument(0)).stream()
+                                                                                                             .map(Channel::getId)
+                                                                                                             .collect(toSet()));
+    }
+
+    /**
+     * Channels may be fetched again at any time unless stated otherwise
+     */
+    @BeforeEach
+    void allowEveryRefetch()
+    {
+        when(refreshAdmissionService.reserveRefetch(any())).thenReturn(true);
+    }
+
+    /**
+     * Channels have no filter rules unless stated otherwise
+     */
+    @BeforeEach
+    void acceptEveryEntry()
+    {
+        when(channelFilterService.filter(any(), any())).thenAnswer(i -> i.getArgument(1));
+    }
+
     @Nested
     @DisplayName("Test the fetch() method")
     class Fetch
@@ -94,6 +194,48 @@ class FeedServiceTest extends AbstractSpringTest
             verifyNoInteractions(mapper);
         }
 
+        @Test
+        @DisplayName("No refresh should take place if the channel is leased by another node, even if forced")
+        void fetch_LeasedByAnotherNode()
+        {
+            var channel = new Channel("name", "url", 3600);
+            channel.setId(1L);
+
+            when(channelService.get(channel.getId())).thenReturn(channel);
+            when(channelLeaseService.acquire(anyCollection())).thenReturn(Set.of());
+
+            var result = service.fetch(channel.getId(), true);
+
+            assertTrue(result.isEmpty());
+
+            verify(channelService, times(1)).get(channel.getId());
+            verifyNoMoreInteractions(channelService);
+
+            verifyNoInteractions(feedClient);
+            verifyNoInteractions(mapper);
+        }
+
+        @Test
+        @DisplayName("No refresh should take place if the channel was fetched within the minimum interval, even if forced")
+        void fetch_RefetchedTooSoon()
+        {
+            var channel = new Channel("name", "url", 3600);
+            channel.setId(1L);
+            channel.setLastRefresh(ZonedDateTime.now().minusSeconds(10));
+
+            when(channelService.get(channel.getId())).thenReturn(channel);
+            when(refreshAdmissionService.reserveRefetch(channel)).thenReturn(false);
+
+            var result = service.fetch(channel.getId(), true);
+
+            assertTrue(result.isEmpty());
+
+            verify(channelService, never()).updateRefreshTime(anyLong());
+            verifyNoInteractions(channelLeaseService);
+            verifyNoInteractions(feedClient);
+            verifyNoInteractions(mapper);
+        }
+
         @Test
         @DisplayName("Refresh should take place if forced, even if the channel's TTL hasn't yet expired")
         void fetch_TTLNotExpired_ForcedRefresh()
@@ -131,12 +273,20 @@ class FeedServiceTest extends AbstractSpringTest
 
             verify(channelService, times(1)).get(channel.getId());
             verify(channelService, times(1)).updateRefreshTime(channel.getId());
+            verify(channelService, times(1)).updateVersion();
+            verify(channelService, times(1)).updateLatestSequences(anyMap());
             verifyNoMoreInteractions(channelService);
 
             verify(feedEntryRepository, times(1)).findAllByChannelIdIn(List.of(channel.getId()));
             verify(feedEntryRepository, times(1)).saveAll(Set.of(dto1, dto2));
             verifyNoMoreInteractions(feedEntryRepository);
 
+            // the channel table version is locked last, once the entries are stored
+            var inOrder = inOrder(feedEntryRepository, channelService);
+            inOrder.verify(feedEntryRepository, times(1)).saveAll(Set.of(dto1, dto2));
+            inOrder.verify(channelService, times(1)).updateRefreshTime(channel.getId());
+            inOrder.verify(channelService, times(1)).updateVersion();
+
             verify(feedClient, times(1)).fetch(channel.getUrl());
             verifyNoMoreInteractions(feedClient);
 
@@ -145,6 +295,167 @@ class FeedServiceTest extends AbstractSpringTest
             verifyNoMoreInteractions(mapper);
         }
 
+        @Test
+        @DisplayName("Fetched entries must be told apart from the stored ones by key, and from the entries stored without key by link")
+        void fetch_StoredEntriesMatchedByKey()
+        {
+            var channel = new Channel("name", "url", 3600);
+            channel.setId(1L);
+
+            var keyed = new FeedEntry().setLink("http://host/a?utm_source=rss").setKey("http://host/a");
+            var unkeyed = new FeedEntry().setLink("http://host/b");
+
+            var sameKey = new FeedEntry().setLink("http://host/a?utm_source=mail").setKey("http://host/a");
+            var sameLink = new FeedEntry().setLink("http://host/b").setKey("guid:b");
+            var fresh = new FeedEntry().setLink("http://host/c").setKey("http://host/c");
+
+            var feed = new SyndFeedImpl();
+            feed.getEntries().addAll(List.of(new SyndEntryImpl(), new SyndEntryImpl(), new SyndEntryImpl()));
+
+            when(channelService.get(channel.getId())).thenReturn(channel);
+            when(feedEntryRepository.findAllByChannelIdIn(List.of(channel.getId()))).thenReturn(List.of(keyed, unkeyed));
+            when(feedClient.fetch(channel.getUrl())).thenReturn(feed);
+            when(mapper.mapToDTO(any(SyndEntryImpl.class), eq(FeedEntry.class))).thenReturn(sameKey, sameLink, fresh);
+            when(sequenceService.reserve(ISequenceService.FEED_ENTRY_SEQUENCE, 1)).thenReturn(1L);
+
+            var result = service.fetch(channel.getId(), true);
+
+            assertEquals(Set.of(keyed, unkeyed, fresh), result);
+            verify(feedEntryRepository, times(1)).saveAll(Set.of(fresh));
+        }
+
+        @Test
+        @DisplayName("Stored entries edited by their publisher must be updated in place, unchanged entries must not be written")
+        void fetch_EditedEntriesUpdated()
+        {
+            var channel = new Channel("name", "url", 3600);
+            channel.setId(1L);
+
+            var edited = new FeedEntry().setId("1").setChannelId(1L).setLink("http://host/a").setKey("http://host/a").setTitle("title").setFingerprint(1);
+            var unchanged = new FeedEntry().setId("2").setChannelId(1L).setLink("http://host/b").setKey("http://host/b").setTitle("title").setFingerprint(2);
+            var legacy = new FeedEntry().setId("3").setChannelId(1L).setLink("http://host/c").setKey("http://host/c").setTitle("title");
+
+            var fetchedEdit = new FeedEntry().setLink("http://host/a").setKey("http://host/a").setTitle("edited title").setFingerprint(3);
+            var fetchedUnchanged = new FeedEntry().setLink("http://host/b").setKey("http://host/b").setTitle("title").setFingerprint(2);
+            var fetchedLegacy = new FeedEntry().setLink("http://host/c").setKey("http://host/c").setTitle("edited title").setFingerprint(4);
+
+            var feed = new SyndFeedImpl();
+            feed.getEntries().addAll(List.of(new SyndEntryImpl(), new SyndEntryImpl(), new SyndEntryImpl()));
+
+            when(channelService.get(channel.getId())).thenReturn(channel);
+            when(feedEntryRepository.findAllByChannelIdIn(List.of(channel.getId()))).thenReturn(List.of(edited, unchanged, legacy));
+            when(feedClient.fetch(channel.getUrl())).thenReturn(feed);
+            when(mapper.mapToDTO(any(SyndEntryImpl.class), eq(FeedEntry.class))).thenReturn(fetchedEdit, fetchedUnchanged, fetchedLegacy);
+            when(sequenceService.reserve(ISequenceService.FEED_ENTRY_SEQUENCE, 1)).thenReturn(9L);
+
+            var result = service.fetch(channel.getId(), true);
+
+            assertAll(
+                    () -> assertEquals(Set.of(edited, unchanged, legacy), result),
+                    () -> assertEquals("edited title", edited.getTitle()),
+                    () -> assertEquals(3, edited.getFingerprint()),
+                    () -> assertNotNull(edited.getUpdated()),
+                    () -> assertNull(unchanged.getUpdated()),
+                    () -> assertEquals("title", legacy.getTitle()));
+            verify(feedEntryRepository, times(1)).updateContents(List.of(edited));
+            verify(feedSearchService, times(1)).index(List.of(edited));
+            verify(channelService, times(1)).updateLatestSequences(Map.of(1L, 9L));
+            verify(feedEntryRepository, never()).saveAll(anyCollection());
+        }
+
+        @Test
+        @DisplayName("Edited entries must be given new ingest sequences, so delta-sync clients and the other nodes read them again")
+        void fetch_EditedEntriesResequenced()
+        {
+            var channel = new Channel("name", "url", 3600);
+            channel.setId(1L);
+
+            var edited = new FeedEntry().setId("1").setChannelId(1L).setLink("http://host/a").setKey("http://host/a").setSequence(2).setFingerprint(1);
+            var fetchedEdit = new FeedEntry().setLink("http://host/a").setKey("http://host/a").setTitle("edited title").setFingerprint(3);
+
+            var feed = new SyndFeedImpl();
+            feed.getEntries().add(new SyndEntryImpl());
+
+            when(channelService.get(channel.getId())).thenReturn(channel);
+            when(feedEntryRepository.findAllByChannelIdIn(List.of(channel.getId()))).thenReturn(List.of(edited));
+            when(feedClient.fetch(channel.getUrl())).thenReturn(feed);
+            when(mapper.mapToDTO(any(SyndEntryImpl.class), eq(FeedEntry.class))).thenReturn(fetchedEdit);
+            when(sequenceService.reserve(ISequenceService.FEED_ENTRY_SEQUENCE, 1)).thenReturn(9L);
+
+            var sequences = new ArrayList<Long>();
+            doAnswer(i -> sequences.add(i.<Collection<FeedEntry>>getArgument(0).iterator().next().getSequence())).when(readStateService).unregister(anyCollection());
+
+            service.fetch(channel.getId(), true);
+
+            assertAll(
+                    () -> assertEquals(9L, edited.getSequence()),
+                    () -> assertEquals(List.of(2L), sequences));
+
+            var inOrder = inOrder(clusterSyncService, feedEntryRepository, sequenceService);
+            inOrder.verify(clusterSyncService, times(1)).ingested(List.of(edited));
+            inOrder.verify(feedEntryRepository, times(1)).updateContents(List.of(edited));
+            inOrder.verify(sequenceService, times(1)).release(ISequenceService.FEED_ENTRY_SEQUENCE, 9L);
+
+            verify(readStateService, times(1)).register(List.of(edited));
+            verify(feedStreamService, times(1)).publish(List.of(edited));
+        }
+
+        @Test
+        @DisplayName("Only the entries accepted by the channel's filter must be mapped and stored")
+        void fetch_FilteredEntriesDropped()
+        {
+            var channel = new Channel("name", "url", 3600);
+            channel.setId(1L);
+
+            var accepted = new SyndEntryImpl();
+            accepted.setTitle("accepted");
+            var dropped = new SyndEntryImpl();
+            dropped.setTitle("dropped");
+
+            var feed = new SyndFeedImpl();
+            feed.getEntries().addAll(List.of(accepted, dropped));
+
+            var fetched = new FeedEntry().setLink("http://host/a").setKey("http://host/a").setFingerprint(1);
+
+            when(channelService.get(channel.getId())).thenReturn(channel);
+            when(feedEntryRepository.findAllByChannelIdIn(List.of(channel.getId()))).thenReturn(List.of());
+            when(feedClient.fetch(channel.getUrl())).thenReturn(feed);
+            when(channelFilterService.filter(channel, feed.getEntries())).thenReturn(List.of(accepted));
+            when(mapper.mapToDTO(accepted, FeedEntry.class)).thenReturn(fetched);
+
+            var result = service.fetch(channel.getId(), true);
+
+            assertEquals(Set.of(fetched), result);
+            verify(mapper, times(1)).mapToDTO(accepted, FeedEntry.class);
+            verify(mapper, never()).mapToDTO(dropped, FeedEntry.class);
+            verify(feedEntryRepository, times(1)).saveAll(Set.of(fetched));
+        }
+
+        @Test
+        @DisplayName("Fetching unchanged entries must not write anything")
+        void fetch_UnchangedEntriesNotWritten()
+        {
+            var channel = new Channel("name", "url", 3600);
+            channel.setId(1L);
+
+            var stored = new FeedEntry().setId("1").setChannelId(1L).setLink("http://host/a").setKey("http://host/a").setFingerprint(1);
+            var fetched = new FeedEntry().setLink("http://host/a").setKey("http://host/a").setFingerprint(1);
+
+            var feed = new SyndFeedImpl();
+            feed.getEntries().add(new SyndEntryImpl());
+
+            when(channelService.get(channel.getId())).thenReturn(channel);
+            when(feedEntryRepository.findAllByChannelIdIn(List.of(channel.getId()))).thenReturn(List.of(stored));
+            when(feedClient.fetch(channel.getUrl())).thenReturn(feed);
+            when(mapper.mapToDTO(any(SyndEntryImpl.class), eq(FeedEntry.class))).thenReturn(fetched);
+
+            service.fetch(channel.getId(), true);
+
+            verify(feedEntryRepository, never()).updateContents(any());
+            verify(sequenceService, never()).reserve(any(), anyInt());
+            verify(feedEntryRepository, never()).saveAll(anyCollection());
+        }
+
         @ParameterizedTest
         @ValueSource(booleans = {false, true})
         @DisplayName("Refresh should take place if the channel's TTL has expired, whether or not is forced to refresh")
@@ -182,6 +493,8 @@ class FeedServiceTest extends AbstractSpringTest
 
             verify(channelService, times(1)).get(channel.getId());
             verify(channelService, times(1)).updateRefreshTime(channel.getId());
+            verify(channelService, times(1)).updateVersion();
+            verify(channelService, times(1)).updateLatestSequences(anyMap());
             verifyNoMoreInteractions(channelService);
 
             verify(feedClient, times(1)).fetch(channel.getUrl());
@@ -222,6 +535,8 @@ class FeedServiceTest extends AbstractSpringTest
 
             verify(channelService, times(1)).get(channel.getId());
             verify(channelService, times(1)).updateRefreshTime(channel.getId());
+            verify(channelService, times(1)).updateVersion();
+            verify(channelService, times(1)).updateLatestSequences(anyMap());
             verifyNoMoreInteractions(channelService);
 
             verify(feedClient, times(1)).fetch(channel.getUrl());
@@ -251,19 +566,12 @@ class FeedServiceTest extends AbstractSpringTest
         @DisplayName("No fetch should be performed on a channel if its TTL has not yet expired and is not being forced to refresh")
         void aggregate_UnexpiredTTL()
         {
-            var channel1 = new Channel("channel 1", "url", 3600);
-            channel1.setId(1L);
-            channel1.setLastRefresh(ZonedDateTime.now());
-
-            var channel2 = new Channel("channel 2", "url", 3600);
-            channel2.setId(2L);
-            channel2.setLastRefresh(ZonedDateTime.now());
-
-            when(channelService.list()).thenReturn(List.of(channel1, channel2));
+            // the repository only returns due channels
+            when(channelService.listDue(eq(0), anyInt())).thenReturn(List.of());
 
             service.aggregate(false);
 
-            verify(channelService, times(1)).list();
+            verify(channelService, times(1)).listDue(eq(0), anyInt());
             verifyNoMoreInteractions(channelService);
 
             // neither channel is fetched as both have unexpired TTLs
@@ -308,27 +616,741 @@ class FeedServiceTest extends AbstractSpringTest
 
             when(feedClient.fetch(anyString())).thenReturn(feed);
 
-            // assume the mapper maps all the entries (as the four of them have been fetched from source)
-            when(mapper.mapToDTO(any(SyndEntryImpl.class), eq(FeedEntry.class))).thenReturn(channel1Entry1)
-                                                                                .thenReturn(channel1Entry2)
-                                                                                .thenReturn(channel2Entry1)
-                                                                                .thenReturn(channel2Entry2);
+            // each fetch maps a new entry, whichever channel is fetched first
+            when(mapper.mapToDTO(anyCollection(), eq(FeedEntry.class))).thenReturn(List.of(channel1Entry2))
+                                                                       .thenReturn(List.of(channel2Entry2));
 
             service.aggregate(true);
 
             verify(feedEntryRepository, times(1)).findAll();
-            verify(feedEntryRepository, times(1)).saveAll(anySet());
+            verify(feedEntryRepository, times(1)).saveAll(Set.of(channel1Entry2, channel2Entry2));
             verifyNoMoreInteractions(feedEntryRepository);
 
             verify(channelService, times(1)).list();
-            verify(channelService, times(1)).updateRefreshTime(channel1.getId());
-            verify(channelService, times(1)).updateRefreshTime(channel2.getId());
+            verify(channelService, times(1)).updateRefreshTime(Set.of(channel1.getId(), channel2.getId()));
+            verify(channelService, times(1)).updateVersion();
+            verify(channelService, times(1)).updateLatestSequences(anyMap());
             verifyNoMoreInteractions(channelService);
 
-            // neither channel is fetched as both have unexpired TTLs
+            // both channels are fetched even though their TTLs haven't expired
             verify(feedClient, times(1)).fetch(channel1.getUrl());
             verify(feedClient, times(1)).fetch(channel2.getUrl());
             verifyNoMoreInteractions(feedClient);
         }
+
+        @Test
+        @DisplayName("Only the channels whose fetch succeeded must have their refresh time updated")
+        void aggregate_FailedFetchIsNotRefreshed()
+        {
+            var channel1 = new Channel("channel 1", "url1", 3600);
+            channel1.setId(1L);
+
+            var channel2 = new Channel("channel 2", "url2", 3600);
+            channel2.setId(2L);
+
+            var entry = new FeedEntry();
+            entry.setLink("url11");
+
+            var feed = new SyndFeedImpl();
+            feed.getEntries().add(new SyndEntryImpl());
+
+            when(channelService.listDue(eq(0), anyInt())).thenReturn(List.of(channel1, channel2));
+            when(feedClient.fetch(channel1.getUrl())).thenReturn(feed);
+            when(feedClient.fetch(channel2.getUrl())).thenThrow(new InvalidChannelException(channel2.getUrl()));
+            when(mapper.mapToDTO(anyCollection(), eq(FeedEntry.class))).thenReturn(List.of(entry));
+
+            var result = service.aggregate(false);
+
+            assertEquals(Set.of(entry), result);
+
+            verify(channelService, times(1)).listDue(eq(0), anyInt());
+            verify(channelService, times(1)).updateRefreshTime(Set.of(channel1.getId()));
+            verify(channelService, times(1)).updateVersion();
+            verify(channelService, times(1)).updateLatestSequences(anyMap());
+            verifyNoMoreInteractions(channelService);
+
+            verify(feedEntryRepository, times(1)).saveAll(Set.of(entry));
+        }
+
+        @Test
+        @DisplayName("New entries must be assigned consecutive ingest sequences and registered as unread")
+        void aggregate_NewEntriesAreSequenced()
+        {
+            var channel = new Channel("channel 1", "url1", 3600);
+            channel.setId(1L);
+
+            var stored = new FeedEntry();
+            stored.setLink("url11");
+            stored.setSequence(1L);
+
+            var entry1 = new FeedEntry();
+            entry1.setLink("url12");
+
+            var entry2 = new FeedEntry();
+            entry2.setLink("url13");
+
+            var feed = new SyndFeedImpl();
+            feed.getEntries().add(new SyndEntryImpl());
+
+            when(feedEntryRepository.findAll()).thenReturn(List.of(stored));
+            when(channelService.listDue(eq(0), anyInt())).thenReturn(List.of(channel));
+            when(feedClient.fetch(channel.getUrl())).thenReturn(feed);
+            when(mapper.mapToDTO(anyCollection(), eq(FeedEntry.class))).thenReturn(List.of(stored, entry1, entry2));
+            when(sequenceService.reserve(ISequenceService.FEED_ENTRY_SEQUENCE, 2)).thenReturn(10L);
+
+            service.aggregate(false);
+
+            // the already stored entry keeps its sequence
+            assertEquals(1L, stored.getSequence());
+            assertEquals(Set.of(10L, 11L), Set.of(entry1.getSequence(), entry2.getSequence()));
+
+            var inOrder = inOrder(sequenceService, nearDuplicateService, feedEntryRepository);
+            inOrder.verify(sequenceService, times(1)).reserve(ISequenceService.FEED_ENTRY_SEQUENCE, 2);
+            inOrder.verify(nearDuplicateService, times(1)).cluster(Set.of(entry1, entry2));
+            inOrder.verify(feedEntryRepository, times(1)).saveAll(Set.of(entry1, entry2));
+            inOrder.verify(sequenceService, times(1)).release(ISequenceService.FEED_ENTRY_SEQUENCE, 10L);
+            verify(readStateService, times(1)).register(Set.of(entry1, entry2));
+            verify(feedSearchService, times(1)).index(Set.of(entry1, entry2));
+            verify(feedStreamService, times(1)).publish(Set.of(entry1, entry2));
+            verify(channelService, times(1)).updateLatestSequences(Map.of(channel.getId(), 11L));
+        }
+
+        @Test
+        @DisplayName("New entries must only be indexed and streamed once the completion's transaction commits")
+        void aggregate_IndexedAfterCommit()
+        {
+            var channel = new Channel("channel 1", "url1", 3600);
+            channel.setId(1L);
+
+            var entry = new FeedEntry();
+            entry.setLink("url11");
+
+            var feed = new SyndFeedImpl();
+            feed.getEntries().add(new SyndEntryImpl());
+
+            when(channelService.listDue(eq(0), anyInt())).thenReturn(List.of(channel));
+            when(feedClient.fetch(channel.getUrl())).thenReturn(feed);
+            when(mapper.mapToDTO(anyCollection(), eq(FeedEntry.class))).thenReturn(List.of(entry));
+            simulateTransactions();
+
+            service.aggregate(false);
+
+            var inOrder = inOrder(feedEntryRepository, transactionManager, feedSearchService, feedStreamService);
+            inOrder.verify(feedEntryRepository, times(1)).saveAll(Set.of(entry));
+            inOrder.verify(transactionManager, times(1)).commit(any());
+            inOrder.verify(feedSearchService, times(1)).index(Set.of(entry));
+            inOrder.verify(feedStreamService, times(1)).publish(Set.of(entry));
+        }
+
+        @Test
+        @DisplayName("New entries must be neither indexed nor streamed if the completion's transaction rolls back")
+        void aggregate_NotIndexedOnRollback()
+        {
+            var channel = new Channel("channel 1", "url1", 3600);
+            channel.setId(1L);
+
+            var entry = new FeedEntry();
+            entry.setLink("url11");
+
+            var feed = new SyndFeedImpl();
+            feed.getEntries().add(new SyndEntryImpl());
+
+            when(channelService.listDue(eq(0), anyInt())).thenReturn(List.of(channel));
+            when(feedClient.fetch(channel.getUrl())).thenReturn(feed);
+            when(mapper.mapToDTO(anyCollection(), eq(FeedEntry.class))).thenReturn(List.of(entry));
+            doThrow(new IllegalStateException("Lock timeout")).when(channelService).updateVersion();
+            simulateTransactions();
+
+            assertThrows(IllegalStateException.class, () -> service.aggregate(false));
+
+            verify(feedEntryRepository, times(1)).saveAll(Set.of(entry));
+            verify(transactionManager, times(1)).rollback(any());
+            verifyNoInteractions(feedSearchService);
+            verifyNoInteractions(feedStreamService);
+        }
+
+        /**
+         * Make the completions' transactions support synchronizations, run once committed and dropped on rollback
+         */
+        private void simulateTransactions()
+        {
+            when(transactionManager.getTransaction(any())).thenAnswer(i ->
+                                                                      {
+                                                                          TransactionSynchronizationManager.initSynchronization();
+                                                                          return new SimpleTransactionStatus();
+                                                                      });
+            doAnswer(i ->
+                     {
+                         var synchronizations = TransactionSynchronizationManager.getSynchronizations();
+                         TransactionSynchronizationManager.clearSynchronization();
+                         synchronizations.forEach(TransactionSynchronization::afterCommit);
+                         return null;
+                     }).when(transactionManager).commit(any());
+            doAnswer(i ->
+                     {
+                         TransactionSynchronizationManager.clearSynchronization();
+                         return null;
+                     }).when(transactionManager).rollback(any());
+        }
+
+        @Test
+        @DisplayName("Entries of deleted channels that haven't been purged yet must not be aggregated")
+        void aggregate_PendingPurgesAreFilteredOut()
+        {
+            var live = new FeedEntry().setChannelId(1L).setLink("url11");
+            var purged = new FeedEntry().setChannelId(2L).setLink("url21");
+
+            when(feedEntryRepository.findAll()).thenReturn(List.of(live, purged));
+            when(channelPurgeService.pendingChannelIds()).thenReturn(Set.of(2L));
+
+            var result = service.aggregate(false);
+
+            assertEquals(Set.of(live), result);
+        }
+
+        @Test
+        @DisplayName("Selected fields must be pushed down to the repository")
+        void aggregate_Fields()
+        {
+            var stored = new FeedEntry().setChannelId(1L).setLink("url11");
+
+            when(feedEntryRepository.findAllWithFields(Set.of("title"))).thenReturn(List.of(stored));
+
+            var result = service.aggregate(false, Set.of("title"));
+
+            assertEquals(Set.of(stored), result);
+            verify(feedEntryRepository, never()).findAll();
+        }
+    
+        @Test
+        @DisplayName("Channels leased by other nodes must not be fetched nor flagged as refreshed")
+        void aggregate_OnlyLeasedChannelsAreFetched()
+        {
+            var channel1 = new Channel("channel 1", "url1", 3600);
+            channel1.setId(1L);
+
+            var channel2 = new Channel("channel 2", "url2", 3600);
+            channel2.setId(2L);
+
+            var feed = new SyndFeedImpl();
+
+            when(channelService.listDue(eq(0), anyInt())).thenReturn(List.of(channel1, channel2));
+            when(channelLeaseService.acquire(anyCollection())).thenReturn(Set.of(channel1.getId()));
+            when(feedClient.fetch(channel1.getUrl())).thenReturn(feed);
+
+            service.aggregate(false);
+
+            verify(feedClient, times(1)).fetch(channel1.getUrl());
+            verifyNoMoreInteractions(feedClient);
+
+            verify(channelService, times(1)).updateRefreshTime(Set.of(channel1.getId()));
+
+            verify(channelService, times(1)).updateVersion();
+        }
+    }
+
+    @Nested
+    @DisplayName("Test the streaming aggregate() method")
+    class AggregateStream
+    {
+        @Test
+        @DisplayName("Stored entries must be streamed before the new entries of each refreshed channel")
+        void aggregate_StoredThenRefreshed()
+        {
+            var channel1 = new Channel("channel 1", "url1", 3600);
+            channel1.setId(1L);
+
+            var channel2 = new Channel("channel 2", "url2", 3600);
+            channel2.setId(2L);
+
+            var stored = new FeedEntry().setChannelId(channel1.getId()).setLink("url11");
+            var fresh = new FeedEntry().setChannelId(channel1.getId()).setLink("url12");
+
+            var feed = new SyndFeedImpl();
+            feed.getEntries().add(new SyndEntryImpl());
+
+            when(channelService.list()).thenReturn(List.of(channel1, channel2));
+            when(channelService.listDue(eq(0), anyInt())).thenReturn(List.of(channel1));
+            when(feedEntryRepository.findAllByChannelIdIn(List.of(channel1.getId(), channel2.getId()))).thenReturn(List.of(stored));
+            when(feedEntryRepository.findAllByChannelIdIn(List.of(channel1.getId()))).thenReturn(List.of(stored));
+            when(feedClient.fetch(channel1.getUrl())).thenReturn(feed);
+            when(mapper.mapToDTO(anyCollection(), eq(FeedEntry.class))).thenReturn(List.of(stored, fresh));
+            when(sequenceService.reserve(ISequenceService.FEED_ENTRY_SEQUENCE, 1)).thenReturn(1L);
+
+            var chunks = new ArrayList<Collection<FeedEntry>>();
+            service.aggregate(false, chunks::add);
+
+            assertEquals(List.of(List.of(stored), List.of(fresh)), chunks);
+            assertTrue(fresh.isFresh());
+
+            verify(channelService, times(1)).updateRefreshTime(Set.of(channel1.getId()));
+
+            verify(channelService, times(1)).updateVersion();
+            verify(channelService, never()).updateRefreshTime(anyLong());
+            verify(feedEntryRepository, times(1)).saveAll(Set.of(fresh));
+            verify(feedEntryRepository, never()).findAll();
+        }
+
+        @Test
+        @DisplayName("A client going away must not prevent the persisted channels from being flagged as refreshed")
+        void aggregate_ClientGoneAway()
+        {
+            var channel = new Channel("channel 1", "url1", 3600);
+            channel.setId(1L);
+
+            var fresh = new FeedEntry().setChannelId(channel.getId()).setLink("url11");
+
+            var feed = new SyndFeedImpl();
+            feed.getEntries().add(new SyndEntryImpl());
+
+            when(channelService.list()).thenReturn(List.of(channel));
+            when(channelService.listDue(eq(0), anyInt())).thenReturn(List.of(channel));
+            when(feedClient.fetch(channel.getUrl())).thenReturn(feed);
+            when(mapper.mapToDTO(anyCollection(), eq(FeedEntry.class))).thenReturn(List.of(fresh));
+            when(sequenceService.reserve(ISequenceService.FEED_ENTRY_SEQUENCE, 1)).thenReturn(1L);
+
+            var chunks = new ArrayList<Collection<FeedEntry>>();
+            assertThrows(UncheckedIOException.class, () -> service.aggregate(false, chunk ->
+            {
+                if (!chunks.isEmpty())
+                {
+                    throw new UncheckedIOException(new IOException("client gone away"));
+                }
+                chunks.add(chunk);
+            }));
+
+            verify(feedEntryRepository, times(1)).saveAll(Set.of(fresh));
+            verify(channelService, times(1)).updateRefreshTime(Set.of(channel.getId()));
+            verify(channelService, times(1)).updateVersion();
+        }
+
+        @Test
+        @DisplayName("A failing channel must not be streamed nor flagged as refreshed")
+        void aggregate_FailedFetchIsSkipped()
+        {
+            var channel = new Channel("channel 1", "url1", 3600);
+            channel.setId(1L);
+
+            when(channelService.list()).thenReturn(List.of(channel));
+            when(channelService.listDue(eq(0), anyInt())).thenReturn(List.of(channel));
+            when(feedClient.fetch(channel.getUrl())).thenThrow(new InvalidChannelException(channel.getUrl()));
+
+            var chunks = new ArrayList<Collection<FeedEntry>>();
+            service.aggregate(false, chunks::add);
+
+            // only the (empty) chunk of stored entries
+            assertEquals(List.of(List.of()), chunks);
+
+            verify(channelService, never()).updateRefreshTime(anyLong());
+            verify(channelService, never()).updateRefreshTime(anyCollection());
+            verifyNoInteractions(sequenceService);
+        }
+
+        @Test
+        @DisplayName("Entries of deleted channels that haven't been purged yet must not be streamed")
+        void aggregate_PendingPurgesAreFilteredOut()
+        {
+            var channel1 = new Channel("channel 1", "url1", 3600);
+            channel1.setId(1L);
+
+            var channel2 = new Channel("channel 2", "url2", 3600);
+            channel2.setId(2L);
+
+            when(channelService.list()).thenReturn(List.of(channel1, channel2));
+            when(channelPurgeService.pendingChannelIds()).thenReturn(Set.of(channel2.getId()));
+
+            service.aggregate(false, c -> {});
+
+            verify(feedEntryRepository, times(1)).findAllByChannelIdIn(List.of(channel1.getId()));
+        }
+    }
+
+    @Nested
+    @DisplayName("Test the timeline() method")
+    class Timeline
+    {
+        private final Instant now = Instant.now();
+
+        @Test
+        @DisplayName("The newest stored entries of every channel must be merged with the new entries, newest first")
+        void timeline_MergesNewestEntries()
+        {
+            var channel1 = new Channel("channel 1", "url1", 3600);
+            channel1.setId(1L);
+
+            var channel2 = new Channel("channel 2", "url2", 3600);
+            channel2.setId(2L);
+
+            var stored11 = new FeedEntry().setChannelId(1L).setLink("url11").setPublicationDate(now.minusSeconds(10));
+            var stored12 = new FeedEntry().setChannelId(1L).setLink("url12").setPublicationDate(now.minusSeconds(40));
+            var stored21 = new FeedEntry().setChannelId(2L).setLink("url21").setPublicationDate(now.minusSeconds(20));
+            var stored22 = new FeedEntry().setChannelId(2L).setLink("url22");
+            var fresh = new FeedEntry().setLink("url13").setPublicationDate(now.minusSeconds(30));
+
+            var feed = new SyndFeedImpl();
+            feed.getEntries().add(new SyndEntryImpl());
+
+            when(channelService.list()).thenReturn(List.of(channel1, channel2));
+            when(channelService.listDue(eq(0), anyInt())).thenReturn(List.of(channel1));
+            when(feedEntryRepository.findNewestByChannelId(channel1.getId(), 4)).thenReturn(List.of(stored11, stored12));
+            when(feedEntryRepository.findNewestByChannelId(channel2.getId(), 4)).thenReturn(List.of(stored21, stored22));
+            when(feedClient.fetch(channel1.getUrl())).thenReturn(feed);
+            when(mapper.mapToDTO(anyCollection(), eq(FeedEntry.class))).thenReturn(List.of(stored11, fresh));
+            when(sequenceService.reserve(ISequenceService.FEED_ENTRY_SEQUENCE, 1)).thenReturn(1L);
+
+            var result = service.timeline(false, 4);
+
+            assertEquals(List.of(stored11, stored21, fresh, stored12), result);
+            assertTrue(fresh.isFresh());
+            assertFalse(stored11.isFresh());
+
+            verify(channelService, times(1)).updateRefreshTime(Set.of(channel1.getId()));
+
+            verify(channelService, times(1)).updateVersion();
+            verify(feedEntryRepository, times(1)).saveAll(Set.of(fresh));
+            verify(feedEntryRepository, times(1)).findUnkeyedByLinkIn(Set.of(fresh.getLink()));
+            verify(feedEntryRepository, never()).findAllByKeyIn(anyCollection());
+            verify(feedEntryRepository, never()).findAll();
+        }
+
+        @Test
+        @DisplayName("Fetched entries stored beyond the newest ones must not be persisted again")
+        void timeline_OlderStoredEntriesAreNotNew()
+        {
+            var channel = new Channel("channel 1", "url1", 3600);
+            channel.setId(1L);
+
+            var old = new FeedEntry().setLink("url10").setPublicationDate(now.minusSeconds(3600));
+
+            var feed = new SyndFeedImpl();
+            feed.getEntries().add(new SyndEntryImpl());
+
+            when(channelService.list()).thenReturn(List.of(channel));
+            when(channelService.listDue(eq(0), anyInt())).thenReturn(List.of(channel));
+            when(feedClient.fetch(channel.getUrl())).thenReturn(feed);
+            when(mapper.mapToDTO(anyCollection(), eq(FeedEntry.class))).thenReturn(List.of(old));
+            when(feedEntryRepository.findUnkeyedByLinkIn(Set.of(old.getLink()))).thenReturn(List.of(new FeedEntry().setLink("url10")));
+
+            var result = service.timeline(false, 10);
+
+            assertTrue(result.isEmpty());
+
+            verify(feedEntryRepository, never()).saveAll(anyCollection());
+            verifyNoInteractions(sequenceService);
+        }
+
+        @Test
+        @DisplayName("Fetched entries stored beyond the newest ones under the same key must not be persisted again")
+        void timeline_OlderStoredEntriesAreNotNewByKey()
+        {
+            var channel = new Channel("channel 1", "url1", 3600);
+            channel.setId(1L);
+
+            var old = new FeedEntry().setLink("url10?utm_source=rss").setKey("url10").setPublicationDate(now.minusSeconds(3600));
+
+            var feed = new SyndFeedImpl();
+            feed.getEntries().add(new SyndEntryImpl());
+
+            when(channelService.list()).thenReturn(List.of(channel));
+            when(channelService.listDue(eq(0), anyInt())).thenReturn(List.of(channel));
+            when(feedClient.fetch(channel.getUrl())).thenReturn(feed);
+            when(mapper.mapToDTO(anyCollection(), eq(FeedEntry.class))).thenReturn(List.of(old));
+            when(feedEntryRepository.findAllByKeyIn(Set.of(old.getKey()))).thenReturn(List.of(new FeedEntry().setLink("url10").setKey("url10")));
+
+            var result = service.timeline(false, 10);
+
+            assertTrue(result.isEmpty());
+
+            verify(feedEntryRepository, never()).saveAll(anyCollection());
+        }
+
+        @Test
+        @DisplayName("Fetched entries stored beyond the newest ones and edited since must be updated")
+        void timeline_OlderStoredEntriesEdited()
+        {
+            var channel = new Channel("channel 1", "url1", 3600);
+            channel.setId(1L);
+
+            var stored = new FeedEntry().setId("1").setChannelId(1L).setLink("url10").setKey("url10").setTitle("title").setSequence(2).setFingerprint(1);
+            var fetched = new FeedEntry().setChannelId(1L).setLink("url10").setKey("url10").setTitle("edited title").setFingerprint(2);
+
+            var feed = new SyndFeedImpl();
+            feed.getEntries().add(new SyndEntryImpl());
+
+            when(channelService.list()).thenReturn(List.of(channel));
+            when(channelService.listDue(eq(0), anyInt())).thenReturn(List.of(channel));
+            when(feedClient.fetch(channel.getUrl())).thenReturn(feed);
+            when(mapper.mapToDTO(anyCollection(), eq(FeedEntry.class))).thenReturn(List.of(fetched));
+            when(feedEntryRepository.findAllByKeyIn(Set.of("url10"))).thenReturn(List.of(stored));
+            when(sequenceService.reserve(ISequenceService.FEED_ENTRY_SEQUENCE, 1)).thenReturn(9L);
+
+            service.timeline(false, 10);
+
+            assertAll(
+                    () -> assertEquals("edited title", stored.getTitle()),
+                    () -> assertEquals(9L, stored.getSequence()));
+            verify(feedEntryRepository, times(1)).updateContents(List.of(stored));
+            verify(feedEntryRepository, never()).saveAll(anyCollection());
+        }
+
+        @Test
+        @DisplayName("Entries of deleted channels that haven't been purged yet must not be merged")
+        void timeline_PendingPurgesAreFilteredOut()
+        {
+            var channel1 = new Channel("channel 1", "url1", 3600);
+            channel1.setId(1L);
+
+            var channel2 = new Channel("channel 2", "url2", 3600);
+            channel2.setId(2L);
+
+            when(channelService.list()).thenReturn(List.of(channel1, channel2));
+            when(channelPurgeService.pendingChannelIds()).thenReturn(Set.of(channel2.getId()));
+
+            service.timeline(false, 10);
+
+            verify(feedEntryRepository, times(1)).findNewestByChannelId(channel1.getId(), 10);
+            verify(feedEntryRepository, never()).findNewestByChannelId(eq(channel2.getId()), anyInt());
+        }
+    }
+
+    @Nested
+    @DisplayName("Test the version() and aggregateVersion() methods")
+    class Version
+    {
+        @Test
+        @DisplayName("A channel due for a refresh must have no version")
+        void version_DueChannel()
+        {
+            var channel = new Channel("channel 1", "url1", 3600).setId(1L);
+            channel.setLastRefresh(ZonedDateTime.now().minusHours(2));
+
+            when(channelService.get(channel.getId())).thenReturn(channel);
+
+            assertTrue(service.version(channel.getId()).isEmpty());
+
+            verifyNoInteractions(feedEntryRepository);
+        }
+
+        @Test
+        @DisplayName("A fresh channel's version must follow its latest sequence and last until its TTL expires")
+        void version_FreshChannel()
+        {
+            var channel = new Channel("channel 1", "url1", 3600).setId(1L).setLatestSequence(42L);
+            channel.setLastRefresh(ZonedDateTime.now().minusMinutes(10));
+
+            when(channelService.get(channel.getId())).thenReturn(channel);
+
+            var version = service.version(channel.getId()).orElseThrow();
+
+            assertEquals("channel-1-42", version.getTag());
+            assertTrue(version.getMaxAge().compareTo(Duration.ofMinutes(50)) <= 0);
+            assertTrue(version.getMaxAge().compareTo(Duration.ofMinutes(49)) > 0);
+
+            verifyNoInteractions(feedEntryRepository);
+        }
+
+        @Test
+        @DisplayName("The aggregation must have no version while a channel is due for a refresh")
+        void aggregateVersion_DueChannel()
+        {
+            when(channelService.nextRefreshAt()).thenReturn(Optional.of(ZonedDateTime.now().minusSeconds(1)));
+
+            assertTrue(service.aggregateVersion().isEmpty());
+
+            verifyNoInteractions(feedEntryRepository);
+        }
+
+        @Test
+        @DisplayName("The aggregation's version must follow the channel table version and the latest ingest sequence")
+        void aggregateVersion()
+        {
+            when(channelService.nextRefreshAt()).thenReturn(Optional.of(ZonedDateTime.now().plusMinutes(1)));
+            when(channelService.version()).thenReturn(3L);
+            when(sequenceService.current(ISequenceService.FEED_ENTRY_SEQUENCE)).thenReturn(100L);
+
+            var version = service.aggregateVersion().orElseThrow();
+
+            assertEquals("aggregate-3-100", version.getTag());
+            assertTrue(version.getMaxAge().compareTo(Duration.ofMinutes(1)) <= 0);
+
+            verifyNoInteractions(feedEntryRepository);
+        }
+    }
+
+    @Nested
+    @DisplayName("Test the fetchAsync() method")
+    class FetchAsync
+    {
+        @Test
+        @DisplayName("The calling thread must not wait for the feed to be fetched, new entries must be persisted once it is")
+        void fetchAsync() throws Exception
+        {
+            var channel = new Channel("name", "url", 3600);
+            channel.setId(1L);
+
+            var fresh = new FeedEntry().setLink("url11");
+
+            var feed = new SyndFeedImpl();
+            feed.getEntries().add(new SyndEntryImpl());
+
+            var fetching = new CountDownLatch(1);
+
+            when(channelService.get(channel.getId())).thenReturn(channel);
+            when(feedClient.fetch(channel.getUrl())).thenAnswer(i ->
+                                                                {
+                                                                    fetching.await(10, TimeUnit.SECONDS);
+                                                                    return feed;
+                                                                });
+            when(mapper.mapToDTO(any(SyndEntryImpl.class), eq(FeedEntry.class))).thenReturn(fresh);
+            when(sequenceService.reserve(ISequenceService.FEED_ENTRY_SEQUENCE, 1)).thenReturn(1L);
+
+            var future = service.fetchAsync(channel.getId(), true, Set.of());
+
+            assertFalse(future.isDone());
+            verify(feedEntryRepository, never()).saveAll(anyCollection());
+
+            fetching.countDown();
+
+            assertEquals(Set.of(fresh), future.get(10, TimeUnit.SECONDS));
+            assertTrue(fresh.isFresh());
+
+            verify(feedEntryRepository, times(1)).saveAll(Set.of(fresh));
+            verify(channelService, times(1)).updateRefreshTime(channel.getId());
+            verify(channelService, times(1)).updateVersion();
+        }
+
+        @Test
+        @DisplayName("The stored entries must not be read on the calling thread")
+        void fetchAsync_StoredEntriesReadAsynchronously() throws Exception
+        {
+            var channel = new Channel("name", "url", 3600);
+            channel.setId(1L);
+            channel.setLastRefresh(ZonedDateTime.now());
+
+            var stored = new FeedEntry().setLink("url11");
+            var readingThread = new CompletableFuture<Thread>();
+
+            when(channelService.get(channel.getId())).thenReturn(channel);
+            when(feedEntryRepository.findAllByChannelIdIn(List.of(channel.getId()))).thenAnswer(i ->
+                                                                                                 {
+                                                                                                     readingThread.complete(Thread.currentThread());
+                                                                                                     return List.of(stored);
+                                                                                                 });
+
+            var future = service.fetchAsync(channel.getId(), false, Set.of());
+
+            assertEquals(Set.of(stored), future.get(10, TimeUnit.SECONDS));
+            assertNotSame(Thread.currentThread(), readingThread.get());
+
+            verifyNoInteractions(feedClient);
+        }
+    }
+
+    @Nested
+    @DisplayName("Test the refresh() method")
+    class Refresh
+    {
+        @Test
+        @DisplayName("The new entries of the due channels must be persisted, without reading the stored entries")
+        void refresh()
+        {
+            var channel = new Channel("channel 1", "url1", 3600);
+            channel.setId(1L);
+
+            var stored = new FeedEntry().setChannelId(1L).setLink("url11");
+            var old = new FeedEntry().setChannelId(1L).setLink("url12");
+            var fresh = new FeedEntry().setChannelId(1L).setLink("url13");
+
+            var feed = new SyndFeedImpl();
+            feed.getEntries().add(new SyndEntryImpl());
+
+            when(channelService.listDue(eq(0), anyInt())).thenReturn(List.of(channel));
+            when(feedClient.fetch(channel.getUrl())).thenReturn(feed);
+            when(mapper.mapToDTO(anyCollection(), eq(FeedEntry.class))).thenReturn(List.of(stored, old, fresh));
+            when(feedEntryRepository.findNewestByChannelId(channel.getId(), 3)).thenReturn(List.of(stored));
+            when(feedEntryRepository.findUnkeyedByLinkIn(anyCollection())).thenReturn(List.of(old));
+            when(sequenceService.reserve(ISequenceService.FEED_ENTRY_SEQUENCE, 1)).thenReturn(1L);
+
+            service.refresh();
+
+            verify(channelService, times(1)).updateRefreshTime(Set.of(channel.getId()));
+
+            verify(channelService, times(1)).updateVersion();
+            verify(feedEntryRepository, times(1)).saveAll(Set.of(fresh));
+            verify(feedEntryRepository, times(1)).findUnkeyedByLinkIn(Set.of(old.getLink(), fresh.getLink()));
+            verify(feedEntryRepository, never()).findAll();
+            verify(feedEntryRepository, never()).findAllByChannelIdIn(anyList());
+        }
+
+        @Test
+        @DisplayName("Nothing must be read nor persisted when no channel is due")
+        void refresh_NothingDue()
+        {
+            when(channelService.listDue(eq(0), anyInt())).thenReturn(List.of());
+
+            service.refresh();
+
+            verifyNoInteractions(feedClient);
+            verifyNoInteractions(feedEntryRepository);
+            verifyNoInteractions(sequenceService);
+        }
+    }
+
+    @Nested
+    @DisplayName("Test the changes() method")
+    class Changes
+    {
+        @Test
+        @DisplayName("Changes must be read up to the stable sequence, along with the channels deleted in between")
+        void changes()
+        {
+            var entry = new FeedEntry().setChannelId(1L).setLink("url11").setSequence(11L);
+
+            when(sequenceService.stable(ISequenceService.FEED_ENTRY_SEQUENCE)).thenReturn(15L);
+            when(feedEntryRepository.findBySequenceRange(10L, 15L, 100)).thenReturn(List.of(entry));
+            when(channelPurgeService.deletedChannelIds(10L, 15L)).thenReturn(Set.of(2L));
+
+            var changes = service.changes(10L, 100);
+
+            assertAll(
+                    () -> assertEquals(List.of(entry), changes.getEntries()),
+                    () -> assertEquals(Set.of(2L), changes.getDeletedChannelIds()),
+                    () -> assertEquals(15L, changes.getNext()),
+                    () -> assertFalse(changes.isHasMore()));
+        }
+
+        @Test
+        @DisplayName("A full page must be followed from its last entry, and entries of channels being purged left out")
+        void changes_FullPage()
+        {
+            var live = new FeedEntry().setChannelId(1L).setLink("url11").setSequence(1L);
+            var purged = new FeedEntry().setChannelId(2L).setLink("url21").setSequence(2L);
+
+            when(sequenceService.stable(ISequenceService.FEED_ENTRY_SEQUENCE)).thenReturn(10L);
+            when(feedEntryRepository.findBySequenceRange(0L, 10L, 2)).thenReturn(List.of(live, purged));
+            when(channelPurgeService.pendingChannelIds()).thenReturn(Set.of(2L));
+            when(channelPurgeService.deletedChannelIds(0L, 2L)).thenReturn(Set.of());
+
+            var changes = service.changes(0L, 2);
+
+            assertAll(
+                    () -> assertEquals(List.of(live), changes.getEntries()),
+                    () -> assertEquals(2L, changes.getNext()),
+                    () -> assertTrue(changes.isHasMore()));
+        }
+
+        @Test
+        @DisplayName("The sync token must never move backwards")
+        void changes_UpToDate()
+        {
+            when(sequenceService.stable(ISequenceService.FEED_ENTRY_SEQUENCE)).thenReturn(10L);
+
+            var changes = service.changes(12L, 100);
+
+            assertAll(
+                    () -> assertTrue(changes.getEntries().isEmpty()),
+                    () -> assertEquals(12L, changes.getNext()),
+                    () -> assertFalse(changes.isHasMore()));
+        }
     }
-}
\ No newline at end of file
+}
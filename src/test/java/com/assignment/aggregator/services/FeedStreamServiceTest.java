@@ -0,0 +1,257 @@
+package com.assignment.aggregator.services;
+
+import com.assignment.aggregator.models.FeedEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FeedStreamServiceTest
+{
+    private static final int REPLAY_SIZE = 3;
+
+    private static final int SUBSCRIBER_BUFFER_SIZE = 2;
+
+    /**
+     * Tasks submitted to the executor, run on demand so that slow consumers can be simulated
+     */
+    private final Deque<Runnable> tasks = new ArrayDeque<>();
+
+    /**
+     * Emitters handed out to the next subscriptions
+     */
+    private final Deque<SseEmitter> emitters = new ArrayDeque<>();
+
+    private FeedStreamService service;
+
+    @BeforeEach
+    void setupService()
+    {
+        Executor executor = tasks::add;
+
+        service = new FeedStreamService(executor, REPLAY_SIZE, SUBSCRIBER_BUFFER_SIZE, Duration.ofMinutes(1))
+        {
+            @Override
+            SseEmitter newEmitter()
+            {
+                return emitters.removeFirst();
+            }
+        };
+    }
+
+    private RecordingEmitter subscribe(Set<Long> channelIds, Long lastEventId)
+    {
+        var emitter = new RecordingEmitter();
+        emitters.add(emitter);
+        service.subscribe(channelIds, lastEventId);
+
+        return emitter;
+    }
+
+    private void runTasks()
+    {
+        while (!tasks.isEmpty())
+        {
+            tasks.removeFirst().run();
+        }
+    }
+
+    private static FeedEntry entry(long channelId, long sequence)
+    {
+        return new FeedEntry().setChannelId(channelId)
+                              .setLink("url" + sequence)
+                              .setSequence(sequence);
+    }
+
+    private static String entryEvent(long sequence)
+    {
+        return "id:" + sequence + "\nevent:" + FeedStreamService.ENTRY_EVENT + "\ndata:url" + sequence + "\n\n";
+    }
+
+    private static String resyncEvent(long missed)
+    {
+        return "event:" + FeedStreamService.RESYNC_EVENT + "\ndata:" + missed + "\n\n";
+    }
+
+    @Nested
+    @DisplayName("Test the publish() method")
+    class Publish
+    {
+        @Test
+        @DisplayName("New entries must be pushed in sequence order to the subscribers of their channel")
+        void publish_FilteredByChannel()
+        {
+            var all = subscribe(Set.of(), null);
+            var channel2 = subscribe(Set.of(2L), null);
+
+            service.publish(List.of(entry(2, 2), entry(1, 1)));
+            runTasks();
+
+            assertEquals(List.of(entryEvent(1), entryEvent(2)), all.events);
+            assertEquals(List.of(entryEvent(2)), channel2.events);
+        }
+
+        @Test
+        @DisplayName("The oldest pending entries of a slow subscriber must be dropped and coalesced into a resync event")
+        void publish_SlowSubscriber()
+        {
+            var subscriber = subscribe(Set.of(), null);
+
+            // the subscriber doesn't get to write anything in between
+            service.publish(List.of(entry(1, 1), entry(1, 2)));
+            service.publish(List.of(entry(1, 3)));
+            service.publish(List.of(entry(1, 4)));
+            runTasks();
+
+            assertEquals(List.of(resyncEvent(2), entryEvent(3), entryEvent(4)), subscriber.events);
+        }
+
+        @Test
+        @DisplayName("A subscriber with a steady flow of entries must take turns with the other subscribers")
+        void publish_SubscribersTakeTurns()
+        {
+            var busy = subscribe(Set.of(), null);
+            var other = subscribe(Set.of(), null);
+
+            // new entries keep coming while the first subscriber writes
+            busy.onSend = () -> service.publish(List.of(entry(1, busy.events.size() + 1)));
+
+            service.publish(List.of(entry(1, 1)));
+            while (other.events.size() < 3)
+            {
+                tasks.removeFirst().run();
+            }
+
+            assertEquals(List.of(entryEvent(1), entryEvent(2), entryEvent(3)), other.events);
+            assertTrue(busy.events.size() <= 3);
+        }
+
+        @Test
+        @DisplayName("Published entries must be handed to the subscribers by the executor, not by the publishing thread")
+        void publish_FanOutOnExecutor()
+        {
+            var first = subscribe(Set.of(), null);
+            var second = subscribe(Set.of(), null);
+
+            service.publish(List.of(entry(1, 1)));
+            service.publish(List.of(entry(1, 2)));
+
+            // a single task hands both batches over, in publication order
+            assertEquals(1, tasks.size());
+            assertTrue(first.events.isEmpty());
+            assertTrue(second.events.isEmpty());
+
+            runTasks();
+
+            assertEquals(List.of(entryEvent(1), entryEvent(2)), first.events);
+            assertEquals(List.of(entryEvent(1), entryEvent(2)), second.events);
+        }
+
+        @Test
+        @DisplayName("Subscribers resumed before published entries are handed over must receive them once")
+        void publish_ResumedBeforeFanOut()
+        {
+            service.publish(List.of(entry(1, 1)));
+
+            var subscriber = subscribe(Set.of(), 0L);
+            runTasks();
+
+            assertEquals(List.of(entryEvent(1)), subscriber.events);
+        }
+
+        @Test
+        @DisplayName("A subscriber whose client went away must be unsubscribed")
+        void publish_ClientGone()
+        {
+            var subscriber = subscribe(Set.of(), null);
+            subscriber.failing = true;
+
+            service.publish(List.of(entry(1, 1)));
+            runTasks();
+
+            assertEquals(0, service.subscriberCount());
+        }
+    }
+
+    @Nested
+    @DisplayName("Test the subscribe() method")
+    class Subscribe
+    {
+        @Test
+        @DisplayName("New subscribers must only receive the entries ingested after they subscribed")
+        void subscribe_New()
+        {
+            service.publish(List.of(entry(1, 1)));
+
+            var subscriber = subscribe(Set.of(), null);
+            service.publish(List.of(entry(1, 2)));
+            runTasks();
+
+            assertEquals(List.of(entryEvent(2)), subscriber.events);
+        }
+
+        @Test
+        @DisplayName("Resuming subscribers must first receive the entries they missed")
+        void subscribe_Resume()
+        {
+            service.publish(List.of(entry(1, 1), entry(1, 2), entry(1, 3)));
+
+            var subscriber = subscribe(Set.of(), 1L);
+            runTasks();
+
+            assertEquals(List.of(entryEvent(2), entryEvent(3)), subscriber.events);
+        }
+
+        @Test
+        @DisplayName("Resuming subscribers must be told to resync if the entries they missed left the replay buffer")
+        void subscribe_ResumeBeyondReplay()
+        {
+            service.publish(List.of(entry(1, 1), entry(1, 2), entry(1, 3), entry(1, 4), entry(1, 5)));
+
+            var subscriber = subscribe(Set.of(1L), 1L);
+            runTasks();
+
+            // entry 2 left the buffer, and only the last two entries fit in the subscriber's buffer
+            assertEquals(List.of(resyncEvent(2), entryEvent(4), entryEvent(5)), subscriber.events);
+        }
+    }
+
+    /**
+     * Records the events sent, with the entries replaced by their link
+     */
+    private static class RecordingEmitter extends SseEmitter
+    {
+        private final List<String> events = new ArrayList<>();
+
+        private boolean failing = false;
+
+        private Runnable onSend = () -> {};
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException
+        {
+            if (failing)
+            {
+                throw new IOException("Broken pipe");
+            }
+
+            var event = new StringBuilder();
+            builder.build().forEach(d -> event.append(d.getData() instanceof FeedEntry ? ((FeedEntry) d.getData()).getLink() : d.getData()));
+
+            events.add(event.toString());
+            onSend.run();
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.assignment.aggregator.services;
+
+import com.assignment.aggregator.AbstractSpringTest;
+import com.assignment.aggregator.models.Channel;
+import com.assignment.aggregator.models.FeedEntry;
+import com.assignment.aggregator.models.SyndicationFormat;
+import com.assignment.aggregator.repositories.IFeedEntryRepository;
+import com.rometools.rome.feed.synd.SyndContentImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.w3c.dom.Document;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class FeedSyndicationServiceTest extends AbstractSpringTest
+{
+    private static final String LINK = "http://localhost/api/feed/aggregate/atom";
+
+    @Mock
+    private IFeedService feedService;
+
+    @Mock
+    private IChannelService channelService;
+
+    @Mock
+    private IChannelPurgeService channelPurgeService;
+
+    @Mock
+    private ISequenceService sequenceService;
+
+    @Mock
+    private IFeedEntryRepository feedEntryRepository;
+
+    private FeedSyndicationService service;
+
+    @BeforeEach
+    void setupService()
+    {
+        service = new FeedSyndicationService(feedService, channelService, channelPurgeService, sequenceService, feedEntryRepository, "Aggregated", 10);
+
+        when(channelService.nextRefreshAt()).thenReturn(Optional.of(ZonedDateTime.now().plusMinutes(10)));
+        when(channelService.version()).thenReturn(3L);
+        when(channelService.list()).thenReturn(List.of(new Channel("name", "url", 3600).setId(1L), new Channel("name", "url", 3600).setId(2L)));
+        when(channelPurgeService.pendingChannelIds()).thenReturn(Set.of());
+    }
+
+    private static FeedEntry entry(long channelId, String link, long sequence, long publishedAt)
+    {
+        return new FeedEntry().setId(link)
+                              .setChannelId(channelId)
+                              .setLink(link)
+                              .setSequence(sequence)
+                              .setTitle("title " + link)
+                              .setPublicationDate(Instant.ofEpochSecond(publishedAt));
+    }
+
+    private static Document parse(byte[] document) throws Exception
+    {
+        var factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+
+        return factory.newDocumentBuilder().parse(new ByteArrayInputStream(document));
+    }
+
+    private static String links(Document document, String element)
+    {
+        var links = new StringBuilder();
+        var nodes = document.getElementsByTagName(element);
+        for (var i = 0; i < nodes.getLength(); i++)
+        {
+            links.append(nodes.item(i).getTextContent()).append(' ');
+        }
+
+        return links.toString().trim();
+    }
+
+    @Nested
+    @DisplayName("Test the render() method")
+    class Render
+    {
+        @Test
+        @DisplayName("The newest entries of the channels must be rendered as Atom, newest first")
+        void render_Atom() throws Exception
+        {
+            when(sequenceService.stable(ISequenceService.FEED_ENTRY_SEQUENCE)).thenReturn(10L);
+            when(feedEntryRepository.findNewestByChannelId(1L, 2)).thenReturn(List.of(entry(1L, "a", 3, 300), entry(1L, "b", 1, 100)));
+            when(feedEntryRepository.findNewestByChannelId(2L, 2)).thenReturn(List.of(entry(2L, "c", 2, 200)));
+
+            var document = service.render(SyndicationFormat.ATOM, Set.of(), 2, LINK);
+            var atom = parse(document.getContent());
+
+            assertAll(
+                    () -> assertEquals("http://www.w3.org/2005/Atom", atom.getDocumentElement().getNamespaceURI()),
+                    () -> assertEquals("feed", atom.getDocumentElement().getLocalName()),
+                    () -> assertEquals(LINK + " a c", links(atom, "id")),
+                    () -> assertEquals("1970-01-01T00:05:00Z", atom.getDocumentElement().getElementsByTagName("updated").item(0).getTextContent()),
+                    () -> assertEquals("atom-3-10", document.getVersion().getTag()),
+                    () -> assertTrue(document.getVersion().getMaxAge().getSeconds() > 500));
+
+            verifyNoInteractions(feedService);
+        }
+
+        @Test
+        @DisplayName("The due channels must be refreshed in the background, one refresh at a time")
+        void render_RefreshDue()
+        {
+            var refresh = new CompletableFuture<Void>();
+
+            when(channelService.nextRefreshAt()).thenReturn(Optional.of(ZonedDateTime.now().minusSeconds(1)));
+            when(feedService.refreshAsync()).thenReturn(refresh);
+            when(sequenceService.stable(ISequenceService.FEED_ENTRY_SEQUENCE)).thenReturn(10L);
+            when(feedEntryRepository.findNewestByChannelId(anyLong(), anyInt())).thenReturn(List.of());
+
+            var document = service.render(SyndicationFormat.ATOM, Set.of(), 10, LINK);
+            service.render(SyndicationFormat.ATOM, Set.of(), 10, LINK);
+
+            assertEquals(Duration.ZERO, document.getVersion().getMaxAge());
+            verify(feedService, times(1)).refreshAsync();
+
+            refresh.complete(null);
+            service.render(SyndicationFormat.ATOM, Set.of(), 10, LINK);
+
+            verify(feedService, times(2)).refreshAsync();
+        }
+
+        @Test
+        @DisplayName("A selection of channels must be rendered once, whatever the order its channels are given in")
+        void render_SameSelection() throws Exception
+        {
+            when(sequenceService.stable(ISequenceService.FEED_ENTRY_SEQUENCE)).thenReturn(10L);
+            when(feedEntryRepository.findNewestByChannelId(anyLong(), anyInt())).thenReturn(List.of());
+
+            var first = service.render(SyndicationFormat.ATOM, List.of(1L, 2L), 10, LINK);
+            var second = service.render(SyndicationFormat.ATOM, List.of(2L, 1L), 10, LINK + "?unused=1");
+
+            assertSame(first.getContent(), second.getContent());
+            assertEquals(LINK, links(parse(second.getContent()), "id"));
+
+            verify(feedEntryRepository, times(2)).findNewestByChannelId(anyLong(), anyInt());
+        }
+
+        @Test
+        @DisplayName("The entries must be rendered as RSS, authors as Dublin Core creators, without the characters not allowed in XML")
+        void render_Rss() throws Exception
+        {
+            var content = new SyndContentImpl();
+            content.setType("text/html");
+            content.setValue("<p>contents\u0001</p>");
+
+            when(sequenceService.stable(ISequenceService.FEED_ENTRY_SEQUENCE)).thenReturn(10L);
+            when(feedEntryRepository.findNewestByChannelId(1L, 10)).thenReturn(List.of(entry(1L, "a", 1, 0).setAuthors(List.of("author"))
+                                                                                                          .setContents(List.of(content))));
+
+            var rss = parse(service.render(SyndicationFormat.RSS, Set.of(1L), 10, LINK).getContent());
+
+            assertAll(
+                    () -> assertEquals("2.0", rss.getDocumentElement().getAttribute("version")),
+                    () -> assertEquals("a", links(rss, "guid")),
+                    () -> assertEquals("Thu, 1 Jan 1970 00:00:00 GMT", links(rss, "pubDate")),
+                    () -> assertEquals("author", rss.getElementsByTagNameNS("http://purl.org/dc/elements/1.1/", "creator").item(0).getTextContent()),
+                    () -> assertEquals("<p>contents</p>", rss.getElementsByTagName("item").item(0).getLastChild().getTextContent()));
+
+            verify(feedEntryRepository, never()).findNewestByChannelId(eq(2L), anyInt());
+        }
+
+        @Test
+        @DisplayName("The cached document must be returned as is while nothing is ingested")
+        void render_Cached()
+        {
+            when(sequenceService.stable(ISequenceService.FEED_ENTRY_SEQUENCE)).thenReturn(10L);
+            when(feedEntryRepository.findNewestByChannelId(anyLong(), anyInt())).thenReturn(List.of());
+
+            var first = service.render(SyndicationFormat.ATOM, Set.of(), 10, LINK);
+            var second = service.render(SyndicationFormat.ATOM, Set.of(), 10, LINK);
+
+            assertAll(
+                    () -> assertSame(first.getContent(), second.getContent()),
+                    () -> assertEquals(first.getVersion().getTag(), second.getVersion().getTag()));
+
+            verify(feedEntryRepository, times(2)).findNewestByChannelId(anyLong(), anyInt());
+            verify(feedEntryRepository, never()).findBySequenceRange(anyLong(), anyLong(), anyInt());
+        }
+
+        @Test
+        @DisplayName("The cached document must be updated with the entries ingested since it was rendered only")
+        void render_Incremental() throws Exception
+        {
+            when(sequenceService.stable(ISequenceService.FEED_ENTRY_SEQUENCE)).thenReturn(10L, 12L, 13L);
+            when(feedEntryRepository.findNewestByChannelId(1L, 2)).thenReturn(List.of(entry(1L, "a", 3, 300), entry(1L, "b", 1, 100)));
+            when(feedEntryRepository.findNewestByChannelId(2L, 2)).thenReturn(List.of());
+
+            // entries of channels not rendered are left out
+            when(feedEntryRepository.findBySequenceRange(eq(10L), eq(12L), anyInt())).thenReturn(List.of(entry(2L, "c", 11, 400), entry(3L, "d", 12, 500)));
+            when(feedEntryRepository.findBySequenceRange(eq(12L), eq(13L), anyInt())).thenReturn(List.of(entry(3L, "e", 13, 600)));
+
+            var first = service.render(SyndicationFormat.ATOM, Set.of(), 2, LINK);
+            var second = service.render(SyndicationFormat.ATOM, Set.of(), 2, LINK);
+            var third = service.render(SyndicationFormat.ATOM, Set.of(), 2, LINK);
+
+            assertAll(
+                    () -> assertEquals(LINK + " c a", links(parse(second.getContent()), "id")),
+                    () -> assertNotEquals(first.getVersion().getTag(), second.getVersion().getTag()),
+                    () -> assertSame(second.getContent(), third.getContent()),
+                    () -> assertEquals("atom-3-13", third.getVersion().getTag()));
+
+            verify(feedEntryRepository, times(1)).findNewestByChannelId(1L, 2);
+            verify(feedEntryRepository, times(1)).findNewestByChannelId(2L, 2);
+        }
+
+        @Test
+        @DisplayName("Entries edited since the document was rendered must replace their rendered copy")
+        void render_Edited() throws Exception
+        {
+            when(sequenceService.stable(ISequenceService.FEED_ENTRY_SEQUENCE)).thenReturn(10L, 11L);
+            when(feedEntryRepository.findNewestByChannelId(1L, 10)).thenReturn(List.of(entry(1L, "a", 3, 300), entry(1L, "b", 1, 100)));
+            when(feedEntryRepository.findNewestByChannelId(2L, 10)).thenReturn(List.of());
+
+            // edited entries are ingested again under a new sequence
+            when(feedEntryRepository.findBySequenceRange(eq(10L), eq(11L), anyInt())).thenReturn(List.of(entry(1L, "a", 11, 300).setTitle("edited a")));
+
+            service.render(SyndicationFormat.ATOM, Set.of(), 10, LINK);
+            var document = parse(service.render(SyndicationFormat.ATOM, Set.of(), 10, LINK).getContent());
+
+            assertAll(
+                    () -> assertEquals(LINK + " a b", links(document, "id")),
+                    () -> assertEquals("Aggregated edited a title b", links(document, "title")));
+        }
+
+        @Test
+        @DisplayName("The document must be rendered from scratch when a channel is unsubscribed or being purged")
+        void render_ChannelsChanged() throws Exception
+        {
+            when(sequenceService.stable(ISequenceService.FEED_ENTRY_SEQUENCE)).thenReturn(10L);
+            when(feedEntryRepository.findNewestByChannelId(1L, 10)).thenReturn(List.of(entry(1L, "a", 1, 100)));
+            when(feedEntryRepository.findNewestByChannelId(2L, 10)).thenReturn(List.of(entry(2L, "b", 2, 200)));
+
+            service.render(SyndicationFormat.ATOM, Set.of(), 10, LINK);
+
+            when(channelPurgeService.pendingChannelIds()).thenReturn(Set.of(2L));
+
+            var document = service.render(SyndicationFormat.ATOM, Set.of(), 10, LINK);
+
+            assertEquals(LINK + " a", links(parse(document.getContent()), "id"));
+
+            verify(feedEntryRepository, times(2)).findNewestByChannelId(1L, 10);
+            verify(feedEntryRepository, times(1)).findNewestByChannelId(2L, 10);
+            verify(feedEntryRepository, never()).findBySequenceRange(anyLong(), anyLong(), anyInt());
+        }
+    }
+
+    @Nested
+    @DisplayName("Test the version() method")
+    class Version
+    {
+        @Test
+        @DisplayName("The version must be the one the document is rendered at, without reading any entry")
+        void version()
+        {
+            when(sequenceService.stable(ISequenceService.FEED_ENTRY_SEQUENCE)).thenReturn(10L);
+
+            var version = service.version(SyndicationFormat.RSS, Set.of(1L), 10);
+
+            assertAll(
+                    () -> assertEquals("rss-3-10", version.orElseThrow().getTag()),
+                    () -> assertTrue(version.orElseThrow().getMaxAge().getSeconds() > 500));
+
+            verifyNoInteractions(feedService, feedEntryRepository);
+        }
+
+        @Test
+        @DisplayName("No version must be given while channels are due for a refresh")
+        void version_RefreshDue()
+        {
+            when(channelService.nextRefreshAt()).thenReturn(Optional.of(ZonedDateTime.now().minusSeconds(1)));
+
+            assertTrue(service.version(SyndicationFormat.ATOM, Set.of(), 10).isEmpty());
+
+            verifyNoInteractions(feedService, feedEntryRepository);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.assignment.aggregator.services;
+
+import com.assignment.aggregator.models.AlternateEntry;
+import com.assignment.aggregator.models.FeedEntry;
+import com.rometools.rome.feed.synd.SyndContentImpl;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.*;
+
+class NearDuplicateServiceTest
+{
+    private final NearDuplicateService service = new NearDuplicateService(Duration.ofHours(1), 1000, 6);
+
+    private static FeedEntry entry(long channelId, String link, long sequence, String title, String text)
+    {
+        var content = new SyndContentImpl();
+        content.setType("text/html");
+        content.setValue(text);
+
+        return new FeedEntry().setId(link)
+                              .setChannelId(channelId)
+                              .setLink(link)
+                              .setSequence(sequence)
+                              .setTitle(title)
+                              .setContents(List.of(content));
+    }
+
+    @Nested
+    @DisplayName("Test the cluster() method")
+    class Cluster
+    {
+        @Test
+        @DisplayName("Near duplicates must be clustered with the first one ingested, within a batch and across batches")
+        void cluster()
+        {
+            var story = "<p>The city council approved the new cycling lanes plan after a long debate on Tuesday night. The plan adds forty kilometres "
+                        + "of protected lanes across the city centre and the eastern districts, and will be completed by the end of next year.</p>";
+            var original = entry(1, "a", 1, "Council approves cycling lanes plan", story);
+            var copy = entry(2, "b", 2, "Council approves cycling lanes plan", story.replace("<p>", "<p class=\"lead\">"));
+            var other = entry(1, "c", 3, "Storm expected to hit the coast this weekend", "<p>Forecasters warn of strong winds and heavy rain.</p>");
+            var short1 = entry(1, "d", 4, "Live", null);
+
+            service.cluster(List.of(original, copy, other, short1));
+
+            var later = entry(3, "e", 5, "Council approves cycling lanes plan", story.replace("</p>", " Read more on our website.</p>"));
+            service.cluster(List.of(later));
+
+            assertAll(
+                    () -> assertEquals(1, original.getCluster()),
+                    () -> assertEquals(1, copy.getCluster()),
+                    () -> assertEquals(3, other.getCluster()),
+                    () -> assertEquals(4, short1.getCluster()),
+                    () -> assertEquals(1, later.getCluster()));
+        }
+    }
+
+    @Nested
+    @DisplayName("Test the remember() method")
+    class Remember
+    {
+        @Test
+        @DisplayName("Entries ingested later on must join the clusters of the entries remembered")
+        void remember()
+        {
+            var story = "<p>The city council approved the new cycling lanes plan after a long debate on Tuesday night. The plan adds forty kilometres "
+                        + "of protected lanes across the city centre and the eastern districts, and will be completed by the end of next year.</p>";
+            var remote = entry(2, "b", 7, "Council approves cycling lanes plan", story).setCluster(5);
+
+            service.remember(List.of(remote));
+
+            var local = entry(1, "a", 9, "Council approves cycling lanes plan", story);
+            service.cluster(List.of(local));
+
+            assertAll(
+                    () -> assertEquals(5, remote.getCluster()),
+                    () -> assertEquals(5, local.getCluster()));
+        }
+    }
+
+    @Nested
+    @DisplayName("Test the collapse() method")
+    class Collapse
+    {
+        @Test
+        @DisplayName("Every cluster must be collapsed into its first ingested entry, in the order of the entries")
+        void collapse()
+        {
+            var newest = new FeedEntry().setLink("c").setSequence(3).setCluster(1);
+            var unique = new FeedEntry().setLink("d").setSequence(4).setCluster(4);
+            var first = new FeedEntry().setLink("a").setSequence(1).setCluster(1);
+            var legacy = new FeedEntry().setLink("e").setSequence(0);
+            var second = new FeedEntry().setLink("b").setSequence(2).setCluster(1);
+
+            var collapsed = service.collapse(List.of(newest, unique, first, legacy, second));
+
+            assertAll(
+                    () -> assertEquals(List.of(first, unique, legacy), collapsed),
+                    () -> assertEquals(List.of("b", "c"), first.getAlternates().stream().map(AlternateEntry::getLink).collect(toList())),
+                    () -> assertTrue(unique.getAlternates().isEmpty()),
+                    () -> assertTrue(legacy.getAlternates().isEmpty()));
+        }
+    }
+}
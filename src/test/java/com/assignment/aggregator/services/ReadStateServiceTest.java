@@ -0,0 +1,267 @@
+package com.assignment.aggregator.services;
+
+import com.assignment.aggregator.AbstractSpringTest;
+import com.assignment.aggregator.models.FeedEntry;
+import com.assignment.aggregator.models.FeedEntrySequence;
+import com.assignment.aggregator.models.ReadState;
+import com.assignment.aggregator.repositories.IFeedEntryRepository;
+import com.assignment.aggregator.repositories.IReadStateRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ReadStateServiceTest extends AbstractSpringTest
+{
+    private static final String CLIENT_ID = "client";
+
+    @Mock
+    private IReadStateRepository readStateRepository;
+
+    @Mock
+    private IFeedEntryRepository feedEntryRepository;
+
+    @Mock
+    private IChannelPurgeService channelPurgeService;
+
+    @Mock
+    private ISequenceService sequenceService;
+
+    @InjectMocks
+    private ReadStateService service;
+
+    /**
+     * Channel 1 holds the entries 1 to 3, channel 2 the entries 4 and 5
+     */
+    @BeforeEach
+    void setupSequences()
+    {
+        when(feedEntryRepository.findSequencesBy()).thenReturn(List.of(sequence(1, 1), sequence(1, 2), sequence(1, 3),
+                                                                        sequence(2, 4), sequence(2, 5)));
+        when(feedEntryRepository.findAllBySequenceIn(anyCollection())).thenAnswer(i -> ((Collection<Long>) i.getArgument(0)).stream()
+                                                                                                                         .map(s -> new FeedEntry().setSequence(s))
+                                                                                                                         .collect(java.util.stream.Collectors.toList()));
+        when(readStateRepository.findById(CLIENT_ID)).thenReturn(Optional.empty());
+        when(readStateRepository.findForUpdate(CLIENT_ID)).thenReturn(Optional.empty());
+        when(sequenceService.current(ISequenceService.FEED_ENTRY_SEQUENCE)).thenReturn(5L);
+        when(sequenceService.stable(ISequenceService.FEED_ENTRY_SEQUENCE)).thenReturn(5L);
+    }
+
+    private static FeedEntrySequence sequence(long channelId, long sequence)
+    {
+        return new FeedEntrySequence()
+        {
+            @Override
+            public long getChannelId()
+            {
+                return channelId;
+            }
+
+            @Override
+            public long getSequence()
+            {
+                return sequence;
+            }
+        };
+    }
+
+    private static List<Long> sequences(List<FeedEntry> entries)
+    {
+        return entries.stream().map(FeedEntry::getSequence).collect(java.util.stream.Collectors.toList());
+    }
+
+    /**
+     * Mark entries as read and feed the resulting read state back to the mocked repository
+     */
+    private void markRead(Collection<Long> sequences)
+    {
+        service.markRead(CLIENT_ID, sequences);
+
+        var captor = ArgumentCaptor.forClass(ReadState.class);
+        verify(readStateRepository, atLeastOnce()).save(captor.capture());
+
+        when(readStateRepository.findById(CLIENT_ID)).thenReturn(Optional.of(captor.getValue()));
+        when(readStateRepository.findForUpdate(CLIENT_ID)).thenReturn(Optional.of(captor.getValue()));
+    }
+
+    @Nested
+    @DisplayName("Test the listUnread() method")
+    class ListUnread
+    {
+        @Test
+        @DisplayName("Every entry is unread for a new client")
+        void listUnread_NewClient()
+        {
+            assertAll(
+                    () -> assertEquals(List.of(1L, 2L, 3L, 4L, 5L), sequences(service.listUnread(CLIENT_ID, List.of(), 10))),
+                    () -> assertEquals(5, service.countUnread(CLIENT_ID, List.of())));
+        }
+
+        @Test
+        @DisplayName("Read entries must not be listed")
+        void listUnread_ExcludesReadEntries()
+        {
+            markRead(List.of(1L, 4L));
+
+            assertAll(
+                    () -> assertEquals(List.of(2L, 3L, 5L), sequences(service.listUnread(CLIENT_ID, List.of(), 10))),
+                    () -> assertEquals(List.of(2L, 3L), sequences(service.listUnread(CLIENT_ID, List.of(1L), 10))),
+                    () -> assertEquals(List.of(2L), sequences(service.listUnread(CLIENT_ID, List.of(), 1))),
+                    () -> assertEquals(3, service.countUnread(CLIENT_ID, List.of())));
+        }
+
+        @Test
+        @DisplayName("Nothing must be loaded when every entry has been read")
+        void listUnread_EverythingRead()
+        {
+            service.markRead(CLIENT_ID, 1, 5);
+
+            var captor = ArgumentCaptor.forClass(ReadState.class);
+            verify(readStateRepository).save(captor.capture());
+            when(readStateRepository.findById(CLIENT_ID)).thenReturn(Optional.of(captor.getValue()));
+
+            assertTrue(service.listUnread(CLIENT_ID, List.of(), 10).isEmpty());
+
+            verify(feedEntryRepository, never()).findAllBySequenceIn(anyCollection());
+        }
+
+        @Test
+        @DisplayName("Registered entries must be listed, entries of unregistered channels must not")
+        void listUnread_RegisteredAndUnregistered()
+        {
+            // bitmaps are loaded on first use
+            service.countUnread(CLIENT_ID, List.of());
+
+            service.register(List.of(new FeedEntry().setChannelId(3).setSequence(6)));
+            service.unregisterChannel(2);
+
+            assertEquals(List.of(1L, 2L, 3L, 6L), sequences(service.listUnread(CLIENT_ID, List.of(), 10)));
+
+            verify(feedEntryRepository, times(1)).findSequencesBy();
+        }
+
+        @Test
+        @DisplayName("Edited entries must be listed under their new sequence only")
+        void listUnread_Resequenced()
+        {
+            service.countUnread(CLIENT_ID, List.of());
+
+            var edited = new FeedEntry().setChannelId(1).setSequence(2);
+            service.unregister(List.of(edited));
+            service.register(List.of(edited.setSequence(6)));
+
+            assertAll(
+                    () -> assertEquals(List.of(1L, 3L, 4L, 5L, 6L), sequences(service.listUnread(CLIENT_ID, List.of(), 10))),
+                    () -> assertEquals(3, service.countUnread(CLIENT_ID, List.of(1L))));
+        }
+
+        @Test
+        @DisplayName("Sequences no stored entry has anymore, as those of entries edited on other nodes, must be forgotten once listed")
+        void listUnread_MissingSequencesForgotten()
+        {
+            when(feedEntryRepository.findAllBySequenceIn(anyCollection())).thenAnswer(i -> ((Collection<Long>) i.<Collection<Long>>getArgument(0)).stream()
+                                                                                                                                 .filter(s -> s != 2L)
+                                                                                                                                 .map(s -> new FeedEntry().setSequence(s))
+                                                                                                                                 .collect(java.util.stream.Collectors.toList()));
+
+            assertAll(
+                    () -> assertEquals(List.of(1L, 3L, 4L, 5L), sequences(service.listUnread(CLIENT_ID, List.of(), 10))),
+                    () -> assertEquals(4, service.countUnread(CLIENT_ID, List.of())),
+                    () -> assertEquals(2, service.countUnread(CLIENT_ID, List.of(1L))));
+        }
+
+        @Test
+        @DisplayName("Entries of deleted channels that haven't been purged yet must not be listed")
+        void listUnread_PendingPurgesAreFilteredOut()
+        {
+            when(channelPurgeService.pendingChannelIds()).thenReturn(Set.of(1L));
+
+            assertEquals(List.of(4L, 5L), sequences(service.listUnread(CLIENT_ID, List.of(), 10)));
+        }
+    }
+
+    @Nested
+    @DisplayName("Test the markRead() method")
+    class MarkRead
+    {
+        @Test
+        @DisplayName("Marking a range read must only keep the entries that exist")
+        void markRead_Range()
+        {
+            service.markRead(CLIENT_ID, 2, 1000);
+
+            var captor = ArgumentCaptor.forClass(ReadState.class);
+            verify(readStateRepository).save(captor.capture());
+            when(readStateRepository.findById(CLIENT_ID)).thenReturn(Optional.of(captor.getValue()));
+
+            assertAll(
+                    () -> assertEquals(CLIENT_ID, captor.getValue().getClientId()),
+                    () -> assertEquals(List.of(1L), sequences(service.listUnread(CLIENT_ID, List.of(), 10))));
+        }
+
+        @Test
+        @DisplayName("Marking an unbounded range read must be clamped to the live entries")
+        void markRead_UnboundedRange()
+        {
+            service.markRead(CLIENT_ID, 4, Long.MAX_VALUE);
+
+            var captor = ArgumentCaptor.forClass(ReadState.class);
+            verify(readStateRepository).save(captor.capture());
+            when(readStateRepository.findById(CLIENT_ID)).thenReturn(Optional.of(captor.getValue()));
+
+            assertEquals(List.of(1L, 2L, 3L), sequences(service.listUnread(CLIENT_ID, List.of(), 10)));
+        }
+
+        @Test
+        @DisplayName("Reads of entries not synchronized yet must be kept until they are")
+        void markRead_Unsynchronized()
+        {
+            // entries 6 and 7 have been stored by another node, 8 and 9 are being stored
+            when(sequenceService.current(ISequenceService.FEED_ENTRY_SEQUENCE)).thenReturn(9L);
+
+            markRead(List.of(1L, 6L, 7L, 100L));
+
+            service.register(List.of(new FeedEntry().setChannelId(3).setSequence(6)));
+            service.synced(7);
+
+            markRead(List.of(2L));
+
+            // the entry 6 was read before it was synchronized
+            assertEquals(List.of(3L, 4L, 5L), sequences(service.listUnread(CLIENT_ID, List.of(), 10)));
+        }
+
+        @Test
+        @DisplayName("An empty range must not mark anything read")
+        void markRead_EmptyRange()
+        {
+            service.markRead(CLIENT_ID, 3, 2);
+
+            assertEquals(5, service.countUnread(CLIENT_ID, List.of()));
+        }
+
+        @Test
+        @DisplayName("Entries read by a client must still be unread for other clients")
+        void markRead_PerClient()
+        {
+            markRead(Set.of(1L, 2L, 3L));
+
+            when(readStateRepository.findById("other")).thenReturn(Optional.empty());
+
+            assertAll(
+                    () -> assertEquals(2, service.countUnread(CLIENT_ID, List.of())),
+                    () -> assertEquals(5, service.countUnread("other", List.of())));
+        }
+    }
+}
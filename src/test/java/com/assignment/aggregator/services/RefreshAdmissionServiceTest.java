@@ -0,0 +1,94 @@
+package com.assignment.aggregator.services;
+
+import com.assignment.aggregator.exceptions.RefreshRateLimitedException;
+import com.assignment.aggregator.models.Channel;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RefreshAdmissionServiceTest
+{
+    @Nested
+    @DisplayName("Test the admit() method")
+    class Admit
+    {
+        @Test
+        @DisplayName("Every client must be limited to its own burst of forced refreshes")
+        void admit_ClientLimit()
+        {
+            var service = new RefreshAdmissionService(1, 2, 1000, 1000, Duration.ofMinutes(1));
+
+            service.admit("client1");
+            service.admit("client1");
+
+            var rejection = assertThrows(RefreshRateLimitedException.class, () -> service.admit("client1"));
+
+            assertAll(
+                    () -> assertTrue(rejection.getRetryAfter().compareTo(Duration.ofSeconds(59)) > 0),
+                    () -> assertTrue(rejection.getRetryAfter().compareTo(Duration.ofMinutes(1)) <= 0),
+                    () -> assertDoesNotThrow(() -> service.admit("client2")));
+        }
+
+        @Test
+        @DisplayName("The forced refreshes of every client must be limited as a whole")
+        void admit_GlobalLimit()
+        {
+            var service = new RefreshAdmissionService(1000, 1000, 1, 2, Duration.ofMinutes(1));
+
+            service.admit("client1");
+            service.admit("client2");
+
+            assertThrows(RefreshRateLimitedException.class, () -> service.admit("client3"));
+        }
+
+        @Test
+        @DisplayName("A client must not be charged for a forced refresh refused by the global limit")
+        void admit_GlobalLimitRefundsClient()
+        {
+            var service = new RefreshAdmissionService(1, 1, 1, 1, Duration.ofMinutes(1));
+
+            service.admit("client1");
+
+            // client2's own permit is given back every time, so it is refused by the global limit only
+            for (var i = 0; i < 3; i++)
+            {
+                var rejection = assertThrows(RefreshRateLimitedException.class, () -> service.admit("client2"));
+                assertTrue(rejection.getMessage().contains("limit: global"));
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Test the reserveRefetch() method")
+    class ReserveRefetch
+    {
+        private final RefreshAdmissionService service = new RefreshAdmissionService(1, 1, 1, 1, Duration.ofMinutes(1));
+
+        @Test
+        @DisplayName("Channels must not be fetched again within the minimum interval")
+        void reserveRefetch()
+        {
+            assertAll(
+                    () -> assertTrue(service.reserveRefetch(new Channel("name", "url", 0).setId(1L))),
+                    () -> assertTrue(service.reserveRefetch(new Channel("name", "url", 0).setId(2L).setLastRefresh(ZonedDateTime.now().minusMinutes(2)))),
+                    () -> assertFalse(service.reserveRefetch(new Channel("name", "url", 0).setId(3L).setLastRefresh(ZonedDateTime.now().minusSeconds(10)))));
+        }
+
+        @Test
+        @DisplayName("A channel must only be fetched once by concurrent refreshes, before its refresh time is updated")
+        void reserveRefetch_Concurrent()
+        {
+            var channel = new Channel("name", "url", 0).setId(1L);
+
+            assertAll(
+                    () -> assertTrue(service.reserveRefetch(channel)),
+                    () -> assertFalse(service.reserveRefetch(channel)),
+                    () -> assertTrue(service.reserveRefetch(new Channel("name", "url", 0).setId(2L))));
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.assignment.aggregator.services;
+
+import com.assignment.aggregator.AbstractSpringTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SequenceServiceTest extends AbstractSpringTest
+{
+    @Autowired
+    private ISequenceService service;
+
+    private String name;
+
+    @BeforeEach
+    void setupName()
+    {
+        name = "test-" + UUID.randomUUID();
+    }
+
+    @Nested
+    @DisplayName("Test the reserve() and stable() methods")
+    class Stable
+    {
+        @Test
+        @DisplayName("The stable value must be held back by the oldest reserved block until it is released")
+        void stable()
+        {
+            var first = service.reserve(name, 2);
+            var second = service.reserve(name, 3);
+
+            assertEquals(1L, first);
+            assertEquals(3L, second);
+            assertEquals(5L, service.current(name));
+            assertEquals(0L, service.stable(name));
+
+            service.release(name, second);
+            assertEquals(0L, service.stable(name));
+
+            service.release(name, first);
+            assertEquals(5L, service.stable(name));
+        }
+
+        @Test
+        @DisplayName("Allocated values must not be held back")
+        void stable_Allocate()
+        {
+            service.allocate(name, 4);
+
+            assertEquals(4L, service.stable(name));
+        }
+    }
+}
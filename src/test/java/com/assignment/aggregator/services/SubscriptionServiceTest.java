@@ -0,0 +1,217 @@
+package com.assignment.aggregator.services;
+
+import com.assignment.aggregator.AbstractSpringTest;
+import com.assignment.aggregator.exceptions.DuplicatedSubscriptionException;
+import com.assignment.aggregator.exceptions.InvalidSubscriptionTtlException;
+import com.assignment.aggregator.exceptions.SubscriptionNotFoundException;
+import com.assignment.aggregator.models.Channel;
+import com.assignment.aggregator.models.Subscription;
+import com.assignment.aggregator.repositories.IChannelRepository;
+import com.assignment.aggregator.repositories.ISubscriptionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SubscriptionServiceTest extends AbstractSpringTest
+{
+    @Mock
+    private ISubscriptionRepository subscriptionRepository;
+
+    @Mock
+    private IChannelRepository channelRepository;
+
+    @Mock
+    private IChannelService channelService;
+
+    private SubscriptionService service;
+
+    @BeforeEach
+    void setupService()
+    {
+        service = new SubscriptionService(subscriptionRepository, channelRepository, channelService, 60);
+    }
+
+    @Nested
+    @DisplayName("Test the create() method")
+    class Create
+    {
+        @Test
+        @DisplayName("The first subscription to a URL must create its channel, named after the feed, at the subscribed TTL")
+        void create_NewChannel()
+        {
+            var channel = new Channel("feed title", "url", 600).setId(1L).setOwnedBySubscriptions(true);
+
+            when(channelRepository.findOneByUrl("url")).thenReturn(Optional.empty());
+            when(channelService.create(any())).thenReturn(channel);
+            when(subscriptionRepository.findTightestTtl(1L)).thenReturn(Optional.of(600));
+
+            var result = service.create(new Subscription("tenant", null, "url", 600));
+
+            assertAll(
+                    () -> assertEquals(1L, result.getChannelId()),
+                    () -> assertEquals("feed title", result.getName()));
+
+            var created = ArgumentCaptor.forClass(Channel.class);
+            verify(channelService, times(1)).create(created.capture());
+            assertAll(
+                    () -> assertEquals("url", created.getValue().getUrl()),
+                    () -> assertEquals(600, created.getValue().getTtl()),
+                    () -> assertTrue(created.getValue().isOwnedBySubscriptions()));
+
+            verify(subscriptionRepository, times(1)).save(result);
+            verify(channelService, times(1)).adjustTtl(1L);
+        }
+
+        @Test
+        @DisplayName("Subscriptions to a subscribed URL must share its channel, refreshed at the tightest subscribed TTL")
+        void create_SharedChannel()
+        {
+            var channel = new Channel("feed title", "url", 600).setId(1L).setOwnedBySubscriptions(true);
+
+            when(channelRepository.findOneByUrl("url")).thenReturn(Optional.of(channel));
+            when(subscriptionRepository.existsByTenantAndChannelId("tenant2", 1L)).thenReturn(false);
+            when(subscriptionRepository.findTightestTtl(1L)).thenReturn(Optional.of(60));
+
+            var result = service.create(new Subscription("tenant2", "my feed", "url", 60));
+
+            assertAll(
+                    () -> assertEquals(1L, result.getChannelId()),
+                    () -> assertEquals("my feed", result.getName()));
+
+            verify(channelService, never()).create(any());
+            verify(channelService, times(1)).adjustTtl(1L);
+        }
+
+        @Test
+        @DisplayName("A subscription created without a TTL must be refreshed at the minimum subscription TTL")
+        void create_DefaultTtl()
+        {
+            var channel = new Channel("feed title", "url", 600).setId(1L);
+
+            when(channelRepository.findOneByUrl("url")).thenReturn(Optional.of(channel));
+            when(subscriptionRepository.findTightestTtl(1L)).thenReturn(Optional.of(60));
+
+            var result = service.create(new Subscription("tenant", "my feed", "url", null));
+
+            assertEquals(60, result.getTtl());
+        }
+
+        @Test
+        @DisplayName("An InvalidSubscriptionTtlException must be thrown if the TTL is below the minimum subscription TTL")
+        void create_TtlBelowMinimum()
+        {
+            assertThrows(InvalidSubscriptionTtlException.class, () -> service.create(new Subscription("tenant", "my feed", "url", 0)));
+
+            verifyNoInteractions(channelService, channelRepository);
+            verify(subscriptionRepository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("A DuplicatedSubscriptionException must be thrown if the tenant has already subscribed to the URL")
+        void create_Duplicated()
+        {
+            var channel = new Channel("feed title", "url", 600).setId(1L);
+
+            when(channelRepository.findOneByUrl("url")).thenReturn(Optional.of(channel));
+            when(subscriptionRepository.existsByTenantAndChannelId("tenant", 1L)).thenReturn(true);
+
+            assertThrows(DuplicatedSubscriptionException.class, () -> service.create(new Subscription("tenant", "my feed", "url", 600)));
+
+            verify(subscriptionRepository, never()).save(any());
+        }
+    }
+
+    @Nested
+    @DisplayName("Test the update() method")
+    class Update
+    {
+        @Test
+        @DisplayName("Updating a subscription must bring the TTL of its channel in line with its subscriptions")
+        void update_AdjustsChannelTtl()
+        {
+            var subscription = new Subscription("tenant", "my feed", "url", 60).setId(5L).setChannelId(1L);
+            var channel = new Channel("feed title", "url", 60).setId(1L).setOwnedBySubscriptions(true);
+
+            when(subscriptionRepository.findById(5L)).thenReturn(Optional.of(subscription));
+            when(channelService.get(1L)).thenReturn(channel);
+            when(subscriptionRepository.findTightestTtl(1L)).thenReturn(Optional.of(300));
+
+            var result = service.update(5L, " ", 600);
+
+            assertAll(
+                    () -> assertEquals("my feed", result.getName()),
+                    () -> assertEquals(600, result.getTtl()));
+
+            verify(channelService, times(1)).adjustTtl(1L);
+        }
+
+        @Test
+        @DisplayName("An InvalidSubscriptionTtlException must be thrown if the TTL is below the minimum subscription TTL")
+        void update_TtlBelowMinimum()
+        {
+            assertThrows(InvalidSubscriptionTtlException.class, () -> service.update(5L, "name", 59));
+
+            verifyNoInteractions(channelService);
+            verify(subscriptionRepository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("A SubscriptionNotFoundException must be thrown if the subscription is not found")
+        void update_NotFound()
+        {
+            when(subscriptionRepository.findById(5L)).thenReturn(Optional.empty());
+
+            assertThrows(SubscriptionNotFoundException.class, () -> service.update(5L, "name", 60));
+
+            verifyNoInteractions(channelService);
+        }
+    }
+
+    @Nested
+    @DisplayName("Test the delete() method")
+    class Delete
+    {
+        @Test
+        @DisplayName("A channel created for subscriptions must be deleted along with its last subscription")
+        void delete_LastSubscription()
+        {
+            var subscription = new Subscription("tenant", "my feed", "url", 60).setId(5L).setChannelId(1L);
+            var channel = new Channel("feed title", "url", 60).setId(1L).setOwnedBySubscriptions(true);
+
+            when(subscriptionRepository.findById(5L)).thenReturn(Optional.of(subscription));
+            when(channelService.get(1L)).thenReturn(channel);
+            when(subscriptionRepository.findTightestTtl(1L)).thenReturn(Optional.empty());
+
+            service.delete(5L);
+
+            verify(subscriptionRepository, times(1)).delete(subscription);
+            verify(channelService, times(1)).delete(1L);
+            verify(channelService, never()).adjustTtl(anyLong());
+        }
+
+        @Test
+        @DisplayName("A channel created through the channel API must be kept, back to its configured TTL, when its last subscription is deleted")
+        void delete_ChannelApiChannelIsKept()
+        {
+            var subscription = new Subscription("tenant", "my feed", "url", 60).setId(5L).setChannelId(1L);
+            var channel = new Channel("feed title", "url", 60).setId(1L);
+
+            when(subscriptionRepository.findById(5L)).thenReturn(Optional.of(subscription));
+            when(channelService.get(1L)).thenReturn(channel);
+            when(subscriptionRepository.findTightestTtl(1L)).thenReturn(Optional.empty());
+
+            service.delete(5L);
+
+            verify(channelService, never()).delete(anyLong());
+            verify(channelService, times(1)).adjustTtl(1L);
+        }
+    }
+}